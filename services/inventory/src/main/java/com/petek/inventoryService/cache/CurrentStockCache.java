@@ -0,0 +1,163 @@
+package com.petek.inventoryService.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.petek.inventoryService.dto.stock.CurrentStockResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded in-process cache of current stock snapshots.
+ *
+ * Writes evict the local copies after commit and are announced to other instances with
+ * pg_notify inside the writing transaction, so a rolled back write is never seen by
+ * anyone. Nothing is written through: two commits of the same product can finish their
+ * after-commit hooks in either order, and an older snapshot put last would stay until
+ * expiry (our own notifications are ignored). The next read loads the committed row.
+ * Payload format: {@code <instanceId>|<sentAtMillis>|<id>,<id>,...}
+ */
+@Component
+public class CurrentStockCache {
+
+    public static final String CHANNEL = "current_stock_changed";
+
+    // pg_notify payloads must stay below 8000 bytes
+    private static final int IDS_PER_NOTIFICATION = 500;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Cache<Long, CurrentStockResponse> cache;
+    private final JdbcTemplate jdbcTemplate;
+
+    public CurrentStockCache(
+        JdbcTemplate jdbcTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.stock-cache.max-size:100000}") long maxSize,
+        @Value("${inventory.stock-cache.expire-after-write:PT10M}") Duration expireAfterWrite
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+
+        // Expiry is only a safety net for notifications lost while the listener reconnects
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "currentStock");
+        meterRegistry.gauge("inventory.stock-cache.hit.ratio", cache, c -> c.stats().hitRate());
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Get a cached snapshot, loading it on a miss (a null load is not cached).
+     * Products written by the current transaction bypass the cache so uncommitted
+     * values are never stored.
+     */
+    public CurrentStockResponse get(Long productId, Function<Long, CurrentStockResponse> loader) {
+        PendingChanges pending = currentPendingChanges(false);
+        if (pending != null && pending.touches(productId)) {
+            return loader.apply(productId);
+        }
+        return cache.get(productId, loader);
+    }
+
+    /**
+     * Evict snapshots of changed products, once the transaction commits.
+     */
+    public void evict(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return;
+
+        PendingChanges pending = currentPendingChanges(true);
+        if (pending == null) {
+            cache.invalidateAll(productIds);
+            notifyOthers(productIds);
+            return;
+        }
+        pending.evictions.addAll(productIds);
+    }
+
+    /**
+     * Drop local copies changed by another instance.
+     */
+    public void invalidateLocal(Collection<Long> productIds) {
+        cache.invalidateAll(productIds);
+    }
+
+    /**
+     * Drop every local copy (e.g. notifications may have been missed).
+     */
+    public void invalidateAllLocal() {
+        cache.invalidateAll();
+    }
+
+    private void notifyOthers(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(productIds);
+        String prefix = instanceId + "|" + System.currentTimeMillis() + "|";
+
+        for (int from = 0; from < ids.size(); from += IDS_PER_NOTIFICATION) {
+            StringBuilder payload = new StringBuilder(prefix);
+            for (int i = from; i < Math.min(from + IDS_PER_NOTIFICATION, ids.size()); i++) {
+                if (i > from) payload.append(',');
+                payload.append(ids.get(i));
+            }
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, payload.toString());
+        }
+    }
+
+    private PendingChanges currentPendingChanges(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null && create) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Per-transaction write set; NOTIFY is sent before commit so it is delivered with it.
+     */
+    private class PendingChanges implements TransactionSynchronization {
+        private final Set<Long> evictions = new HashSet<>();
+
+        private boolean touches(Long productId) {
+            return evictions.contains(productId);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!evictions.isEmpty()) {
+                notifyOthers(evictions);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CurrentStockCache.this);
+            // Committed or not: a load racing the transaction may have cached either value
+            cache.invalidateAll(evictions);
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.petek.inventoryService.cache;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.petek.inventoryService.event.CurrentStockChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Listens on the current stock channel over a dedicated connection (outside the pool)
+ * and evicts local copies changed by other instances (also re-published locally for
+ * the stock stream).
+ */
+@Slf4j
+@Component
+public class CurrentStockInvalidationListener {
+
+    private static final int POLL_TIMEOUT_MILLIS = 5000;
+    private static final long RECONNECT_DELAY_MILLIS = 2000;
+
+    private final CurrentStockCache cache;
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+
+    private final Timer invalidationLag;
+    private final Counter invalidations;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public CurrentStockInvalidationListener(
+        CurrentStockCache cache,
+        DataSourceProperties dataSourceProperties,
+        ApplicationEventPublisher eventPublisher,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.stock-cache.listen-enabled:true}") boolean enabled
+    ) {
+        this.cache = cache;
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+
+        // Sender and receiver clocks differ across hosts; lag includes that skew
+        this.invalidationLag = Timer.builder("inventory.stock-cache.invalidation.lag")
+            .description("Time from a remote commit notification to the local eviction")
+            .register(meterRegistry);
+        this.invalidations = meterRegistry.counter("inventory.stock-cache.invalidations");
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+
+        running = true;
+        worker = Thread.ofPlatform()
+            .name("current-stock-listener")
+            .daemon(true)
+            .start(this::listen);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (worker != null) worker.interrupt();
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+
+                if (!connection.isWrapperFor(PGConnection.class)) {
+                    log.warn("Current stock cache invalidation needs PostgreSQL, listener disabled");
+                    return;
+                }
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CurrentStockCache.CHANNEL);
+                }
+
+                // Anything changed while we were not listening is unknown
+                cache.invalidateAllLocal();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) continue;
+
+                    for (PGNotification notification : notifications) {
+                        handle(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Current stock listener connection lost, reconnecting: {}", e.getMessage());
+                cache.invalidateAllLocal();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed current stock notification: {}", payload);
+            return;
+        }
+
+        // Own writes are already applied write-through
+        if (parts[0].equals(cache.getInstanceId())) return;
+
+        List<Long> productIds = Arrays.stream(parts[2].split(","))
+            .map(Long::valueOf)
+            .toList();
+        cache.invalidateLocal(productIds);
+        eventPublisher.publishEvent(CurrentStockChangedEvent.reload(productIds));
+
+        invalidations.increment(productIds.size());
+        invalidationLag.record(Math.max(0, System.currentTimeMillis() - Long.parseLong(parts[1])), TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,459 @@
+package com.petek.inventoryService.combiner;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import com.petek.inventoryService.service.AdvisoryLockService;
+import com.petek.inventoryService.utils.Quantity;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Group commit for order line reservations.
+ *
+ * Callers enqueue on a lock-free queue and park; one flusher collects what arrives
+ * within a short window (or up to the batch size) and applies it in one transaction on
+ * its own connection: product advisory stripes and snapshot rows are taken in order,
+ * requests are granted per product in arrival order while they fit, and each grant is
+ * written as an expiring stock_reservations row for the caller's line in the same
+ * statement that adds the granted totals to current_stock. The caller claims that row
+ * in its own transaction (sets the real expiry). If the caller rolls back, the grant is
+ * deleted by id with the next batch; if the process dies first, the grant simply
+ * expires and the reservation sweep gives its quantity back.
+ *
+ * The flusher never takes a pool connection, so callers waiting with a pool connection
+ * in hand cannot starve it, and it never waits for a lock: requests whose stripe, row
+ * or grant is busy (or whose row is missing) are handed back and the caller reserves
+ * directly. A caller that gives up is skipped unless its request was already taken
+ * into a batch.
+ */
+@Slf4j
+@Component
+public class ReservationCombiner {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private static final int PENDING = 0;
+    private static final int CLAIMED = 1;
+    private static final int CANCELLED = 2;
+
+    // Quantities travel as BIGINT thousandths, like Quantity. Rows locked by someone else are
+    // skipped: the caller may hold that lock itself while it waits for us
+    private static final String LOCK_SQL =
+        "SELECT product_id, CAST(quantity_available * 1000 AS BIGINT) AS available FROM current_stock " +
+        "WHERE product_id = ANY(?) ORDER BY product_id FOR UPDATE SKIP LOCKED";
+
+    // Grants of rolled back callers; reservation rows before snapshot rows, like expiry
+    private static final String LOCK_GRANTS_SQL =
+        "SELECT reservation_id FROM stock_reservations WHERE reservation_id = ANY(?) ORDER BY reservation_id FOR UPDATE SKIP LOCKED";
+
+    private static final String RELEASE_SQL =
+        "WITH released AS ( " +
+        "  DELETE FROM stock_reservations WHERE reservation_id = ANY(?) RETURNING product_id, quantity " +
+        ") " +
+        "UPDATE current_stock cs " +
+        "SET quantity_reserved = cs.quantity_reserved - p.quantity, last_updated = now() " +
+        "FROM (SELECT product_id, SUM(quantity) AS quantity FROM released GROUP BY product_id) p " +
+        "WHERE cs.product_id = p.product_id";
+
+    // One grant row per line (a line that already has one is not granted), totals onto the snapshot
+    private static final String GRANT_SQL =
+        "WITH granted AS ( " +
+        "  INSERT INTO stock_reservations (product_id, sales_order_id, sales_order_item_id, quantity, expires_at, created_at) " +
+        "  SELECT g.product_id, g.sales_order_id, g.sales_order_item_id, g.quantity, now() + make_interval(secs => ?), now() " +
+        "  FROM unnest(CAST(? AS BIGINT[]), CAST(? AS BIGINT[]), CAST(? AS BIGINT[]), CAST(? AS NUMERIC[])) " +
+        "    AS g(product_id, sales_order_id, sales_order_item_id, quantity) " +
+        "  ON CONFLICT (sales_order_item_id) DO NOTHING " +
+        "  RETURNING reservation_id, product_id, sales_order_item_id, quantity " +
+        "), applied AS ( " +
+        "  UPDATE current_stock cs " +
+        "  SET quantity_reserved = cs.quantity_reserved + p.quantity, last_updated = now() " +
+        "  FROM (SELECT product_id, SUM(quantity) AS quantity FROM granted GROUP BY product_id) p " +
+        "  WHERE cs.product_id = p.product_id " +
+        ") " +
+        "SELECT sales_order_item_id, reservation_id FROM granted";
+
+    private final DataSourceProperties dataSourceProperties;
+    private final AdvisoryLockService advisoryLockService;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long waitTimeoutMillis;
+    private final double grantTtlSeconds;
+
+    private final DistributionSummary batchSize;
+    private final Timer addedLatency;
+
+    private final ConcurrentLinkedQueue<Request> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private volatile boolean running;
+    private volatile Thread flusher;
+    private Connection connection;
+
+    public ReservationCombiner(
+        DataSourceProperties dataSourceProperties,
+        AdvisoryLockService advisoryLockService,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.reservation-combiner.enabled:true}") boolean enabled,
+        @Value("${inventory.reservation-combiner.window:PT0.002S}") Duration window,
+        @Value("${inventory.reservation-combiner.max-batch-size:256}") int maxBatchSize,
+        @Value("${inventory.reservation-combiner.wait-timeout:PT5S}") Duration waitTimeout,
+        @Value("${inventory.reservation-combiner.grant-ttl:PT1M}") Duration grantTtl
+    ) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.advisoryLockService = advisoryLockService;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+        this.grantTtlSeconds = grantTtl.toMillis() / 1000.0;
+
+        this.batchSize = DistributionSummary.builder("inventory.reservation-combiner.batch.size")
+            .description("Requests applied per combined transaction")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.addedLatency = Timer.builder("inventory.reservation-combiner.wait")
+            .description("Time from enqueue until the combined outcome is known")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+
+        running = true;
+        flusher = Thread.ofPlatform()
+            .name("reservation-combiner")
+            .daemon(true)
+            .start(this::run);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (flusher != null) flusher.interrupt();
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Reserve a line through the next batch. Returns the id of the committed grant row the
+     * caller has to claim, or null if the stock is not there. Throws IllegalStateException
+     * when the request was not applied (stripe, row or line busy, row missing, batch failed,
+     * wait timed out); nothing was reserved and the caller goes direct.
+     */
+    public Long reserve(Long productId, Long salesOrderId, Long salesOrderItemId, BigDecimal quantity) {
+        Request request = new Request(productId, Quantity.toUnits(quantity), salesOrderId, salesOrderItemId);
+        enqueue(request);
+
+        try {
+            return request.result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (request.state.compareAndSet(PENDING, CANCELLED)) {
+                throw new IllegalStateException("Combined reservation timed out");
+            }
+            // Already in a batch; its outcome is about to be known
+            return join(request);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Combined reservation failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (request.state.compareAndSet(PENDING, CANCELLED)) {
+                throw new IllegalStateException("Combined reservation interrupted");
+            }
+            return join(request);
+        }
+    }
+
+    /**
+     * Give a grant back (the caller's transaction rolled back); deleted with the next batch.
+     * A grant that expired meanwhile is already gone and gives nothing back twice.
+     */
+    public void release(Long productId, Long reservationId) {
+        Request request = new Request(productId, reservationId);
+        request.state.set(CLAIMED);
+        enqueue(request);
+    }
+
+    private Long join(Request request) {
+        try {
+            return request.result.join();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Combined reservation failed", e);
+        }
+    }
+
+    private void enqueue(Request request) {
+        queue.add(request);
+        int size = queued.incrementAndGet();
+        // Wake the flusher on the first request (idle) and when a batch is full (cut the window short)
+        if (size == 1 || size == maxBatchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (queue.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            while (queued.get() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+
+            List<Request> batch = new ArrayList<>(Math.min(queued.get(), maxBatchSize));
+            Request request;
+            while (batch.size() < maxBatchSize && (request = queue.poll()) != null) {
+                queued.decrementAndGet();
+                batch.add(request);
+            }
+
+            apply(batch);
+        }
+    }
+
+    private void apply(List<Request> batch) {
+        // Per product in id order, each in arrival order; releases carry no waiter and are pre-claimed
+        Map<Long, List<Request>> byProduct = new TreeMap<>();
+        for (Request request : batch) {
+            if (!request.isRelease() && !request.state.compareAndSet(PENDING, CLAIMED)) continue;
+            byProduct.computeIfAbsent(request.productId, id -> new ArrayList<>()).add(request);
+        }
+        if (byProduct.isEmpty()) return;
+
+        Map<Request, Long> outcomes = new HashMap<>();
+        List<Request> skipped = new ArrayList<>();
+        try {
+            Connection connection = connection();
+            Set<Long> stripesHeld = advisoryLockService.tryLockProducts(connection, byProduct.keySet());
+            Map<Long, Long> available = lock(connection, LOCK_SQL, stripesHeld, rs -> rs.getLong("available"));
+
+            List<Request> releases = new ArrayList<>();
+            List<Request> grants = new ArrayList<>();
+
+            for (Map.Entry<Long, List<Request>> entry : byProduct.entrySet()) {
+                Long left = available.get(entry.getKey());
+                if (left == null) {
+                    skipped.addAll(entry.getValue());
+                    continue;
+                }
+                for (Request request : entry.getValue()) {
+                    if (request.isRelease()) {
+                        // Counted as available with the next batch, once really deleted
+                        releases.add(request);
+                        continue;
+                    }
+                    if (left >= request.units) {
+                        left -= request.units;
+                        grants.add(request);
+                    } else {
+                        outcomes.put(request, null);
+                    }
+                }
+            }
+
+            release(connection, releases, skipped);
+            grant(connection, grants, outcomes, skipped);
+            connection.commit();
+        } catch (SQLException e) {
+            log.warn("Combined reservation batch of {} failed: {}", batch.size(), e.getMessage());
+            reset();
+            byProduct.values().forEach(requests -> handBack(requests, e));
+            pauseAfterFailure();
+            return;
+        }
+
+        handBack(skipped, new IllegalStateException("Stock row, lock or line busy or missing"));
+
+        batchSize.record(outcomes.size());
+        long now = System.nanoTime();
+        outcomes.forEach((request, reservationId) -> {
+            addedLatency.record(now - request.enqueuedNanos, TimeUnit.NANOSECONDS);
+            request.result.complete(reservationId);
+        });
+    }
+
+    private void release(Connection connection, List<Request> releases, List<Request> skipped) throws SQLException {
+        if (releases.isEmpty()) return;
+
+        Map<Long, Request> byReservationId = new HashMap<>();
+        releases.forEach(request -> byReservationId.put(request.reservationId, request));
+        // A grant locked by someone else (e.g. allocation) is tried again with the next batch
+        Set<Long> locked = lock(connection, LOCK_GRANTS_SQL, byReservationId.keySet(), rs -> true).keySet();
+        byReservationId.forEach((reservationId, request) -> {
+            if (!locked.contains(reservationId)) skipped.add(request);
+        });
+        if (locked.isEmpty()) return;
+
+        try (PreparedStatement statement = connection.prepareStatement(RELEASE_SQL)) {
+            statement.setArray(1, connection.createArrayOf("bigint", locked.toArray(Long[]::new)));
+            statement.executeUpdate();
+        }
+    }
+
+    private void grant(Connection connection, List<Request> grants, Map<Request, Long> outcomes, List<Request> skipped)
+        throws SQLException {
+        if (grants.isEmpty()) return;
+
+        Map<Long, Request> byItemId = new HashMap<>();
+        grants.forEach(request -> byItemId.put(request.salesOrderItemId, request));
+
+        try (PreparedStatement statement = connection.prepareStatement(GRANT_SQL)) {
+            statement.setDouble(1, grantTtlSeconds);
+            statement.setArray(2, connection.createArrayOf("bigint", grants.stream().map(r -> r.productId).toArray(Long[]::new)));
+            statement.setArray(3, connection.createArrayOf("bigint", grants.stream().map(r -> r.salesOrderId).toArray(Long[]::new)));
+            statement.setArray(4, connection.createArrayOf("bigint", grants.stream().map(r -> r.salesOrderItemId).toArray(Long[]::new)));
+            statement.setArray(5, connection.createArrayOf("numeric", grants.stream().map(r -> Quantity.toBigDecimal(r.units)).toArray(BigDecimal[]::new)));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    outcomes.put(byItemId.remove(rs.getLong("sales_order_item_id")), rs.getLong("reservation_id"));
+                }
+            }
+        }
+        // Lines that already hold a reservation: not applied, the caller's direct path decides
+        skipped.addAll(byItemId.values());
+    }
+
+    private void handBack(List<Request> requests, Exception cause) {
+        for (Request request : requests) {
+            if (request.isRelease()) {
+                // Releases are retried with the next batch (until then the grant can also expire)
+                queue.add(request);
+                queued.incrementAndGet();
+            } else {
+                request.result.completeExceptionally(cause);
+            }
+        }
+    }
+
+    // Ids locked by a FOR UPDATE SKIP LOCKED query, with a value read from each locked row
+    private <T> Map<Long, T> lock(Connection connection, String sql, Collection<Long> ids, RowValue<T> value) throws SQLException {
+        Map<Long, T> locked = new HashMap<>();
+        if (ids.isEmpty()) return locked;
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            Array array = connection.createArrayOf("bigint", ids.toArray(Long[]::new));
+            statement.setArray(1, array);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    locked.put(rs.getLong(1), value.read(rs));
+                }
+            }
+        }
+        return locked;
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword());
+            connection.setAutoCommit(false);
+            // Never wait: a grant racing the caller's own uncommitted line change fails the batch instead
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET lock_timeout = '100ms'");
+            }
+        }
+        return connection;
+    }
+
+    private void reset() {
+        if (connection == null) return;
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+            // Closed below either way
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Reconnected with the next batch
+        }
+        connection = null;
+    }
+
+    private void pauseAfterFailure() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowValue<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    private static final class Request {
+        private final Long productId;
+        private final long units;
+        private final Long salesOrderId;
+        private final Long salesOrderItemId;
+        private final Long reservationId;
+        private final long enqueuedNanos = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        private Request(Long productId, long units, Long salesOrderId, Long salesOrderItemId) {
+            this.productId = productId;
+            this.units = units;
+            this.salesOrderId = salesOrderId;
+            this.salesOrderItemId = salesOrderItemId;
+            this.reservationId = null;
+        }
+
+        private Request(Long productId, Long reservationId) {
+            this.productId = productId;
+            this.units = 0;
+            this.salesOrderId = null;
+            this.salesOrderItemId = null;
+            this.reservationId = reservationId;
+        }
+
+        private boolean isRelease() {
+            return reservationId != null;
+        }
+    }
+
+}
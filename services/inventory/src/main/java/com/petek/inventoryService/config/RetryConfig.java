@@ -0,0 +1,43 @@
+package com.petek.inventoryService.config;
+
+import java.time.Duration;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import com.petek.inventoryService.retry.ConflictRetryInterceptor;
+import com.petek.inventoryService.retry.RetryOnConflict;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class RetryConfig {
+
+    /**
+     * Wraps @RetryOnConflict methods outside the transaction advice, so every attempt
+     * runs in a new transaction.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor conflictRetryAdvisor(
+        ObjectProvider<MeterRegistry> meterRegistry,
+        @Value("${inventory.retry.max-attempts:4}") int maxAttempts,
+        @Value("${inventory.retry.initial-backoff:PT0.01S}") Duration initialBackoff,
+        @Value("${inventory.retry.max-backoff:PT0.2S}") Duration maxBackoff
+    ) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+            AnnotationMatchingPointcut.forMethodAnnotation(RetryOnConflict.class),
+            new ConflictRetryInterceptor(meterRegistry, maxAttempts, initialBackoff, maxBackoff));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
+    }
+
+}
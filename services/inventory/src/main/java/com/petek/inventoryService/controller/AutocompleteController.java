@@ -0,0 +1,35 @@
+package com.petek.inventoryService.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.petek.inventoryService.dto.autocomplete.AutocompleteItemResponse;
+import com.petek.inventoryService.dto.autocomplete.AutocompleteRequest;
+import com.petek.inventoryService.service.AutocompleteService;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/autocomplete")
+@RequiredArgsConstructor
+public class AutocompleteController {
+
+    private final AutocompleteService service;
+
+    /**
+     * Names of products, customers or suppliers with a word starting with the prefix.
+     */
+    @GetMapping
+    public ResponseEntity<List<AutocompleteItemResponse>> autocomplete(
+        @ModelAttribute @Valid AutocompleteRequest request
+    ) {
+        return ResponseEntity.ok(service.autocomplete(request));
+    }
+
+}
@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.petek.inventoryService.dto.PageResponse;
 import com.petek.inventoryService.dto.campaign.CampaignCreateRequest;
@@ -21,6 +22,7 @@ import com.petek.inventoryService.dto.campaign.CampaignProductFilterRequest;
 import com.petek.inventoryService.dto.campaign.CampaignProductItemResponse;
 import com.petek.inventoryService.dto.campaign.CampaignResponse;
 import com.petek.inventoryService.dto.campaign.CampaignUpdateRequest;
+import com.petek.inventoryService.service.ConditionalGetService;
 import com.petek.inventoryService.service.CampaignService;
 
 import jakarta.validation.Valid;
@@ -32,15 +34,18 @@ import lombok.RequiredArgsConstructor;
 public class CampaignController {
     
     private final CampaignService service;
+    private final ConditionalGetService conditionalGetService;
 
     /**
      * Get all campaign.
      */
     @GetMapping
     public ResponseEntity<PageResponse<CampaignResponse>> getCampaigns(
-        @ModelAttribute @Valid CampaignFilterRequest request
+        @ModelAttribute @Valid CampaignFilterRequest request,
+        WebRequest webRequest
     ) {
-        return ResponseEntity.ok(service.getAllCampaigns(request));
+        return conditionalGetService.weak(webRequest, "campaigns", service.getCampaignsVersion(request),
+            () -> service.getAllCampaigns(request));
     }
 
     /**
@@ -58,9 +63,11 @@ public class CampaignController {
      */
     @GetMapping("/{campaignId}")
     public ResponseEntity<CampaignResponse> getCampaignById(
-        @PathVariable Long campaignId
+        @PathVariable Long campaignId,
+        WebRequest webRequest
     ) {
-        return ResponseEntity.ok(service.getCampaignById(campaignId));
+        return conditionalGetService.strong(webRequest, "campaign", service.getCampaignVersion(campaignId),
+            () -> service.getCampaignById(campaignId));
     }
 
     /**
@@ -1,15 +1,29 @@
 package com.petek.inventoryService.controller;
 
+import java.util.List;
+
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.petek.inventoryService.dto.PageResponse;
 import com.petek.inventoryService.dto.stock.CurrentStockFilterRequest;
 import com.petek.inventoryService.dto.stock.CurrentStockResponse;
+import com.petek.inventoryService.dto.stock.HotStockSuggestion;
+import com.petek.inventoryService.dto.stock.StockBucketRequest;
+import com.petek.inventoryService.dto.stock.StockBucketResponse;
 import com.petek.inventoryService.service.CurrentStockService;
+import com.petek.inventoryService.service.CurrentStockStreamService;
+import com.petek.inventoryService.service.HotStockService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +34,8 @@ import lombok.RequiredArgsConstructor;
 public class CurrentStockController {
     
     private final CurrentStockService service;
+    private final CurrentStockStreamService streamService;
+    private final HotStockService hotStockService;
 
     /**
      * Get all current stocks.
@@ -31,4 +47,44 @@ public class CurrentStockController {
         return ResponseEntity.ok(service.getAllCurrentStocks(request));
     }
 
+    /**
+     * Get the hot SKU buckets of a product.
+     */
+    @GetMapping("/{productId}/buckets")
+    public ResponseEntity<StockBucketResponse> getStockBuckets(
+        @PathVariable Long productId
+    ) {
+        return ResponseEntity.ok(hotStockService.getBuckets(productId));
+    }
+
+    /**
+     * Turn hot SKU mode on / resize it (bucketCount > 0) or off (0).
+     */
+    @PutMapping("/{productId}/buckets")
+    public ResponseEntity<StockBucketResponse> updateStockBuckets(
+        @PathVariable Long productId,
+        @RequestBody @Valid StockBucketRequest request
+    ) {
+        return ResponseEntity.ok(hotStockService.configure(productId, request.getBucketCount()));
+    }
+
+    /**
+     * Get products suggested for hot SKU mode from row lock waits.
+     */
+    @GetMapping("/hot-suggestions")
+    public ResponseEntity<List<HotStockSuggestion>> getHotStockSuggestions() {
+        return ResponseEntity.ok(hotStockService.getSuggestions());
+    }
+
+    /**
+     * Stream committed stock changes (SSE), resumable with Last-Event-ID.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCurrentStock(
+        @RequestParam(required = false) List<Long> productId,
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return streamService.subscribe(productId, lastEventId);
+    }
+
 }
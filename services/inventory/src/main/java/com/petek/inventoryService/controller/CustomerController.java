@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.petek.inventoryService.dto.PageResponse;
 import com.petek.inventoryService.dto.customer.CustomerCreateRequest;
@@ -18,6 +19,7 @@ import com.petek.inventoryService.dto.customer.CustomerResponse;
 import com.petek.inventoryService.dto.customer.CustomerUpdateRequest;
 import com.petek.inventoryService.dto.customerSpecialOffer.CustomerSpecialOfferCustomerFilterRequest;
 import com.petek.inventoryService.dto.customerSpecialOffer.CustomerSpecialOfferResponse;
+import com.petek.inventoryService.service.ConditionalGetService;
 import com.petek.inventoryService.service.CustomerService;
 import com.petek.inventoryService.service.CustomerSpecialOfferService;
 
@@ -32,15 +34,18 @@ public class CustomerController {
     private final CustomerService service;
 
     private final CustomerSpecialOfferService customerSpecialOfferService;
+    private final ConditionalGetService conditionalGetService;
 
     /**
      * Get all products.
      */
     @GetMapping
     public ResponseEntity<PageResponse<CustomerResponse>> getCustomers(
-        @ModelAttribute @Valid CustomerFilterRequest request
+        @ModelAttribute @Valid CustomerFilterRequest request,
+        WebRequest webRequest
     ) {
-        return ResponseEntity.ok(service.getCustomers(request));
+        return conditionalGetService.weak(webRequest, "customers", service.getCustomersVersion(request),
+            () -> service.getCustomers(request));
     }
 
     /**
@@ -58,9 +63,11 @@ public class CustomerController {
      */
     @GetMapping("/{customerId}")
     public ResponseEntity<CustomerResponse> getCustomerById(
-        @PathVariable Long customerId
+        @PathVariable Long customerId,
+        WebRequest webRequest
     ) {
-        return ResponseEntity.ok(service.getCustomerById(customerId));
+        return conditionalGetService.strong(webRequest, "customer", service.getCustomerVersion(customerId),
+            () -> service.getCustomerById(customerId));
     }
 
     /**
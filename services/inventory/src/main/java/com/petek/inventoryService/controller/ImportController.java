@@ -0,0 +1,62 @@
+package com.petek.inventoryService.controller;
+
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.petek.inventoryService.dto.bulkImport.ImportReportResponse;
+import com.petek.inventoryService.dto.bulkImport.ImportReportResponse.ImportType;
+import com.petek.inventoryService.service.BulkImportService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/imports")
+@RequiredArgsConstructor
+public class ImportController {
+
+    private static final String TEXT_CSV = "text/csv";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final BulkImportService service;
+
+    /**
+     * Import products (rows with a productId update that product).
+     */
+    @PostMapping(value = "/products", consumes = { TEXT_CSV, APPLICATION_NDJSON })
+    public ResponseEntity<ImportReportResponse> importProducts(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+        InputStream body
+    ) {
+        return ResponseEntity.ok(service.importRows(ImportType.PRODUCTS, contentType, body));
+    }
+
+    /**
+     * Import suppliers (matched on email).
+     */
+    @PostMapping(value = "/suppliers", consumes = { TEXT_CSV, APPLICATION_NDJSON })
+    public ResponseEntity<ImportReportResponse> importSuppliers(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+        InputStream body
+    ) {
+        return ResponseEntity.ok(service.importRows(ImportType.SUPPLIERS, contentType, body));
+    }
+
+    /**
+     * Import product-supplier links (product by id or name, supplier by id or email).
+     */
+    @PostMapping(value = "/product-suppliers", consumes = { TEXT_CSV, APPLICATION_NDJSON })
+    public ResponseEntity<ImportReportResponse> importProductSuppliers(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+        InputStream body
+    ) {
+        return ResponseEntity.ok(service.importRows(ImportType.PRODUCT_SUPPLIERS, contentType, body));
+    }
+
+}
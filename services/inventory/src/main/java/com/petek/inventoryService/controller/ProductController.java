@@ -1,19 +1,26 @@
 package com.petek.inventoryService.controller;
 
+import java.time.Instant;
 import java.util.List;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.petek.inventoryService.dto.CursorPageResponse;
 import com.petek.inventoryService.dto.PageResponse;
+import com.petek.inventoryService.dto.product.ProductBulkUpdateRequest;
+import com.petek.inventoryService.dto.product.ProductBulkUpdateResponse;
 import com.petek.inventoryService.dto.product.ProductCreateRequest;
 import com.petek.inventoryService.dto.product.ProductFilterRequest;
 import com.petek.inventoryService.dto.product.ProductGetSuppliersFilterRequest;
@@ -22,11 +29,14 @@ import com.petek.inventoryService.dto.product.ProductResponse;
 import com.petek.inventoryService.dto.product.ProductSupplierItemResponse;
 import com.petek.inventoryService.dto.product.ProductUpdateRequest;
 import com.petek.inventoryService.dto.stock.CurrentStockResponse;
+import com.petek.inventoryService.dto.stock.StockAsOfResponse;
 import com.petek.inventoryService.dto.stock.StockMovementFilterRequest;
 import com.petek.inventoryService.dto.stock.StockMovementResponse;
+import com.petek.inventoryService.service.ConditionalGetService;
 import com.petek.inventoryService.service.CurrentStockService;
 import com.petek.inventoryService.service.ProductService;
 import com.petek.inventoryService.service.ProductSupplierService;
+import com.petek.inventoryService.service.StockCheckpointService;
 import com.petek.inventoryService.service.StockMovementService;
 
 import jakarta.validation.Valid;
@@ -41,15 +51,29 @@ public class ProductController {
     private final ProductSupplierService productSupplierService;
     private final StockMovementService stockMovementService;
     private final CurrentStockService currentStockService;
+    private final StockCheckpointService stockCheckpointService;
+    private final ConditionalGetService conditionalGetService;
 
     /**
      * Get all products.
      */
     @GetMapping
     public ResponseEntity<PageResponse<ProductItemResponse>> getProducts(
+        @ModelAttribute @Valid ProductFilterRequest request,
+        WebRequest webRequest
+    ) {
+        return conditionalGetService.weak(webRequest, "products", service.getProductsVersion(request),
+            () -> service.getAllProducts(request));
+    }
+
+    /**
+     * Search products (ranked, keyset paged with "after").
+     */
+    @GetMapping("/search")
+    public ResponseEntity<CursorPageResponse<ProductItemResponse>> searchProducts(
         @ModelAttribute @Valid ProductFilterRequest request
     ) {
-        return ResponseEntity.ok(service.getAllProducts(request));
+        return ResponseEntity.ok(service.searchProducts(request));
     }
 
     /**
@@ -62,14 +86,26 @@ public class ProductController {
         return ResponseEntity.status(201).body(service.createProduct(request));
     }
 
+    /**
+     * Update price / safety stock / reorder point of many products (filter + expression or id list).
+     */
+    @PatchMapping
+    public ResponseEntity<ProductBulkUpdateResponse> bulkUpdateProducts(
+        @RequestBody @Valid ProductBulkUpdateRequest request
+    ) {
+        return ResponseEntity.ok(service.bulkUpdateProducts(request));
+    }
+
     /**
      * Get a product by ID.
      */
     @GetMapping("/{productId}")
     public ResponseEntity<ProductResponse> getProductById(
-        @PathVariable Long productId
+        @PathVariable Long productId,
+        WebRequest webRequest
     ) {
-        return ResponseEntity.ok(service.getProductById(productId));
+        return conditionalGetService.strong(webRequest, "product", service.getProductVersion(productId),
+            () -> service.getProductById(productId));
     }
 
     /**
@@ -117,6 +153,30 @@ public class ProductController {
         return ResponseEntity.ok(stockMovementService.getAllStockMovements(request));
     }
 
+    /**
+     * Get stock movements after a cursor (a blank cursor starts at the newest).
+     */
+    @GetMapping(value = "/{productId}/stock-movements", params = "after")
+    public ResponseEntity<CursorPageResponse<StockMovementResponse>> getStockMovementsAfter(
+        @PathVariable Long productId,
+        @ModelAttribute @Valid StockMovementFilterRequest request
+    ) {
+        request.setProductId(List.of(productId));
+        return ResponseEntity.ok(stockMovementService.getStockMovementsByCursor(request));
+    }
+
+    /**
+     * Get stock movements before a cursor.
+     */
+    @GetMapping(value = "/{productId}/stock-movements", params = { "before", "!after" })
+    public ResponseEntity<CursorPageResponse<StockMovementResponse>> getStockMovementsBefore(
+        @PathVariable Long productId,
+        @ModelAttribute @Valid StockMovementFilterRequest request
+    ) {
+        request.setProductId(List.of(productId));
+        return ResponseEntity.ok(stockMovementService.getStockMovementsByCursor(request));
+    }
+
     /**
      * Get current stock.
      */
@@ -127,4 +187,15 @@ public class ProductController {
         return ResponseEntity.ok(currentStockService.getCurrentStockById(productId));
     }
 
+    /**
+     * Get stock as of a past timestamp.
+     */
+    @GetMapping(value = "/{productId}/stock", params = "asOf")
+    public ResponseEntity<StockAsOfResponse> getStockAsOf(
+        @PathVariable Long productId,
+        @RequestParam Instant asOf
+    ) {
+        return ResponseEntity.ok(stockCheckpointService.getStockAsOf(productId, asOf));
+    }
+
 }
@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.petek.inventoryService.dto.PageResponse;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderAllocationResponse;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderCreateRequest;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderFilterRequest;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderItemCreateRequest;
@@ -76,6 +77,16 @@ public class SalesOrderController {
         return ResponseEntity.ok(service.updateSalesOrder(salesOrderId, request));
     }
 
+    /**
+     * Allocate a sales order (all lines or none).
+     */
+    @PostMapping("/{salesOrderId}/allocation")
+    public ResponseEntity<SalesOrderAllocationResponse> allocateSalesOrder(
+        @PathVariable Long salesOrderId
+    ) {
+        return ResponseEntity.ok(service.allocateSalesOrder(salesOrderId));
+    }
+
     /**
      * Delete a sales order.
      */
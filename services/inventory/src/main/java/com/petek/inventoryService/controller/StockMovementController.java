@@ -8,7 +8,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.petek.inventoryService.dto.CursorPageResponse;
 import com.petek.inventoryService.dto.PageResponse;
+import com.petek.inventoryService.dto.stock.StockAdjustmentBatchRequest;
+import com.petek.inventoryService.dto.stock.StockAdjustmentBatchResponse;
 import com.petek.inventoryService.dto.stock.StockMovementCreateRequest;
 import com.petek.inventoryService.dto.stock.StockMovementFilterRequest;
 import com.petek.inventoryService.dto.stock.StockMovementResponse;
@@ -34,6 +37,26 @@ public class StockMovementController {
         return ResponseEntity.ok(service.getAllStockMovements(request));
     }
 
+    /**
+     * Get stock movements after a cursor (a blank cursor starts at the newest).
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageResponse<StockMovementResponse>> getStockMovementsAfter(
+        @ModelAttribute @Valid StockMovementFilterRequest request
+    ) {
+        return ResponseEntity.ok(service.getStockMovementsByCursor(request));
+    }
+
+    /**
+     * Get stock movements before a cursor.
+     */
+    @GetMapping(params = { "before", "!after" })
+    public ResponseEntity<CursorPageResponse<StockMovementResponse>> getStockMovementsBefore(
+        @ModelAttribute @Valid StockMovementFilterRequest request
+    ) {
+        return ResponseEntity.ok(service.getStockMovementsByCursor(request));
+    }
+
     /**
      * Create a new stock movement.
      */
@@ -44,4 +67,14 @@ public class StockMovementController {
         return ResponseEntity.ok(service.createStockMovement(request));
     }
 
+    /**
+     * Create a batch of stock adjustments.
+     */
+    @PostMapping("/adjustments")
+    public ResponseEntity<StockAdjustmentBatchResponse> createStockAdjustments(
+        @RequestBody @Valid StockAdjustmentBatchRequest request
+    ) {
+        return ResponseEntity.ok(service.createStockAdjustments(request));
+    }
+
 }
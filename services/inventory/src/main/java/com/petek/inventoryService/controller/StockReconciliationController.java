@@ -0,0 +1,45 @@
+package com.petek.inventoryService.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.petek.inventoryService.dto.reconciliation.StockReconciliationRequest;
+import com.petek.inventoryService.dto.reconciliation.StockReconciliationResponse;
+import com.petek.inventoryService.service.StockReconciliationService;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/stock-reconciliations")
+@RequiredArgsConstructor
+public class StockReconciliationController {
+
+    private final StockReconciliationService service;
+
+    /**
+     * Start a ledger vs snapshot reconciliation run.
+     */
+    @PostMapping
+    public ResponseEntity<StockReconciliationResponse> startReconciliation(
+        @RequestBody @Valid StockReconciliationRequest request
+    ) {
+        return ResponseEntity.accepted().body(service.startReconciliation(request));
+    }
+
+    /**
+     * Get progress or report of a reconciliation run.
+     */
+    @GetMapping("/{runId}")
+    public ResponseEntity<StockReconciliationResponse> getReconciliation(
+        @PathVariable String runId
+    ) {
+        return ResponseEntity.ok(service.getReconciliation(runId));
+    }
+
+}
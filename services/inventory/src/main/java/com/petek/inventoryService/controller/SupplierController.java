@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.petek.inventoryService.dto.PageResponse;
 import com.petek.inventoryService.dto.supplier.SupplierCreateRequest;
@@ -19,6 +20,7 @@ import com.petek.inventoryService.dto.supplier.SupplierProductItemResponse;
 import com.petek.inventoryService.dto.supplier.SupplierResponse;
 import com.petek.inventoryService.dto.supplier.SupplierUpdateRequest;
 import com.petek.inventoryService.service.ProductSupplierService;
+import com.petek.inventoryService.service.ConditionalGetService;
 import com.petek.inventoryService.service.SupplierService;
 
 import jakarta.validation.Valid;
@@ -31,15 +33,18 @@ public class SupplierController {
 
     private final SupplierService service;
     private final ProductSupplierService productSupplierService;
+    private final ConditionalGetService conditionalGetService;
 
     /**
      * Get all suppliers.
      */
     @GetMapping
     public ResponseEntity<PageResponse<SupplierResponse>> getSuppliers(
-        @ModelAttribute @Valid SupplierFilterRequest request
+        @ModelAttribute @Valid SupplierFilterRequest request,
+        WebRequest webRequest
     ) {
-        return ResponseEntity.ok(service.getAllSUppliers(request));
+        return conditionalGetService.weak(webRequest, "suppliers", service.getSuppliersVersion(request),
+            () -> service.getAllSUppliers(request));
     }
 
     /**
@@ -57,9 +62,11 @@ public class SupplierController {
      */
     @GetMapping("/{supplierId}")
     public ResponseEntity<SupplierResponse> getSupplierById(
-        @PathVariable Long supplierId
+        @PathVariable Long supplierId,
+        WebRequest webRequest
     ) {
-        return ResponseEntity.ok(service.getSupplierById(supplierId));
+        return conditionalGetService.strong(webRequest, "supplier", service.getSupplierVersion(supplierId),
+            () -> service.getSupplierById(supplierId));
     }
 
     /**
@@ -0,0 +1,15 @@
+package com.petek.inventoryService.dto.autocomplete;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompleteItemResponse {
+    private Long id;
+    private String name;
+}
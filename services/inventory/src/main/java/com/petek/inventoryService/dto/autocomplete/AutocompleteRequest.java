@@ -0,0 +1,29 @@
+package com.petek.inventoryService.dto.autocomplete;
+
+import com.petek.inventoryService.service.AutocompleteService.EntityType;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompleteRequest {
+    @NotNull
+    private EntityType type;
+
+    @NotNull
+    private String prefix;
+
+    @NotNull
+    @Min(1)
+    @Max(50)
+    @Builder.Default
+    private Integer limit = 10;
+}
@@ -0,0 +1,36 @@
+package com.petek.inventoryService.dto.bulkImport;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReportResponse {
+    private ImportType type;
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long rejected;
+    private long elapsedMillis;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String message;
+    }
+
+    public enum ImportType {
+        PRODUCTS, SUPPLIERS, PRODUCT_SUPPLIERS
+    }
+}
@@ -0,0 +1,24 @@
+package com.petek.inventoryService.dto.outbox;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    private Long eventId;
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+    @JsonRawValue
+    private String payload;
+    private Instant createdAt;
+}
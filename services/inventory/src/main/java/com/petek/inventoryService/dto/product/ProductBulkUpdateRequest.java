@@ -0,0 +1,75 @@
+package com.petek.inventoryService.dto.product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkUpdateRequest {
+    // Filter mode: the products matching the grid filter get the changes below
+    private ProductFilterRequest filter;
+
+    @Valid
+    private ValueChange currentPrice;
+
+    @Valid
+    private ValueChange safetyStock;
+
+    @Valid
+    private ValueChange reorderPoint;
+
+    // List mode: explicit new values per product
+    @Valid
+    @Size(max = 10000, message = "At most 10000 items can be updated at once")
+    private List<Item> items;
+
+    // Report what would change without writing
+    private boolean dryRun;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ValueChange {
+        @NotNull(message = "Operation is required")
+        private Operation op;
+
+        @NotNull(message = "Value is required")
+        private BigDecimal value;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+
+        @Positive(message = "Current price should be positive")
+        private BigDecimal currentPrice;
+
+        @Positive(message = "Safety stock should be positive")
+        private BigDecimal safetyStock;
+
+        @Positive(message = "Reorder point should be positive")
+        private BigDecimal reorderPoint;
+    }
+
+    public enum Operation {
+        SET,        // new value
+        PERCENT,    // relative change, -10 = 10% lower
+        DELTA       // absolute change
+    }
+}
@@ -0,0 +1,21 @@
+package com.petek.inventoryService.dto.product;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkUpdateResponse {
+    private boolean dryRun;
+    private long matched;
+    private long updated;
+    private long rejected;
+    private List<Long> rejectedProductIds;
+    private long notFound;
+}
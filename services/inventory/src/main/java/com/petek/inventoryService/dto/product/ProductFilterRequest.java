@@ -4,6 +4,8 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 
+import com.petek.inventoryService.dto.product.ProductItemResponse.InventoryStatus;
+
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -40,4 +42,12 @@ public class ProductFilterRequest {
     private BigDecimal reorderGte;
     private BigDecimal reorderLte;
     private Instant updatedAfter;
+
+    // Computed from current stock (buckets included) against safety stock / reorder point
+    private List<InventoryStatus> inventoryStatus;
+    private BigDecimal availableGte;
+    private BigDecimal availableLte;
+
+    // Search mode (GET /products/search): ranked keyset, a blank "after" starts from the best match
+    private String after;
 }
@@ -0,0 +1,31 @@
+package com.petek.inventoryService.dto.reconciliation;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReconciliationRequest {
+    @NotNull
+    @Builder.Default
+    private Boolean repair = false;
+
+    @NotNull
+    @Min(value = 100, message = "Range size must be at least 100")
+    @Max(value = 100000, message = "Range size must be at most 100000")
+    @Builder.Default
+    private Integer rangeSize = 10000;
+
+    @NotNull
+    @Min(value = 1, message = "Parallelism must be at least 1")
+    @Max(value = 16, message = "Parallelism must be at most 16")
+    @Builder.Default
+    private Integer parallelism = 4;
+}
@@ -0,0 +1,51 @@
+package com.petek.inventoryService.dto.reconciliation;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReconciliationResponse {
+    private String runId;
+    private RunStatus status;
+    private boolean repair;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private int rangesTotal;
+    private int rangesCompleted;
+    private long productsChecked;
+    private long ledgerRows;
+    private double ledgerRowsPerSecond;
+    private long mismatchCount;
+    private long repairedCount;
+    private List<Mismatch> mismatches;   // first MAX_REPORTED_MISMATCHES only
+    private String error;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Mismatch {
+        private Long productId;
+        private BigDecimal quantityOnHand;
+        private BigDecimal ledgerQuantity;
+        private BigDecimal openingBalance;      // checkpoint the ledger opens with once old months are archived
+        private BigDecimal purchaseReceipts;
+        private BigDecimal saleShipments;
+        private BigDecimal adjustmentsIn;
+        private BigDecimal adjustmentsOut;
+        private Long repairMovementId;
+    }
+
+    public enum RunStatus {
+        RUNNING, COMPLETED, FAILED
+    }
+}
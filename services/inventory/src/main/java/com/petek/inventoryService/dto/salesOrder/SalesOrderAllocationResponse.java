@@ -0,0 +1,38 @@
+package com.petek.inventoryService.dto.salesOrder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesOrderAllocationResponse {
+    private Long salesOrderId;
+    private boolean allocated;
+    private int reservedCount;
+    private int shortCount;
+    private List<LineResult> lines;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+        private Long salesOrderItemId;
+        private Long productId;
+        private BigDecimal quantity;
+        private BigDecimal available;
+        private BigDecimal shortfall;
+        private LineStatus status;
+    }
+
+    public enum LineStatus {
+        RESERVED, ALREADY_RESERVED, SHORT, SKIPPED
+    }
+}
@@ -0,0 +1,16 @@
+package com.petek.inventoryService.dto.stock;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotStockSuggestion {
+    private Long productId;
+    private long slowReservations;
+    private int suggestedBucketCount;
+}
@@ -0,0 +1,30 @@
+package com.petek.inventoryService.dto.stock;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentBatchRequest {
+    @NotNull(message = "Mode cannot be null")
+    @Builder.Default
+    private BatchMode mode = BatchMode.ALL_OR_NOTHING;
+
+    @NotEmpty(message = "Lines cannot be empty")
+    @Size(max = 20000, message = "A batch can contain at most 20000 lines")
+    private List<@Valid StockMovementCreateRequest> lines;
+
+    public enum BatchMode {
+        ALL_OR_NOTHING, BEST_EFFORT
+    }
+}
@@ -0,0 +1,42 @@
+package com.petek.inventoryService.dto.stock;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.petek.inventoryService.dto.stock.StockAdjustmentBatchRequest.BatchMode;
+import com.petek.inventoryService.entity.StockMovement.MovementKind;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentBatchResponse {
+    private BatchMode mode;
+    private boolean committed;
+    private int appliedCount;
+    private int rejectedCount;
+    private List<LineResult> lines;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+        private int index;
+        private Long productId;
+        private MovementKind movementKind;
+        private BigDecimal quantity;
+        private LineStatus status;
+        private Long movementId;
+        private String error;
+    }
+
+    public enum LineStatus {
+        APPLIED, REJECTED, SKIPPED
+    }
+}
@@ -0,0 +1,23 @@
+package com.petek.inventoryService.dto.stock;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfResponse {
+    private Long productId;
+    private Instant asOf;
+    private BigDecimal quantityOnHand;
+    private BigDecimal quantityReserved;   // snapshot at checkpointAt; null without one or for a backfilled day
+    private BigDecimal quantityAvailable;
+    private Instant checkpointAt;
+    private long movementsReplayed;
+}
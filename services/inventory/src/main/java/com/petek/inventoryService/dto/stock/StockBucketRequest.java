@@ -0,0 +1,20 @@
+package com.petek.inventoryService.dto.stock;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBucketRequest {
+    @NotNull(message = "Bucket count cannot be null")
+    @Min(value = 0, message = "Bucket count must be 0 (disabled) or more")
+    @Max(value = 64, message = "Bucket count must be at most 64")
+    private Integer bucketCount;
+}
@@ -0,0 +1,20 @@
+package com.petek.inventoryService.dto.stock;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBucketResponse {
+    private Long productId;
+    private int bucketCount;
+    private BigDecimal quantityInBuckets;
+    private List<BigDecimal> buckets;
+}
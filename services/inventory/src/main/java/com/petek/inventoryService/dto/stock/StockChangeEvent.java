@@ -0,0 +1,20 @@
+package com.petek.inventoryService.dto.stock;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChangeEvent {
+    private Long productId;
+    private BigDecimal quantityOnHand;
+    private BigDecimal quantityReserved;
+    private BigDecimal quantityAvailable;
+    private Long movementId;
+}
@@ -39,4 +39,8 @@ public class StockMovementFilterRequest {
     private Long sourceId;
     private Long sourceItemId;
     private Instant updatedAfter;
+
+    // Keyset mode (newest first); a blank "after" starts from the newest movement
+    private String after;
+    private String before;
 }
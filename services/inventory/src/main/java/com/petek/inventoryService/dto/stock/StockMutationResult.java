@@ -0,0 +1,28 @@
+package com.petek.inventoryService.dto.stock;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMutationResult {
+    private Long productId;
+    private Outcome outcome;
+    private BigDecimal quantityOnHand;
+    private BigDecimal quantityReserved;
+    private BigDecimal quantityAvailable;
+
+    public boolean isApplied() {
+        return outcome == Outcome.APPLIED;
+    }
+
+    public enum Outcome {
+        APPLIED, INSUFFICIENT_STOCK, UNKNOWN_PRODUCT
+    }
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -43,4 +44,8 @@ public class CurrentStock {
 
     @Column(name = "last_updated", nullable = false)
     private Instant lastUpdated;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
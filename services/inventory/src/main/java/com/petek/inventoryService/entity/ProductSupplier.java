@@ -12,7 +12,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -28,7 +30,8 @@ import lombok.Setter;
 @Table(name = "product_suppliers")
 public class ProductSupplier {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_suppliers_product_supplier_id_seq")
+    @SequenceGenerator(name = "product_suppliers_product_supplier_id_seq", sequenceName = "product_suppliers_product_supplier_id_seq", allocationSize = 50)
     @Column(name = "product_supplier_id")
     private Long productSupplierId;
 
@@ -69,4 +72,8 @@ public class ProductSupplier {
 
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
\ No newline at end of file
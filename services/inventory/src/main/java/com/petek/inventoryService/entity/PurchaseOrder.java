@@ -19,7 +19,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -35,7 +37,8 @@ import lombok.Setter;
 @Table(name = "purchase_orders")
 public class PurchaseOrder {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchase_orders_purchase_order_id_seq")
+    @SequenceGenerator(name = "purchase_orders_purchase_order_id_seq", sequenceName = "purchase_orders_purchase_order_id_seq", allocationSize = 50)
     @Column(name = "purchase_order_id")
     private Long purchaseOrderId;
 
@@ -66,6 +69,10 @@ public class PurchaseOrder {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public enum PurchaseOrderStatus {
         PLACED,
         IN_TRANSIT,
@@ -1,9 +1,12 @@
 package com.petek.inventoryService.entity;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
+import com.petek.inventoryService.utils.MoneyConverter;
+import com.petek.inventoryService.utils.QuantityConverter;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -11,6 +14,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -27,7 +31,8 @@ import lombok.Setter;
 @Table(name = "purchase_order_items")
 public class PurchaseOrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchase_order_items_purchase_order_item_id_seq")
+    @SequenceGenerator(name = "purchase_order_items_purchase_order_item_id_seq", sequenceName = "purchase_order_items_purchase_order_item_id_seq", allocationSize = 50)
     @Column(name = "purchase_order_item_id")
     private Long purchaseOrderItemId;
 
@@ -39,21 +44,26 @@ public class PurchaseOrderItem {
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
+    // Fixed-point columns (Quantity units, Money cents) so line math stays on longs
     @Column(name = "quantity_ordered", nullable = false, precision = 12, scale = 3)
-    private BigDecimal quantityOrdered;
+    @Convert(converter = QuantityConverter.class)
+    private long quantityOrderedUnits;
 
     @Column(name = "quantity_received", nullable = false, precision = 12, scale = 3)
-    @Builder.Default
-    private BigDecimal quantityReceived = BigDecimal.ZERO;
+    @Convert(converter = QuantityConverter.class)
+    private long quantityReceivedUnits;
 
     @Column(name = "unit_price", nullable = false, precision = 12, scale = 2)
-    private BigDecimal unitPrice;
+    @Convert(converter = MoneyConverter.class)
+    private long unitPriceCents;
 
     @Column(name = "line_total", precision = 14, scale = 2, insertable = false, updatable = false)
-    private BigDecimal lineTotal;
+    @Convert(converter = MoneyConverter.class)
+    private long lineTotalCents;
 
     @Column(name = "line_total_received", precision = 14, scale = 2, insertable = false, updatable = false)
-    private BigDecimal lineTotalReceived;
+    @Convert(converter = MoneyConverter.class)
+    private long lineTotalReceivedCents;
 
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
@@ -14,7 +14,9 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -30,7 +32,8 @@ import lombok.Setter;
 @Table(name = "sales_orders")
 public class SalesOrder {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_orders_sales_order_id_seq")
+    @SequenceGenerator(name = "sales_orders_sales_order_id_seq", sequenceName = "sales_orders_sales_order_id_seq", allocationSize = 50)
     @Column(name = "sales_order_id")
     private Long salesOrderId;
     
@@ -63,6 +66,10 @@ public class SalesOrder {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public enum SalesOrderStatus {
         PENDING,
         ALLOCATED,
@@ -1,13 +1,17 @@
 package com.petek.inventoryService.entity;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
+import com.petek.inventoryService.utils.MoneyConverter;
+import com.petek.inventoryService.utils.QuantityConverter;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -24,7 +28,8 @@ import lombok.Setter;
 @Table(name = "sales_order_items")
 public class SalesOrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_order_items_sales_order_item_id_seq")
+    @SequenceGenerator(name = "sales_order_items_sales_order_item_id_seq", sequenceName = "sales_order_items_sales_order_item_id_seq", allocationSize = 50)
     @Column(name = "sales_order_item_id")
     private Long salesOrderItemId;
     
@@ -34,23 +39,29 @@ public class SalesOrderItem {
     @Column(name = "product_id", nullable = false)
     private Long productId;
     
+    // Fixed-point columns (Quantity units, Money cents / hundredths) so line math stays on longs
     @Column(name = "quantity", nullable = false, precision = 12, scale = 3)
-    private BigDecimal quantity;
+    @Convert(converter = QuantityConverter.class)
+    private long quantityUnits;
     
     @Column(name = "unit_price", nullable = false, precision = 12, scale = 2)
-    private BigDecimal unitPrice;
+    @Convert(converter = MoneyConverter.class)
+    private long unitPriceCents;
     
     @Column(name = "discount_percentage", nullable = false, precision = 5, scale = 2)
-    private BigDecimal discountPercentage;
+    @Convert(converter = MoneyConverter.class)
+    private long discountHundredths;
     
     @Column(name = "campaign_id")
     private Long campaignId;
 
     @Column(name = "discount_amount", precision = 14, scale = 2, insertable = false, updatable = false)
-    private BigDecimal discountAmount;
+    @Convert(converter = MoneyConverter.class)
+    private long discountAmountCents;
     
     @Column(name = "line_total", precision = 14, scale = 2, insertable = false, updatable = false)
-    private BigDecimal lineTotal;
+    @Convert(converter = MoneyConverter.class)
+    private long lineTotalCents;
     
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
@@ -0,0 +1,43 @@
+package com.petek.inventoryService.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@IdClass(StockCheckpointId.class)
+@Table(name = "stock_checkpoints")
+public class StockCheckpoint {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "checkpoint_at")
+    private Instant checkpointAt;
+
+    @Column(name = "quantity_on_hand", nullable = false, precision = 12, scale = 3)
+    private BigDecimal quantityOnHand;
+
+    // Null for backfilled past days (reservations are not ledgered)
+    @Column(name = "quantity_reserved", precision = 12, scale = 3)
+    private BigDecimal quantityReserved;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,22 @@
+package com.petek.inventoryService.entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@EqualsAndHashCode
+public class StockCheckpointId implements Serializable {
+    private Long productId;
+    private Instant checkpointAt;
+}
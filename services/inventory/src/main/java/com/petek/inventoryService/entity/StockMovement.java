@@ -16,6 +16,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -31,8 +32,11 @@ import lombok.Setter;
 @Entity
 @Table(name = "stock_movements")
 public class StockMovement {
+    // Pooled (V9): each instance hands out ids from its own block, so they are unique but in
+    // neither insert nor commit order; never use them as a "changes after" cursor (see V12)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_movement_id_seq")
+    @SequenceGenerator(name = "stock_movements_movement_id_seq", sequenceName = "stock_movements_movement_id_seq", allocationSize = 50)
     @Column(name = "movement_id")
     private Long movementId;
 
@@ -0,0 +1,50 @@
+package com.petek.inventoryService.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@Table(name = "stock_reservations")
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservations_reservation_id_seq")
+    @SequenceGenerator(name = "stock_reservations_reservation_id_seq", sequenceName = "stock_reservations_reservation_id_seq", allocationSize = 50)
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "sales_order_id", nullable = false)
+    private Long salesOrderId;
+
+    @Column(name = "sales_order_item_id", nullable = false)
+    private Long salesOrderItemId;
+
+    @Column(name = "quantity", nullable = false, precision = 12, scale = 3)
+    private BigDecimal quantity;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,28 @@
+package com.petek.inventoryService.event;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.petek.inventoryService.dto.stock.CurrentStockResponse;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when current stock rows change. Snapshots are the new values when known,
+ * productIds without a snapshot must be re-read after commit.
+ */
+@Getter
+@AllArgsConstructor
+public class CurrentStockChangedEvent {
+    private final List<CurrentStockResponse> snapshots;
+    private final Collection<Long> productIds;
+
+    public static CurrentStockChangedEvent of(CurrentStockResponse snapshot) {
+        return new CurrentStockChangedEvent(List.of(snapshot), List.of());
+    }
+
+    public static CurrentStockChangedEvent reload(Collection<Long> productIds) {
+        return new CurrentStockChangedEvent(List.of(), List.copyOf(productIds));
+    }
+}
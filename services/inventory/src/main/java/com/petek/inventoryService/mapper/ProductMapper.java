@@ -1,15 +1,11 @@
 package com.petek.inventoryService.mapper;
 
-import java.math.BigDecimal;
 import java.util.Objects;
 
 import org.springframework.stereotype.Service;
 
 import com.petek.inventoryService.dto.product.ProductCreateRequest;
-import com.petek.inventoryService.dto.product.ProductItemResponse;
 import com.petek.inventoryService.dto.product.ProductResponse;
-import com.petek.inventoryService.dto.product.ProductItemResponse.InventoryStatus;
-import com.petek.inventoryService.dto.stock.CurrentStockResponse;
 import com.petek.inventoryService.entity.Product;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -76,61 +72,4 @@ public class ProductMapper {
             .build();
     }
 
-    /**
-     * Map Product entity to ProductItemResponse.
-     */
-    public ProductItemResponse toProductItemResponse(Product product, CurrentStockResponse currentStockResponse) {
-        BigDecimal quantityAvailable = currentStockResponse.getQuantityAvailable();
-
-        InventoryStatus inventoryStatus;
-        if (quantityAvailable.compareTo(product.getSafetyStock()) < 0) {
-        inventoryStatus = ProductItemResponse.InventoryStatus.RED;
-        } else if (quantityAvailable.compareTo(product.getReorderPoint()) > 0) {
-        inventoryStatus = ProductItemResponse.InventoryStatus.GREEN;
-        } else {
-        inventoryStatus = ProductItemResponse.InventoryStatus.YELLOW;
-        }
-
-        return ProductItemResponse.builder()
-            .productId(product.getProductId())
-            .productName(product.getProductName())
-            .category(product.getCategory())
-            .unitOfMeasure(product.getUnitOfMeasure())
-            .quantityAvailable(currentStockResponse.getQuantityAvailable())
-            .activeSuppliers(product.getProductSuppliers() != null ? 
-                product.getProductSuppliers().stream()
-                    .filter(ps -> ps.getActive())
-                    .map(ps -> {
-                        try {
-                            var supplier = ps.getSupplier();
-                            return ProductItemResponse.SupplierItem.builder()
-                                .supplierId(supplier.getSupplierId())
-                                .supplierName(supplier.getSupplierName())
-                                .build();
-                        } catch (EntityNotFoundException e) {
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .toList() : null)
-            .preferredSupplier(product.getProductSuppliers() != null ?
-                product.getProductSuppliers().stream()
-                    .filter(ps -> ps.getIsPreferred() && ps.getActive())
-                    .findFirst()
-                    .map(ps -> {
-                        try {
-                            var supplier = ps.getSupplier();
-                            return ProductItemResponse.SupplierItem.builder()
-                                .supplierId(supplier.getSupplierId())
-                                .supplierName(supplier.getSupplierName())
-                                .build();
-                        } catch (EntityNotFoundException e) {
-                            return null;
-                        }
-                    })
-                    .orElse(null) : null)
-            .inventoryStatus(inventoryStatus) // Placeholder, replace with actual logic
-            .build();
-    }
-
 }
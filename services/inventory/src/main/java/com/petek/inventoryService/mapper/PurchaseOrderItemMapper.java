@@ -6,6 +6,8 @@ import com.petek.inventoryService.dto.purchaseOrderItem.PurchaseOrderItemCreateR
 import com.petek.inventoryService.dto.purchaseOrderItem.PurchaseOrderItemResponse;
 import com.petek.inventoryService.entity.Product;
 import com.petek.inventoryService.entity.PurchaseOrderItem;
+import com.petek.inventoryService.utils.Money;
+import com.petek.inventoryService.utils.Quantity;
 
 @Service
 public class PurchaseOrderItemMapper {
@@ -16,8 +18,8 @@ public class PurchaseOrderItemMapper {
     public PurchaseOrderItem toPurchaseOrderItem(PurchaseOrderItemCreateRequest request, Product product) {
         return PurchaseOrderItem.builder()
             .product(product)
-            .quantityOrdered(request.getQuantityOrdered())
-            .unitPrice(request.getUnitPrice())
+            .quantityOrderedUnits(Quantity.toUnits(request.getQuantityOrdered()))
+            .unitPriceCents(Money.toCents(request.getUnitPrice()))
             .build();
     }
 
@@ -29,11 +31,11 @@ public class PurchaseOrderItemMapper {
             .purchaseOrderItemId(purchaseOrderItem.getPurchaseOrderItemId())
             .purchaseOrderId(purchaseOrderItem.getPurchaseOrder().getPurchaseOrderId())
             .productId(purchaseOrderItem.getProduct().getProductId())
-            .quantityOrdered(purchaseOrderItem.getQuantityOrdered())
-            .quantityReceived(purchaseOrderItem.getQuantityReceived())
-            .unitPrice(purchaseOrderItem.getUnitPrice())
-            .lineTotal(purchaseOrderItem.getLineTotal())
-            .lineTotalReceived(purchaseOrderItem.getLineTotalReceived())
+            .quantityOrdered(Quantity.toBigDecimal(purchaseOrderItem.getQuantityOrderedUnits()))
+            .quantityReceived(Quantity.toBigDecimal(purchaseOrderItem.getQuantityReceivedUnits()))
+            .unitPrice(Money.toBigDecimal(purchaseOrderItem.getUnitPriceCents()))
+            .lineTotal(Money.toBigDecimal(purchaseOrderItem.getLineTotalCents()))
+            .lineTotalReceived(Money.toBigDecimal(purchaseOrderItem.getLineTotalReceivedCents()))
             .createdAt(purchaseOrderItem.getCreatedAt())
             .build();
     }
@@ -8,6 +8,8 @@ import com.petek.inventoryService.dto.salesOrder.SalesOrderItemResponse;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderResponse;
 import com.petek.inventoryService.entity.SalesOrder;
 import com.petek.inventoryService.entity.SalesOrderItem;
+import com.petek.inventoryService.utils.Money;
+import com.petek.inventoryService.utils.Quantity;
 
 @Service
 public class SalesOrderMapper {
@@ -46,7 +48,7 @@ public class SalesOrderMapper {
     public SalesOrderItem toSalesOrderItem(SalesOrderItemCreateRequest request) {
         return SalesOrderItem.builder()
             .productId(request.getProductId())
-            .quantity(request.getQuantity())
+            .quantityUnits(Quantity.toUnits(request.getQuantity()))
             .build();
     }
 
@@ -58,12 +60,12 @@ public class SalesOrderMapper {
             .salesOrderItemId(salesOrderItem.getSalesOrderItemId())
             .salesOrderId(salesOrderItem.getSalesOrderId())
             .productId(salesOrderItem.getProductId())
-            .quantity(salesOrderItem.getQuantity())
-            .unitPrice(salesOrderItem.getUnitPrice())
-            .discountPercentage(salesOrderItem.getDiscountPercentage())
+            .quantity(Quantity.toBigDecimal(salesOrderItem.getQuantityUnits()))
+            .unitPrice(Money.toBigDecimal(salesOrderItem.getUnitPriceCents()))
+            .discountPercentage(Money.toBigDecimal(salesOrderItem.getDiscountHundredths()))
             .campaignId(salesOrderItem.getCampaignId())
-            .discountAmount(salesOrderItem.getDiscountAmount())
-            .lineTotal(salesOrderItem.getLineTotal())
+            .discountAmount(Money.toBigDecimal(salesOrderItem.getDiscountAmountCents()))
+            .lineTotal(Money.toBigDecimal(salesOrderItem.getLineTotalCents()))
             .createdAt(salesOrderItem.getCreatedAt())
             .build();
     }
@@ -0,0 +1,34 @@
+package com.petek.inventoryService.outbox;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.petek.inventoryService.dto.outbox.OutboxMessage;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-process target: republishes each message as an application event
+ * (consume with {@code @EventListener OutboxMessage}).
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.outbox.targets.in-process.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ApplicationEventOutboxTarget implements OutboxTarget {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public String getName() {
+        return "in-process";
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> messages) {
+        messages.forEach(eventPublisher::publishEvent);
+    }
+
+}
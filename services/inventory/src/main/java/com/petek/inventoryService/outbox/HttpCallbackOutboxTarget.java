@@ -0,0 +1,53 @@
+package com.petek.inventoryService.outbox;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.petek.inventoryService.dto.outbox.OutboxMessage;
+
+/**
+ * HTTP callback target: POSTs each batch as a JSON array; any non-2xx fails the batch.
+ */
+@Component
+@ConditionalOnExpression("!'${inventory.outbox.targets.http.url:}'.isEmpty()")
+public class HttpCallbackOutboxTarget implements OutboxTarget {
+
+    private final RestClient restClient;
+    private final String url;
+
+    public HttpCallbackOutboxTarget(
+        RestClient.Builder restClientBuilder,
+        @Value("${inventory.outbox.targets.http.url}") String url,
+        @Value("${inventory.outbox.targets.http.timeout:PT5S}") Duration timeout
+    ) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+
+        this.restClient = restClientBuilder.requestFactory(requestFactory).build();
+        this.url = url;
+    }
+
+    @Override
+    public String getName() {
+        return "http";
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> messages) {
+        restClient.post()
+            .uri(url)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(messages)
+            .retrieve()
+            .toBodilessEntity();
+    }
+
+}
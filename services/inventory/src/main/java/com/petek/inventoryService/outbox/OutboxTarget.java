@@ -0,0 +1,17 @@
+package com.petek.inventoryService.outbox;
+
+import java.util.List;
+
+import com.petek.inventoryService.dto.outbox.OutboxMessage;
+
+/**
+ * Delivery target of the outbox dispatcher. A batch is delivered in event id order;
+ * throwing fails the whole batch and it is retried later (at-least-once).
+ */
+public interface OutboxTarget {
+
+    String getName();
+
+    void deliver(List<OutboxMessage> messages) throws Exception;
+
+}
@@ -0,0 +1,366 @@
+package com.petek.inventoryService.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import com.petek.inventoryService.dto.bulkImport.ImportReportResponse.ImportType;
+import com.petek.inventoryService.dto.bulkImport.ImportReportResponse.RowError;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Set-based side of bulk imports. Rows are COPYed as text into a temp table (dropped on
+ * commit) so malformed values become row errors instead of failing the COPY; validation
+ * statements then mark rejected rows with their first error, and the remaining rows are
+ * merged into the real tables in a few statements.
+ *
+ * Input fields are camelCase like the request DTOs; staging columns are their snake_case.
+ * Validation messages follow the DTO constraints of the single-row endpoints.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkImportRepository {
+
+    public static final Map<ImportType, List<String>> FIELDS = Map.of(
+        ImportType.PRODUCTS, List.of(
+            "productId", "productName", "description", "category", "unitOfMeasure",
+            "safetyStock", "reorderPoint", "currentPrice"),
+        ImportType.SUPPLIERS, List.of(
+            "supplierName", "email", "phone", "city"),
+        ImportType.PRODUCT_SUPPLIERS, List.of(
+            "productId", "productName", "supplierId", "supplierEmail", "minOrderQuantity", "isPreferred", "active")
+    );
+
+    // Typed columns filled while resolving references
+    private static final Map<ImportType, String> RESOLVED_COLUMNS = Map.of(
+        ImportType.PRODUCTS, "",
+        ImportType.SUPPLIERS, "",
+        ImportType.PRODUCT_SUPPLIERS, ", pid BIGINT, sid BIGINT, min_qty NUMERIC, preferred BOOLEAN, enabled BOOLEAN"
+    );
+
+    private static final String UNITS = "'adet','ton','kg','g','lt','ml','koli','paket','çuval','şişe'";
+
+    private static final String WHOLE_NUMBER = "'^[0-9]{1,18}$'";
+    private static final String DECIMAL = "'^-?[0-9]+(\\.[0-9]+)?$'";
+
+    private static final String TABLE = "{table}";
+
+    // Rejection statements only look at rows without an error yet. The CASE keeps casts away
+    // from rows whose text failed an earlier format check (AND does not fix evaluation order).
+    private static final String REJECT_SQL =
+        "UPDATE " + TABLE + " i SET error = %s WHERE CASE WHEN i.error IS NULL THEN (%s) ELSE FALSE END";
+
+    // Every row after the first of its group (window instead of a correlated self-join)
+    private static final String REJECT_REPEATED_SQL =
+        "UPDATE " + TABLE + " i SET error = %s " +
+        "FROM (SELECT row_no, ROW_NUMBER() OVER (PARTITION BY %s ORDER BY row_no) AS n " +
+        "      FROM " + TABLE + " WHERE %s) d " +
+        "WHERE d.row_no = i.row_no AND d.n > 1 AND i.error IS NULL";
+
+    private static final Map<ImportType, List<String>> VALIDATIONS = Map.of(
+        ImportType.PRODUCTS, List.of(
+            reject("i.product_id !~ " + WHOLE_NUMBER, "Product ID must be a whole number"),
+            reject("i.product_name IS NULL", "Product name is required"),
+            reject("char_length(i.product_name) NOT BETWEEN 2 AND 100", "Product name must be between 2 and 100 characters"),
+            reject("i.category IS NULL", "Category is required"),
+            reject("char_length(i.category) NOT BETWEEN 2 AND 100", "Category must be between 2 and 100 characters"),
+            reject("i.unit_of_measure IS NULL", "Unit of measure is required"),
+            reject("i.unit_of_measure NOT IN (" + UNITS + ")", "Unit of measure must be one of " + UNITS.replace("'", "")),
+            reject("i.safety_stock IS NULL", "Safety stock is required"),
+            reject("i.safety_stock !~ " + DECIMAL, "Safety stock must be a number"),
+            reject("CAST(i.safety_stock AS NUMERIC) <= 0", "Safety stock should be positive"),
+            reject("ROUND(CAST(i.safety_stock AS NUMERIC), 2) >= 100000000", "Safety stock must be below 100000000"),
+            reject("i.reorder_point IS NULL", "Reorder point is required"),
+            reject("i.reorder_point !~ " + DECIMAL, "Reorder point must be a number"),
+            reject("CAST(i.reorder_point AS NUMERIC) <= 0", "Reorder point should be positive"),
+            reject("ROUND(CAST(i.reorder_point AS NUMERIC), 2) >= 100000000", "Reorder point must be below 100000000"),
+            reject("CAST(i.reorder_point AS NUMERIC) < CAST(i.safety_stock AS NUMERIC)", "Reorder point must not be below safety stock"),
+            reject("i.current_price IS NULL", "Current price is required"),
+            reject("i.current_price !~ " + DECIMAL, "Current price must be a number"),
+            reject("CAST(i.current_price AS NUMERIC) <= 0", "Current price should be positive"),
+            reject("ROUND(CAST(i.current_price AS NUMERIC), 2) >= 100000000", "Current price must be below 100000000"),
+            rejectWith("i.product_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM products p " +
+                "WHERE p.product_id = CAST(i.product_id AS BIGINT) AND p.deleted_at IS NULL)",
+                "'Product not found with id: ' || i.product_id"),
+            rejectRepeated("product_id", "product_id IS NOT NULL", "Product ID appears more than once in this import")
+        ),
+        ImportType.SUPPLIERS, List.of(
+            reject("i.supplier_name IS NULL", "Supplier name is required"),
+            reject("char_length(i.supplier_name) NOT BETWEEN 2 AND 200", "Supplier name must be between 2 and 200 characters"),
+            reject("i.email IS NULL", "Email is required"),
+            reject("char_length(i.email) NOT BETWEEN 2 AND 100", "Email must be between 2 and 100 characters"),
+            reject("i.email !~ '^[^@[:space:]]+@[^@[:space:]]+$'", "Email must be valid"),
+            reject("i.phone IS NULL", "Phone is required"),
+            reject("i.phone !~ '^(\\+90|0)?[1-9][0-9]{9}$'", "Phone number must be valid"),
+            reject("i.city IS NULL", "City is required"),
+            reject("char_length(i.city) NOT BETWEEN 2 AND 50", "City must be between 2 and 50 characters"),
+            rejectRepeated("email", "email IS NOT NULL", "Email appears more than once in this import")
+        ),
+        ImportType.PRODUCT_SUPPLIERS, List.of(
+            // Serializes with single-row link changes until commit; reads are not blocked
+            "LOCK TABLE product_suppliers IN SHARE ROW EXCLUSIVE MODE",
+            reject("i.product_id IS NULL AND i.product_name IS NULL", "Product ID or product name is required"),
+            reject("i.product_id !~ " + WHOLE_NUMBER, "Product ID must be a whole number"),
+            reject("i.supplier_id IS NULL AND i.supplier_email IS NULL", "Supplier ID or supplier email is required"),
+            reject("i.supplier_id !~ " + WHOLE_NUMBER, "Supplier ID must be a whole number"),
+            reject("i.min_order_quantity !~ " + DECIMAL, "Min order quantity must be a number"),
+            reject("CAST(i.min_order_quantity AS NUMERIC) <= 0", "Min order quantity should be positive"),
+            reject("ROUND(CAST(i.min_order_quantity AS NUMERIC), 3) >= 1000000000", "Min order quantity must be below 1000000000"),
+            reject("lower(i.is_preferred) NOT IN ('true', 'false')", "Is preferred flag must be true or false"),
+            reject("lower(i.active) NOT IN ('true', 'false')", "Active status must be true or false"),
+
+            // References: ids of rejected rows are nulled before the cast, the joins stay hashable
+            "UPDATE " + TABLE + " i SET pid = p.product_id " +
+            "FROM products p " +
+            "WHERE p.product_id = CAST(CASE WHEN i.error IS NULL THEN i.product_id END AS BIGINT) " +
+            "  AND p.deleted_at IS NULL",
+            "UPDATE " + TABLE + " i SET pid = p.product_id " +
+            "FROM (SELECT product_name, MIN(product_id) AS product_id FROM products " +
+            "      WHERE deleted_at IS NULL GROUP BY product_name HAVING COUNT(*) = 1) p " +
+            "WHERE i.error IS NULL AND i.product_id IS NULL AND p.product_name = i.product_name",
+            "UPDATE " + TABLE + " i SET sid = s.supplier_id " +
+            "FROM suppliers s " +
+            "WHERE s.supplier_id = CAST(CASE WHEN i.error IS NULL THEN i.supplier_id END AS BIGINT) " +
+            "  AND s.deleted_at IS NULL",
+            "UPDATE " + TABLE + " i SET sid = s.supplier_id " +
+            "FROM suppliers s " +
+            "WHERE i.error IS NULL AND i.supplier_id IS NULL AND s.email = i.supplier_email AND s.deleted_at IS NULL",
+
+            rejectWith("i.pid IS NULL AND i.product_id IS NOT NULL", "'Product not found with id: ' || i.product_id"),
+            reject("i.pid IS NULL AND EXISTS (SELECT 1 FROM products p " +
+                "WHERE p.product_name = i.product_name AND p.deleted_at IS NULL)",
+                "Product name matches more than one product"),
+            rejectWith("i.pid IS NULL", "'Product not found with name: ' || i.product_name"),
+            rejectWith("i.sid IS NULL AND i.supplier_id IS NOT NULL", "'Supplier not found with id: ' || i.supplier_id"),
+            rejectWith("i.sid IS NULL", "'Supplier not found with email: ' || i.supplier_email"),
+            rejectRepeated("pid, sid", "error IS NULL", "Product and supplier appear more than once in this import"),
+
+            // Omitted values keep those of an existing link, else the entity defaults. An omitted
+            // preferred flag stays NULL so it is told apart from an explicit false
+            "UPDATE " + TABLE + " i SET " +
+            "  preferred = lower(i.is_preferred) = 'true', " +
+            "  enabled = COALESCE(lower(i.active) = 'true', ps.active, TRUE), " +
+            "  min_qty = COALESCE(CAST(i.min_order_quantity AS NUMERIC), ps.min_order_quantity, 1) " +
+            "FROM " + TABLE + " x " +
+            "LEFT JOIN product_suppliers ps ON ps.product_id = x.pid AND ps.supplier_id = x.sid " +
+            "WHERE x.row_no = i.row_no AND i.error IS NULL",
+
+            reject("i.preferred AND NOT i.enabled",
+                "Cannot set inactive supplier as preferred or preferred supplier as inactive"),
+            rejectRepeated("pid", "error IS NULL AND preferred", "Product already has a preferred supplier in this import"),
+            reject("NOT i.enabled " +
+                "AND EXISTS (SELECT 1 FROM product_suppliers ps " +
+                "            WHERE ps.product_id = i.pid AND ps.supplier_id = i.sid AND ps.is_preferred) " +
+                "AND i.pid NOT IN (SELECT o.pid FROM " + TABLE + " o WHERE o.preferred AND o.error IS NULL)",
+                "Cannot set inactive supplier as preferred or preferred supplier as inactive"),
+            // Like the single-row update, unless another row of the import takes over as preferred
+            reject("NOT i.preferred " +
+                "AND EXISTS (SELECT 1 FROM product_suppliers ps " +
+                "            WHERE ps.product_id = i.pid AND ps.supplier_id = i.sid AND ps.is_preferred) " +
+                "AND i.pid NOT IN (SELECT o.pid FROM " + TABLE + " o WHERE o.preferred AND o.error IS NULL)",
+                "Cannot set preferred supplier as not preferred")
+        )
+    );
+
+    private static final String PRODUCTS_UPDATE_SQL =
+        "UPDATE products p SET " +
+        "  product_name = i.product_name, description = i.description, category = i.category, " +
+        "  unit_of_measure = i.unit_of_measure, safety_stock = CAST(i.safety_stock AS NUMERIC), " +
+        "  reorder_point = CAST(i.reorder_point AS NUMERIC), current_price = CAST(i.current_price AS NUMERIC), " +
+        "  updated_at = now() " +
+        "FROM import_products i " +
+        "WHERE p.product_id = CAST(CASE WHEN i.error IS NULL THEN i.product_id END AS BIGINT) " +
+        "  AND p.deleted_at IS NULL";
+
+    private static final String PRODUCTS_INSERT_SQL =
+        "INSERT INTO products (product_name, description, category, unit_of_measure, " +
+        "                      safety_stock, reorder_point, current_price, created_at, updated_at) " +
+        "SELECT i.product_name, i.description, i.category, i.unit_of_measure, " +
+        "       CAST(i.safety_stock AS NUMERIC), CAST(i.reorder_point AS NUMERIC), CAST(i.current_price AS NUMERIC), " +
+        "       now(), now() " +
+        "FROM import_products i " +
+        "WHERE i.error IS NULL AND i.product_id IS NULL " +
+        "ORDER BY i.row_no";
+
+    // Suppliers are matched on email, unique among live suppliers
+    private static final String SUPPLIERS_UPDATE_SQL =
+        "UPDATE suppliers s SET " +
+        "  supplier_name = i.supplier_name, phone = i.phone, city = i.city, updated_at = now() " +
+        "FROM import_suppliers i " +
+        "WHERE i.error IS NULL AND s.email = i.email AND s.deleted_at IS NULL";
+
+    private static final String SUPPLIERS_INSERT_SQL =
+        "INSERT INTO suppliers (supplier_name, email, phone, city, created_at, updated_at) " +
+        "SELECT i.supplier_name, i.email, i.phone, i.city, now(), now() " +
+        "FROM import_suppliers i " +
+        "WHERE i.error IS NULL " +
+        "  AND NOT EXISTS (SELECT 1 FROM suppliers s WHERE s.email = i.email AND s.deleted_at IS NULL) " +
+        "ORDER BY i.row_no";
+
+    // One preferred supplier per product (uq_prod_one_preferred): demote before the upsert
+    private static final String LINKS_DEMOTE_SQL =
+        "UPDATE product_suppliers ps SET is_preferred = FALSE, updated_at = now() " +
+        "WHERE ps.is_preferred AND EXISTS (SELECT 1 FROM import_product_suppliers i " +
+        "  WHERE i.error IS NULL AND i.preferred AND i.pid = ps.product_id AND i.sid <> ps.supplier_id)";
+
+    // An explicit false only reaches links that are not preferred (rejected otherwise, or
+    // demoted above), so OR keeps the current flag for an omitted one
+    private static final String LINKS_UPSERT_SQL =
+        "WITH merged AS ( " +
+        "  INSERT INTO product_suppliers AS ps (product_id, supplier_id, min_order_quantity, is_preferred, active, " +
+        "                                       total_orders_count, delayed_orders_count, created_at, updated_at) " +
+        "  SELECT i.pid, i.sid, i.min_qty, COALESCE(i.preferred, FALSE), i.enabled, 0, 0, now(), now() " +
+        "  FROM import_product_suppliers i WHERE i.error IS NULL ORDER BY i.row_no " +
+        "  ON CONFLICT (product_id, supplier_id) DO UPDATE SET " +
+        "    min_order_quantity = EXCLUDED.min_order_quantity, " +
+        "    is_preferred = ps.is_preferred OR EXCLUDED.is_preferred, " +
+        "    active = EXCLUDED.active, " +
+        "    updated_at = now() " +
+        "  RETURNING (xmax = 0) AS inserted " +
+        ") " +
+        "SELECT COUNT(*) FILTER (WHERE inserted) AS inserted, COUNT(*) FILTER (WHERE NOT inserted) AS updated FROM merged";
+
+    // A product left without a preferred supplier gets its first active imported one
+    private static final String LINKS_PROMOTE_SQL =
+        "UPDATE product_suppliers ps SET is_preferred = TRUE, updated_at = now() " +
+        "FROM (SELECT DISTINCT ON (i.pid) i.pid, i.sid FROM import_product_suppliers i " +
+        "      WHERE i.error IS NULL AND i.enabled ORDER BY i.pid, i.row_no) f " +
+        "WHERE ps.product_id = f.pid AND ps.supplier_id = f.sid " +
+        "  AND NOT EXISTS (SELECT 1 FROM product_suppliers x WHERE x.product_id = f.pid AND x.is_preferred)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    @Getter
+    @AllArgsConstructor
+    public static class MergeResult {
+        private final long inserted;
+        private final long updated;
+    }
+
+    public static String stagingTable(ImportType type) {
+        return "import_" + type.name().toLowerCase();
+    }
+
+    public static String column(String field) {
+        return field.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+    }
+
+    /**
+     * Create the transaction's staging table (text columns, dropped on commit).
+     */
+    public void createStagingTable(ImportType type) {
+        StringBuilder columns = new StringBuilder("row_no BIGINT NOT NULL, error TEXT");
+        for (String field : FIELDS.get(type)) {
+            columns.append(", ").append(column(field)).append(" TEXT");
+        }
+        columns.append(RESOLVED_COLUMNS.get(type));
+
+        jdbcTemplate.getJdbcTemplate().execute(
+            "CREATE TEMP TABLE " + stagingTable(type) + " (" + columns + ") ON COMMIT DROP");
+    }
+
+    /**
+     * Start a CSV COPY into the staging table on the transaction's connection.
+     * Columns: row_no, error, then the fields in FIELDS order.
+     */
+    public CopyIn beginCopy(ImportType type) {
+        StringBuilder columns = new StringBuilder("row_no, error");
+        for (String field : FIELDS.get(type)) {
+            columns.append(", ").append(column(field));
+        }
+        String sql = "COPY " + stagingTable(type) + " (" + columns + ") FROM STDIN WITH (FORMAT csv)";
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        } catch (SQLException e) {
+            throw jdbcTemplate.getJdbcTemplate().getExceptionTranslator().translate("COPY", sql, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Mark every invalid staged row with its first error.
+     */
+    public void validate(ImportType type) {
+        jdbcTemplate.getJdbcTemplate().execute("ANALYZE " + stagingTable(type));
+        for (String statement : VALIDATIONS.get(type)) {
+            jdbcTemplate.getJdbcTemplate().update(statement.replace(TABLE, stagingTable(type)));
+        }
+    }
+
+    /**
+     * Merge the valid staged rows into the real tables.
+     */
+    public MergeResult merge(ImportType type) {
+        return switch (type) {
+            case PRODUCTS -> {
+                long updated = jdbcTemplate.getJdbcTemplate().update(PRODUCTS_UPDATE_SQL);
+                long inserted = jdbcTemplate.getJdbcTemplate().update(PRODUCTS_INSERT_SQL);
+                yield new MergeResult(inserted, updated);
+            }
+            case SUPPLIERS -> {
+                long updated = jdbcTemplate.getJdbcTemplate().update(SUPPLIERS_UPDATE_SQL);
+                long inserted = jdbcTemplate.getJdbcTemplate().update(SUPPLIERS_INSERT_SQL);
+                yield new MergeResult(inserted, updated);
+            }
+            case PRODUCT_SUPPLIERS -> {
+                jdbcTemplate.getJdbcTemplate().update(LINKS_DEMOTE_SQL);
+                MergeResult result = jdbcTemplate.getJdbcTemplate().queryForObject(LINKS_UPSERT_SQL,
+                    (rs, rowNum) -> new MergeResult(rs.getLong("inserted"), rs.getLong("updated")));
+                jdbcTemplate.getJdbcTemplate().update(LINKS_PROMOTE_SQL);
+                yield result;
+            }
+        };
+    }
+
+    public long countRejected(ImportType type) {
+        return jdbcTemplate.getJdbcTemplate().queryForObject(
+            "SELECT COUNT(*) FROM " + stagingTable(type) + " WHERE error IS NOT NULL", Long.class);
+    }
+
+    /**
+     * Rejected rows in input order, at most limit.
+     */
+    public List<RowError> findErrors(ImportType type, int limit) {
+        return jdbcTemplate.query(
+            "SELECT row_no, error FROM " + stagingTable(type) + " WHERE error IS NOT NULL ORDER BY row_no LIMIT :limit",
+            new MapSqlParameterSource("limit", limit),
+            (rs, rowNum) -> RowError.builder()
+                .row(rs.getLong("row_no"))
+                .message(rs.getString("error"))
+                .build());
+    }
+
+    private static String reject(String condition, String message) {
+        return rejectWith(condition, literal(message));
+    }
+
+    private static String rejectWith(String condition, String message) {
+        return String.format(REJECT_SQL, message, condition);
+    }
+
+    private static String rejectRepeated(String partitionBy, String filter, String message) {
+        return String.format(REJECT_REPEATED_SQL, literal(message), partitionBy, filter);
+    }
+
+    private static String literal(String text) {
+        return "'" + text.replace("'", "''") + "'";
+    }
+
+}
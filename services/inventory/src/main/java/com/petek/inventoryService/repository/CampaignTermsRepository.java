@@ -0,0 +1,78 @@
+package com.petek.inventoryService.repository;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.petek.inventoryService.entity.Campaign.CampaignType;
+import com.petek.inventoryService.utils.CampaignIntervalIndex.Terms;
+import com.petek.inventoryService.utils.Money;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Campaign terms with their product assignment, one row per campaign, for the pricing index.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CampaignTermsRepository {
+
+    private static final String SELECT_SQL =
+        "SELECT c.campaign_id, c.campaign_type, c.discount_percentage, c.buy_qty, c.get_qty, " +
+        "       c.start_date, c.end_date, " +
+        "       COALESCE(array_agg(cp.product_id) FILTER (WHERE cp.product_id IS NOT NULL), '{}') AS product_ids " +
+        "FROM campaigns c " +
+        "LEFT JOIN campaign_products cp ON cp.campaign_id = c.campaign_id ";
+
+    private static final String GROUP_SQL = "GROUP BY c.campaign_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Getter
+    @AllArgsConstructor
+    public static class CampaignAssignment {
+        private final Terms terms;
+        private final List<Long> productIds;
+    }
+
+    /**
+     * Every campaign (past ones too: orders may be dated back).
+     */
+    public List<CampaignAssignment> findAll() {
+        return jdbcTemplate.query(SELECT_SQL + GROUP_SQL, this::mapRow);
+    }
+
+    /**
+     * One campaign, empty if it was deleted.
+     */
+    public Optional<CampaignAssignment> findById(long campaignId) {
+        return jdbcTemplate.query(SELECT_SQL + "WHERE c.campaign_id = :campaignId " + GROUP_SQL,
+                Map.of("campaignId", campaignId), this::mapRow)
+            .stream()
+            .findFirst();
+    }
+
+    private CampaignAssignment mapRow(ResultSet rs, int rowNum) throws SQLException {
+        boolean buyXGetY = CampaignType.valueOf(rs.getString("campaign_type")) == CampaignType.BXGY_SAME_PRODUCT;
+        Terms terms = new Terms(
+            rs.getLong("campaign_id"),
+            buyXGetY,
+            buyXGetY ? 0 : Money.toCents(rs.getBigDecimal("discount_percentage")),
+            rs.getInt("buy_qty"),
+            rs.getInt("get_qty"),
+            rs.getObject("start_date", LocalDate.class).toEpochDay(),
+            rs.getObject("end_date", LocalDate.class).toEpochDay());
+        Array productIds = rs.getArray("product_ids");
+        return new CampaignAssignment(terms, List.of((Long[]) productIds.getArray()));
+    }
+
+}
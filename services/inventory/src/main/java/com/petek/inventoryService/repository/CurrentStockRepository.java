@@ -1,10 +1,139 @@
 package com.petek.inventoryService.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.petek.inventoryService.entity.CurrentStock;
 
 public interface CurrentStockRepository extends JpaRepository<CurrentStock, Long>, JpaSpecificationExecutor<CurrentStock> {
-    
+
+    /**
+     * Snapshot columns returned by the conditional mutations below.
+     */
+    interface StockLevel {
+        Long getProductId();
+        BigDecimal getQuantityOnHand();
+        BigDecimal getQuantityReserved();
+        BigDecimal getQuantityAvailable();
+        Long getLastMovementId();
+    }
+
+    // Reserve: hold available stock for an order line (no physical change)
+    @Query(value = "UPDATE current_stock " +
+                   "SET quantity_reserved = quantity_reserved + :qty, " +
+                   "    last_movement_id = COALESCE(CAST(:movementId AS BIGINT), last_movement_id), " +
+                   "    last_updated = now() " +
+                   "WHERE product_id = :productId " +
+                   "AND (quantity_on_hand - quantity_reserved) >= :qty " +
+                   "RETURNING product_id AS \"productId\", quantity_on_hand AS \"quantityOnHand\", " +
+                   "quantity_reserved AS \"quantityReserved\", quantity_available AS \"quantityAvailable\", " +
+                   "last_movement_id AS \"lastMovementId\"",
+           nativeQuery = true)
+    Optional<StockLevel> reserve(
+            @Param("productId") Long productId,
+            @Param("movementId") Long movementId,
+            @Param("qty") BigDecimal quantity);
+
+    // Deliver (SO): consume a reservation together with the physical stock
+    @Query(value = "UPDATE current_stock " +
+                   "SET quantity_on_hand = quantity_on_hand - :qty, " +
+                   "    quantity_reserved = quantity_reserved - :qty, " +
+                   "    last_movement_id = :movementId, " +
+                   "    last_updated = now() " +
+                   "WHERE product_id = :productId " +
+                   "AND quantity_reserved >= :qty " +
+                   "RETURNING product_id AS \"productId\", quantity_on_hand AS \"quantityOnHand\", " +
+                   "quantity_reserved AS \"quantityReserved\", quantity_available AS \"quantityAvailable\", " +
+                   "last_movement_id AS \"lastMovementId\"",
+           nativeQuery = true)
+    Optional<StockLevel> ship(
+            @Param("productId") Long productId,
+            @Param("movementId") Long movementId,
+            @Param("qty") BigDecimal quantity);
+
+    // Receive (PO) / Adjustment IN: upsert, snapshot row is created on first receipt
+    @Query(value = "INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_movement_id, last_updated) " +
+                   "SELECT p.product_id, :qty, 0, :movementId, now() FROM products p " +
+                   "WHERE p.product_id = :productId AND p.deleted_at IS NULL " +
+                   "ON CONFLICT (product_id) DO UPDATE " +
+                   "SET quantity_on_hand = current_stock.quantity_on_hand + EXCLUDED.quantity_on_hand, " +
+                   "    last_movement_id = EXCLUDED.last_movement_id, " +
+                   "    last_updated = EXCLUDED.last_updated " +
+                   "RETURNING product_id AS \"productId\", quantity_on_hand AS \"quantityOnHand\", " +
+                   "quantity_reserved AS \"quantityReserved\", quantity_available AS \"quantityAvailable\", " +
+                   "last_movement_id AS \"lastMovementId\"",
+           nativeQuery = true)
+    Optional<StockLevel> receive(
+            @Param("productId") Long productId,
+            @Param("movementId") Long movementId,
+            @Param("qty") BigDecimal quantity);
+
+    // Adjustment OUT: only if (quantity_on_hand - quantity_reserved) >= :qty
+    @Query(value = "UPDATE current_stock " +
+                   "SET quantity_on_hand = quantity_on_hand - :qty, " +
+                   "    last_movement_id = :movementId, " +
+                   "    last_updated = now() " +
+                   "WHERE product_id = :productId " +
+                   "AND (quantity_on_hand - quantity_reserved) >= :qty " +
+                   "RETURNING product_id AS \"productId\", quantity_on_hand AS \"quantityOnHand\", " +
+                   "quantity_reserved AS \"quantityReserved\", quantity_available AS \"quantityAvailable\", " +
+                   "last_movement_id AS \"lastMovementId\"",
+           nativeQuery = true)
+    Optional<StockLevel> adjustOut(
+            @Param("productId") Long productId,
+            @Param("movementId") Long movementId,
+            @Param("qty") BigDecimal quantity);
+
+    // Make sure every product has a snapshot row before it is locked
+    @Modifying
+    @Query(value = "INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+                   "SELECT id, 0, 0, now() FROM unnest(CAST(:productIds AS BIGINT[])) AS id " +
+                   "ON CONFLICT (product_id) DO NOTHING",
+           nativeQuery = true)
+    int createMissing(@Param("productIds") Long[] productIds);
+
+    // Lock snapshot rows in product id order (deterministic, no deadlock between batches)
+    @Query(value = "SELECT product_id AS \"productId\", quantity_on_hand AS \"quantityOnHand\", " +
+                   "quantity_reserved AS \"quantityReserved\", quantity_available AS \"quantityAvailable\", " +
+                   "last_movement_id AS \"lastMovementId\" " +
+                   "FROM current_stock WHERE product_id IN (:productIds) " +
+                   "ORDER BY product_id FOR UPDATE",
+           nativeQuery = true)
+    List<StockLevel> lockAllById(@Param("productIds") Collection<Long> productIds);
+
+    // Apply signed on-hand deltas for many products in one statement
+    @Modifying
+    @Query(value = "UPDATE current_stock cs " +
+                   "SET quantity_on_hand = cs.quantity_on_hand + d.delta, " +
+                   "    last_movement_id = d.movement_id, " +
+                   "    last_updated = now() " +
+                   "FROM unnest(CAST(:productIds AS BIGINT[]), CAST(:deltas AS NUMERIC[]), CAST(:movementIds AS BIGINT[])) " +
+                   "  AS d(product_id, delta, movement_id) " +
+                   "WHERE cs.product_id = d.product_id",
+           nativeQuery = true)
+    int applyOnHandDeltas(
+            @Param("productIds") Long[] productIds,
+            @Param("deltas") BigDecimal[] deltas,
+            @Param("movementIds") Long[] movementIds);
+
+    // Reserve for many locked products in one statement
+    @Modifying
+    @Query(value = "UPDATE current_stock cs " +
+                   "SET quantity_reserved = cs.quantity_reserved + d.delta, " +
+                   "    last_updated = now() " +
+                   "FROM unnest(CAST(:productIds AS BIGINT[]), CAST(:deltas AS NUMERIC[])) AS d(product_id, delta) " +
+                   "WHERE cs.product_id = d.product_id",
+           nativeQuery = true)
+    int applyReservedDeltas(
+            @Param("productIds") Long[] productIds,
+            @Param("deltas") BigDecimal[] deltas);
+
 }
@@ -0,0 +1,67 @@
+package com.petek.inventoryService.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.petek.inventoryService.entity.OutboxEvent;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Claim due events; rows locked by another dispatcher are skipped, not waited on.
+    // event_id is pooled (V9), so the order is only roughly creation order, not commit order
+    @Query(value = "SELECT * FROM outbox_events " +
+                   "WHERE dispatched_at IS NULL " +
+                   "AND next_attempt_at <= now() " +
+                   "AND attempts < :maxAttempts " +
+                   "ORDER BY event_id " +
+                   "LIMIT :batchSize " +
+                   "FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<OutboxEvent> claimBatch(
+            @Param("batchSize") int batchSize,
+            @Param("maxAttempts") int maxAttempts);
+
+    // Retention: delete dispatched events in bounded chunks
+    @Modifying
+    @Query(value = "DELETE FROM outbox_events WHERE event_id IN (" +
+                   "  SELECT event_id FROM outbox_events " +
+                   "  WHERE dispatched_at < :cutoff " +
+                   "  LIMIT :limit FOR UPDATE SKIP LOCKED)",
+           nativeQuery = true)
+    int deleteDispatchedBefore(
+            @Param("cutoff") Instant cutoff,
+            @Param("limit") int limit);
+
+    // Move events that used up their attempts out of the pending set, in bounded chunks
+    @Modifying
+    @Query(value = "WITH dead AS (" +
+                   "  DELETE FROM outbox_events WHERE event_id IN (" +
+                   "    SELECT event_id FROM outbox_events " +
+                   "    WHERE dispatched_at IS NULL AND attempts >= :maxAttempts " +
+                   "    LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+                   "  RETURNING event_id, aggregate_type, aggregate_id, event_type, payload, created_at, attempts, last_error) " +
+                   "INSERT INTO outbox_dead_letters " +
+                   "  (event_id, aggregate_type, aggregate_id, event_type, payload, created_at, attempts, last_error) " +
+                   "SELECT * FROM dead",
+           nativeQuery = true)
+    int moveToDeadLetters(
+            @Param("maxAttempts") int maxAttempts,
+            @Param("limit") int limit);
+
+    // Retention: delete dead letters in bounded chunks
+    @Modifying
+    @Query(value = "DELETE FROM outbox_dead_letters WHERE event_id IN (" +
+                   "  SELECT event_id FROM outbox_dead_letters " +
+                   "  WHERE dead_at < :cutoff " +
+                   "  LIMIT :limit FOR UPDATE SKIP LOCKED)",
+           nativeQuery = true)
+    int deleteDeadLettersBefore(
+            @Param("cutoff") Instant cutoff,
+            @Param("limit") int limit);
+
+}
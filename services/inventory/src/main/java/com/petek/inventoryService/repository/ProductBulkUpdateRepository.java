@@ -0,0 +1,161 @@
+package com.petek.inventoryService.repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.util.List;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Repository;
+
+import com.petek.inventoryService.dto.product.ProductBulkUpdateRequest.Item;
+import com.petek.inventoryService.dto.product.ProductBulkUpdateRequest.ValueChange;
+import com.petek.inventoryService.dto.product.ProductBulkUpdateResponse;
+import com.petek.inventoryService.dto.product.ProductFilterRequest;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Price and reorder-parameter changes for many products in one statement.
+ *
+ * New values are computed per row from the locked current values, checked against the
+ * product rules (positive when changed, reorder point not below safety stock, NUMERIC(10,2)
+ * range) and written only for valid rows that actually change, with updated_at bumped.
+ * Rejected rows are reported instead of failing the statement; a dry run runs the same
+ * computation without locking or writing.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductBulkUpdateRepository {
+
+    // Format arguments: new price, new safety stock, new reorder point, join, predicate, lock, tail CTE, updated count
+    private static final String UPDATE_SQL =
+        "WITH computed AS ( " +
+        "  SELECT p.product_id, p.current_price, p.safety_stock, p.reorder_point, " +
+        "         %s AS new_price, %s AS new_safety, %s AS new_reorder " +
+        "  FROM products p %s " +
+        "  WHERE p.deleted_at IS NULL%s " +
+        "  ORDER BY p.product_id%s " +
+        "), checked AS ( " +
+        "  SELECT c.*, " +
+        "         COALESCE((c.new_price > 0 OR c.new_price = c.current_price) " +
+        "              AND (c.new_safety > 0 OR c.new_safety = c.safety_stock) " +
+        "              AND (c.new_reorder > 0 OR c.new_reorder = c.reorder_point) " +
+        "              AND c.new_safety >= 0 AND c.new_reorder >= c.new_safety " +
+        "              AND GREATEST(c.new_price, c.new_safety, c.new_reorder) < 100000000, FALSE) AS valid, " +
+        "         (c.new_price, c.new_safety, c.new_reorder) " +
+        "           IS DISTINCT FROM (c.current_price, c.safety_stock, c.reorder_point) AS changed " +
+        "  FROM computed c " +
+        ")%s " +
+        "SELECT (SELECT COUNT(*) FROM checked) AS matched, " +
+        "       %s AS updated, " +
+        "       (SELECT COUNT(*) FROM checked WHERE NOT valid) AS rejected, " +
+        "       (SELECT array_agg(r.product_id ORDER BY r.product_id) " +
+        "        FROM (SELECT product_id FROM checked WHERE NOT valid ORDER BY product_id LIMIT :rejectedLimit) r) AS rejected_ids";
+
+    private static final String WRITE_CTE =
+        ", updated AS ( " +
+        "  UPDATE products p SET current_price = c.new_price, safety_stock = c.new_safety, " +
+        "                        reorder_point = c.new_reorder, updated_at = now() " +
+        "  FROM checked c " +
+        "  WHERE p.product_id = c.product_id AND c.valid AND c.changed " +
+        "  RETURNING p.product_id " +
+        ")";
+
+    private static final String ITEMS_JOIN =
+        "JOIN unnest(:ids, :prices, :safetyStocks, :reorderPoints) " +
+        "  AS u(product_id, current_price, safety_stock, reorder_point) ON u.product_id = p.product_id";
+
+    private static final int REJECTED_IDS_LIMIT = 100;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ProductCatalogRepository catalogRepository;
+
+    /**
+     * Apply value changes to the products matching a grid filter.
+     */
+    public ProductBulkUpdateResponse updateMatching(
+        ProductFilterRequest filter,
+        ValueChange price,
+        ValueChange safetyStock,
+        ValueChange reorderPoint,
+        boolean dryRun
+    ) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String predicate = " AND p.product_id IN (" + catalogRepository.filteredIdsSql(filter, params) + ")";
+
+        return run(params, dryRun,
+            expression(price, "current_price", "price", params),
+            expression(safetyStock, "safety_stock", "safety", params),
+            expression(reorderPoint, "reorder_point", "reorder", params),
+            "",
+            predicate);
+    }
+
+    /**
+     * Set explicit values per product (omitted values are kept).
+     */
+    public ProductBulkUpdateResponse updateItems(List<Item> items, boolean dryRun) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("ids", new SqlArrayValue("bigint", items.stream().map(Item::getProductId).toArray()))
+            .addValue("prices", numericArray(items.stream().map(Item::getCurrentPrice).toList()))
+            .addValue("safetyStocks", numericArray(items.stream().map(Item::getSafetyStock).toList()))
+            .addValue("reorderPoints", numericArray(items.stream().map(Item::getReorderPoint).toList()));
+
+        ProductBulkUpdateResponse response = run(params, dryRun,
+            "COALESCE(ROUND(u.current_price, 2), p.current_price)",
+            "COALESCE(ROUND(u.safety_stock, 2), p.safety_stock)",
+            "COALESCE(ROUND(u.reorder_point, 2), p.reorder_point)",
+            ITEMS_JOIN,
+            "");
+        response.setNotFound(items.size() - response.getMatched());
+        return response;
+    }
+
+    private ProductBulkUpdateResponse run(
+        MapSqlParameterSource params,
+        boolean dryRun,
+        String newPrice,
+        String newSafety,
+        String newReorder,
+        String join,
+        String predicate
+    ) {
+        params.addValue("rejectedLimit", REJECTED_IDS_LIMIT);
+        String sql = String.format(UPDATE_SQL,
+            newPrice, newSafety, newReorder, join, predicate,
+            // Locked rows are re-read, so relative changes apply to the latest values
+            dryRun ? "" : " FOR UPDATE OF p",
+            dryRun ? "" : WRITE_CTE,
+            dryRun ? "(SELECT COUNT(*) FROM checked WHERE valid AND changed)" : "(SELECT COUNT(*) FROM updated)");
+
+        return jdbcTemplate.queryForObject(sql, params, (rs, rowNum) -> {
+            Array rejectedIds = rs.getArray("rejected_ids");
+            return ProductBulkUpdateResponse.builder()
+                .dryRun(dryRun)
+                .matched(rs.getLong("matched"))
+                .updated(rs.getLong("updated"))
+                .rejected(rs.getLong("rejected"))
+                .rejectedProductIds(rejectedIds == null ? List.of() : List.of((Long[]) rejectedIds.getArray()))
+                .build();
+        });
+    }
+
+    private String expression(ValueChange change, String column, String name, MapSqlParameterSource params) {
+        if (change == null) return "p." + column;
+
+        params.addValue(name, change.getValue());
+        String value = "CAST(:" + name + " AS NUMERIC)";
+        return switch (change.getOp()) {
+            case SET -> "ROUND(" + value + ", 2)";
+            case PERCENT -> "ROUND(p." + column + " * (1 + " + value + " / 100), 2)";
+            case DELTA -> "ROUND(p." + column + " + " + value + ", 2)";
+        };
+    }
+
+    private SqlArrayValue numericArray(List<BigDecimal> values) {
+        return new SqlArrayValue("numeric", values.toArray());
+    }
+
+}
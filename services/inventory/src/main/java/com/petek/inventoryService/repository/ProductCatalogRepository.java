@@ -0,0 +1,292 @@
+package com.petek.inventoryService.repository;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.petek.inventoryService.dto.product.ProductFilterRequest;
+import com.petek.inventoryService.dto.product.ProductItemResponse;
+import com.petek.inventoryService.dto.product.ProductItemResponse.InventoryStatus;
+import com.petek.inventoryService.dto.product.ProductItemResponse.SupplierItem;
+import com.petek.inventoryService.utils.CursorUtils.RankCursor;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Read model of the product grid: one statement returns the page, its total and the
+ * rows as ProductItemResponse. Availability (buckets included) and inventory status are
+ * computed in SQL so they can be filtered and sorted on; suppliers are aggregated for
+ * the page rows only, after LIMIT. Search runs the same query over full-text / trigram
+ * matches, ranked and keyset-paged.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductCatalogRepository {
+
+    // Same rules as the grid always used: below safety stock is RED, above reorder point GREEN.
+    // Format arguments: extra columns, extra predicate on p
+    private static final String FILTERED_SQL =
+        "SELECT p.product_id, p.product_name, p.category, p.unit_of_measure, p.current_price, p.updated_at, " +
+        "       p.safety_stock, p.reorder_point, st.quantity_available, " +
+        "       CASE WHEN st.quantity_available < p.safety_stock THEN 0 " +
+        "            WHEN st.quantity_available > p.reorder_point THEN 2 ELSE 1 END AS status_rank%s " +
+        "FROM products p " +
+        "LEFT JOIN current_stock cs ON cs.product_id = p.product_id " +
+        "LEFT JOIN (SELECT product_id, SUM(quantity) AS escrowed FROM stock_buckets GROUP BY product_id) b " +
+        "       ON b.product_id = p.product_id " +
+        "CROSS JOIN LATERAL (SELECT COALESCE(cs.quantity_available, 0) + COALESCE(b.escrowed, 0) AS quantity_available) st " +
+        "WHERE p.deleted_at IS NULL%s";
+
+    // Full-text match (GIN on search_vector) or typo-tolerant name match (trigram GIN)
+    private static final String SEARCH_PREDICATE =
+        " AND (p.search_vector @@ websearch_to_tsquery('simple', :q) OR lower(p.product_name) % lower(:q))";
+
+    private static final String SEARCH_RANK =
+        ", CAST(ts_rank_cd(p.search_vector, websearch_to_tsquery('simple', :q)) " +
+        "+ similarity(lower(p.product_name), lower(:q)) AS DOUBLE PRECISION) AS search_rank";
+
+    // Active and preferred suppliers of the rows of a page (aliased "page")
+    private static final String SUPPLIERS_SQL =
+        "LEFT JOIN LATERAL ( " +
+        "  SELECT array_agg(s.supplier_id ORDER BY ps.product_supplier_id) AS supplier_ids, " +
+        "         array_agg(s.supplier_name ORDER BY ps.product_supplier_id) AS supplier_names, " +
+        "         array_agg(s.supplier_id ORDER BY ps.product_supplier_id) FILTER (WHERE ps.is_preferred) AS preferred_ids, " +
+        "         array_agg(s.supplier_name ORDER BY ps.product_supplier_id) FILTER (WHERE ps.is_preferred) AS preferred_names " +
+        "  FROM product_suppliers ps " +
+        "  JOIN suppliers s ON s.supplier_id = ps.supplier_id AND s.deleted_at IS NULL " +
+        "  WHERE ps.product_id = page.product_id AND ps.active = TRUE " +
+        ") sup ON TRUE ";
+
+    private static final String PAGE_SQL =
+        "WITH page AS ( " +
+        "  SELECT f.*, COUNT(*) OVER () AS total_count FROM (%s) f " +
+        "  WHERE %s ORDER BY %s LIMIT :limit OFFSET :offset " +
+        ") " +
+        "SELECT page.*, sup.supplier_ids, sup.supplier_names, sup.preferred_ids, sup.preferred_names " +
+        "FROM page " + SUPPLIERS_SQL +
+        "ORDER BY %s";
+
+    // Keyset over (search_rank DESC, product_id ASC)
+    private static final String SEARCH_SQL =
+        "WITH page AS ( " +
+        "  SELECT f.* FROM (%s) f " +
+        "  WHERE %s ORDER BY search_rank DESC, product_id ASC LIMIT :limit " +
+        ") " +
+        "SELECT page.*, sup.supplier_ids, sup.supplier_names, sup.preferred_ids, sup.preferred_names " +
+        "FROM page " + SUPPLIERS_SQL +
+        "ORDER BY search_rank DESC, product_id ASC";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM (%s) f WHERE %s";
+
+    // Stock changes (buckets included) move the availability sum; supplier names and links are
+    // tracked table-wide since the page rows are not known yet
+    private static final String VERSION_SQL =
+        "SELECT CONCAT_WS('|', COUNT(*), MAX(f.changed_at), SUM(f.quantity_available), " +
+        "       (SELECT CONCAT_WS('.', COUNT(*), MAX(product_supplier_id), SUM(version)) FROM product_suppliers), " +
+        "       (SELECT CONCAT_WS('.', COUNT(*), MAX(updated_at)) FROM suppliers WHERE deleted_at IS NULL)) " +
+        "FROM (%s) f WHERE %s";
+
+    private static final String CHANGED_AT = ", GREATEST(p.updated_at, cs.last_updated) AS changed_at";
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+        "productId", "product_id",
+        "productName", "product_name",
+        "category", "category",
+        "currentPrice", "current_price",
+        "updatedAt", "updated_at",
+        "quantityAvailable", "quantity_available",
+        "inventoryStatus", "status_rank"
+    );
+
+    private static final List<InventoryStatus> STATUS_BY_RANK = List.of(InventoryStatus.RED, InventoryStatus.YELLOW, InventoryStatus.GREEN);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Getter
+    @AllArgsConstructor
+    public static class SearchHit {
+        private final ProductItemResponse item;
+        private final double rank;
+    }
+
+    /**
+     * One page of the catalog with its total.
+     */
+    public Page<ProductItemResponse> findPage(ProductFilterRequest request, Pageable pageable) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("limit", pageable.getPageSize())
+            .addValue("offset", pageable.getOffset());
+        String where = where(request, params);
+        String orderBy = orderBy(pageable.getSort());
+
+        long[] total = { -1 };
+        String filtered = String.format(FILTERED_SQL, "", "");
+
+        List<ProductItemResponse> rows = jdbcTemplate.query(
+            String.format(PAGE_SQL, filtered, where, orderBy, orderBy),
+            params,
+            (rs, rowNum) -> {
+                total[0] = rs.getLong("total_count");
+                return toProductItemResponse(rs);
+            });
+
+        // Past the last page no row carries the window count
+        if (total[0] < 0) {
+            total[0] = pageable.getOffset() == 0
+                ? 0
+                : jdbcTemplate.queryForObject(String.format(COUNT_SQL, filtered, where), params, Long.class);
+        }
+
+        return new PageImpl<>(rows, pageable, total[0]);
+    }
+
+    /**
+     * Version token of the filtered set, for weak ETags of the grid (any page of it).
+     */
+    public String findVersion(ProductFilterRequest request) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String where = where(request, params);
+        return jdbcTemplate.queryForObject(
+            String.format(VERSION_SQL, String.format(FILTERED_SQL, CHANGED_AT, ""), where),
+            params,
+            String.class);
+    }
+
+    /**
+     * Ranked search matches after the cursor (null = best matches first), filters applied.
+     */
+    public List<SearchHit> search(ProductFilterRequest request, RankCursor after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("q", request.getQ().trim())
+            .addValue("limit", limit);
+        List<String> predicates = predicates(request, params);
+        if (after != null) {
+            predicates.add("(f.search_rank < :afterRank OR (f.search_rank = :afterRank AND f.product_id > :afterId))");
+            params.addValue("afterRank", after.getRank());
+            params.addValue("afterId", after.getId());
+        }
+
+        return jdbcTemplate.query(
+            String.format(SEARCH_SQL, String.format(FILTERED_SQL, SEARCH_RANK, SEARCH_PREDICATE), String.join(" AND ", predicates)),
+            params,
+            (rs, rowNum) -> new SearchHit(toProductItemResponse(rs), rs.getDouble("search_rank")));
+    }
+
+    /**
+     * Sub-select of the ids of the products matching a grid filter (sorting and paging ignored).
+     */
+    public String filteredIdsSql(ProductFilterRequest request, MapSqlParameterSource params) {
+        return "SELECT f.product_id FROM (" + String.format(FILTERED_SQL, "", "") + ") f WHERE " + where(request, params);
+    }
+
+    private String where(ProductFilterRequest request, MapSqlParameterSource params) {
+        List<String> predicates = predicates(request, params);
+        if (request.getQ() != null && !request.getQ().trim().isEmpty()) {
+            predicates.add("lower(f.product_name) LIKE :q");
+            params.addValue("q", "%" + request.getQ().toLowerCase() + "%");
+        }
+        return String.join(" AND ", predicates);
+    }
+
+    // Filters shared by the grid and search
+    private List<String> predicates(ProductFilterRequest request, MapSqlParameterSource params) {
+        List<String> predicates = new ArrayList<>();
+        predicates.add("TRUE");
+
+        if (request.getCategory() != null && !request.getCategory().isEmpty()) {
+            predicates.add("f.category IN (:category)");
+            params.addValue("category", request.getCategory());
+        }
+        if (request.getUom() != null && !request.getUom().isEmpty()) {
+            predicates.add("f.unit_of_measure IN (:uom)");
+            params.addValue("uom", request.getUom());
+        }
+        range(predicates, params, "f.current_price", "price", request.getPriceGte(), request.getPriceLte());
+        range(predicates, params, "f.safety_stock", "safety", request.getSafetyGte(), request.getSafetyLte());
+        range(predicates, params, "f.reorder_point", "reorder", request.getReorderGte(), request.getReorderLte());
+        range(predicates, params, "f.quantity_available", "available", request.getAvailableGte(), request.getAvailableLte());
+        if (request.getUpdatedAfter() != null) {
+            predicates.add("f.updated_at > :updatedAfter");
+            params.addValue("updatedAfter", Timestamp.from(request.getUpdatedAfter()));
+        }
+        if (request.getInventoryStatus() != null && !request.getInventoryStatus().isEmpty()) {
+            predicates.add("f.status_rank IN (:statusRanks)");
+            params.addValue("statusRanks", request.getInventoryStatus().stream().map(STATUS_BY_RANK::indexOf).toList());
+        }
+        return predicates;
+    }
+
+    private void range(List<String> predicates, MapSqlParameterSource params, String column, String name, Object gte, Object lte) {
+        if (gte != null) {
+            predicates.add(column + " >= :" + name + "Gte");
+            params.addValue(name + "Gte", gte);
+        }
+        if (lte != null) {
+            predicates.add(column + " <= :" + name + "Lte");
+            params.addValue(name + "Lte", lte);
+        }
+    }
+
+    private String orderBy(Sort sort) {
+        StringJoiner orderBy = new StringJoiner(", ");
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Invalid sort field: " + order.getProperty());
+            }
+            orderBy.add(column + (order.isAscending() ? " ASC" : " DESC"));
+            byId |= column.equals("product_id");
+        }
+        // Stable pages: ties are broken by id
+        if (!byId) orderBy.add("product_id ASC");
+        return orderBy.toString();
+    }
+
+    private ProductItemResponse toProductItemResponse(ResultSet rs) throws SQLException {
+        return ProductItemResponse.builder()
+            .productId(rs.getLong("product_id"))
+            .productName(rs.getString("product_name"))
+            .category(rs.getString("category"))
+            .unitOfMeasure(rs.getString("unit_of_measure"))
+            .quantityAvailable(rs.getBigDecimal("quantity_available"))
+            .inventoryStatus(STATUS_BY_RANK.get(rs.getInt("status_rank")))
+            .activeSuppliers(suppliers(rs.getArray("supplier_ids"), rs.getArray("supplier_names")))
+            .preferredSupplier(suppliers(rs.getArray("preferred_ids"), rs.getArray("preferred_names"))
+                .stream()
+                .findFirst()
+                .orElse(null))
+            .build();
+    }
+
+    private List<SupplierItem> suppliers(Array ids, Array names) throws SQLException {
+        if (ids == null) return List.of();
+
+        Long[] supplierIds = (Long[]) ids.getArray();
+        String[] supplierNames = (String[]) names.getArray();
+        List<SupplierItem> suppliers = new ArrayList<>(supplierIds.length);
+        for (int i = 0; i < supplierIds.length; i++) {
+            suppliers.add(SupplierItem.builder()
+                .supplierId(supplierIds[i])
+                .supplierName(supplierNames[i])
+                .build());
+        }
+        return suppliers;
+    }
+
+}
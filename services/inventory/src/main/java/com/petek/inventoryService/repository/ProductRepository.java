@@ -1,10 +1,18 @@
 package com.petek.inventoryService.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.petek.inventoryService.entity.Product;
 
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
-    
+
+    @Query("SELECT p.productId FROM Product p WHERE p.productId IN :productIds")
+    List<Long> findExistingIds(@Param("productIds") Collection<Long> productIds);
+
 }
@@ -0,0 +1,111 @@
+package com.petek.inventoryService.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Version tokens for conditional GETs, read without loading entities or associations.
+ *
+ * A token changes whenever the response built from the same rows would: the entity's
+ * updated_at plus the nested rows the response embeds (product supplier links via their
+ * version column, suppliers and campaign products via updated_at). Counts and max ids
+ * cover rows that were deleted or added.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ResourceVersionRepository {
+
+    private static final String PRODUCT_SQL =
+        "SELECT CONCAT_WS('|', p.updated_at, COUNT(ps.product_supplier_id), MAX(ps.product_supplier_id), " +
+        "       SUM(ps.version), COUNT(s.supplier_id), MAX(s.updated_at)) " +
+        "FROM products p " +
+        "LEFT JOIN product_suppliers ps ON ps.product_id = p.product_id " +
+        "LEFT JOIN suppliers s ON s.supplier_id = ps.supplier_id AND s.deleted_at IS NULL " +
+        "WHERE p.product_id = :id AND p.deleted_at IS NULL " +
+        "GROUP BY p.product_id";
+
+    private static final String CAMPAIGN_SQL =
+        "SELECT CONCAT_WS('|', c.updated_at, COUNT(DISTINCT p.product_id), MAX(p.updated_at), " +
+        "       COUNT(ps.product_supplier_id), MAX(ps.product_supplier_id), SUM(ps.version), " +
+        "       COUNT(s.supplier_id), MAX(s.updated_at)) " +
+        "FROM campaigns c " +
+        "LEFT JOIN campaign_products cp ON cp.campaign_id = c.campaign_id " +
+        "LEFT JOIN products p ON p.product_id = cp.product_id AND p.deleted_at IS NULL " +
+        "LEFT JOIN product_suppliers ps ON ps.product_id = p.product_id " +
+        "LEFT JOIN suppliers s ON s.supplier_id = ps.supplier_id AND s.deleted_at IS NULL " +
+        "WHERE c.campaign_id = :id " +
+        "GROUP BY c.campaign_id";
+
+    private static final String SUPPLIER_SQL =
+        "SELECT CAST(updated_at AS TEXT) FROM suppliers WHERE supplier_id = :id AND deleted_at IS NULL";
+
+    private static final String CUSTOMER_SQL =
+        "SELECT CAST(updated_at AS TEXT) FROM customers WHERE customer_id = :id AND deleted_at IS NULL";
+
+    // Products embedded in campaign lists, with their supplier links and suppliers; tracked
+    // table-wide like the product grid since the page rows are not known yet
+    private static final String PRODUCTS_SQL =
+        "SELECT CONCAT_WS('|', COUNT(*), MAX(updated_at), " +
+        "       (SELECT CONCAT_WS('.', COUNT(*), MAX(product_supplier_id), SUM(version)) FROM product_suppliers), " +
+        "       (SELECT CONCAT_WS('.', COUNT(*), MAX(updated_at)) FROM suppliers WHERE deleted_at IS NULL)) " +
+        "FROM products WHERE deleted_at IS NULL";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public Optional<String> findProductVersion(Long productId) {
+        return findVersion(PRODUCT_SQL, productId);
+    }
+
+    public Optional<String> findCampaignVersion(Long campaignId) {
+        return findVersion(CAMPAIGN_SQL, campaignId);
+    }
+
+    public Optional<String> findSupplierVersion(Long supplierId) {
+        return findVersion(SUPPLIER_SQL, supplierId);
+    }
+
+    public Optional<String> findCustomerVersion(Long customerId) {
+        return findVersion(CUSTOMER_SQL, customerId);
+    }
+
+    public String findProductsVersion() {
+        return jdbcTemplate.queryForObject(PRODUCTS_SQL, new MapSqlParameterSource(), String.class);
+    }
+
+    /**
+     * Row count and max(updatedAt) of the entities matching a specification.
+     */
+    public <T> String findListVersion(Class<T> type, Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        query.multiselect(cb.count(root), cb.greatest(root.<Instant>get("updatedAt")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+
+        Tuple row = entityManager.createQuery(query).getSingleResult();
+        return row.get(0) + "|" + row.get(1);
+    }
+
+    private Optional<String> findVersion(String sql, Long id) {
+        return jdbcTemplate.queryForList(sql, new MapSqlParameterSource("id", id), String.class)
+            .stream()
+            .findFirst();
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.petek.inventoryService.repository;
 
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,4 +12,6 @@ public interface SalesOrderItemRepository extends JpaRepository<SalesOrderItem,
     
     Page<SalesOrderItem> findBySalesOrderId(Long salesOrderId, Pageable pageable);
 
+    List<SalesOrderItem> findBySalesOrderId(Long salesOrderId);
+
 }
@@ -0,0 +1,158 @@
+package com.petek.inventoryService.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Hot SKU buckets. Bucket quantities are escrowed in current_stock.quantity_reserved;
+ * callers lock buckets before the current_stock row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockBucketRepository {
+
+    private static final String BUCKET_COUNTS_SQL =
+        "SELECT product_id, COUNT(*) AS buckets FROM stock_buckets GROUP BY product_id";
+
+    private static final String BUCKET_PRODUCT_IDS_SQL =
+        "SELECT DISTINCT product_id FROM stock_buckets WHERE product_id IN (:productIds) ORDER BY product_id";
+
+    private static final String TOTALS_SQL =
+        "SELECT product_id, SUM(quantity) AS total FROM stock_buckets " +
+        "WHERE product_id IN (:productIds) GROUP BY product_id";
+
+    // Any unlocked bucket that can cover the quantity, scanning from :start; busy buckets are skipped.
+    // The pick is materialized: a rescanned SKIP LOCKED subquery can return another bucket once a
+    // lock is released, and the update would then take the quantity from two buckets
+    private static final String CLAIM_SQL =
+        "WITH pick AS MATERIALIZED ( " +
+        "  SELECT bucket_no FROM stock_buckets " +
+        "  WHERE product_id = :productId AND quantity >= :qty " +
+        "  ORDER BY bucket_no < :start, bucket_no " +
+        "  LIMIT 1 FOR UPDATE SKIP LOCKED " +
+        ") " +
+        "UPDATE stock_buckets b SET quantity = b.quantity - :qty " +
+        "FROM pick " +
+        "WHERE b.product_id = :productId AND b.bucket_no = pick.bucket_no " +
+        "RETURNING b.bucket_no";
+
+    private static final String QUANTITIES_SQL =
+        "SELECT quantity FROM stock_buckets WHERE product_id = :productId ORDER BY bucket_no";
+
+    private static final String LOCK_SQL =
+        "SELECT quantity FROM stock_buckets WHERE product_id = :productId ORDER BY bucket_no FOR UPDATE";
+
+    // Even split; bucket 0 takes the remainder
+    private static final String SPREAD_SQL =
+        "UPDATE stock_buckets SET quantity = CASE WHEN bucket_no = 0 THEN :first ELSE :share END " +
+        "WHERE product_id = :productId";
+
+    private static final String CREATE_SQL =
+        "INSERT INTO stock_buckets (product_id, bucket_no, quantity) " +
+        "SELECT :productId, g, 0 FROM generate_series(0, :bucketCount - 1) AS g " +
+        "ON CONFLICT DO NOTHING";
+
+    private static final String DELETE_SQL =
+        "DELETE FROM stock_buckets WHERE product_id = :productId";
+
+    private static final String REFILLABLE_SQL =
+        "SELECT cs.product_id FROM current_stock cs " +
+        "WHERE cs.quantity_available > 0 " +
+        "AND EXISTS (SELECT 1 FROM stock_buckets b WHERE b.product_id = cs.product_id) " +
+        "ORDER BY cs.product_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Bucket count of every hot product.
+     */
+    public Map<Long, Integer> findBucketCounts() {
+        Map<Long, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(BUCKET_COUNTS_SQL, Map.of(),
+            (RowCallbackHandler) rs -> counts.put(rs.getLong("product_id"), rs.getInt("buckets")));
+        return counts;
+    }
+
+    /**
+     * The hot products among the given ids, in id order.
+     */
+    public List<Long> findBucketProductIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return List.of();
+        return jdbcTemplate.queryForList(BUCKET_PRODUCT_IDS_SQL, Map.of("productIds", productIds), Long.class);
+    }
+
+    /**
+     * Escrowed quantity per hot product (missing = not hot).
+     */
+    public Map<Long, BigDecimal> findTotals(Collection<Long> productIds) {
+        Map<Long, BigDecimal> totals = new HashMap<>();
+        if (productIds.isEmpty()) return totals;
+        jdbcTemplate.query(TOTALS_SQL, Map.of("productIds", productIds),
+            (RowCallbackHandler) rs -> totals.put(rs.getLong("product_id"), rs.getBigDecimal("total")));
+        return totals;
+    }
+
+    /**
+     * Take the quantity from one bucket; empty if no free bucket can cover it.
+     */
+    public Optional<Integer> claim(Long productId, BigDecimal quantity, int start) {
+        List<Integer> claimed = jdbcTemplate.queryForList(CLAIM_SQL, new MapSqlParameterSource()
+            .addValue("productId", productId)
+            .addValue("qty", quantity)
+            .addValue("start", start), Integer.class);
+        return claimed.stream().findFirst();
+    }
+
+    /**
+     * Quantities of all buckets of a product in bucket order.
+     */
+    public List<BigDecimal> findBucketQuantities(Long productId) {
+        return jdbcTemplate.queryForList(QUANTITIES_SQL, Map.of("productId", productId), BigDecimal.class);
+    }
+
+    /**
+     * Lock all buckets of a product in bucket order and return their quantities.
+     */
+    public List<BigDecimal> lockBuckets(Long productId) {
+        return jdbcTemplate.queryForList(LOCK_SQL, Map.of("productId", productId), BigDecimal.class);
+    }
+
+    /**
+     * Overwrite the (locked) buckets of a product with an even split.
+     */
+    public void spread(Long productId, BigDecimal first, BigDecimal share) {
+        jdbcTemplate.update(SPREAD_SQL, new MapSqlParameterSource()
+            .addValue("productId", productId)
+            .addValue("first", first)
+            .addValue("share", share));
+    }
+
+    public void createBuckets(Long productId, int bucketCount) {
+        jdbcTemplate.update(CREATE_SQL, new MapSqlParameterSource()
+            .addValue("productId", productId)
+            .addValue("bucketCount", bucketCount));
+    }
+
+    public void deleteBuckets(Long productId) {
+        jdbcTemplate.update(DELETE_SQL, Map.of("productId", productId));
+    }
+
+    /**
+     * Hot products with stock outside their buckets (receipts, releases).
+     */
+    public List<Long> findRefillableProductIds() {
+        return jdbcTemplate.queryForList(REFILLABLE_SQL, Map.of(), Long.class);
+    }
+
+}
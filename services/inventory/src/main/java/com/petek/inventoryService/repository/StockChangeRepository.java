@@ -0,0 +1,180 @@
+package com.petek.inventoryService.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Change log of current stock (V12), read in (tx, change_id) order below the snapshot
+ * xmin so a cursor never skips a change that commits later.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockChangeRepository {
+
+    private static final String HORIZON = "CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS TEXT) AS BIGINT)";
+
+    private static final String AFTER_SQL =
+        "SELECT tx, change_id, product_id FROM stock_changes " +
+        "WHERE (tx, change_id) > (:tx, :changeId) AND tx < " + HORIZON + "%s " +
+        "ORDER BY tx, change_id " +
+        "LIMIT :limit";
+
+    private static final String HEAD_SQL =
+        "SELECT tx, change_id FROM stock_changes " +
+        "WHERE tx < " + HORIZON + " " +
+        "ORDER BY tx DESC, change_id DESC " +
+        "LIMIT 1";
+
+    private static final String PRUNED_SQL =
+        "SELECT pruned_tx, pruned_change_id FROM stock_change_retention";
+
+    // Only finished transactions are pruned, and the highest pruned cursor is remembered
+    private static final String PRUNE_SQL =
+        "WITH pruned AS ( " +
+        "  DELETE FROM stock_changes " +
+        "  WHERE (tx, change_id) IN ( " +
+        "    SELECT tx, change_id FROM stock_changes " +
+        "    WHERE changed_at < :cutoff AND tx < " + HORIZON + " " +
+        "    LIMIT :limit) " +
+        "  RETURNING tx, change_id " +
+        "), last AS ( " +
+        "  SELECT tx, change_id FROM pruned ORDER BY tx DESC, change_id DESC LIMIT 1 " +
+        "), marked AS ( " +
+        "  UPDATE stock_change_retention r SET pruned_tx = last.tx, pruned_change_id = last.change_id " +
+        "  FROM last WHERE (last.tx, last.change_id) > (r.pruned_tx, r.pruned_change_id) " +
+        ") " +
+        "SELECT COUNT(*) FROM pruned";
+
+    private static final String PRODUCTS_SQL =
+        "SELECT product_id FROM current_stock WHERE product_id > :afterProductId%s " +
+        "ORDER BY product_id LIMIT :limit";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Position in the change log; serialized as "tx-changeId" (the SSE event id).
+     */
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    public static class Cursor implements Comparable<Cursor> {
+        public static final Cursor START = new Cursor(0, 0);
+
+        private final long tx;
+        private final long changeId;
+
+        /**
+         * Parse an event id; empty for anything else (e.g. ids of an older feed format).
+         */
+        public static Optional<Cursor> parse(String value) {
+            if (value == null) return Optional.empty();
+            int separator = value.indexOf('-');
+            if (separator <= 0) return Optional.empty();
+            try {
+                return Optional.of(new Cursor(
+                    Long.parseLong(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1))));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int byTx = Long.compare(tx, other.tx);
+            return byTx != 0 ? byTx : Long.compare(changeId, other.changeId);
+        }
+
+        @Override
+        public String toString() {
+            return tx + "-" + changeId;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Change {
+        private final Cursor cursor;
+        private final long productId;
+    }
+
+    /**
+     * Finished changes after a cursor (optionally up to another and for some products), oldest first.
+     */
+    public List<Change> findAfter(Cursor after, Cursor upTo, Collection<Long> productIds, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("tx", after.getTx())
+            .addValue("changeId", after.getChangeId())
+            .addValue("limit", limit);
+        StringBuilder predicates = new StringBuilder();
+        if (upTo != null) {
+            predicates.append(" AND (tx, change_id) <= (:upToTx, :upToChangeId)");
+            params.addValue("upToTx", upTo.getTx()).addValue("upToChangeId", upTo.getChangeId());
+        }
+        if (productIds != null) {
+            predicates.append(" AND product_id IN (:productIds)");
+            params.addValue("productIds", productIds);
+        }
+
+        return jdbcTemplate.query(String.format(AFTER_SQL, predicates), params, (rs, rowNum) -> new Change(
+            new Cursor(rs.getLong("tx"), rs.getLong("change_id")),
+            rs.getLong("product_id")));
+    }
+
+    /**
+     * Newest finished change, START when there is none.
+     */
+    public Cursor findHead() {
+        return jdbcTemplate.query(HEAD_SQL, (rs, rowNum) -> new Cursor(rs.getLong("tx"), rs.getLong("change_id")))
+            .stream()
+            .findFirst()
+            .orElse(Cursor.START);
+    }
+
+    /**
+     * Highest cursor removed by retention; resuming at or below it may have missed changes.
+     */
+    public Cursor findPruned() {
+        return jdbcTemplate.query(PRUNED_SQL, (rs, rowNum) -> new Cursor(rs.getLong("pruned_tx"), rs.getLong("pruned_change_id")))
+            .stream()
+            .findFirst()
+            .orElse(Cursor.START);
+    }
+
+    /**
+     * Delete finished changes older than the cutoff, in bounded chunks.
+     */
+    public long pruneBefore(Instant cutoff, int limit) {
+        return jdbcTemplate.queryForObject(PRUNE_SQL, new MapSqlParameterSource()
+            .addValue("cutoff", Timestamp.from(cutoff))
+            .addValue("limit", limit), Long.class);
+    }
+
+    /**
+     * Product ids with a snapshot row, in id order (full replay).
+     */
+    public List<Long> findProductIdsAfter(long afterProductId, Collection<Long> productIds, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("afterProductId", afterProductId)
+            .addValue("limit", limit);
+        String predicate = "";
+        if (productIds != null) {
+            predicate = " AND product_id IN (:productIds)";
+            params.addValue("productIds", productIds);
+        }
+        return jdbcTemplate.queryForList(String.format(PRODUCTS_SQL, predicate), params, Long.class);
+    }
+
+}
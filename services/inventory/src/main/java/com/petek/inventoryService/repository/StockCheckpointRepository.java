@@ -0,0 +1,75 @@
+package com.petek.inventoryService.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.petek.inventoryService.entity.StockCheckpoint;
+import com.petek.inventoryService.entity.StockCheckpointId;
+
+public interface StockCheckpointRepository extends JpaRepository<StockCheckpoint, StockCheckpointId> {
+
+    Optional<StockCheckpoint> findFirstByProductIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(Long productId, Instant asOf);
+
+    @Query("SELECT MAX(sc.checkpointAt) FROM StockCheckpoint sc")
+    Optional<Instant> findLatestCheckpointAt();
+
+    // Roll every product forward from its previous checkpoint in one statement. Reserved is only
+    // snapshotted for the current day; a catch-up run has no reserved figure for past days
+    @Modifying
+    @Query(value = "INSERT INTO stock_checkpoints (product_id, checkpoint_at, quantity_on_hand, quantity_reserved, created_at) " +
+                   "SELECT p.product_id, :checkpointAt, " +
+                   "       COALESCE(prev.quantity_on_hand, 0) + COALESCE(d.delta, 0), " +
+                   "       CASE WHEN :snapshotReserved THEN COALESCE(cs.quantity_reserved, 0) END, now() " +
+                   "FROM products p " +
+                   "LEFT JOIN LATERAL ( " +
+                   "  SELECT sc.quantity_on_hand, sc.checkpoint_at FROM stock_checkpoints sc " +
+                   "  WHERE sc.product_id = p.product_id AND sc.checkpoint_at < :checkpointAt " +
+                   "  ORDER BY sc.checkpoint_at DESC LIMIT 1 " +
+                   ") prev ON TRUE " +
+                   "LEFT JOIN LATERAL ( " +
+                   "  SELECT SUM(CASE WHEN sm.movement_kind IN ('PURCHASE_RECEIPT','ADJUSTMENT_IN') " +
+                   "                  THEN sm.quantity ELSE -sm.quantity END) AS delta " +
+                   "  FROM stock_movements sm " +
+                   "  WHERE sm.product_id = p.product_id " +
+                   "  AND sm.movement_date > COALESCE(prev.checkpoint_at, CAST('-infinity' AS TIMESTAMPTZ)) " +
+                   "  AND sm.movement_date <= :checkpointAt " +
+                   ") d ON TRUE " +
+                   "LEFT JOIN current_stock cs ON cs.product_id = p.product_id " +
+                   "ON CONFLICT (product_id, checkpoint_at) DO NOTHING",
+           nativeQuery = true)
+    int createCheckpoints(@Param("checkpointAt") Instant checkpointAt, @Param("snapshotReserved") boolean snapshotReserved);
+
+    // Movements up to this instant may be archived; their balance is in the checkpoints at it (V14)
+    @Query(value = "SELECT archived_before FROM stock_ledger_archive", nativeQuery = true)
+    Instant findArchivedBefore();
+
+    // Products whose checkpoint at the cutoff differs from the ledger still attached up to it
+    @Query(value = "SELECT COUNT(*) FROM ( " +
+                   "  SELECT x.product_id FROM ( " +
+                   "    SELECT sc.product_id, sc.quantity_on_hand AS quantity FROM stock_checkpoints sc " +
+                   "    WHERE sc.checkpoint_at = (SELECT archived_before FROM stock_ledger_archive) " +
+                   "    UNION ALL " +
+                   "    SELECT sm.product_id, CASE WHEN sm.movement_kind IN ('PURCHASE_RECEIPT','ADJUSTMENT_IN') " +
+                   "                               THEN sm.quantity ELSE -sm.quantity END " +
+                   "    FROM stock_movements sm " +
+                   "    WHERE sm.movement_date > (SELECT archived_before FROM stock_ledger_archive) " +
+                   "    AND sm.movement_date <= :cutoff " +
+                   "    UNION ALL " +
+                   "    SELECT sc.product_id, -sc.quantity_on_hand FROM stock_checkpoints sc " +
+                   "    WHERE sc.checkpoint_at = :cutoff " +
+                   "  ) x GROUP BY x.product_id HAVING SUM(x.quantity) <> 0 " +
+                   ") drifted",
+           nativeQuery = true)
+    long countCheckpointDrift(@Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query(value = "UPDATE stock_ledger_archive SET archived_before = :cutoff WHERE archived_before < :cutoff",
+           nativeQuery = true)
+    int advanceArchivedBefore(@Param("cutoff") Instant cutoff);
+
+}
@@ -0,0 +1,14 @@
+package com.petek.inventoryService.repository;
+
+import java.util.List;
+
+import com.petek.inventoryService.entity.StockMovement;
+
+public interface StockMovementBatchRepository {
+
+    /**
+     * Insert new movements as one JDBC batch and assign their generated ids.
+     */
+    void insertAll(List<StockMovement> stockMovements);
+
+}
@@ -0,0 +1,57 @@
+package com.petek.inventoryService.repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import com.petek.inventoryService.entity.StockMovement;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class StockMovementBatchRepositoryImpl implements StockMovementBatchRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO stock_movements " +
+        "(product_id, movement_kind, movement_source, source_id, source_item_id, quantity, movement_date, created_at) " +
+        "VALUES (:productId, CAST(:movementKind AS movement_kind), CAST(:movementSource AS movement_source), " +
+        ":sourceId, :sourceItemId, :quantity, :movementDate, :createdAt)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<StockMovement> stockMovements) {
+        if (stockMovements.isEmpty()) {
+            return;
+        }
+
+        SqlParameterSource[] batchArgs = stockMovements.stream()
+            .map(stockMovement -> new MapSqlParameterSource()
+                .addValue("productId", stockMovement.getProduct().getProductId())
+                .addValue("movementKind", stockMovement.getMovementKind().name())
+                .addValue("movementSource", stockMovement.getMovementSource().name())
+                .addValue("sourceId", stockMovement.getSourceId(), Types.BIGINT)
+                .addValue("sourceItemId", stockMovement.getSourceItemId(), Types.BIGINT)
+                .addValue("quantity", stockMovement.getQuantity())
+                .addValue("movementDate", Timestamp.from(stockMovement.getMovementDate()))
+                .addValue("createdAt", Timestamp.from(stockMovement.getCreatedAt())))
+            .toArray(SqlParameterSource[]::new);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs, keyHolder, new String[] { "movement_id" });
+
+        // Keys come back in batch order
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < stockMovements.size(); i++) {
+            stockMovements.get(i).setMovementId(((Number) keys.get(i).get("movement_id")).longValue());
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.petek.inventoryService.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Monthly partitions of stock_movements (see V14). DDL runs outside of
+ * any transaction: DETACH ... CONCURRENTLY is not allowed inside one.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockMovementPartitionRepository {
+
+    private static final String PARTITION_PATTERN = "^stock_movements_y[0-9]{4}m[0-9]{2}$";
+
+    private static final String CREATE_PARTITIONS_SQL =
+        "SELECT create_stock_movement_partitions(?, ?)";
+
+    // Partition names encode their month: stock_movements_yYYYYmMM
+    private static final String PARTITIONS_BEFORE_SQL =
+        "SELECT c.relname FROM pg_inherits i " +
+        "JOIN pg_class c ON c.oid = i.inhrelid " +
+        "WHERE i.inhparent = 'stock_movements'::regclass " +
+        "AND c.relname ~ '" + PARTITION_PATTERN + "' " +
+        "AND to_date(substr(c.relname, 18, 4) || substr(c.relname, 23, 2), 'YYYYMM') < ? " +
+        "ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create missing monthly partitions for [from, to]; returns how many were created.
+     */
+    public int createPartitions(LocalDate from, LocalDate to) {
+        Integer created = jdbcTemplate.queryForObject(CREATE_PARTITIONS_SQL, Integer.class, from, to);
+        return created != null ? created : 0;
+    }
+
+    /**
+     * Names of attached monthly partitions that start before the given month.
+     */
+    public List<String> findPartitionsBefore(LocalDate month) {
+        return jdbcTemplate.queryForList(PARTITIONS_BEFORE_SQL, String.class, month);
+    }
+
+    /**
+     * Detach a partition without blocking writers and park it in the archive schema.
+     */
+    public void detachToArchive(String partitionName) {
+        if (!partitionName.matches(PARTITION_PATTERN)) {
+            throw new IllegalArgumentException("Not a stock movement partition: " + partitionName);
+        }
+        jdbcTemplate.execute("ALTER TABLE stock_movements DETACH PARTITION " + partitionName + " CONCURRENTLY");
+        jdbcTemplate.execute("ALTER TABLE " + partitionName + " SET SCHEMA archive");
+    }
+
+}
@@ -1,10 +1,37 @@
 package com.petek.inventoryService.repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.petek.inventoryService.entity.StockMovement;
 
-public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, JpaSpecificationExecutor<StockMovement> {
-    
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, JpaSpecificationExecutor<StockMovement>, StockMovementBatchRepository {
+
+    /**
+     * Signed on-hand change of a product over a movement_date window.
+     */
+    interface LedgerDelta {
+        BigDecimal getDelta();
+        Long getMovementCount();
+    }
+
+    // Window is (from, to]; a null "from" replays from the start of the ledger
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN movement_kind IN ('PURCHASE_RECEIPT','ADJUSTMENT_IN') " +
+                   "                         THEN quantity ELSE -quantity END), 0) AS \"delta\", " +
+                   "       COUNT(*) AS \"movementCount\" " +
+                   "FROM stock_movements " +
+                   "WHERE product_id = :productId " +
+                   "AND movement_date > COALESCE(CAST(:from AS TIMESTAMPTZ), CAST('-infinity' AS TIMESTAMPTZ)) " +
+                   "AND movement_date <= :to",
+           nativeQuery = true)
+    LedgerDelta sumLedgerDelta(
+            @Param("productId") Long productId,
+            @Param("from") Instant from,
+            @Param("to") Instant to);
+
 }
@@ -0,0 +1,98 @@
+package com.petek.inventoryService.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Set-based ledger vs snapshot aggregation; the database does the GROUP BY per id range,
+ * the JVM only sees one row per product.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockReconciliationRepository {
+
+    private static final String PRODUCT_ID_BOUNDS_SQL =
+        "SELECT COALESCE(MIN(product_id), 0) AS lo, COALESCE(MAX(product_id), -1) AS hi FROM products";
+
+    // Quantities come back as BIGINT thousandths (NUMERIC(12,3) * 1000) so the scan stays allocation-free.
+    // The ledger opens with the checkpoint at archived_before (V14); older movements may be detached
+    private static final String RANGE_BALANCES_SQL =
+        "SELECT COALESCE(cs.product_id, l.product_id) AS product_id, " +
+        "       CAST(COALESCE(cs.quantity_on_hand, 0) * 1000 AS BIGINT) AS quantity_on_hand, " +
+        "       CAST(COALESCE(l.opening_balance, 0) * 1000 AS BIGINT)   AS opening_balance, " +
+        "       CAST(COALESCE(l.purchase_receipts, 0) * 1000 AS BIGINT) AS purchase_receipts, " +
+        "       CAST(COALESCE(l.sale_shipments, 0) * 1000 AS BIGINT)    AS sale_shipments, " +
+        "       CAST(COALESCE(l.adjustments_in, 0) * 1000 AS BIGINT)    AS adjustments_in, " +
+        "       CAST(COALESCE(l.adjustments_out, 0) * 1000 AS BIGINT)   AS adjustments_out, " +
+        "       COALESCE(l.row_count, 0)         AS row_count " +
+        "FROM (SELECT product_id, quantity_on_hand FROM current_stock " +
+        "      WHERE product_id BETWEEN :lo AND :hi) cs " +
+        "FULL JOIN ( " +
+        "  SELECT product_id, " +
+        "         SUM(opening)                                                    AS opening_balance, " +
+        "         SUM(quantity) FILTER (WHERE movement_kind = 'PURCHASE_RECEIPT') AS purchase_receipts, " +
+        "         SUM(quantity) FILTER (WHERE movement_kind = 'SALE_SHIPMENT')    AS sale_shipments, " +
+        "         SUM(quantity) FILTER (WHERE movement_kind = 'ADJUSTMENT_IN')    AS adjustments_in, " +
+        "         SUM(quantity) FILTER (WHERE movement_kind = 'ADJUSTMENT_OUT')   AS adjustments_out, " +
+        "         COUNT(movement_kind) AS row_count " +
+        "  FROM ( " +
+        "    SELECT product_id, quantity_on_hand AS opening, CAST(NULL AS movement_kind) AS movement_kind, " +
+        "           CAST(NULL AS NUMERIC) AS quantity " +
+        "    FROM stock_checkpoints WHERE product_id BETWEEN :lo AND :hi " +
+        "    AND checkpoint_at = (SELECT archived_before FROM stock_ledger_archive) " +
+        "    UNION ALL " +
+        "    SELECT product_id, NULL, movement_kind, quantity " +
+        "    FROM stock_movements WHERE product_id BETWEEN :lo AND :hi " +
+        "    AND movement_date > (SELECT archived_before FROM stock_ledger_archive) " +
+        "  ) ledger " +
+        "  GROUP BY product_id " +
+        ") l ON l.product_id = cs.product_id";
+
+    private static final String LEDGER_BALANCES_SQL =
+        "SELECT product_id, SUM(quantity) AS balance FROM ( " +
+        "  SELECT product_id, quantity_on_hand AS quantity FROM stock_checkpoints " +
+        "  WHERE product_id IN (:productIds) " +
+        "  AND checkpoint_at = (SELECT archived_before FROM stock_ledger_archive) " +
+        "  UNION ALL " +
+        "  SELECT product_id, CASE WHEN movement_kind IN ('PURCHASE_RECEIPT','ADJUSTMENT_IN') THEN quantity ELSE -quantity END " +
+        "  FROM stock_movements WHERE product_id IN (:productIds) " +
+        "  AND movement_date > (SELECT archived_before FROM stock_ledger_archive) " +
+        ") ledger GROUP BY product_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * [lo, hi] product id bounds; hi < lo when there are no products.
+     */
+    public long[] findProductIdBounds() {
+        return jdbcTemplate.queryForObject(PRODUCT_ID_BOUNDS_SQL, Map.of(),
+            (rs, rowNum) -> new long[] { rs.getLong("lo"), rs.getLong("hi") });
+    }
+
+    /**
+     * Stream one aggregated row per product in [lo, hi] to the handler.
+     */
+    public void streamRangeBalances(long lo, long hi, RowCallbackHandler handler) {
+        jdbcTemplate.query(RANGE_BALANCES_SQL, new MapSqlParameterSource().addValue("lo", lo).addValue("hi", hi), handler);
+    }
+
+    /**
+     * Current signed ledger balance of the given products, opening checkpoint included (missing = no movements).
+     */
+    public Map<Long, BigDecimal> findLedgerBalances(Collection<Long> productIds) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        jdbcTemplate.query(LEDGER_BALANCES_SQL, Map.of("productIds", productIds),
+            (RowCallbackHandler) rs -> balances.put(rs.getLong("product_id"), rs.getBigDecimal("balance")));
+        return balances;
+    }
+
+}
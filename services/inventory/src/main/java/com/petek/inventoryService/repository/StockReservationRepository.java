@@ -0,0 +1,121 @@
+package com.petek.inventoryService.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.petek.inventoryService.entity.StockReservation;
+
+import jakarta.persistence.LockModeType;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    /**
+     * Pending expiry as seen by the timing wheel.
+     */
+    interface ReservationExpiry {
+        Long getReservationId();
+        Instant getExpiresAt();
+    }
+
+    /**
+     * Per product result of a release: how many reservations gave their quantity back.
+     */
+    interface ReleasedStock {
+        Long getProductId();
+        Long getReleased();
+    }
+
+    List<StockReservation> findBySalesOrderId(Long salesOrderId);
+
+    // Row-locked: expiry cannot release them until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.salesOrderId = :salesOrderId ORDER BY r.reservationId")
+    List<StockReservation> lockBySalesOrderId(@Param("salesOrderId") Long salesOrderId);
+
+    Optional<StockReservation> findBySalesOrderItemId(Long salesOrderItemId);
+
+    // Wheel recovery on startup
+    @Query(value = "SELECT reservation_id AS \"reservationId\", expires_at AS \"expiresAt\" " +
+                   "FROM stock_reservations WHERE expires_at IS NOT NULL",
+           nativeQuery = true)
+    List<ReservationExpiry> findAllExpiries();
+
+    // Safety sweep (index range scan on idx_sr_expires_at)
+    @Query(value = "SELECT reservation_id FROM stock_reservations " +
+                   "WHERE expires_at <= now() ORDER BY expires_at LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findExpiredIds(@Param("limit") int limit);
+
+    // Reservations consumed by a shipment (quantity already taken off current_stock)
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.salesOrderId = :salesOrderId")
+    int deleteBySalesOrderId(@Param("salesOrderId") Long salesOrderId);
+
+    // Take over a combiner grant: its short expiry becomes the line's own (NULL = firm).
+    // 0 when expiry or a cancel released the grant first
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.expiresAt = :expiresAt WHERE r.reservationId = :reservationId")
+    int claimGrant(@Param("reservationId") Long reservationId, @Param("expiresAt") Instant expiresAt);
+
+    // Firm up reservations of an allocated order
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.expiresAt = NULL WHERE r.salesOrderId = :salesOrderId")
+    int clearExpiry(@Param("salesOrderId") Long salesOrderId);
+
+    // Expire due reservations and give their quantity back in one statement (per product sums).
+    // The snapshot rows are locked in product id order first, like allocation does, so a
+    // release spanning several products cannot deadlock with an order locking the same ones
+    @Query(value = "WITH released AS ( " +
+                   "  DELETE FROM stock_reservations " +
+                   "  WHERE reservation_id = ANY(CAST(:ids AS BIGINT[])) AND expires_at <= now() " +
+                   "  RETURNING product_id, quantity " +
+                   "), per_product AS ( " +
+                   "  SELECT product_id, SUM(quantity) AS quantity, COUNT(*) AS reservation_count FROM released GROUP BY product_id " +
+                   "), locked AS ( " +
+                   "  SELECT product_id FROM current_stock WHERE product_id IN (SELECT product_id FROM per_product) " +
+                   "  ORDER BY product_id FOR UPDATE " +
+                   ") " +
+                   "UPDATE current_stock cs " +
+                   "SET quantity_reserved = cs.quantity_reserved - p.quantity, last_updated = now() " +
+                   "FROM per_product p JOIN locked l ON l.product_id = p.product_id WHERE cs.product_id = p.product_id " +
+                   "RETURNING cs.product_id AS \"productId\", p.reservation_count AS \"released\"",
+           nativeQuery = true)
+    List<ReleasedStock> releaseExpired(@Param("ids") Long[] reservationIds);
+
+    // Release every reservation of an order (cancel / delete); snapshot rows locked as above
+    @Query(value = "WITH released AS ( " +
+                   "  DELETE FROM stock_reservations WHERE sales_order_id = :salesOrderId " +
+                   "  RETURNING product_id, quantity " +
+                   "), per_product AS ( " +
+                   "  SELECT product_id, SUM(quantity) AS quantity, COUNT(*) AS reservation_count FROM released GROUP BY product_id " +
+                   "), locked AS ( " +
+                   "  SELECT product_id FROM current_stock WHERE product_id IN (SELECT product_id FROM per_product) " +
+                   "  ORDER BY product_id FOR UPDATE " +
+                   ") " +
+                   "UPDATE current_stock cs " +
+                   "SET quantity_reserved = cs.quantity_reserved - p.quantity, last_updated = now() " +
+                   "FROM per_product p JOIN locked l ON l.product_id = p.product_id WHERE cs.product_id = p.product_id " +
+                   "RETURNING cs.product_id AS \"productId\", p.reservation_count AS \"released\"",
+           nativeQuery = true)
+    List<ReleasedStock> releaseBySalesOrderId(@Param("salesOrderId") Long salesOrderId);
+
+    // Release the reservation of one order line (line changed / deleted)
+    @Query(value = "WITH released AS ( " +
+                   "  DELETE FROM stock_reservations WHERE sales_order_item_id = :salesOrderItemId " +
+                   "  RETURNING product_id, quantity " +
+                   ") " +
+                   "UPDATE current_stock cs " +
+                   "SET quantity_reserved = cs.quantity_reserved - r.quantity, last_updated = now() " +
+                   "FROM released r WHERE cs.product_id = r.product_id " +
+                   "RETURNING cs.product_id AS \"productId\", CAST(1 AS BIGINT) AS \"released\"",
+           nativeQuery = true)
+    List<ReleasedStock> releaseBySalesOrderItemId(@Param("salesOrderItemId") Long salesOrderItemId);
+
+}
@@ -0,0 +1,114 @@
+package com.petek.inventoryService.retry;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.StaleStateException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retry policy behind @RetryOnConflict: bounded attempts with exponential backoff and
+ * full jitter, so callers that collided once do not collide again in lockstep.
+ *
+ * Retried: optimistic lock failures and SQLSTATE 40001 (serialization failure) / 40P01
+ * (deadlock detected) anywhere in the cause chain. Everything else propagates at once.
+ * Counters: inventory.conflicts{method, cause}, inventory.conflict-retries{method} and
+ * inventory.conflict-exhausted{method}.
+ */
+@Slf4j
+public class ConflictRetryInterceptor implements MethodInterceptor {
+
+    private static final Set<String> RETRYABLE_SQL_STATES = Set.of("40001", "40P01");
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    // Resolved on use: the advisor is created before the registry and its customizers
+    public ConflictRetryInterceptor(ObjectProvider<MeterRegistry> meterRegistry, int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        // A retry inside someone else's transaction would run on a rollback-only transaction
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return invocation.proceed();
+        }
+
+        String method = methodName(invocation);
+        int attempts = attempts(invocation);
+        MeterRegistry meterRegistry = this.meterRegistry.getObject();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return invocation.proceed();
+            } catch (RuntimeException e) {
+                String cause = conflictCause(e);
+                if (cause == null) throw e;
+
+                meterRegistry.counter("inventory.conflicts", "method", method, "cause", cause).increment();
+                if (attempt >= attempts) {
+                    meterRegistry.counter("inventory.conflict-exhausted", "method", method).increment();
+                    log.warn("{} still conflicting ({}) after {} attempts", method, cause, attempt);
+                    throw e;
+                }
+
+                meterRegistry.counter("inventory.conflict-retries", "method", method).increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private int attempts(MethodInvocation invocation) {
+        RetryOnConflict annotation = AnnotatedElementUtils.findMergedAnnotation(invocation.getMethod(), RetryOnConflict.class);
+        return annotation != null && annotation.maxAttempts() > 0 ? annotation.maxAttempts() : maxAttempts;
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * "optimistic", "serialization", "deadlock" or null when the failure is not a lost race.
+     */
+    private String conflictCause(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof OptimisticLockingFailureException
+                || t instanceof OptimisticLockException
+                || t instanceof StaleStateException) {
+                return "optimistic";
+            }
+            if (t instanceof SQLException sql && RETRYABLE_SQL_STATES.contains(sql.getSQLState())) {
+                return "40001".equals(sql.getSQLState()) ? "serialization" : "deadlock";
+            }
+        }
+        return null;
+    }
+
+    private String methodName(MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() != null
+            ? AopUtils.getTargetClass(invocation.getThis())
+            : invocation.getMethod().getDeclaringClass();
+        return targetClass.getSimpleName() + "." + invocation.getMethod().getName();
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.petek.inventoryService.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Run the method again in a fresh transaction when it lost a concurrent update
+ * (stale @Version, serialization failure, deadlock). Only applies when the call
+ * starts the transaction; inside an outer transaction the failure propagates.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /**
+     * Attempts in total, the first call included; 0 uses inventory.retry.max-attempts.
+     */
+    int maxAttempts() default 0;
+
+}
@@ -0,0 +1,201 @@
+package com.petek.inventoryService.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.petek.inventoryService.exception.StateConflictException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cross-instance serialization with transaction-scoped Postgres advisory locks.
+ *
+ * Keys are (scope, stripe): ids are hashed onto a fixed number of stripes per scope so
+ * the lock space stays bounded. Locks are taken in stripe order (sales order before
+ * products) and released with the transaction. Acquisition polls pg_try_advisory_xact_lock
+ * with backoff so a wait is bounded and never aborts the caller's transaction; a timeout
+ * is a 409. Disabled unless inventory.advisory-locks.enabled is set.
+ *
+ * Stripe order only holds within one call, so a transaction that needs several products
+ * locks them all in its first call; stripes it already holds are not asked for again.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class AdvisoryLockService {
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(?, ?)";
+
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    public enum LockScope {
+        SALES_ORDER(1),
+        PRODUCT(2);
+
+        private final int namespace;
+
+        LockScope(int namespace) {
+            this.namespace = namespace;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final int stripes;
+    private final long timeoutNanos;
+
+    public AdvisoryLockService(
+        JdbcTemplate jdbcTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.advisory-locks.enabled:false}") boolean enabled,
+        @Value("${inventory.advisory-locks.stripes:1024}") int stripes,
+        @Value("${inventory.advisory-locks.timeout:PT5S}") Duration timeout
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.stripes = stripes;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Serialize on a product until the transaction ends.
+     */
+    public void lockProduct(Long productId) {
+        lock(LockScope.PRODUCT, List.of(productId));
+    }
+
+    /**
+     * Serialize on several products (in stripe order) until the transaction ends.
+     */
+    public void lockProducts(Collection<Long> productIds) {
+        lock(LockScope.PRODUCT, productIds);
+    }
+
+    /**
+     * Serialize on a sales order until the transaction ends; take it before any product lock.
+     */
+    public void lockSalesOrder(Long salesOrderId) {
+        lock(LockScope.SALES_ORDER, List.of(salesOrderId));
+    }
+
+    /**
+     * Try the product locks on a connection outside Spring's transactions (e.g. a batch flusher's
+     * own), in stripe order and without waiting. Returns the products whose stripe was granted,
+     * all of them when disabled; the locks end with that connection's transaction.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Set<Long> tryLockProducts(Connection connection, Collection<Long> productIds) throws SQLException {
+        if (!enabled) return new HashSet<>(productIds);
+
+        Map<Integer, List<Long>> byStripe = new TreeMap<>();
+        productIds.forEach(productId -> byStripe.computeIfAbsent(stripeOf(productId), stripe -> new ArrayList<>()).add(productId));
+
+        Set<Long> locked = new HashSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(TRY_LOCK_SQL)) {
+            for (Map.Entry<Integer, List<Long>> entry : byStripe.entrySet()) {
+                statement.setInt(1, LockScope.PRODUCT.namespace);
+                statement.setInt(2, entry.getKey());
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        locked.addAll(entry.getValue());
+                    } else {
+                        meterRegistry.counter("inventory.advisory-locks.skipped", "scope", LockScope.PRODUCT.name()).increment();
+                    }
+                }
+            }
+        }
+        return locked;
+    }
+
+    private void lock(LockScope scope, Collection<Long> ids) {
+        if (!enabled || ids.isEmpty()) return;
+
+        int[] keys = ids.stream()
+            .mapToInt(this::stripeOf)
+            .distinct()
+            .sorted()
+            .toArray();
+        Set<Long> held = heldStripes();
+        for (int stripe : keys) {
+            long key = ((long) scope.namespace << 32) | stripe;
+            if (held.contains(key)) continue;
+            acquire(scope, stripe);
+            held.add(key);
+        }
+    }
+
+    // (namespace, stripe) keys this instance holds in the current transaction
+    @SuppressWarnings("unchecked")
+    private Set<Long> heldStripes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return new HashSet<>();
+
+        Set<Long> held = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (held == null) {
+            Set<Long> stripes = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, stripes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AdvisoryLockService.this);
+                }
+            });
+            held = stripes;
+        }
+        return held;
+    }
+
+    private void acquire(LockScope scope, int stripe) {
+        long started = System.nanoTime();
+        long deadline = started + timeoutNanos;
+        long backoff = MIN_BACKOFF_NANOS;
+        boolean contended = false;
+
+        while (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class, scope.namespace, stripe))) {
+            contended = true;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                meterRegistry.counter("inventory.advisory-locks.timeouts", "scope", scope.name()).increment();
+                throw new StateConflictException("Timed out waiting for the " + scope.name().toLowerCase() + " lock, try again");
+            }
+            LockSupport.parkNanos(Math.min(backoff, remaining));
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+        }
+
+        meterRegistry.timer("inventory.advisory-locks.wait", "scope", scope.name())
+            .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (contended) {
+            // Stripes bound the tag space
+            meterRegistry.counter("inventory.advisory-locks.contended", "scope", scope.name(), "stripe", Integer.toString(stripe)).increment();
+        }
+    }
+
+    private int stripeOf(Long id) {
+        // Spread sequential ids before folding them onto the stripes
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 32), (long) stripes);
+    }
+
+}
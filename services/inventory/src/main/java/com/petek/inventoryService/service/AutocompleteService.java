@@ -0,0 +1,238 @@
+package com.petek.inventoryService.service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.autocomplete.AutocompleteItemResponse;
+import com.petek.inventoryService.dto.autocomplete.AutocompleteRequest;
+import com.petek.inventoryService.utils.PrefixIndex;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory typeahead over product, customer and supplier names.
+ *
+ * Each type has a PrefixIndex built at startup from a streamed query and swapped in
+ * once complete. Create/update/delete paths of the owning services update it after
+ * commit; a periodic rebuild picks up changes made by other instances. Live writes
+ * during a rebuild go to both indexes so the swap does not lose them, which is why
+ * rebuilds of one type never overlap. Rebuilds asked for after a commit (bulk changes)
+ * run on a background thread, coalesced per type.
+ */
+@Slf4j
+@Service
+public class AutocompleteService {
+
+    private static final int FETCH_SIZE = 1000;
+
+    public enum EntityType {
+        PRODUCT("SELECT product_id, product_name FROM products WHERE deleted_at IS NULL"),
+        CUSTOMER("SELECT customer_id, customer_name FROM customers WHERE deleted_at IS NULL"),
+        SUPPLIER("SELECT supplier_id, supplier_name FROM suppliers WHERE deleted_at IS NULL");
+
+        private final String loadSql;
+
+        EntityType(String loadSql) {
+            this.loadSql = loadSql;
+        }
+    }
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxKeys;
+
+    private final Map<EntityType, PrefixIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<EntityType, PrefixIndex> rebuilding = new ConcurrentHashMap<>();
+    private final Map<EntityType, Lock> rebuildLocks = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, AtomicBoolean> rebuildQueued = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, Timer> lookupTimers = new ConcurrentHashMap<>();
+    private final Map<EntityType, Counter> rejected = new ConcurrentHashMap<>();
+
+    // Off the committing request thread; one thread, so queued types rebuild one after another
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(
+        Thread.ofVirtual().name("autocomplete-rebuild").factory());
+
+    public AutocompleteService(
+        DataSource dataSource,
+        TransactionTemplate transactionTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.autocomplete.max-keys:500000}") int maxKeys
+    ) {
+        // Postgres only streams with a fetch size inside a transaction
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+        // Own transaction: rebuilds also run on threads that may be inside another one
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.maxKeys = maxKeys;
+
+        for (EntityType type : EntityType.values()) {
+            indexes.put(type, new PrefixIndex(maxKeys));
+            rebuildLocks.put(type, new ReentrantLock());
+            rebuildQueued.put(type, new AtomicBoolean());
+            Tags tags = Tags.of("type", type.name());
+
+            lookupTimers.put(type, Timer.builder("inventory.autocomplete.lookup")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry));
+            rejected.put(type, meterRegistry.counter("inventory.autocomplete.rejected", tags));
+            meterRegistry.gauge("inventory.autocomplete.entries", tags, indexes, map -> map.get(type).size());
+            meterRegistry.gauge("inventory.autocomplete.memory.bytes", tags, indexes, map -> map.get(type).estimatedBytes());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Names with a word starting with the prefix.
+     */
+    public List<AutocompleteItemResponse> autocomplete(AutocompleteRequest request) {
+        long started = System.nanoTime();
+        List<AutocompleteItemResponse> items = indexes.get(request.getType())
+            .find(request.getPrefix(), request.getLimit())
+            .stream()
+            .map(match -> AutocompleteItemResponse.builder()
+                .id(match.getId())
+                .name(match.getName())
+                .build())
+            .toList();
+        lookupTimers.get(request.getType()).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return items;
+    }
+
+    /**
+     * Index a created or renamed entity once the transaction commits.
+     */
+    public void indexAfterCommit(EntityType type, Long id, String name) {
+        afterCommit(() -> {
+            put(indexes.get(type), type, id, name);
+            PrefixIndex next = rebuilding.get(type);
+            if (next != null) put(next, type, id, name);
+        });
+    }
+
+    /**
+     * Drop a deleted entity once the transaction commits.
+     */
+    public void removeAfterCommit(EntityType type, Long id) {
+        afterCommit(() -> {
+            indexes.get(type).remove(id);
+            PrefixIndex next = rebuilding.get(type);
+            if (next != null) next.remove(id);
+        });
+    }
+
+    /**
+     * Rebuild one index in the background once the transaction commits (after bulk changes).
+     */
+    public void rebuildAfterCommit(EntityType type) {
+        afterCommit(() -> {
+            // One queued rebuild per type is enough: it reads everything committed before it starts
+            if (!rebuildQueued.get(type).compareAndSet(false, true)) return;
+            rebuilder.execute(() -> {
+                rebuildQueued.get(type).set(false);
+                rebuildLogged(type);
+            });
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild every index from the database (changes made by other instances).
+     */
+    @Scheduled(
+        fixedDelayString = "${inventory.autocomplete.refresh-interval:PT15M}",
+        initialDelayString = "${inventory.autocomplete.refresh-interval:PT15M}")
+    public void rebuild() {
+        for (EntityType type : EntityType.values()) {
+            rebuildLogged(type);
+        }
+    }
+
+    // One rebuild per type at a time: the live writes go to the single rebuilding slot
+    private void rebuildLogged(EntityType type) {
+        Lock lock = rebuildLocks.get(type);
+        lock.lock();
+        try {
+            rebuild(type);
+        } catch (RuntimeException e) {
+            log.warn("Rebuilding the {} autocomplete index failed: {}", type, e.getMessage());
+        } finally {
+            rebuilding.remove(type);
+            lock.unlock();
+        }
+    }
+
+    private void rebuild(EntityType type) {
+        long started = System.nanoTime();
+        PrefixIndex next = new PrefixIndex(maxKeys);
+        rebuilding.put(type, next);
+
+        transactionTemplate.executeWithoutResult(status -> streamingJdbcTemplate.query(type.loadSql,
+            (RowCallbackHandler) rs -> {
+                String name = rs.getString(2);
+                if (name != null && !next.putIfAbsent(rs.getLong(1), name)) rejected.get(type).increment();
+            }));
+
+        indexes.put(type, next);
+        log.info("Autocomplete index {} rebuilt: {} names, {} keys, ~{} KiB in {} ms",
+            type, next.size(), next.keyCount(), next.estimatedBytes() / 1024,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void put(PrefixIndex index, EntityType type, Long id, String name) {
+        if (!index.put(id, name)) rejected.get(type).increment();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
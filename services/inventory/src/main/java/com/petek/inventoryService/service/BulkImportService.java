@@ -0,0 +1,253 @@
+package com.petek.inventoryService.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petek.inventoryService.dto.bulkImport.ImportReportResponse;
+import com.petek.inventoryService.dto.bulkImport.ImportReportResponse.ImportType;
+import com.petek.inventoryService.repository.BulkImportRepository;
+import com.petek.inventoryService.repository.BulkImportRepository.MergeResult;
+import com.petek.inventoryService.service.AutocompleteService.EntityType;
+import com.petek.inventoryService.utils.CsvReader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk import of products, suppliers and product-supplier links from CSV (header row) or
+ * NDJSON request bodies.
+ *
+ * The body is parsed one record at a time and streamed into a COPY of the staging table,
+ * so memory does not grow with the input. Validation and the merge are set-based
+ * (BulkImportRepository); the whole import is one transaction and the report lists the
+ * rejected rows (1-based data rows) with their first error.
+ */
+@Slf4j
+@Service
+public class BulkImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    private final BulkImportRepository repository;
+    private final AutocompleteService autocompleteService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int maxErrors;
+
+    public BulkImportService(
+        BulkImportRepository repository,
+        AutocompleteService autocompleteService,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.import.max-errors:10000}") int maxErrors
+    ) {
+        this.repository = repository;
+        this.autocompleteService = autocompleteService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Import a CSV or NDJSON body.
+     */
+    @Transactional
+    public ImportReportResponse importRows(ImportType type, MediaType contentType, InputStream body) {
+        long started = System.nanoTime();
+        List<String> fields = BulkImportRepository.FIELDS.get(type);
+
+        repository.createStagingTable(type);
+        long rowsRead;
+        CopyIn copy = repository.beginCopy(type);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            StagingWriter writer = new StagingWriter(copy, fields);
+            if (TEXT_CSV.isCompatibleWith(contentType)) {
+                readCsv(reader, fields, writer);
+            } else {
+                readNdjson(reader, fields, writer);
+            }
+            writer.flush();
+            rowsRead = copy.endCopy();
+        } catch (IOException e) {
+            cancel(copy);
+            throw new UncheckedIOException("Reading the import body failed", e);
+        } catch (SQLException e) {
+            cancel(copy);
+            throw new IllegalStateException("Staging the import failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            cancel(copy);
+            throw e;
+        }
+
+        repository.validate(type);
+        MergeResult merged = repository.merge(type);
+        long rejected = repository.countRejected(type);
+
+        if (type == ImportType.PRODUCTS) autocompleteService.rebuildAfterCommit(EntityType.PRODUCT);
+        if (type == ImportType.SUPPLIERS) autocompleteService.rebuildAfterCommit(EntityType.SUPPLIER);
+
+        long elapsed = System.nanoTime() - started;
+        Timer.builder("inventory.import.duration")
+            .tag("type", type.name())
+            .register(meterRegistry)
+            .record(elapsed, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("inventory.import.rows", "type", type.name(), "outcome", "imported")
+            .increment(merged.getInserted() + merged.getUpdated());
+        meterRegistry.counter("inventory.import.rows", "type", type.name(), "outcome", "rejected")
+            .increment(rejected);
+        log.info("Imported {}: {} rows read, {} inserted, {} updated, {} rejected in {} ms",
+            type, rowsRead, merged.getInserted(), merged.getUpdated(), rejected, TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+        return ImportReportResponse.builder()
+            .type(type)
+            .rowsRead(rowsRead)
+            .inserted(merged.getInserted())
+            .updated(merged.getUpdated())
+            .rejected(rejected)
+            .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsed))
+            .errors(repository.findErrors(type, maxErrors))
+            .errorsTruncated(rejected > maxErrors)
+            .build();
+    }
+
+    // Header row names the fields; unknown columns are ignored
+    private void readCsv(BufferedReader reader, List<String> fields, StagingWriter writer) throws IOException, SQLException {
+        CsvReader csv = new CsvReader(reader, ',');
+        List<String> header = csv.next();
+        if (header == null) return;
+
+        int[] positions = new int[fields.size()];
+        for (int f = 0; f < fields.size(); f++) {
+            positions[f] = -1;
+            for (int h = 0; h < header.size(); h++) {
+                if (header.get(h).trim().replace("\uFEFF", "").equalsIgnoreCase(fields.get(f))) positions[f] = h;
+            }
+        }
+
+        String[] values = new String[fields.size()];
+        long row = 0;
+        for (List<String> record = csv.next(); record != null; record = csv.next()) {
+            row++;
+            if (record.size() != header.size()) {
+                writer.reject(row, "Expected " + header.size() + " columns but found " + record.size());
+                continue;
+            }
+            for (int f = 0; f < fields.size(); f++) {
+                values[f] = positions[f] < 0 ? null : record.get(positions[f]);
+            }
+            writer.write(row, values);
+        }
+    }
+
+    // One JSON object per line; blank lines are skipped but still counted as rows
+    private void readNdjson(BufferedReader reader, List<String> fields, StagingWriter writer) throws IOException, SQLException {
+        String[] values = new String[fields.size()];
+        long row = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            row++;
+            if (line.isBlank()) continue;
+
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                writer.reject(row, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            if (!node.isObject()) {
+                writer.reject(row, "Row must be a JSON object");
+                continue;
+            }
+
+            String invalidField = null;
+            for (int f = 0; f < fields.size(); f++) {
+                JsonNode value = node.get(fields.get(f));
+                if (value != null && value.isContainerNode()) invalidField = fields.get(f);
+                values[f] = value == null || value.isNull() ? null : value.asText();
+            }
+            if (invalidField != null) {
+                writer.reject(row, invalidField + " must be a single value");
+            } else {
+                writer.write(row, values);
+            }
+        }
+    }
+
+    private void cancel(CopyIn copy) {
+        try {
+            if (copy.isActive()) copy.cancelCopy();
+        } catch (SQLException e) {
+            log.warn("Cancelling the import COPY failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Encodes staged rows as COPY csv and sends them in chunks. Values are trimmed; blank
+     * ones are sent unquoted (NULL), everything else quoted (NUL characters dropped).
+     */
+    private static class StagingWriter {
+        private final CopyIn copy;
+        private final List<String> fields;
+        private final StringBuilder chunk = new StringBuilder(COPY_CHUNK_CHARS + 1024);
+
+        StagingWriter(CopyIn copy, List<String> fields) {
+            this.copy = copy;
+            this.fields = fields;
+        }
+
+        void write(long row, String[] values) throws SQLException {
+            chunk.append(row).append(',');
+            for (String value : values) {
+                chunk.append(',');
+                appendValue(value);
+            }
+            endRow();
+        }
+
+        void reject(long row, String error) throws SQLException {
+            chunk.append(row).append(',');
+            appendValue(error);
+            chunk.append(",".repeat(fields.size()));
+            endRow();
+        }
+
+        void flush() throws SQLException {
+            if (chunk.isEmpty()) return;
+            byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            chunk.setLength(0);
+        }
+
+        private void appendValue(String value) {
+            if (value == null) return;
+            String trimmed = value.replace("\u0000", "").trim();
+            if (trimmed.isEmpty()) return;
+            chunk.append('"').append(trimmed.replace("\"", "\"\"")).append('"');
+        }
+
+        private void endRow() throws SQLException {
+            chunk.append('\n');
+            if (chunk.length() >= COPY_CHUNK_CHARS) flush();
+        }
+    }
+
+}
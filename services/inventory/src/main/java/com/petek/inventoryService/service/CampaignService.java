@@ -2,6 +2,7 @@ package com.petek.inventoryService.service;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -22,10 +23,12 @@ import com.petek.inventoryService.dto.campaign.CampaignResponse;
 import com.petek.inventoryService.dto.campaign.CampaignUpdateRequest;
 import com.petek.inventoryService.entity.Campaign;
 import com.petek.inventoryService.entity.Campaign.CampaignType;
+import com.petek.inventoryService.entity.OutboxEvent.AggregateType;
 import com.petek.inventoryService.entity.Product;
 import com.petek.inventoryService.mapper.CampaignMapper;
 import com.petek.inventoryService.repository.CampaignRepository;
 import com.petek.inventoryService.repository.ProductRepository;
+import com.petek.inventoryService.repository.ResourceVersionRepository;
 import com.petek.inventoryService.spec.CampaignSpecifications;
 import com.petek.inventoryService.utils.SortUtils;
 
@@ -41,6 +44,9 @@ public class CampaignService {
     private final CampaignMapper mapper;
 
     private final ProductRepository productRepository;
+    private final OutboxService outboxService;
+    private final PricingService pricingService;
+    private final ResourceVersionRepository versionRepository;
 
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
         "campaignId", "campaignName", "campaignType", "startDate", "endDate", "updatedAt"
@@ -120,7 +126,27 @@ public class CampaignService {
         campaign.setCreatedAt(Instant.now());
         campaign.setUpdatedAt(Instant.now());
 
-        return mapper.toCampaignResponse(repository.save(campaign));
+        CampaignResponse response = mapper.toCampaignResponse(repository.save(campaign));
+        outboxService.record(AggregateType.CAMPAIGN, response.getCampaignId(), "CampaignCreated", response);
+        pricingService.refreshAfterCommit(response.getCampaignId());
+        return response;
+    }
+
+    /**
+     * Version token of a campaign list query (embedded products and their suppliers tracked table-wide).
+     */
+    @Transactional(readOnly = true)
+    public String getCampaignsVersion(CampaignFilterRequest request) {
+        return versionRepository.findListVersion(Campaign.class, CampaignSpecifications.withFilters(request))
+            + "|" + versionRepository.findProductsVersion();
+    }
+
+    /**
+     * Version token of a campaign, empty if it does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> getCampaignVersion(Long campaignId) {
+        return versionRepository.findCampaignVersion(campaignId);
     }
 
     /**
@@ -163,7 +189,10 @@ public class CampaignService {
         
         existingCampaign.setUpdatedAt(Instant.now());
 
-        return mapper.toCampaignResponse(repository.save(existingCampaign));
+        CampaignResponse response = mapper.toCampaignResponse(repository.save(existingCampaign));
+        outboxService.record(AggregateType.CAMPAIGN, campaignId, "CampaignUpdated", response);
+        pricingService.refreshAfterCommit(campaignId);
+        return response;
     }
 
     /**
@@ -173,6 +202,8 @@ public class CampaignService {
         Campaign campaign = repository.findById(campaignId)
             .orElseThrow(() -> new EntityNotFoundException("Campaign not found with id: " + campaignId));
         repository.delete(campaign);
+        outboxService.record(AggregateType.CAMPAIGN, campaignId, "CampaignDeleted", mapper.toCampaignResponse(campaign));
+        pricingService.refreshAfterCommit(campaignId);
     }
 
     /**
@@ -214,6 +245,10 @@ public class CampaignService {
 
         campaign.setUpdatedAt(Instant.now());
         repository.save(campaign);
+
+        outboxService.record(AggregateType.CAMPAIGN, campaignId, "CampaignProductsAssigned",
+            Map.of("campaignId", campaignId, "productIds", products.stream().map(Product::getProductId).toList()));
+        pricingService.refreshAfterCommit(campaignId);
     }
 
     /**
@@ -234,6 +269,10 @@ public class CampaignService {
 
         campaign.setUpdatedAt(Instant.now());
         repository.save(campaign);
+
+        outboxService.record(AggregateType.CAMPAIGN, campaignId, "CampaignProductRemoved",
+            Map.of("campaignId", campaignId, "productId", productId));
+        pricingService.refreshAfterCommit(campaignId);
     }
 
 }
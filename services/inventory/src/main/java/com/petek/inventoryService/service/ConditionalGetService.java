@@ -0,0 +1,58 @@
+package com.petek.inventoryService.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ETag / If-None-Match handling for GET endpoints.
+ *
+ * The caller passes a version token read without loading the resource; a matching
+ * If-None-Match is answered with 304 before the body supplier runs. Single resources get
+ * strong ETags, lists weak ones. The token is read before the body, so a concurrent write
+ * can only pair an older ETag with a newer body, which costs the client one full response.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConditionalGetService {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Respond with a strong ETag; an unknown resource (no version) goes to the body supplier for its 404.
+     */
+    public <T> ResponseEntity<T> strong(WebRequest request, String resource, Optional<String> version, Supplier<T> body) {
+        if (version.isEmpty()) return ResponseEntity.ok(body.get());
+        return respond(request, resource, "\"" + hash(version.get()) + "\"", body);
+    }
+
+    /**
+     * Respond with a weak ETag.
+     */
+    public <T> ResponseEntity<T> weak(WebRequest request, String resource, String version, Supplier<T> body) {
+        return respond(request, resource, "W/\"" + hash(version) + "\"", body);
+    }
+
+    private <T> ResponseEntity<T> respond(WebRequest request, String resource, String etag, Supplier<T> body) {
+        // Sets 304 and the ETag header on a match; null tells MVC the response is complete
+        if (request.checkNotModified(etag)) {
+            meterRegistry.counter("inventory.conditional-get", "resource", resource, "outcome", "not_modified").increment();
+            return null;
+        }
+        meterRegistry.counter("inventory.conditional-get", "resource", resource, "outcome", "full").increment();
+        return ResponseEntity.ok().eTag(etag).body(body.get());
+    }
+
+    private static String hash(String version) {
+        return DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
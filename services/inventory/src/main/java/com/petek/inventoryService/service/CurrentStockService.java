@@ -2,27 +2,37 @@ package com.petek.inventoryService.service;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.petek.inventoryService.cache.CurrentStockCache;
+import com.petek.inventoryService.combiner.ReservationCombiner;
 import com.petek.inventoryService.dto.PageResponse;
 import com.petek.inventoryService.dto.PageResponse.PageInfo;
 import com.petek.inventoryService.dto.stock.CurrentStockFilterRequest;
 import com.petek.inventoryService.dto.stock.CurrentStockResponse;
+import com.petek.inventoryService.dto.stock.StockMutationResult;
+import com.petek.inventoryService.dto.stock.StockMutationResult.Outcome;
 import com.petek.inventoryService.entity.CurrentStock;
-import com.petek.inventoryService.entity.StockMovement;
+import com.petek.inventoryService.event.CurrentStockChangedEvent;
 import com.petek.inventoryService.mapper.CurrentStockMapper;
 import com.petek.inventoryService.repository.CurrentStockRepository;
+import com.petek.inventoryService.repository.CurrentStockRepository.StockLevel;
 import com.petek.inventoryService.repository.ProductRepository;
-import com.petek.inventoryService.repository.StockMovementRepository;
 import com.petek.inventoryService.spec.CurrentStockSpecifications;
 import com.petek.inventoryService.utils.SortUtils;
 
@@ -37,8 +47,12 @@ public class CurrentStockService {
     private final CurrentStockRepository repository;
     private final CurrentStockMapper mapper;
 
-    private final StockMovementRepository stockMovementRepository;
     private final ProductRepository productRepository;
+    private final CurrentStockCache cache;
+    private final HotStockService hotStockService;
+    private final ReservationCombiner combiner;
+    private final AdvisoryLockService advisoryLockService;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
         "productId", "quantityOnHand", "quantityReserved", "quantityAvailable", "lastUpdated"
@@ -55,10 +69,7 @@ public class CurrentStockService {
 
         Page<CurrentStock> currentStockPage = repository.findAll(spec, pageable);
 
-        List<CurrentStockResponse> currentStockResponses = currentStockPage.getContent()
-            .stream()
-            .map(mapper::toCurrentStockResponse)
-            .toList();
+        List<CurrentStockResponse> currentStockResponses = toResponses(currentStockPage.getContent());
         
         PageInfo pageInfo = new PageInfo(
             currentStockPage.getNumber(),
@@ -74,110 +85,313 @@ public class CurrentStockService {
      * Get current stock of product.
      */
     public CurrentStockResponse getCurrentStockById(Long productId) {
-        productRepository.findById(productId)
-            .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
-        
-        Optional<CurrentStock> currentStockOpt = repository.findById(productId);
+        return cache.get(productId, this::loadCurrentStock);
+    }
 
-        CurrentStock currentStock = null;
+    /**
+     * Get a Available Quantity of product.
+     */
+    public BigDecimal getAvailableQuantityById(Long productId) {
+        CurrentStockResponse currentStock = cache.get(productId, id -> repository.findById(id)
+            .map(found -> toResponses(List.of(found)).get(0))
+            .orElse(null));
 
-        if(!currentStockOpt.isPresent()) {
-            currentStock = repository.save(CurrentStock.builder()
-                .productId(productId)
-                .quantityOnHand(BigDecimal.ZERO)
-                .quantityReserved(BigDecimal.ZERO)
-                .quantityAvailable(BigDecimal.ZERO)
-                .lastUpdated(Instant.now())
-                .build());
-        } else {
-            currentStock = currentStockOpt.get();
+        return currentStock != null ? currentStock.getQuantityAvailable() : BigDecimal.ZERO;
+    }
+
+    /**
+     * Get current stock of many products (uncached, missing rows are skipped).
+     */
+    @Transactional(readOnly = true)
+    public List<CurrentStockResponse> getCurrentStocksById(Collection<Long> productIds) {
+        return toResponses(repository.findAllById(productIds));
+    }
+
+    /**
+     * Map snapshot rows, counting bucket (hot SKU) quantities as available instead of reserved.
+     */
+    public List<CurrentStockResponse> toResponses(List<CurrentStock> currentStocks) {
+        List<CurrentStockResponse> responses = currentStocks.stream()
+            .map(mapper::toCurrentStockResponse)
+            .toList();
+        if (responses.isEmpty()) return responses;
+
+        Map<Long, BigDecimal> bucketTotals = hotStockService.findBucketTotals(responses.stream()
+            .map(CurrentStockResponse::getProductId)
+            .toList());
+        for (CurrentStockResponse response : responses) {
+            BigDecimal escrowed = bucketTotals.get(response.getProductId());
+            if (escrowed == null) continue;
+            response.setQuantityReserved(response.getQuantityReserved().subtract(escrowed));
+            response.setQuantityAvailable(response.getQuantityAvailable().add(escrowed));
         }
+        return responses;
+    }
 
-        return mapper.toCurrentStockResponse(currentStock);
+    /**
+     * Drop the cached stock of a product (e.g. product deleted).
+     */
+    public void evictCachedStock(Long productId) {
+        cache.evict(List.of(productId));
     }
 
     /**
-     * Get a Available Quantity of product.
+     * Reserve available stock for an order line.
      */
-    public BigDecimal getAvailableQuantityById(Long productId) {
-        Optional<CurrentStock> currentStock = repository.findById(productId);
+    public StockMutationResult reserve(Long productId, Long stockMovementId, BigDecimal quantity) {
+        // Hot SKUs reserve from a bucket and leave the current_stock row alone
+        if (hotStockService.isHot(productId)) {
+            StockMutationResult result = hotStockService.reserve(productId, quantity);
+            if (result.getOutcome() == Outcome.APPLIED || hotStockService.refreshHot(productId)) return result;
+        }
 
-        if(currentStock.isPresent()) return currentStock.get().getQuantityAvailable();
-        else return BigDecimal.ZERO;
+        long started = System.nanoTime();
+        advisoryLockService.lockProduct(productId);
+        Optional<StockLevel> level = repository.reserve(productId, stockMovementId, quantity);
+        hotStockService.recordReservation(productId, System.nanoTime() - started);
+
+        // Free stock of a hot SKU lives in its buckets (hot on another instance first)
+        if (level.isEmpty() && hotStockService.refreshHot(productId)) {
+            return hotStockService.reserve(productId, quantity);
+        }
+        return toResult(productId, level, true);
     }
 
     /**
-     * Update/Create a Current Stock In.
+     * Reserve an order line through the combiner (group commit with concurrent reservations).
+     * The id returned is a committed, expiring stock_reservations row for the line that the
+     * caller's transaction has to claim; empty when the combiner is off or did not grant it,
+     * and the caller reserves directly.
      */
-    public void updateStockIn(Long productId, Long stockMovementId, BigDecimal quantity) {
-        // Control for product
-        productRepository.findById(productId)
-            .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
-        
-        // Control for stock movement
-        StockMovement stockMovement = stockMovementRepository.findById(stockMovementId)
-            .orElseThrow(() -> new EntityNotFoundException("Stock Movement not found with id: " + stockMovementId));
+    public Optional<Long> reserveGranted(Long productId, Long salesOrderId, Long salesOrderItemId, BigDecimal quantity) {
+        // Hot SKUs have their own spreading
+        if (!combiner.isEnabled() || hotStockService.isHot(productId)) return Optional.empty();
+
+        long started = System.nanoTime();
+        Long reservationId;
+        try {
+            reservationId = combiner.reserve(productId, salesOrderId, salesOrderItemId, quantity);
+        } catch (IllegalStateException e) {
+            return Optional.empty();
+        }
+        if (reservationId == null) return Optional.empty();
 
-        Optional<CurrentStock> currentStock = repository.findById(productId);
+        hotStockService.recordReservation(productId, System.nanoTime() - started);
+        releaseOnRollback(productId, reservationId);
+        markChanged(List.of(productId));
+        return Optional.of(reservationId);
+    }
 
-        if (currentStock.isPresent()) {
-            CurrentStock stock = currentStock.get();
+    /**
+     * Ship reserved stock (SALE_SHIPMENT).
+     */
+    public StockMutationResult ship(Long productId, Long stockMovementId, BigDecimal quantity) {
+        advisoryLockService.lockProduct(productId);
+        return toResult(productId, repository.ship(productId, stockMovementId, quantity), true);
+    }
 
-            stock.setQuantityOnHand(stock.getQuantityOnHand().add(quantity));
-            stock.setLastMovement(stockMovement);
-            stock.setLastUpdated(Instant.now());
+    /**
+     * Receive stock (PURCHASE_RECEIPT / ADJUSTMENT_IN), creating the snapshot row if missing.
+     */
+    public StockMutationResult receive(Long productId, Long stockMovementId, BigDecimal quantity) {
+        advisoryLockService.lockProduct(productId);
+        return toResult(productId, repository.receive(productId, stockMovementId, quantity), false);
+    }
 
-            repository.save(stock);
-        } else {
-            CurrentStock newStock = CurrentStock.builder()
-                .productId(productId)
-                .quantityOnHand(quantity)
-                .quantityReserved(BigDecimal.ZERO)
-                .quantityAvailable(quantity)
-                .lastMovement(stockMovement)
-                .lastUpdated(Instant.now())
-                .build();
-            repository.save(newStock);
+    /**
+     * Adjust available stock out (ADJUSTMENT_OUT).
+     */
+    public StockMutationResult adjustOut(Long productId, Long stockMovementId, BigDecimal quantity) {
+        advisoryLockService.lockProduct(productId);
+        Optional<StockLevel> level = repository.adjustOut(productId, stockMovementId, quantity);
+
+        // Free stock of a hot SKU lives in its buckets; pull it back and retry
+        if (level.isEmpty() && hotStockService.refreshHot(productId)) {
+            hotStockService.drain(List.of(productId));
+            level = repository.adjustOut(productId, stockMovementId, quantity);
         }
+        return toResult(productId, level, true);
+    }
 
+    /**
+     * Update/Create a Current Stock In.
+     */
+    public void updateStockIn(Long productId, Long stockMovementId, BigDecimal quantity) {
+        requireApplied(receive(productId, stockMovementId, quantity));
     }
 
     /**
      * Update/Create a Current Stock Out.
      */
     public void updateStockOut(Long productId, Long stockMovementId, BigDecimal quantity, boolean isReserve) {
-        // Control for product
+        requireApplied(isReserve
+            ? reserve(productId, stockMovementId, quantity)
+            : adjustOut(productId, stockMovementId, quantity));
+    }
+
+    /**
+     * Ship reserved stock, failing if the reservation is not there.
+     */
+    public void updateStockShipment(Long productId, Long stockMovementId, BigDecimal quantity) {
+        requireApplied(ship(productId, stockMovementId, quantity));
+    }
+
+    /**
+     * Lock snapshot rows of products and return their available quantities.
+     */
+    public Map<Long, BigDecimal> lockAvailableQuantities(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return Map.of();
+
+        advisoryLockService.lockProducts(productIds);
+
+        // Bucket quantities of hot SKUs go back to the row first; the refill job spreads them again
+        hotStockService.drain(productIds);
+
+        return lockStockRows(productIds)
+            .stream()
+            .collect(Collectors.toMap(StockLevel::getProductId, StockLevel::getQuantityAvailable));
+    }
+
+    /**
+     * Lock snapshot rows of products in product id order, creating missing ones.
+     */
+    public List<StockLevel> lockStockRows(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return List.of();
+
+        advisoryLockService.lockProducts(productIds);
+        repository.createMissing(productIds.toArray(Long[]::new));
+        return repository.lockAllById(productIds);
+    }
+
+    /**
+     * Apply signed on-hand deltas of locked products in one statement.
+     */
+    public void applyOnHandDeltas(Map<Long, BigDecimal> deltas, Map<Long, Long> lastMovementIds) {
+        if (deltas.isEmpty()) return;
+
+        Long[] productIds = deltas.keySet().toArray(Long[]::new);
+        BigDecimal[] quantities = new BigDecimal[productIds.length];
+        Long[] movementIds = new Long[productIds.length];
+
+        for (int i = 0; i < productIds.length; i++) {
+            quantities[i] = deltas.get(productIds[i]);
+            movementIds[i] = lastMovementIds.get(productIds[i]);
+        }
+
+        repository.applyOnHandDeltas(productIds, quantities, movementIds);
+        markChanged(deltas.keySet());
+    }
+
+    /**
+     * Add reserved quantities of locked products in one statement.
+     */
+    public void applyReservedDeltas(Map<Long, BigDecimal> deltas) {
+        if (deltas.isEmpty()) return;
+
+        Long[] productIds = deltas.keySet().toArray(Long[]::new);
+        BigDecimal[] quantities = new BigDecimal[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            quantities[i] = deltas.get(productIds[i]);
+        }
+
+        repository.applyReservedDeltas(productIds, quantities);
+        markChanged(deltas.keySet());
+    }
+
+    /**
+     * Evict and announce snapshot rows changed by a set-based statement.
+     */
+    public void markChanged(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return;
+
+        cache.evict(productIds);
+        eventPublisher.publishEvent(CurrentStockChangedEvent.reload(productIds));
+    }
+
+    private CurrentStockResponse loadCurrentStock(Long productId) {
         productRepository.findById(productId)
             .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
+        
+        Optional<CurrentStock> currentStockOpt = repository.findById(productId);
 
-        // Control for available quantity
-        if (getAvailableQuantityById(productId).compareTo(quantity) < 0) {
-            throw new IllegalArgumentException("Not enough stock in inventory");
+        CurrentStock currentStock = null;
+
+        if(!currentStockOpt.isPresent()) {
+            currentStock = repository.save(CurrentStock.builder()
+                .productId(productId)
+                .quantityOnHand(BigDecimal.ZERO)
+                .quantityReserved(BigDecimal.ZERO)
+                .quantityAvailable(BigDecimal.ZERO)
+                .lastUpdated(Instant.now())
+                .build());
+        } else {
+            currentStock = currentStockOpt.get();
         }
-        
-        // Control for stock movement
-        StockMovement stockMovement = stockMovementRepository.findById(stockMovementId)
-            .orElseThrow(() -> new EntityNotFoundException("Stock Movement not found with id: " + stockMovementId));
 
-        Optional<CurrentStock> currentStock = repository.findById(productId);
+        return toResponses(List.of(currentStock)).get(0);
+    }
 
-        if (currentStock.isPresent()) {
-            CurrentStock stock = currentStock.get();
+    /**
+     * A combined grant commits on its own; give it back if the caller's transaction does not.
+     * If the process dies before, the grant row expires and the reservation sweep releases it.
+     */
+    private void releaseOnRollback(Long productId, Long reservationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    combiner.release(productId, reservationId);
+                }
+            }
+        });
+    }
 
-            if (isReserve) {
-                stock.setQuantityReserved(stock.getQuantityReserved().add(quantity));
-                stock.setQuantityAvailable(stock.getQuantityAvailable().subtract(quantity));
+    private StockMutationResult toResult(Long productId, Optional<StockLevel> level, boolean checkProduct) {
+        if (level.isPresent()) {
+            // last_updated is the statement's now(), close enough for the change event
+            CurrentStockResponse snapshot = CurrentStockResponse.builder()
+                .productId(productId)
+                .quantityOnHand(level.get().getQuantityOnHand())
+                .quantityReserved(level.get().getQuantityReserved())
+                .quantityAvailable(level.get().getQuantityAvailable())
+                .lastMovementId(level.get().getLastMovementId())
+                .lastUpdated(Instant.now())
+                .build();
+            if (hotStockService.isHot(productId)) {
+                // Row values miss the bucket quantities; let readers reload
+                markChanged(List.of(productId));
             } else {
-                stock.setQuantityOnHand(stock.getQuantityOnHand().subtract(quantity));
-                stock.setQuantityAvailable(stock.getQuantityAvailable().subtract(quantity));
+                cache.evict(List.of(productId));
+                eventPublisher.publishEvent(CurrentStockChangedEvent.of(snapshot));
             }
 
-            stock.setLastMovement(stockMovement);
-            stock.setLastUpdated(Instant.now());
+            return StockMutationResult.builder()
+                .productId(productId)
+                .outcome(Outcome.APPLIED)
+                .quantityOnHand(level.get().getQuantityOnHand())
+                .quantityReserved(level.get().getQuantityReserved())
+                .quantityAvailable(level.get().getQuantityAvailable())
+                .build();
+        }
+
+        // Only the failure path pays for telling the two rejections apart
+        Outcome outcome = checkProduct && productRepository.existsById(productId)
+            ? Outcome.INSUFFICIENT_STOCK
+            : Outcome.UNKNOWN_PRODUCT;
 
-            repository.save(stock);
-        } else {
-            throw new IllegalArgumentException("Not enough stock in inventory");
+        return StockMutationResult.builder()
+            .productId(productId)
+            .outcome(outcome)
+            .build();
+    }
+
+    private void requireApplied(StockMutationResult result) {
+        switch (result.getOutcome()) {
+            case UNKNOWN_PRODUCT -> throw new EntityNotFoundException("Product not found with id: " + result.getProductId());
+            case INSUFFICIENT_STOCK -> throw new IllegalArgumentException("Not enough stock in inventory");
+            case APPLIED -> { }
         }
     }
 
@@ -0,0 +1,324 @@
+package com.petek.inventoryService.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.petek.inventoryService.dto.stock.CurrentStockResponse;
+import com.petek.inventoryService.dto.stock.StockChangeEvent;
+import com.petek.inventoryService.event.CurrentStockChangedEvent;
+import com.petek.inventoryService.repository.StockChangeRepository;
+import com.petek.inventoryService.repository.StockChangeRepository.Change;
+import com.petek.inventoryService.repository.StockChangeRepository.Cursor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server-Sent Events feed of committed current stock changes.
+ *
+ * Changes are read from the stock_changes log (V12) by one dispatcher per instance and
+ * fanned out with their (tx, change_id) cursor as event id. The dispatcher polls when a
+ * local or remote change is announced and on a fixed delay (the log only releases a
+ * change once every older transaction has finished). Each subscriber is an async
+ * SseEmitter drained by its own virtual thread from a bounded queue; one that falls
+ * behind is completed and resumes with Last-Event-ID. Replays are paged; a cursor that is
+ * unknown or older than the retained log replays the current snapshot of every product.
+ * Events are snapshots, so receiving one twice is harmless.
+ */
+@Slf4j
+@Service
+public class CurrentStockStreamService {
+
+    private static final int QUEUE_CAPACITY = 1000;
+    private static final int PAGE_SIZE = 500;
+    private static final int PRUNE_CHUNK_SIZE = 5000;
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    private final StockChangeRepository repository;
+    private final CurrentStockService currentStockService;
+    private final MeterRegistry meterRegistry;
+    private final long timeoutMillis;
+    private final Duration retention;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Last cursor fanned out; guarded by fanOutLock together with subscriber registration
+    private final Object fanOutLock = new Object();
+    private Cursor head;
+
+    // Single dispatcher keeps events in cursor order and off the committing thread
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(
+        Thread.ofVirtual().name("current-stock-stream-dispatch").factory());
+    private final AtomicBoolean pollQueued = new AtomicBoolean();
+
+    public CurrentStockStreamService(
+        StockChangeRepository repository,
+        CurrentStockService currentStockService,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.stock-stream.timeout:PT30M}") Duration timeout,
+        @Value("${inventory.stock-stream.retention:PT24H}") Duration retention
+    ) {
+        this.repository = repository;
+        this.currentStockService = currentStockService;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMillis = timeout.toMillis();
+        this.retention = retention;
+
+        meterRegistry.gaugeCollectionSize("inventory.stock-stream.subscribers", List.of(), subscribers);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Subscribe to stock changes, optionally filtered by products and resumed after an event id.
+     */
+    public SseEmitter subscribe(Collection<Long> productIds, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, productIds == null || productIds.isEmpty() ? null : Set.copyOf(productIds));
+
+        // Registered at a known head: the replay covers up to it, the dispatcher everything after
+        Cursor upTo;
+        synchronized (fanOutLock) {
+            if (head == null) head = repository.findHead();
+            upTo = head;
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        Thread.ofVirtual()
+            .name("current-stock-stream")
+            .start(() -> subscriber.run(lastEventId, upTo));
+
+        return emitter;
+    }
+
+    /**
+     * Poll the change log once a change is announced (local after commit, remote from the invalidation listener).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCurrentStockChanged(CurrentStockChangedEvent event) {
+        requestPoll();
+    }
+
+    /**
+     * Pick up changes released by finished older transactions or written by other instances.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stock-stream.poll-interval:PT1S}")
+    public void pollPeriodically() {
+        requestPoll();
+    }
+
+    /**
+     * Delete log entries older than the retention window (resumes from before it replay in full).
+     */
+    @Scheduled(cron = "${inventory.stock-stream.cleanup-cron:0 */10 * * * *}", zone = "UTC")
+    public void pruneChanges() {
+        Instant cutoff = Instant.now().minus(retention);
+        long total = 0;
+        long deleted;
+        do {
+            deleted = repository.pruneBefore(cutoff, PRUNE_CHUNK_SIZE);
+            total += deleted;
+        } while (deleted == PRUNE_CHUNK_SIZE);
+
+        if (total > 0) {
+            meterRegistry.counter("inventory.stock-stream.pruned").increment(total);
+            log.info("Stock change log cleanup removed {} changes older than {}", total, cutoff);
+        }
+    }
+
+    private void requestPoll() {
+        if (subscribers.isEmpty() || !pollQueued.compareAndSet(false, true)) return;
+        dispatcher.execute(() -> {
+            pollQueued.set(false);
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                log.warn("Polling the stock change log failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void poll() {
+        while (true) {
+            Cursor after;
+            synchronized (fanOutLock) {
+                if (subscribers.isEmpty()) {
+                    // Nobody listens: the next subscriber starts from a fresh head
+                    head = null;
+                    return;
+                }
+                after = head;
+            }
+
+            List<Change> changes = repository.findAfter(after, null, null, PAGE_SIZE);
+            if (changes.isEmpty()) return;
+            List<Event> events = toEvents(changes);
+
+            synchronized (fanOutLock) {
+                for (Subscriber subscriber : subscribers) {
+                    events.forEach(subscriber::offer);
+                }
+                head = changes.get(changes.size() - 1).getCursor();
+            }
+            if (changes.size() < PAGE_SIZE) return;
+        }
+    }
+
+    // Latest snapshot per product of a page, at the product's last cursor in the page
+    private List<Event> toEvents(List<Change> changes) {
+        Map<Long, Cursor> lastCursor = new LinkedHashMap<>();
+        for (Change change : changes) {
+            lastCursor.remove(change.getProductId());
+            lastCursor.put(change.getProductId(), change.getCursor());
+        }
+
+        Map<Long, CurrentStockResponse> snapshots = currentStockService.getCurrentStocksById(lastCursor.keySet())
+            .stream()
+            .collect(Collectors.toMap(CurrentStockResponse::getProductId, Function.identity()));
+
+        List<Event> events = new ArrayList<>(lastCursor.size());
+        lastCursor.forEach((productId, cursor) -> {
+            CurrentStockResponse snapshot = snapshots.get(productId);
+            if (snapshot != null) events.add(new Event(cursor, toEvent(snapshot)));
+        });
+        return events;
+    }
+
+    private StockChangeEvent toEvent(CurrentStockResponse snapshot) {
+        return StockChangeEvent.builder()
+            .productId(snapshot.getProductId())
+            .quantityOnHand(snapshot.getQuantityOnHand())
+            .quantityReserved(snapshot.getQuantityReserved())
+            .quantityAvailable(snapshot.getQuantityAvailable())
+            .movementId(snapshot.getLastMovementId())
+            .build();
+    }
+
+    private record Event(Cursor cursor, StockChangeEvent change) {
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> productIds;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, Set<Long> productIds) {
+            this.emitter = emitter;
+            this.productIds = productIds;
+        }
+
+        private void offer(Event event) {
+            if (closed || (productIds != null && !productIds.contains(event.change().getProductId()))) return;
+
+            if (!queue.offer(event)) {
+                log.warn("Stock stream subscriber too slow, closing it");
+                close();
+                emitter.complete();
+            }
+        }
+
+        private void run(String lastEventId, Cursor upTo) {
+            try {
+                if (lastEventId != null) replay(lastEventId, upTo);
+                while (!closed) {
+                    Event event = queue.poll(HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                    if (event != null) {
+                        send(event);
+                    } else if (!closed) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Stock stream replay failed: {}", e.getMessage());
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        // Changes in (lastEventId, upTo], page by page; everything after upTo arrives live
+        private void replay(String lastEventId, Cursor upTo) throws IOException {
+            Cursor after = Cursor.parse(lastEventId).orElse(null);
+            if (after == null || after.compareTo(repository.findPruned()) <= 0) {
+                replayAll(upTo);
+                return;
+            }
+
+            while (!closed && after.compareTo(upTo) < 0) {
+                List<Change> changes = repository.findAfter(after, upTo, productIds, PAGE_SIZE);
+                if (changes.isEmpty()) return;
+                for (Event event : toEvents(changes)) {
+                    send(event);
+                }
+                after = changes.get(changes.size() - 1).getCursor();
+                if (changes.size() < PAGE_SIZE) return;
+            }
+        }
+
+        // Unknown or pruned cursor: current snapshot of every product, stamped with upTo
+        private void replayAll(Cursor upTo) throws IOException {
+            long afterProductId = 0;
+            while (!closed) {
+                List<Long> page = repository.findProductIdsAfter(afterProductId, productIds, PAGE_SIZE);
+                if (page.isEmpty()) return;
+                for (CurrentStockResponse snapshot : currentStockService.getCurrentStocksById(page)) {
+                    send(new Event(upTo, toEvent(snapshot)));
+                }
+                afterProductId = page.get(page.size() - 1);
+                if (page.size() < PAGE_SIZE) return;
+            }
+        }
+
+        private void send(Event event) throws IOException {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event()
+                .name("stock")
+                .data(event.change(), MediaType.APPLICATION_JSON);
+            if (!Cursor.START.equals(event.cursor())) {
+                builder.id(event.cursor().toString());
+            }
+            emitter.send(builder);
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+
+}
@@ -21,6 +21,8 @@ import com.petek.inventoryService.dto.customer.CustomerUpdateRequest;
 import com.petek.inventoryService.entity.Customer;
 import com.petek.inventoryService.mapper.CustomerMapper;
 import com.petek.inventoryService.repository.CustomerRepository;
+import com.petek.inventoryService.repository.ResourceVersionRepository;
+import com.petek.inventoryService.service.AutocompleteService.EntityType;
 import com.petek.inventoryService.spec.CustomerSpecifications;
 import com.petek.inventoryService.utils.SortUtils;
 
@@ -34,6 +36,8 @@ public class CustomerService {
     
     private final CustomerRepository repository;
     private final CustomerMapper mapper;
+    private final AutocompleteService autocompleteService;
+    private final ResourceVersionRepository versionRepository;
 
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
         "customerId", "customerName", "customerSegment", "email", "city", "updatedAt"
@@ -71,7 +75,25 @@ public class CustomerService {
         Customer customer = mapper.toCustomer(request);
         customer.setCreatedAt(Instant.now());
         customer.setUpdatedAt(Instant.now());
-        return mapper.toCustomerResponse(repository.save(customer));
+        Customer saved = repository.save(customer);
+        autocompleteService.indexAfterCommit(EntityType.CUSTOMER, saved.getCustomerId(), saved.getCustomerName());
+        return mapper.toCustomerResponse(saved);
+    }
+
+    /**
+     * Version token of a customer list query.
+     */
+    @Transactional(readOnly = true)
+    public String getCustomersVersion(CustomerFilterRequest request) {
+        return versionRepository.findListVersion(Customer.class, CustomerSpecifications.withFilters(request));
+    }
+
+    /**
+     * Version token of a customer, empty if it does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> getCustomerVersion(Long customerId) {
+        return versionRepository.findCustomerVersion(customerId);
     }
 
     /**
@@ -109,6 +131,9 @@ public class CustomerService {
             .filter(city -> !city.trim().isEmpty())
             .ifPresent(existingCustomer::setCity);
 
+        existingCustomer.setUpdatedAt(Instant.now());
+
+        autocompleteService.indexAfterCommit(EntityType.CUSTOMER, customerId, existingCustomer.getCustomerName());
         return mapper.toCustomerResponse(repository.save(existingCustomer));
     }
 
@@ -119,6 +144,7 @@ public class CustomerService {
         Customer existingCustomer = repository.findById(customerId)
             .orElseThrow(() -> new EntityNotFoundException("Customer not found with id: " + customerId));
         repository.delete(existingCustomer);
+        autocompleteService.removeAfterCommit(EntityType.CUSTOMER, customerId);
     }
 
 }
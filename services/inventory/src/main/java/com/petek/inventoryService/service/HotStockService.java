@@ -0,0 +1,319 @@
+package com.petek.inventoryService.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.cache.CurrentStockCache;
+import com.petek.inventoryService.dto.stock.HotStockSuggestion;
+import com.petek.inventoryService.dto.stock.StockBucketResponse;
+import com.petek.inventoryService.dto.stock.StockMutationResult;
+import com.petek.inventoryService.dto.stock.StockMutationResult.Outcome;
+import com.petek.inventoryService.event.CurrentStockChangedEvent;
+import com.petek.inventoryService.repository.CurrentStockRepository;
+import com.petek.inventoryService.repository.CurrentStockRepository.StockLevel;
+import com.petek.inventoryService.repository.ProductRepository;
+import com.petek.inventoryService.repository.StockBucketRepository;
+import com.petek.inventoryService.utils.Quantity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hot SKU mode: reservable stock of a product split across bucket rows.
+ *
+ * A reservation takes one free bucket (round-robin start, busy buckets skipped), so
+ * concurrent reservations of one product spread over N row locks. When no single
+ * bucket can cover it, the buckets and the product's free stock are pooled and
+ * re-split under lock. Paths that need the plain current_stock availability
+ * (adjustments, order allocation) drain the buckets first; a refill job moves free
+ * stock back in. Slow plain reservations are counted per product to suggest
+ * candidates.
+ */
+@Slf4j
+@Service
+public class HotStockService {
+
+    private static final int MAX_TRACKED_PRODUCTS = 10000;
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private final StockBucketRepository bucketRepository;
+    private final CurrentStockRepository currentStockRepository;
+    private final ProductRepository productRepository;
+    private final AdvisoryLockService advisoryLockService;
+    private final CurrentStockCache cache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final long lockWaitThresholdNanos;
+    private final long suggestMinWaits;
+    private final int suggestBucketCount;
+
+    // Known hot products of this instance (bucket count), refreshed with every refill run
+    private final Map<Long, Integer> bucketCounts = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> slowReservations = new ConcurrentHashMap<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private volatile List<HotStockSuggestion> suggestions = List.of();
+
+    public HotStockService(
+        StockBucketRepository bucketRepository,
+        CurrentStockRepository currentStockRepository,
+        ProductRepository productRepository,
+        AdvisoryLockService advisoryLockService,
+        CurrentStockCache cache,
+        ApplicationEventPublisher eventPublisher,
+        TransactionTemplate transactionTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.hot-stock.lock-wait-threshold:PT0.05S}") Duration lockWaitThreshold,
+        @Value("${inventory.hot-stock.suggest-min-waits:20}") long suggestMinWaits,
+        @Value("${inventory.hot-stock.suggest-bucket-count:16}") int suggestBucketCount
+    ) {
+        this.bucketRepository = bucketRepository;
+        this.currentStockRepository = currentStockRepository;
+        this.productRepository = productRepository;
+        this.advisoryLockService = advisoryLockService;
+        this.cache = cache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.lockWaitThresholdNanos = lockWaitThreshold.toNanos();
+        this.suggestMinWaits = suggestMinWaits;
+        this.suggestBucketCount = suggestBucketCount;
+
+        meterRegistry.gaugeMapSize("inventory.hot-stock.products", List.of(), bucketCounts);
+    }
+
+    public boolean isHot(Long productId) {
+        return bucketCounts.containsKey(productId);
+    }
+
+    /**
+     * Check the table for a product this instance does not know as hot yet.
+     */
+    public boolean refreshHot(Long productId) {
+        if (bucketRepository.findBucketProductIds(List.of(productId)).isEmpty()) {
+            bucketCounts.remove(productId);
+            return false;
+        }
+        bucketCounts.putAll(bucketRepository.findBucketCounts());
+        return true;
+    }
+
+    /**
+     * Escrowed bucket quantity per product (missing = not hot).
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> findBucketTotals(Collection<Long> productIds) {
+        return bucketRepository.findTotals(productIds);
+    }
+
+    /**
+     * Reserve from a bucket, pooling and re-splitting the buckets when none can cover it.
+     */
+    @Transactional
+    public StockMutationResult reserve(Long productId, BigDecimal quantity) {
+        int buckets = bucketCounts.getOrDefault(productId, 1);
+        int start = Math.floorMod(roundRobin.getAndIncrement(), buckets);
+
+        Optional<Integer> claimed = bucketRepository.claim(productId, quantity, start);
+        String path = "bucket";
+        boolean applied = claimed.isPresent();
+
+        if (!applied) {
+            path = "rebalance";
+            applied = rebalance(productId, Quantity.toUnits(quantity));
+        }
+
+        meterRegistry.counter("inventory.hot-stock.reservations", "path", path, "outcome", applied ? "applied" : "short").increment();
+
+        if (!applied) {
+            return StockMutationResult.builder().productId(productId).outcome(Outcome.INSUFFICIENT_STOCK).build();
+        }
+
+        markChanged(List.of(productId));
+        return StockMutationResult.builder().productId(productId).outcome(Outcome.APPLIED).build();
+    }
+
+    /**
+     * Move the bucket quantities of hot products back into current_stock availability.
+     */
+    @Transactional
+    public void drain(Collection<Long> productIds) {
+        List<Long> hotProductIds = bucketRepository.findBucketProductIds(productIds);
+        advisoryLockService.lockProducts(hotProductIds);
+        for (Long productId : hotProductIds) {
+            long escrowed = sum(bucketRepository.lockBuckets(productId));
+            if (escrowed == 0) continue;
+
+            bucketRepository.spread(productId, BigDecimal.ZERO, BigDecimal.ZERO);
+            currentStockRepository.applyReservedDeltas(new Long[] { productId }, new BigDecimal[] { Quantity.toBigDecimal(-escrowed) });
+        }
+        markChanged(hotProductIds);
+    }
+
+    /**
+     * Turn hot mode on (N buckets), resize it, or turn it off (0).
+     */
+    @Transactional
+    public StockBucketResponse configure(Long productId, int bucketCount) {
+        productRepository.findById(productId)
+            .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
+
+        advisoryLockService.lockProduct(productId);
+        drain(List.of(productId));
+        bucketRepository.deleteBuckets(productId);
+
+        if (bucketCount > 0) {
+            currentStockRepository.createMissing(new Long[] { productId });
+            bucketRepository.createBuckets(productId, bucketCount);
+            rebalance(productId, 0);
+            bucketCounts.put(productId, bucketCount);
+        } else {
+            bucketCounts.remove(productId);
+        }
+
+        markChanged(List.of(productId));
+        return getBuckets(productId);
+    }
+
+    /**
+     * Get the buckets of a product.
+     */
+    @Transactional(readOnly = true)
+    public StockBucketResponse getBuckets(Long productId) {
+        productRepository.findById(productId)
+            .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
+
+        List<BigDecimal> buckets = bucketRepository.findBucketQuantities(productId);
+
+        return StockBucketResponse.builder()
+            .productId(productId)
+            .bucketCount(buckets.size())
+            .quantityInBuckets(Quantity.toBigDecimal(sum(buckets)))
+            .buckets(buckets)
+            .build();
+    }
+
+    /**
+     * Products whose plain reservations kept waiting on the row lock in the last window.
+     */
+    public List<HotStockSuggestion> getSuggestions() {
+        return suggestions;
+    }
+
+    /**
+     * Count a plain (single row) reservation that waited longer than the threshold.
+     */
+    public void recordReservation(Long productId, long elapsedNanos) {
+        if (elapsedNanos < lockWaitThresholdNanos) return;
+
+        meterRegistry.counter("inventory.hot-stock.lock-waits").increment();
+        LongAdder waits = slowReservations.get(productId);
+        if (waits == null) {
+            if (slowReservations.size() >= MAX_TRACKED_PRODUCTS) return;
+            waits = slowReservations.computeIfAbsent(productId, id -> new LongAdder());
+        }
+        waits.increment();
+    }
+
+    /**
+     * Move free stock of hot products (receipts, released reservations) into their buckets.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-stock.refill-interval:PT5S}")
+    public void refill() {
+        Map<Long, Integer> counts = bucketRepository.findBucketCounts();
+        bucketCounts.keySet().retainAll(counts.keySet());
+        bucketCounts.putAll(counts);
+        if (counts.isEmpty()) return;
+
+        for (Long productId : bucketRepository.findRefillableProductIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    rebalance(productId, 0);
+                    markChanged(List.of(productId));
+                });
+            } catch (RuntimeException e) {
+                log.warn("Refilling stock buckets of product {} failed: {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Turn the slow reservation counts of the last window into suggestions.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-stock.suggest-window:PT1M}")
+    public void evaluateSuggestions() {
+        List<HotStockSuggestion> next = slowReservations.entrySet()
+            .stream()
+            .filter(entry -> entry.getValue().sum() >= suggestMinWaits && !isHot(entry.getKey()))
+            .map(entry -> HotStockSuggestion.builder()
+                .productId(entry.getKey())
+                .slowReservations(entry.getValue().sum())
+                .suggestedBucketCount(suggestBucketCount)
+                .build())
+            .sorted(Comparator.comparingLong(HotStockSuggestion::getSlowReservations).reversed())
+            .limit(MAX_SUGGESTIONS)
+            .toList();
+
+        slowReservations.clear();
+        suggestions = next;
+    }
+
+    /**
+     * Pool the buckets with the product's free stock, take the quantity and split the rest
+     * evenly. Buckets are locked before the current_stock row.
+     */
+    private boolean rebalance(Long productId, long quantity) {
+        advisoryLockService.lockProduct(productId);
+        List<BigDecimal> buckets = bucketRepository.lockBuckets(productId);
+        if (buckets.isEmpty()) return false;
+
+        List<StockLevel> levels = currentStockRepository.lockAllById(List.of(productId));
+        long free = levels.isEmpty() ? 0 : Quantity.toUnits(levels.get(0).getQuantityAvailable());
+
+        long pool = sum(buckets) + free;
+        if (pool < quantity) return false;
+
+        long remaining = pool - quantity;
+        long share = remaining / buckets.size();
+        bucketRepository.spread(productId, Quantity.toBigDecimal(share + remaining % buckets.size()), Quantity.toBigDecimal(share));
+
+        // All free stock is now either in a bucket or reserved: both count as reserved in current_stock
+        if (free > 0) {
+            currentStockRepository.applyReservedDeltas(new Long[] { productId }, new BigDecimal[] { Quantity.toBigDecimal(free) });
+        }
+        return true;
+    }
+
+    private long sum(List<BigDecimal> quantities) {
+        long units = 0;
+        for (BigDecimal quantity : quantities) {
+            units += Quantity.toUnits(quantity);
+        }
+        return units;
+    }
+
+    private void markChanged(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return;
+
+        cache.evict(productIds);
+        eventPublisher.publishEvent(CurrentStockChangedEvent.reload(productIds));
+    }
+
+}
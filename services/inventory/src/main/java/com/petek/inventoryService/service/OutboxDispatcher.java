@@ -0,0 +1,181 @@
+package com.petek.inventoryService.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.outbox.OutboxMessage;
+import com.petek.inventoryService.entity.OutboxEvent;
+import com.petek.inventoryService.outbox.OutboxTarget;
+import com.petek.inventoryService.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains the outbox in batches. Every instance runs it; SKIP LOCKED splits the work.
+ * Events are ordered within a batch, not across instances.
+ */
+@Slf4j
+@Service
+public class OutboxDispatcher {
+
+    private static final int MAX_BATCHES_PER_RUN = 100;
+    private static final int CLEANUP_CHUNK_SIZE = 10000;
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository repository;
+    private final List<OutboxTarget> targets;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retention;
+    private final Duration deadLetterRetention;
+
+    public OutboxDispatcher(
+        OutboxEventRepository repository,
+        List<OutboxTarget> targets,
+        TransactionTemplate transactionTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.outbox.batch-size:200}") int batchSize,
+        @Value("${inventory.outbox.max-attempts:10}") int maxAttempts,
+        @Value("${inventory.outbox.retention:PT24H}") Duration retention,
+        @Value("${inventory.outbox.dead-letter-retention:P30D}") Duration deadLetterRetention
+    ) {
+        this.repository = repository;
+        this.targets = targets;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retention = retention;
+        this.deadLetterRetention = deadLetterRetention;
+    }
+
+    /**
+     * Dispatch pending outbox events until the backlog is drained (bounded per run).
+     */
+    @Scheduled(fixedDelayString = "${inventory.outbox.poll-interval:PT1S}")
+    public void dispatchPending() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            Integer claimed = transactionTemplate.execute(status -> dispatchBatch());
+            if (claimed == null || claimed < batchSize) return;
+        }
+    }
+
+    /**
+     * Delete dispatched events older than the retention window, move events that used up
+     * their attempts to the dead letters and delete dead letters past their own retention.
+     */
+    @Scheduled(cron = "${inventory.outbox.cleanup-cron:0 */10 * * * *}", zone = "UTC")
+    public void cleanupDispatched() {
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(retention);
+        int total = inChunks(() -> repository.deleteDispatchedBefore(cutoff, CLEANUP_CHUNK_SIZE));
+        if (total > 0) {
+            meterRegistry.counter("inventory.outbox.cleaned").increment(total);
+            log.info("Outbox cleanup removed {} dispatched events older than {}", total, cutoff);
+        }
+
+        int dead = inChunks(() -> repository.moveToDeadLetters(maxAttempts, CLEANUP_CHUNK_SIZE));
+        if (dead > 0) {
+            meterRegistry.counter("inventory.outbox.dead_lettered").increment(dead);
+            log.warn("Outbox cleanup moved {} events out of attempts to the dead letters", dead);
+        }
+
+        Instant deadCutoff = now.minus(deadLetterRetention);
+        int expired = inChunks(() -> repository.deleteDeadLettersBefore(deadCutoff, CLEANUP_CHUNK_SIZE));
+        if (expired > 0) {
+            meterRegistry.counter("inventory.outbox.dead_letters_cleaned").increment(expired);
+            log.info("Outbox cleanup removed {} dead letters older than {}", expired, deadCutoff);
+        }
+    }
+
+    // One transaction per chunk until a chunk comes back short
+    private int inChunks(IntSupplier chunk) {
+        int total = 0;
+        Integer done;
+        do {
+            done = transactionTemplate.execute(status -> chunk.getAsInt());
+            total += done != null ? done : 0;
+        } while (done != null && done == CLEANUP_CHUNK_SIZE);
+        return total;
+    }
+
+    private int dispatchBatch() {
+        List<OutboxEvent> events = repository.claimBatch(batchSize, maxAttempts);
+        if (events.isEmpty()) return 0;
+
+        List<OutboxMessage> messages = events.stream().map(this::toMessage).toList();
+        Instant now = Instant.now();
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        String failedTarget = null;
+        try {
+            for (OutboxTarget target : targets) {
+                failedTarget = target.getName();
+                target.deliver(messages);
+            }
+            failedTarget = null;
+        } catch (Exception e) {
+            markFailed(events, failedTarget, e, now);
+        }
+
+        sample.stop(meterRegistry.timer("inventory.outbox.batch", "outcome", failedTarget == null ? "delivered" : "failed"));
+
+        if (failedTarget == null) {
+            Instant dispatchedAt = Instant.now();
+            Timer lag = meterRegistry.timer("inventory.outbox.lag");
+            for (OutboxEvent event : events) {
+                event.setDispatchedAt(dispatchedAt);
+                lag.record(Duration.between(event.getCreatedAt(), dispatchedAt));
+            }
+            meterRegistry.counter("inventory.outbox.dispatched").increment(events.size());
+        }
+
+        // Managed entities; the state changes flush as one batch at commit
+        return events.size();
+    }
+
+    private void markFailed(List<OutboxEvent> events, String target, Exception e, Instant now) {
+        String error = (target + ": " + e.getMessage());
+        String lastError = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+
+        for (OutboxEvent event : events) {
+            int attempts = event.getAttempts() + 1;
+            Duration backoff = Duration.ofSeconds(1L << Math.min(attempts, 20));
+            event.setAttempts(attempts);
+            event.setNextAttemptAt(now.plus(backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff));
+            event.setLastError(lastError);
+
+            if (attempts >= maxAttempts) {
+                log.error("Outbox event {} gave up after {} attempts: {}", event.getEventId(), attempts, lastError);
+            }
+        }
+
+        meterRegistry.counter("inventory.outbox.failures", "target", target).increment(events.size());
+        log.warn("Outbox batch of {} events failed on target {}: {}", events.size(), target, e.getMessage());
+    }
+
+    private OutboxMessage toMessage(OutboxEvent event) {
+        return OutboxMessage.builder()
+            .eventId(event.getEventId())
+            .aggregateType(event.getAggregateType().name())
+            .aggregateId(event.getAggregateId())
+            .eventType(event.getEventType())
+            .payload(event.getPayload())
+            .createdAt(event.getCreatedAt())
+            .build();
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.petek.inventoryService.service;
+
+import java.time.Instant;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petek.inventoryService.entity.OutboxEvent;
+import com.petek.inventoryService.entity.OutboxEvent.AggregateType;
+import com.petek.inventoryService.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private final OutboxEventRepository repository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Record a domain event in the caller's transaction.
+     */
+    public void record(AggregateType aggregateType, Long aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox payload not serializable: " + eventType, e);
+        }
+
+        Instant now = Instant.now();
+        repository.save(OutboxEvent.builder()
+            .aggregateType(aggregateType)
+            .aggregateId(aggregateId)
+            .eventType(eventType)
+            .payload(json)
+            .createdAt(now)
+            .attempts(0)
+            .nextAttemptAt(now)
+            .build());
+
+        meterRegistry.counter("inventory.outbox.recorded", "aggregate", aggregateType.name()).increment();
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.petek.inventoryService.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.petek.inventoryService.repository.CampaignTermsRepository;
+import com.petek.inventoryService.repository.CampaignTermsRepository.CampaignAssignment;
+import com.petek.inventoryService.utils.CampaignIntervalIndex;
+import com.petek.inventoryService.utils.CampaignIntervalIndex.Terms;
+import com.petek.inventoryService.utils.Money;
+import com.petek.inventoryService.utils.Quantity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Line pricing engine: the policy documented in V6__sales_tables.sql, resolved from an
+ * in-memory campaign index instead of a query per order line.
+ *
+ *   productPct  DISCOUNT          -> discount_percentage
+ *               BXGY_SAME_PRODUCT -> round(floor(qty / (buy + get)) * get / qty * 100, 2),
+ *                                    countable units of measure only
+ *   final       round((1 - (1 - productPct/100) * (1 - customerPct/100)) * 100, 2)
+ *
+ * When several campaigns of a product are active on the order date the one giving the
+ * line the highest productPct wins (lowest campaign id on ties). The index is loaded at
+ * startup, refreshed per campaign after CampaignService commits and rebuilt periodically
+ * for changes made by other instances.
+ */
+@Slf4j
+@Service
+public class PricingService {
+
+    private static final Set<String> COUNTABLE_UNITS = Set.of("adet", "koli", "paket", "çuval", "şişe");
+    private static final long UNITS_PER_PIECE = 1000;
+
+    private final CampaignTermsRepository repository;
+
+    private volatile CampaignIntervalIndex index = new CampaignIntervalIndex();
+
+    public PricingService(CampaignTermsRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        meterRegistry.gauge("inventory.pricing.campaigns", this, service -> service.index.campaignCount());
+        meterRegistry.gauge("inventory.pricing.products", this, service -> service.index.productCount());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class LinePrice {
+        // Null when no campaign applies to the line
+        private final Long campaignId;
+        // Hundredths of a percent (Money)
+        private final long productHundredths;
+        private final long discountHundredths;
+
+        public BigDecimal getProductPercentage() {
+            return Money.toBigDecimal(productHundredths);
+        }
+
+        public BigDecimal getDiscountPercentage() {
+            return Money.toBigDecimal(discountHundredths);
+        }
+    }
+
+    /**
+     * Price a line: best active campaign of the product stacked with the customer offer.
+     */
+    public LinePrice priceLine(Long productId, String unitOfMeasure, BigDecimal quantity, LocalDate orderDate, BigDecimal customerPercentage) {
+        return priceLine(productId, unitOfMeasure, Quantity.toUnits(quantity), orderDate,
+            customerPercentage == null ? 0 : Money.toCents(customerPercentage));
+    }
+
+    /**
+     * Price a line in fixed point: quantity in units, percentages in hundredths.
+     */
+    public LinePrice priceLine(Long productId, String unitOfMeasure, long quantityUnits, LocalDate orderDate, long customerPercent) {
+        boolean countable = COUNTABLE_UNITS.contains(unitOfMeasure);
+
+        Terms best = null;
+        long bestPercent = 0;
+        for (Terms terms : index.active(productId, orderDate)) {
+            if (terms.isBuyXGetY() && !countable) continue;
+            long percent = productPercent(terms, quantityUnits);
+            if (best == null || percent > bestPercent
+                || (percent == bestPercent && terms.getCampaignId() < best.getCampaignId())) {
+                best = terms;
+                bestPercent = percent;
+            }
+        }
+
+        return new LinePrice(
+            best == null ? null : best.getCampaignId(),
+            bestPercent,
+            Money.stackPercents(bestPercent, customerPercent));
+    }
+
+    /**
+     * Reload one campaign into the index once the transaction commits.
+     */
+    public void refreshAfterCommit(Long campaignId) {
+        afterCommit(() -> refreshLogged(campaignId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the index from the database (changes made by other instances).
+     */
+    @Scheduled(
+        fixedDelayString = "${inventory.pricing.refresh-interval:PT5M}",
+        initialDelayString = "${inventory.pricing.refresh-interval:PT5M}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        try {
+            List<CampaignAssignment> assignments = repository.findAll();
+            CampaignIntervalIndex next = new CampaignIntervalIndex();
+            next.putAll(
+                assignments.stream().map(CampaignAssignment::getTerms).toList(),
+                assignments.stream().collect(Collectors.toMap(
+                    assignment -> assignment.getTerms().getCampaignId(), CampaignAssignment::getProductIds)));
+            index = next;
+            log.info("Pricing index rebuilt: {} campaigns over {} products in {} ms",
+                next.campaignCount(), next.productCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            log.warn("Rebuilding the pricing index failed: {}", e.getMessage());
+        }
+    }
+
+    // floor(qty / group) whole groups, get_qty free pieces each, as a share of qty (package-private for tests)
+    static long productPercent(Terms terms, long quantityUnits) {
+        if (!terms.isBuyXGetY()) return terms.getDiscountHundredths();
+        if (quantityUnits <= 0) return 0;
+        long groupUnits = (terms.getBuyQty() + (long) terms.getGetQty()) * UNITS_PER_PIECE;
+        long freeUnits = quantityUnits / groupUnits * terms.getGetQty() * UNITS_PER_PIECE;
+        return Money.percentOf(freeUnits, quantityUnits);
+    }
+
+    // Serialized with rebuild(), so a reload never lands in an index about to be replaced
+    private synchronized void refreshLogged(Long campaignId) {
+        try {
+            repository.findById(campaignId).ifPresentOrElse(
+                assignment -> index.put(assignment.getTerms(), assignment.getProductIds()),
+                () -> index.remove(campaignId));
+        } catch (RuntimeException e) {
+            log.warn("Refreshing campaign {} in the pricing index failed: {}", campaignId, e.getMessage());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.petek.inventoryService.service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -8,27 +10,38 @@ import java.util.Set;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.petek.inventoryService.dto.CursorPageResponse;
+import com.petek.inventoryService.dto.CursorPageResponse.CursorInfo;
 import com.petek.inventoryService.dto.PageResponse.PageInfo;
+import com.petek.inventoryService.dto.product.ProductBulkUpdateRequest;
+import com.petek.inventoryService.dto.product.ProductBulkUpdateRequest.Item;
+import com.petek.inventoryService.dto.product.ProductBulkUpdateResponse;
 import com.petek.inventoryService.dto.product.ProductCreateRequest;
 import com.petek.inventoryService.dto.product.ProductFilterRequest;
 import com.petek.inventoryService.dto.product.ProductItemResponse;
 import com.petek.inventoryService.dto.product.ProductResponse;
 import com.petek.inventoryService.dto.product.ProductUpdateRequest;
-import com.petek.inventoryService.dto.stock.CurrentStockResponse;
 import com.petek.inventoryService.dto.PageResponse;
 import com.petek.inventoryService.entity.Product;
 import com.petek.inventoryService.mapper.ProductMapper;
+import com.petek.inventoryService.repository.ProductBulkUpdateRepository;
+import com.petek.inventoryService.repository.ProductCatalogRepository;
+import com.petek.inventoryService.repository.ProductCatalogRepository.SearchHit;
 import com.petek.inventoryService.repository.ProductRepository;
-import com.petek.inventoryService.spec.ProductSpecifications;
+import com.petek.inventoryService.repository.ResourceVersionRepository;
+import com.petek.inventoryService.service.AutocompleteService.EntityType;
+import com.petek.inventoryService.utils.CursorUtils;
+import com.petek.inventoryService.utils.CursorUtils.RankCursor;
 import com.petek.inventoryService.utils.SortUtils;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -38,9 +51,13 @@ public class ProductService {
     private final ProductMapper mapper;
 
     private final CurrentStockService currentStockService;
+    private final ProductCatalogRepository catalogRepository;
+    private final ProductBulkUpdateRepository bulkUpdateRepository;
+    private final AutocompleteService autocompleteService;
+    private final ResourceVersionRepository versionRepository;
 
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
-        "productId", "productName", "category", "currentPrice", "updatedAt"
+        "productId", "productName", "category", "currentPrice", "updatedAt", "quantityAvailable", "inventoryStatus"
     );  
     
     /**
@@ -48,36 +65,13 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public PageResponse<ProductItemResponse> getAllProducts(ProductFilterRequest request) {
-        // Validate price range
-        if (request.getPriceGte() != null && request.getPriceLte() != null && 
-            request.getPriceGte().compareTo(request.getPriceLte()) > 0) {
-            throw new IllegalArgumentException("price_gte cannot be greater than price_lte");
-        }
-        
-        // Validate safety stock range
-        if (request.getSafetyGte() != null && request.getSafetyLte() != null && 
-            request.getSafetyGte().compareTo(request.getSafetyLte()) > 0) {
-            throw new IllegalArgumentException("safety_gte cannot be greater than safety_lte");
-        }
-        
-        // Validate reorder point range
-        if (request.getReorderGte() != null && request.getReorderLte() != null && 
-            request.getReorderGte().compareTo(request.getReorderLte()) > 0) {
-            throw new IllegalArgumentException("reorder_gte cannot be greater than reorder_lte");
-        }
+        validateRanges(request);
 
         Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), SortUtils.createSort(request.getSort(), ALLOWED_SORT_FIELDS));
-        Specification<Product> spec = ProductSpecifications.withFilters(request);
-        
-        Page<Product> productPage = repository.findAll(spec, pageable);
-        
-        List<ProductItemResponse> productResponses = productPage.getContent()
-            .stream()
-            .map(product -> {
-                CurrentStockResponse currentStockResponse = currentStockService.getCurrentStockById(product.getProductId());
-                return mapper.toProductItemResponse(product, currentStockResponse);
-            })
-            .toList();
+
+        // Read model: page, total, stock status and suppliers in one statement
+        Page<ProductItemResponse> productPage = catalogRepository.findPage(request, pageable);
+        List<ProductItemResponse> productResponses = productPage.getContent();
         
         PageInfo pageInfo = new PageInfo(
             productPage.getNumber(),
@@ -89,6 +83,82 @@ public class ProductService {
         return new PageResponse<ProductItemResponse>(productResponses, pageInfo);
     }
 
+    /**
+     * Change price, safety stock and reorder point of many products at once: either the
+     * products matching a filter by an expression, or explicit values per product.
+     */
+    public ProductBulkUpdateResponse bulkUpdateProducts(ProductBulkUpdateRequest request) {
+        boolean byFilter = request.getFilter() != null;
+        boolean byItems = request.getItems() != null;
+        if (byFilter == byItems) {
+            throw new IllegalArgumentException("Either filter or items is required");
+        }
+
+        ProductBulkUpdateResponse response;
+        if (byFilter) {
+            if (request.getCurrentPrice() == null && request.getSafetyStock() == null && request.getReorderPoint() == null) {
+                throw new IllegalArgumentException("At least one of currentPrice, safetyStock and reorderPoint is required");
+            }
+            validateRanges(request.getFilter());
+            response = bulkUpdateRepository.updateMatching(request.getFilter(),
+                request.getCurrentPrice(), request.getSafetyStock(), request.getReorderPoint(), request.isDryRun());
+        } else {
+            Set<Long> productIds = new HashSet<>();
+            for (Item item : request.getItems()) {
+                if (!productIds.add(item.getProductId())) {
+                    throw new IllegalArgumentException("Duplicate product id in items: " + item.getProductId());
+                }
+                if (item.getCurrentPrice() == null && item.getSafetyStock() == null && item.getReorderPoint() == null) {
+                    throw new IllegalArgumentException("Item " + item.getProductId() + " changes nothing");
+                }
+            }
+            response = bulkUpdateRepository.updateItems(request.getItems(), request.isDryRun());
+        }
+
+        log.info("Bulk product update{}: {} matched, {} updated, {} rejected",
+            request.isDryRun() ? " (dry run)" : "", response.getMatched(), response.getUpdated(), response.getRejected());
+        return response;
+    }
+
+    /**
+     * Search products by name, category and description (ranked, keyset paged, typo tolerant).
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductItemResponse> searchProducts(ProductFilterRequest request) {
+        if (request.getQ() == null || request.getQ().trim().isEmpty()) {
+            throw new IllegalArgumentException("q is required");
+        }
+
+        // Validate price range
+        if (request.getPriceGte() != null && request.getPriceLte() != null && 
+            request.getPriceGte().compareTo(request.getPriceLte()) > 0) {
+            throw new IllegalArgumentException("price_gte cannot be greater than price_lte");
+        }
+
+        RankCursor cursor = CursorUtils.decodeRank(request.getAfter());
+        int size = request.getSize();
+
+        // Fetch one extra row to detect more pages
+        List<SearchHit> hits = new ArrayList<>(catalogRepository.search(request, cursor, size + 1));
+        boolean hasMore = hits.size() > size;
+        if (hasMore) hits.remove(size);
+
+        String next = null;
+        if (hasMore) {
+            SearchHit last = hits.get(hits.size() - 1);
+            next = CursorUtils.encodeRank(last.getRank(), last.getItem().getProductId());
+        }
+
+        List<ProductItemResponse> productResponses = hits
+            .stream()
+            .map(SearchHit::getItem)
+            .toList();
+
+        CursorInfo cursorInfo = new CursorInfo(size, next, null);
+
+        return new CursorPageResponse<ProductItemResponse>(productResponses, cursorInfo);
+    }
+
     /**
      * Create a new product.
      */
@@ -96,7 +166,25 @@ public class ProductService {
         Product product = mapper.toProduct(request);
         product.setCreatedAt(Instant.now());
         product.setUpdatedAt(Instant.now());
-        return mapper.toProductResponse(repository.save(product));
+        Product saved = repository.save(product);
+        autocompleteService.indexAfterCommit(EntityType.PRODUCT, saved.getProductId(), saved.getProductName());
+        return mapper.toProductResponse(saved);
+    }
+
+    /**
+     * Version token of a product grid query.
+     */
+    @Transactional(readOnly = true)
+    public String getProductsVersion(ProductFilterRequest request) {
+        return catalogRepository.findVersion(request);
+    }
+
+    /**
+     * Version token of a product, empty if it does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> getProductVersion(Long productId) {
+        return versionRepository.findProductVersion(productId);
     }
 
     /**
@@ -143,6 +231,7 @@ public class ProductService {
         
         existingProduct.setUpdatedAt(Instant.now());
 
+        autocompleteService.indexAfterCommit(EntityType.PRODUCT, productId, existingProduct.getProductName());
         return mapper.toProductResponse(repository.save(existingProduct));
     }
 
@@ -153,6 +242,28 @@ public class ProductService {
         Product existingProduct = repository.findById(productId)
             .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
         repository.delete(existingProduct);
+        currentStockService.evictCachedStock(productId);
+        autocompleteService.removeAfterCommit(EntityType.PRODUCT, productId);
+    }
+
+    private void validateRanges(ProductFilterRequest request) {
+        // Validate price range
+        if (request.getPriceGte() != null && request.getPriceLte() != null && 
+            request.getPriceGte().compareTo(request.getPriceLte()) > 0) {
+            throw new IllegalArgumentException("price_gte cannot be greater than price_lte");
+        }
+        
+        // Validate safety stock range
+        if (request.getSafetyGte() != null && request.getSafetyLte() != null && 
+            request.getSafetyGte().compareTo(request.getSafetyLte()) > 0) {
+            throw new IllegalArgumentException("safety_gte cannot be greater than safety_lte");
+        }
+        
+        // Validate reorder point range
+        if (request.getReorderGte() != null && request.getReorderLte() != null && 
+            request.getReorderGte().compareTo(request.getReorderLte()) > 0) {
+            throw new IllegalArgumentException("reorder_gte cannot be greater than reorder_lte");
+        }
     }
 
 }
@@ -27,6 +27,7 @@ import com.petek.inventoryService.mapper.ProductSupplierMapper;
 import com.petek.inventoryService.repository.ProductRepository;
 import com.petek.inventoryService.repository.ProductSupplierRepository;
 import com.petek.inventoryService.repository.SupplierRepository;
+import com.petek.inventoryService.retry.RetryOnConflict;
 import com.petek.inventoryService.spec.ProductSupplierSpecifications;
 import com.petek.inventoryService.utils.SortUtils;
 
@@ -78,6 +79,7 @@ public class ProductSupplierService {
     /**
      * Create a new productSupplier.
      */
+    @RetryOnConflict
     public ProductSupplierResponse createProductSupplier(ProductSupplierCreateRequest request) {
 
         if (productService.getProductById(request.getProductId()) == null) {
@@ -126,6 +128,7 @@ public class ProductSupplierService {
     /**
      * Update a productSupplier.
      */
+    @RetryOnConflict
     public ProductSupplierResponse updateProductSupplier(Long productSupplierId, ProductSupplierUpdateRequest request) {
         ProductSupplier existingProductSupplier = repository.findById(productSupplierId)
             .orElseThrow(() -> new EntityNotFoundException("ProductSupplier not found with id: " + productSupplierId));
@@ -171,6 +174,7 @@ public class ProductSupplierService {
     /**
      * Delete a productSupplier.
      */
+    @RetryOnConflict
     public void deleteProductSupplier(Long productSupplierId) {
         ProductSupplier existingProductSupplier = repository.findById(productSupplierId)
             .orElseThrow(() -> new EntityNotFoundException("ProductSupplier not found with id: " + productSupplierId));
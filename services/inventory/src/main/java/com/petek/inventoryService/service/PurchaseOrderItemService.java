@@ -1,10 +1,9 @@
 package com.petek.inventoryService.service;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -25,6 +24,8 @@ import com.petek.inventoryService.mapper.PurchaseOrderItemMapper;
 import com.petek.inventoryService.repository.ProductRepository;
 import com.petek.inventoryService.repository.PurchaseOrderItemRepository;
 import com.petek.inventoryService.repository.PurchaseOrderRepository;
+import com.petek.inventoryService.utils.Money;
+import com.petek.inventoryService.utils.Quantity;
 import com.petek.inventoryService.utils.SortUtils;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -41,8 +42,15 @@ public class PurchaseOrderItemService {
     private final ProductRepository productRepository;
     private final PurchaseOrderRepository purchaseOrderRepository;
 
-    private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
-        "purchaseOrderItemId", "productId", "quantityOrdered", "quantityReceived", "unitPrice", "lineTotal", "lineTotalReceived", "createdAt"
+    private static final Map<String, String> ALLOWED_SORT_FIELDS = Map.of(
+        "purchaseOrderItemId", "purchaseOrderItemId",
+        "productId", "product.productId",
+        "quantityOrdered", "quantityOrderedUnits",
+        "quantityReceived", "quantityReceivedUnits",
+        "unitPrice", "unitPriceCents",
+        "lineTotal", "lineTotalCents",
+        "lineTotalReceived", "lineTotalReceivedCents",
+        "createdAt", "createdAt"
     );  
     
     /**
@@ -81,8 +89,7 @@ public class PurchaseOrderItemService {
         
         PurchaseOrderItem purchaseOrderItem = mapper.toPurchaseOrderItem(request, product);
         purchaseOrderItem.setPurchaseOrder(purchaseOrder);
-        purchaseOrderItem.setQuantityReceived(BigDecimal.ZERO);
-        purchaseOrderItem.setLineTotalReceived(BigDecimal.ZERO);
+        applyLineAmounts(purchaseOrderItem);
         purchaseOrderItem.setCreatedAt(Instant.now());
         
         return mapper.toPurchaseOrderItemItemResponse(repository.save(purchaseOrderItem));
@@ -105,10 +112,13 @@ public class PurchaseOrderItemService {
             .orElseThrow(() -> new EntityNotFoundException("Purchase Item Order not found with id: " + purchaseOrderItemId));
         
         Optional.ofNullable(request.getQuantityReceived())
-            .ifPresent(existingPurchaseOrderItem::setQuantityReceived);
+            .map(Quantity::toUnits)
+            .ifPresent(existingPurchaseOrderItem::setQuantityReceivedUnits);
             
         Optional.ofNullable(request.getUnitPrice())
-            .ifPresent(existingPurchaseOrderItem::setUnitPrice);
+            .map(Money::toCents)
+            .ifPresent(existingPurchaseOrderItem::setUnitPriceCents);
+        applyLineAmounts(existingPurchaseOrderItem);
 
         return mapper.toPurchaseOrderItemItemResponse(repository.save(existingPurchaseOrderItem));
     }
@@ -122,4 +132,14 @@ public class PurchaseOrderItemService {
         repository.delete(purchaseOrderItem);
     }
 
+    /**
+     * Fill line_total / line_total_received the way the generated columns compute them.
+     */
+    private void applyLineAmounts(PurchaseOrderItem purchaseOrderItem) {
+        long unitPrice = purchaseOrderItem.getUnitPriceCents();
+
+        purchaseOrderItem.setLineTotalCents(Money.amount(purchaseOrderItem.getQuantityOrderedUnits(), unitPrice));
+        purchaseOrderItem.setLineTotalReceivedCents(Money.amount(purchaseOrderItem.getQuantityReceivedUnits(), unitPrice));
+    }
+
 }
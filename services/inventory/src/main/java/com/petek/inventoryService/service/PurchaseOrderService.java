@@ -18,12 +18,14 @@ import com.petek.inventoryService.dto.purchaseOrder.PurchaseOrderCreateRequest;
 import com.petek.inventoryService.dto.purchaseOrder.PurchaseOrderFilterRequest;
 import com.petek.inventoryService.dto.purchaseOrder.PurchaseOrderResponse;
 import com.petek.inventoryService.dto.purchaseOrder.PurchaseOrderUpdateRequest;
+import com.petek.inventoryService.entity.OutboxEvent.AggregateType;
 import com.petek.inventoryService.entity.PurchaseOrder;
 import com.petek.inventoryService.entity.Supplier;
 import com.petek.inventoryService.entity.PurchaseOrder.PurchaseOrderStatus;
 import com.petek.inventoryService.mapper.PurchaseOrderMapper;
 import com.petek.inventoryService.repository.PurchaseOrderRepository;
 import com.petek.inventoryService.repository.SupplierRepository;
+import com.petek.inventoryService.retry.RetryOnConflict;
 import com.petek.inventoryService.spec.PurchaseOrderSpecifications;
 import com.petek.inventoryService.utils.SortUtils;
 
@@ -39,6 +41,7 @@ public class PurchaseOrderService {
     private final PurchaseOrderMapper mapper;
 
     private final SupplierRepository supplierRepository;
+    private final OutboxService outboxService;
 
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
         "purchaseOrderId", "supplierId", "orderDate", "expectedDelivery", "actualDelivery", "status", "updatedAt"
@@ -99,7 +102,9 @@ public class PurchaseOrderService {
         purchaseOrder.setCreatedAt(Instant.now());
         purchaseOrder.setUpdatedAt(Instant.now());
 
-        return mapper.toPurchaseOrderResponse(repository.save(purchaseOrder));
+        PurchaseOrderResponse response = mapper.toPurchaseOrderResponse(repository.save(purchaseOrder));
+        outboxService.record(AggregateType.PURCHASE_ORDER, response.getPurchaseOrderId(), "PurchaseOrderCreated", response);
+        return response;
     }
 
     /**
@@ -114,6 +119,7 @@ public class PurchaseOrderService {
     /**
      * Update purchase order.
      */
+    @RetryOnConflict
     public PurchaseOrderResponse updatePurchaseOrder(Long purchaseOrderId, PurchaseOrderUpdateRequest request) {
         PurchaseOrder existingPurchaseOrder = repository.findById(purchaseOrderId)
             .orElseThrow(() -> new EntityNotFoundException("Purchase Order not found with id: " + purchaseOrderId));
@@ -126,16 +132,20 @@ public class PurchaseOrderService {
 
         existingPurchaseOrder.setUpdatedAt(Instant.now());
 
-        return mapper.toPurchaseOrderResponse(repository.save(existingPurchaseOrder));
+        PurchaseOrderResponse response = mapper.toPurchaseOrderResponse(repository.save(existingPurchaseOrder));
+        outboxService.record(AggregateType.PURCHASE_ORDER, purchaseOrderId, "PurchaseOrderUpdated", response);
+        return response;
     }
 
     /**
      * Delete purchase order.
      */
+    @RetryOnConflict
     public void deletePurchaseOrder(Long purchaseOrderId) {
         PurchaseOrder existingPurchaseOrder = repository.findById(purchaseOrderId) 
             .orElseThrow(() -> new EntityNotFoundException("Purchase Order not found with id: " + purchaseOrderId));
         repository.delete(existingPurchaseOrder);
+        outboxService.record(AggregateType.PURCHASE_ORDER, purchaseOrderId, "PurchaseOrderDeleted", mapper.toPurchaseOrderResponse(existingPurchaseOrder));
     }
 
 }
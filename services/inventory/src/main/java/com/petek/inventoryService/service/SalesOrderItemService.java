@@ -1,11 +1,9 @@
 package com.petek.inventoryService.service;
 
-import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -19,14 +17,18 @@ import com.petek.inventoryService.dto.salesOrder.SalesOrderItemCreateRequest;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderItemFilterRequest;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderItemResponse;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderItemUpdateRequest;
-import com.petek.inventoryService.entity.Campaign;
 import com.petek.inventoryService.entity.Product;
+import com.petek.inventoryService.entity.SalesOrder;
+import com.petek.inventoryService.entity.SalesOrder.SalesOrderStatus;
 import com.petek.inventoryService.entity.SalesOrderItem;
 import com.petek.inventoryService.mapper.SalesOrderMapper;
-import com.petek.inventoryService.repository.CampaignRepository;
 import com.petek.inventoryService.repository.ProductRepository;
 import com.petek.inventoryService.repository.SalesOrderItemRepository;
 import com.petek.inventoryService.repository.SalesOrderRepository;
+import com.petek.inventoryService.retry.RetryOnConflict;
+import com.petek.inventoryService.service.PricingService.LinePrice;
+import com.petek.inventoryService.utils.Money;
+import com.petek.inventoryService.utils.Quantity;
 import com.petek.inventoryService.utils.SortUtils;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -42,10 +44,19 @@ public class SalesOrderItemService {
 
     private final SalesOrderRepository salesOrderRepository;
     private final ProductRepository productRepository;
-    private final CampaignRepository campaignRepository;
-
-    private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
-        "salesOrderItemId", "productId", "quantity", "unitPrice", "discountPercentage", "discountAmount", "lineTotal", "createdAt"
+    private final PricingService pricingService;
+    private final StockReservationService stockReservationService;
+    private final AdvisoryLockService advisoryLockService;
+
+    private static final Map<String, String> ALLOWED_SORT_FIELDS = Map.of(
+        "salesOrderItemId", "salesOrderItemId",
+        "productId", "productId",
+        "quantity", "quantityUnits",
+        "unitPrice", "unitPriceCents",
+        "discountPercentage", "discountHundredths",
+        "discountAmount", "discountAmountCents",
+        "lineTotal", "lineTotalCents",
+        "createdAt", "createdAt"
     );  
     
     /**
@@ -75,9 +86,13 @@ public class SalesOrderItemService {
     /**
      * Create a new sales order item.
      */
+    @RetryOnConflict
     public SalesOrderItemResponse createSalesOrderItem(Long salesOrderId, SalesOrderItemCreateRequest request) {
+        // Line changes of one order are serialized across instances
+        advisoryLockService.lockSalesOrder(salesOrderId);
+
         // Validate SalesOrder
-        salesOrderRepository.findById(salesOrderId)
+        SalesOrder salesOrder = salesOrderRepository.findById(salesOrderId)
             .orElseThrow(() -> new EntityNotFoundException("Sales Order not found with id: " + salesOrderId));
 
         // Validate Product
@@ -87,26 +102,17 @@ public class SalesOrderItemService {
         SalesOrderItem salesOrderItem = mapper.toSalesOrderItem(request);
         salesOrderItem.setSalesOrderId(salesOrderId);
         salesOrderItem.setProductId(request.getProductId());
-        salesOrderItem.setUnitPrice(product.getCurrentPrice());
+        salesOrderItem.setUnitPriceCents(Money.toCents(product.getCurrentPrice()));
         
-        Campaign campaign = campaignRepository.findActiveCampaignsByProductAndDate(request.getProductId(), LocalDate.now());
-        System.out.println(campaign);
-
-        salesOrderItem.setDiscountPercentage(BigDecimal.ZERO);
-        if(campaign != null) {
-            salesOrderItem.setCampaignId(campaign.getCampaignId());
-            if(campaign.getDiscountPercentage() != null) {
-                salesOrderItem.setDiscountPercentage(campaign.getDiscountPercentage());
-            } else {
-                salesOrderItem.setDiscountPercentage(BigDecimal.valueOf(((campaign.getBuyQty()/(campaign.getBuyQty() + campaign.getGetQty())) * 100)));
-            }
-            salesOrderItem.setLineTotal(salesOrderItem.getQuantity().multiply(salesOrderItem.getUnitPrice()));
-            salesOrderItem.setDiscountAmount(salesOrderItem.getLineTotal().multiply(salesOrderItem.getDiscountPercentage().divide(BigDecimal.valueOf(100))));
-        }
+        applyPricing(salesOrder, product, salesOrderItem);
+        applyLineAmounts(salesOrderItem);
 
         salesOrderItem.setCreatedAt(Instant.now());
 
-        return mapper.toSalesOrderItemResponse(repository.save(salesOrderItem));
+        SalesOrderItem savedSalesOrderItem = repository.save(salesOrderItem);
+        reserve(salesOrder, savedSalesOrderItem);
+
+        return mapper.toSalesOrderItemResponse(savedSalesOrderItem);
     }
 
     /**
@@ -126,7 +132,9 @@ public class SalesOrderItemService {
     /**
      * Update a new sales order item.
      */
+    @RetryOnConflict
     public SalesOrderItemResponse updateSalesOrderItem(Long salesOrderId, Long salesOrderItemId, SalesOrderItemUpdateRequest request) {
+        advisoryLockService.lockSalesOrder(salesOrderId);
         SalesOrderItem existingSalesOrderItem = repository.findById(salesOrderItemId)
             .orElseThrow(() -> new EntityNotFoundException("Sales Order Item not found with id: " + salesOrderItemId));
         
@@ -134,16 +142,39 @@ public class SalesOrderItemService {
             throw new IllegalArgumentException("This SalesOrder dont have this SalesOrderItem");
         }
 
+        long previousQuantity = existingSalesOrderItem.getQuantityUnits();
         Optional.ofNullable(request.getQuantity())
-            .ifPresent(existingSalesOrderItem::setQuantity);
+            .map(Quantity::toUnits)
+            .ifPresent(existingSalesOrderItem::setQuantityUnits);
+
+        // Buy X get Y percentages depend on the quantity, so a changed line is priced again
+        if (previousQuantity != existingSalesOrderItem.getQuantityUnits()) {
+            SalesOrder salesOrder = salesOrderRepository.findById(salesOrderId)
+                .orElseThrow(() -> new EntityNotFoundException("Sales Order not found with id: " + salesOrderId));
+            Product product = productRepository.findById(existingSalesOrderItem.getProductId())
+                .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + existingSalesOrderItem.getProductId()));
+            applyPricing(salesOrder, product, existingSalesOrderItem);
+        }
+        applyLineAmounts(existingSalesOrderItem);
+
+        SalesOrderItem savedSalesOrderItem = repository.save(existingSalesOrderItem);
 
-        return mapper.toSalesOrderItemResponse(repository.save(existingSalesOrderItem));            
+        // Re-reserve the new quantity
+        if (previousQuantity != savedSalesOrderItem.getQuantityUnits()) {
+            stockReservationService.releaseLine(salesOrderItemId);
+            salesOrderRepository.findById(salesOrderId)
+                .ifPresent(salesOrder -> reserve(salesOrder, savedSalesOrderItem));
+        }
+
+        return mapper.toSalesOrderItemResponse(savedSalesOrderItem);            
     }
 
     /**
      * Delete a new sales order item.
      */
+    @RetryOnConflict
     public void deleteSalesOrderItem(Long salesOrderId, Long salesOrderItemId) {
+        advisoryLockService.lockSalesOrder(salesOrderId);
         SalesOrderItem salesOrderItem = repository.findById(salesOrderItemId)
             .orElseThrow(() -> new EntityNotFoundException("Sales Order Item not found with id: " + salesOrderItemId));
         
@@ -151,7 +182,46 @@ public class SalesOrderItemService {
             throw new IllegalArgumentException("This SalesOrder dont have this SalesOrderItem");
         }
 
+        stockReservationService.releaseLine(salesOrderItemId);
         repository.delete(salesOrderItem);         
     }
 
+    /**
+     * Reserve a line while its order still holds stock (PENDING expires, ALLOCATED is firm).
+     */
+    private void reserve(SalesOrder salesOrder, SalesOrderItem salesOrderItem) {
+        if (salesOrder.getStatus() == SalesOrderStatus.PENDING) {
+            stockReservationService.reserveLine(salesOrderItem, true);
+        } else if (salesOrder.getStatus() == SalesOrderStatus.ALLOCATED) {
+            stockReservationService.reserveLine(salesOrderItem, false);
+        }
+    }
+
+    /**
+     * Campaign and final discount percentage of a line, priced on the order date.
+     */
+    private void applyPricing(SalesOrder salesOrder, Product product, SalesOrderItem salesOrderItem) {
+        LinePrice price = pricingService.priceLine(
+            product.getProductId(),
+            product.getUnitOfMeasure(),
+            salesOrderItem.getQuantityUnits(),
+            salesOrder.getOrderDate(),
+            salesOrder.getCustomerDiscountPctApplied() == null ? 0 : Money.toCents(salesOrder.getCustomerDiscountPctApplied()));
+
+        salesOrderItem.setCampaignId(price.getCampaignId());
+        salesOrderItem.setDiscountHundredths(price.getDiscountHundredths());
+    }
+
+    /**
+     * Fill discount_amount / line_total the way the generated columns compute them.
+     */
+    private void applyLineAmounts(SalesOrderItem salesOrderItem) {
+        long quantity = salesOrderItem.getQuantityUnits();
+        long unitPrice = salesOrderItem.getUnitPriceCents();
+        long discount = salesOrderItem.getDiscountHundredths();
+
+        salesOrderItem.setDiscountAmountCents(Money.discountAmount(quantity, unitPrice, discount));
+        salesOrderItem.setLineTotalCents(Money.lineTotal(quantity, unitPrice, discount));
+    }
+
 }
@@ -15,17 +15,20 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.petek.inventoryService.dto.PageResponse;
 import com.petek.inventoryService.dto.PageResponse.PageInfo;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderAllocationResponse;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderCreateRequest;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderFilterRequest;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderResponse;
 import com.petek.inventoryService.dto.salesOrder.SalesOrderUpdateRequest;
 import com.petek.inventoryService.entity.CustomerSpecialOffer;
+import com.petek.inventoryService.entity.OutboxEvent.AggregateType;
 import com.petek.inventoryService.entity.SalesOrder;
 import com.petek.inventoryService.entity.SalesOrder.SalesOrderStatus;
 import com.petek.inventoryService.mapper.SalesOrderMapper;
 import com.petek.inventoryService.repository.CustomerRepository;
 import com.petek.inventoryService.repository.CustomerSpecialOfferRepository;
 import com.petek.inventoryService.repository.SalesOrderRepository;
+import com.petek.inventoryService.retry.RetryOnConflict;
 import com.petek.inventoryService.spec.SalesOrderSpecifications;
 import com.petek.inventoryService.utils.SortUtils;
 
@@ -42,6 +45,9 @@ public class SalesOrderService {
 
     private final CustomerRepository customerRepository;
     private final CustomerSpecialOfferRepository customerSpecialOfferRepository;
+    private final OutboxService outboxService;
+    private final StockReservationService stockReservationService;
+    private final AdvisoryLockService advisoryLockService;
 
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
         "salesOrderId"
@@ -110,7 +116,10 @@ public class SalesOrderService {
 
         salesOrder.setCreatedAt(Instant.now());
         salesOrder.setUpdatedAt(Instant.now());
-        return mapper.toSalesOrderResponse(repository.save(salesOrder));
+
+        SalesOrderResponse response = mapper.toSalesOrderResponse(repository.save(salesOrder));
+        outboxService.record(AggregateType.SALES_ORDER, response.getSalesOrderId(), "SalesOrderCreated", response);
+        return response;
     }
 
     /**
@@ -125,7 +134,9 @@ public class SalesOrderService {
     /**
      * Update a sales order.
      */
+    @RetryOnConflict
     public SalesOrderResponse updateSalesOrder(Long salesOrderId, SalesOrderUpdateRequest request) {
+        advisoryLockService.lockSalesOrder(salesOrderId);
         SalesOrder existingSalesOrder = repository.findById(salesOrderId)
             .orElseThrow(() -> new EntityNotFoundException("Sales Order not found with id: " + salesOrderId));
 
@@ -136,21 +147,73 @@ public class SalesOrderService {
             existingSalesOrder.setDeliveredAt(Instant.now());
         }
 
+        SalesOrderStatus previousStatus = existingSalesOrder.getStatus();
         Optional.ofNullable(request.getStatus())
             .ifPresent(existingSalesOrder::setStatus);
 
+        if (existingSalesOrder.getStatus() != previousStatus) {
+            applyReservations(salesOrderId, previousStatus, existingSalesOrder.getStatus());
+        }
+
         existingSalesOrder.setUpdatedAt(Instant.now());
 
-        return mapper.toSalesOrderResponse(repository.save(existingSalesOrder));
+        SalesOrderResponse response = mapper.toSalesOrderResponse(repository.save(existingSalesOrder));
+        outboxService.record(AggregateType.SALES_ORDER, salesOrderId, "SalesOrderUpdated", response);
+        return response;
+    }
+
+    /**
+     * Allocate a pending sales order: all lines are reserved together or none is.
+     */
+    @RetryOnConflict
+    public SalesOrderAllocationResponse allocateSalesOrder(Long salesOrderId) {
+        advisoryLockService.lockSalesOrder(salesOrderId);
+        SalesOrder existingSalesOrder = repository.findById(salesOrderId)
+            .orElseThrow(() -> new EntityNotFoundException("Sales Order not found with id: " + salesOrderId));
+
+        if (existingSalesOrder.getStatus() != SalesOrderStatus.PENDING && existingSalesOrder.getStatus() != SalesOrderStatus.ALLOCATED) {
+            throw new IllegalArgumentException("Only PENDING or ALLOCATED sales orders can be allocated");
+        }
+
+        SalesOrderAllocationResponse allocation = stockReservationService.allocateOrder(salesOrderId);
+
+        if (allocation.isAllocated() && existingSalesOrder.getStatus() == SalesOrderStatus.PENDING) {
+            existingSalesOrder.setStatus(SalesOrderStatus.ALLOCATED);
+            existingSalesOrder.setUpdatedAt(Instant.now());
+
+            SalesOrderResponse response = mapper.toSalesOrderResponse(repository.save(existingSalesOrder));
+            outboxService.record(AggregateType.SALES_ORDER, salesOrderId, "SalesOrderUpdated", response);
+        }
+
+        return allocation;
     }
 
     /**
      * Delete a sales order.
      */
+    @RetryOnConflict
     public void deleteSalesOrder(Long salesOrderId) {
+        advisoryLockService.lockSalesOrder(salesOrderId);
         SalesOrder existingSalesOrder = repository.findById(salesOrderId)
             .orElseThrow(() -> new EntityNotFoundException("Sales Order not found with id: " + salesOrderId));
+        stockReservationService.releaseOrder(salesOrderId);
         repository.delete(existingSalesOrder);
+        outboxService.record(AggregateType.SALES_ORDER, salesOrderId, "SalesOrderDeleted", mapper.toSalesOrderResponse(existingSalesOrder));
+    }
+
+    /**
+     * Follow a status change with the order's reservations.
+     */
+    private void applyReservations(Long salesOrderId, SalesOrderStatus previousStatus, SalesOrderStatus status) {
+        // Stock has left with the shipment; returns are not handled here
+        if (previousStatus == SalesOrderStatus.IN_TRANSIT || previousStatus == SalesOrderStatus.DELIVERED) return;
+
+        switch (status) {
+            case CANCELLED -> stockReservationService.releaseOrder(salesOrderId);
+            case ALLOCATED -> stockReservationService.requireAllocated(salesOrderId);
+            case IN_TRANSIT, DELIVERED -> stockReservationService.consumeOrder(salesOrderId);
+            case PENDING -> { }
+        }
     }
 
 }
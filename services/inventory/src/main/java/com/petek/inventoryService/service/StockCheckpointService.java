@@ -0,0 +1,91 @@
+package com.petek.inventoryService.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petek.inventoryService.dto.stock.StockAsOfResponse;
+import com.petek.inventoryService.entity.StockCheckpoint;
+import com.petek.inventoryService.repository.ProductRepository;
+import com.petek.inventoryService.repository.StockCheckpointRepository;
+import com.petek.inventoryService.repository.StockMovementRepository;
+import com.petek.inventoryService.repository.StockMovementRepository.LedgerDelta;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class StockCheckpointService {
+
+    private final StockCheckpointRepository repository;
+
+    private final StockMovementRepository stockMovementRepository;
+    private final ProductRepository productRepository;
+
+    /**
+     * Get stock of product as of a past timestamp (nearest checkpoint + ledger delta).
+     */
+    @Transactional(readOnly = true)
+    public StockAsOfResponse getStockAsOf(Long productId, Instant asOf) {
+        if (asOf.isAfter(Instant.now())) {
+            throw new IllegalArgumentException("as_of cannot be in the future");
+        }
+
+        if (!productRepository.existsById(productId)) {
+            throw new EntityNotFoundException("Product not found with id: " + productId);
+        }
+
+        // Movements before the cutoff are detached; only its checkpoint remains
+        Instant archivedBefore = repository.findArchivedBefore();
+        if (asOf.isBefore(archivedBefore)) {
+            throw new IllegalArgumentException("Stock history before " + archivedBefore + " is archived");
+        }
+
+        Optional<StockCheckpoint> checkpoint = repository
+            .findFirstByProductIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(productId, asOf);
+
+        // Replay window is (checkpointAt, asOf], at most one checkpoint interval
+        Instant from = checkpoint.map(StockCheckpoint::getCheckpointAt).orElse(null);
+        LedgerDelta delta = stockMovementRepository.sumLedgerDelta(productId, from, asOf);
+
+        BigDecimal quantityOnHand = checkpoint.map(StockCheckpoint::getQuantityOnHand).orElse(BigDecimal.ZERO).add(delta.getDelta());
+        BigDecimal quantityReserved = checkpoint.map(StockCheckpoint::getQuantityReserved).orElse(null);
+
+        return StockAsOfResponse.builder()
+            .productId(productId)
+            .asOf(asOf)
+            .quantityOnHand(quantityOnHand)
+            .quantityReserved(quantityReserved)
+            .quantityAvailable(quantityReserved != null ? quantityOnHand.subtract(quantityReserved) : null)
+            .checkpointAt(from)
+            .movementsReplayed(delta.getMovementCount())
+            .build();
+    }
+
+    /**
+     * Write daily checkpoints (midnight UTC), catching up on missed days; only today's
+     * checkpoint snapshots reserved stock.
+     */
+    @Scheduled(cron = "${inventory.stock-checkpoint.cron:0 5 0 * * *}", zone = "UTC")
+    public void createDailyCheckpoints() {
+        Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        Instant next = repository.findLatestCheckpointAt()
+            .map(latest -> latest.truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS))
+            .orElse(today);
+
+        for (Instant checkpointAt = next; !checkpointAt.isAfter(today); checkpointAt = checkpointAt.plus(1, ChronoUnit.DAYS)) {
+            int created = repository.createCheckpoints(checkpointAt, checkpointAt.equals(today));
+            log.info("Stock checkpoint {} written for {} products", checkpointAt, created);
+        }
+    }
+
+}
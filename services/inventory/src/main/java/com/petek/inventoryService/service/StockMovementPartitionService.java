@@ -0,0 +1,94 @@
+package com.petek.inventoryService.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.repository.StockCheckpointRepository;
+import com.petek.inventoryService.repository.StockMovementPartitionRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps monthly stock_movements partitions ahead of time and optionally detaches
+ * expired months to the archive schema. Not transactional on purpose (DDL, DETACH CONCURRENTLY).
+ * Expired months are only detached once checkpoints at the cutoff carry their balance.
+ */
+@Slf4j
+@Service
+public class StockMovementPartitionService {
+
+    private final StockMovementPartitionRepository repository;
+    private final StockCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retainMonths;
+
+    public StockMovementPartitionService(
+        StockMovementPartitionRepository repository,
+        StockCheckpointRepository checkpointRepository,
+        TransactionTemplate transactionTemplate,
+        @Value("${inventory.stock-movement-partitions.months-ahead:3}") int monthsAhead,
+        @Value("${inventory.stock-movement-partitions.retain-months:0}") int retainMonths
+    ) {
+        this.repository = repository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retainMonths = retainMonths;
+    }
+
+    /**
+     * Create the current and upcoming monthly partitions (idempotent).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${inventory.stock-movement-partitions.cron:0 15 0 * * *}", zone = "UTC")
+    public void createUpcomingPartitions() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        int created = repository.createPartitions(today, today.plusMonths(monthsAhead));
+        if (created > 0) {
+            log.info("Created {} stock movement partitions up to {}", created, today.plusMonths(monthsAhead));
+        }
+    }
+
+    /**
+     * Detach partitions older than the retention window (disabled when retain-months is 0).
+     * Checkpoints at the cutoff are written and checked against the ledger first, then
+     * reconciliation and as-of lookups start from them; on any drift nothing is detached.
+     */
+    @Scheduled(cron = "${inventory.stock-movement-partitions.archive-cron:0 30 1 1 * *}", zone = "UTC")
+    public void archiveExpiredPartitions() {
+        if (retainMonths <= 0) return;
+
+        LocalDate cutoff = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).minusMonths(retainMonths);
+        List<String> expired = repository.findPartitionsBefore(cutoff);
+        if (expired.isEmpty()) return;
+
+        Instant openingAt = cutoff.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Boolean opened = transactionTemplate.execute(status -> {
+            checkpointRepository.createCheckpoints(openingAt, false);
+            long drifted = checkpointRepository.countCheckpointDrift(openingAt);
+            if (drifted > 0) {
+                log.error("Not archiving stock movements before {}: {} products' checkpoints disagree with the ledger", cutoff, drifted);
+                return false;
+            }
+            checkpointRepository.advanceArchivedBefore(openingAt);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(opened)) return;
+
+        for (String partition : expired) {
+            repository.detachToArchive(partition);
+            log.info("Detached stock movement partition {} to archive schema", partition);
+        }
+    }
+
+}
@@ -1,21 +1,38 @@
 package com.petek.inventoryService.service;
 
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import com.petek.inventoryService.dto.CursorPageResponse;
+import com.petek.inventoryService.dto.CursorPageResponse.CursorInfo;
 import com.petek.inventoryService.dto.PageResponse;
 import com.petek.inventoryService.dto.PageResponse.PageInfo;
+import com.petek.inventoryService.dto.stock.StockAdjustmentBatchRequest;
+import com.petek.inventoryService.dto.stock.StockAdjustmentBatchRequest.BatchMode;
+import com.petek.inventoryService.dto.stock.StockAdjustmentBatchResponse;
+import com.petek.inventoryService.dto.stock.StockAdjustmentBatchResponse.LineResult;
+import com.petek.inventoryService.dto.stock.StockAdjustmentBatchResponse.LineStatus;
 import com.petek.inventoryService.dto.stock.StockMovementCreateRequest;
 import com.petek.inventoryService.dto.stock.StockMovementFilterRequest;
 import com.petek.inventoryService.dto.stock.StockMovementResponse;
+import com.petek.inventoryService.entity.OutboxEvent.AggregateType;
 import com.petek.inventoryService.entity.Product;
 import com.petek.inventoryService.entity.StockMovement;
 import com.petek.inventoryService.entity.StockMovement.MovementKind;
@@ -24,6 +41,9 @@ import com.petek.inventoryService.mapper.StockMovementMapper;
 import com.petek.inventoryService.repository.ProductRepository;
 import com.petek.inventoryService.repository.StockMovementRepository;
 import com.petek.inventoryService.spec.StockMovementSpecifications;
+import com.petek.inventoryService.utils.CursorUtils;
+import com.petek.inventoryService.utils.CursorUtils.Cursor;
+import com.petek.inventoryService.utils.Quantity;
 import com.petek.inventoryService.utils.SortUtils;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -39,6 +59,7 @@ public class StockMovementService {
 
     private final ProductRepository productRepository;
     private final CurrentStockService currentStockService;
+    private final OutboxService outboxService;
 
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
         "movementId", "product", "movementKind", "movementSource", "quantity", "movementDate"
@@ -74,6 +95,61 @@ public class StockMovementService {
         return new PageResponse<StockMovementResponse>(stockMovementResponses, pageInfo);
     }
 
+    /**
+     * Get Stock Movements by keyset cursor (newest first, no count query).
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<StockMovementResponse> getStockMovementsByCursor(StockMovementFilterRequest request) {
+        // Validate movement date range
+        if (request.getMovementDateGte() != null && request.getMovementDateLte() != null && 
+            request.getMovementDateGte().isAfter(request.getMovementDateLte())) {
+            throw new IllegalArgumentException("movement_date_gte cannot be after movement_date_lte");
+        }
+
+        if (request.getAfter() != null && request.getBefore() != null) {
+            throw new IllegalArgumentException("after and before cannot be used together");
+        }
+
+        boolean backward = request.getBefore() != null;
+        Cursor cursor = CursorUtils.decode(backward ? request.getBefore() : request.getAfter());
+
+        Specification<StockMovement> spec = StockMovementSpecifications.withFilters(request);
+        if (cursor != null) {
+            spec = spec.and(backward
+                ? StockMovementSpecifications.newerThan(cursor)
+                : StockMovementSpecifications.olderThan(cursor));
+        }
+
+        // Walk the keyset towards the cursor side, fetch one extra row to detect more pages
+        Sort sort = backward
+            ? Sort.by(Sort.Order.asc("movementDate"), Sort.Order.asc("movementId"))
+            : Sort.by(Sort.Order.desc("movementDate"), Sort.Order.desc("movementId"));
+        int size = request.getSize();
+
+        List<StockMovement> rows = new ArrayList<>(repository.findBy(spec, query -> query.sortBy(sort).limit(size + 1).all()));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) rows.remove(size);
+        if (backward) Collections.reverse(rows);
+
+        List<StockMovementResponse> stockMovementResponses = rows
+            .stream()
+            .map(mapper::toStockMovementResponse)
+            .toList();
+
+        String next = null;
+        String previous = null;
+        if (!rows.isEmpty()) {
+            StockMovement first = rows.get(0);
+            StockMovement last = rows.get(rows.size() - 1);
+            if (backward || hasMore) next = CursorUtils.encode(last.getMovementDate(), last.getMovementId());
+            if (backward ? hasMore : cursor != null) previous = CursorUtils.encode(first.getMovementDate(), first.getMovementId());
+        }
+
+        CursorInfo cursorInfo = new CursorInfo(size, next, previous);
+
+        return new CursorPageResponse<StockMovementResponse>(stockMovementResponses, cursorInfo);
+    }
+
     /**
      * Create a Stock Movement.
      */
@@ -83,13 +159,6 @@ public class StockMovementService {
             throw new IllegalArgumentException("Invalid movement kind. Must be ADJUSTMENT_IN or ADJUSTMENT_OUT.");
         }
         
-        // Control for available quantity
-        if (request.getMovementKind() == MovementKind.ADJUSTMENT_OUT
-        && currentStockService.getAvailableQuantityById(request.getProductId()).compareTo(request.getQuantity()) < 0
-        ) {
-            throw new IllegalArgumentException("Not enough stock in inventory");
-        }
-        
         // Getting product
         Product product = productRepository.findById(request.getProductId())
             .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + request.getProductId()));
@@ -101,13 +170,134 @@ public class StockMovementService {
         
         StockMovement savedStockMovement = repository.save(stockMovement);
 
+        // Conditional snapshot update; a rejected ADJUSTMENT_OUT rolls the movement back with it
         if (request.getMovementKind() == MovementKind.ADJUSTMENT_IN) {
             currentStockService.updateStockIn(request.getProductId(), savedStockMovement.getMovementId(), request.getQuantity());
         } else {
-            currentStockService.updateStockOut(request.getProductId(), stockMovement.getMovementId(), request.getQuantity(), false);
+            currentStockService.updateStockOut(request.getProductId(), savedStockMovement.getMovementId(), request.getQuantity(), false);
         }
 
-        return mapper.toStockMovementResponse(savedStockMovement);
+        StockMovementResponse response = mapper.toStockMovementResponse(savedStockMovement);
+        outboxService.record(AggregateType.STOCK_MOVEMENT, response.getMovementId(), "StockMovementCreated", response);
+        return response;
+    }
+
+    /**
+     * Create a batch of Stock Adjustments.
+     */
+    public StockAdjustmentBatchResponse createStockAdjustments(StockAdjustmentBatchRequest request) {
+        List<StockMovementCreateRequest> lines = request.getLines();
+        List<LineResult> results = new ArrayList<>(lines.size());
+
+        // Validate all products in one query, then lock their snapshot rows
+        Set<Long> productIds = lines.stream()
+            .map(StockMovementCreateRequest::getProductId)
+            .collect(Collectors.toSet());
+        Set<Long> existingIds = new HashSet<>(productRepository.findExistingIds(productIds));
+
+        // Running availability in fixed-point units; no BigDecimal per line
+        Map<Long, BigDecimal> locked = currentStockService.lockAvailableQuantities(existingIds);
+        Map<Long, Integer> slots = new HashMap<>(locked.size() * 2);
+        long[] available = new long[locked.size()];
+        for (Map.Entry<Long, BigDecimal> entry : locked.entrySet()) {
+            available[slots.size()] = Quantity.toUnits(entry.getValue());
+            slots.put(entry.getKey(), slots.size());
+        }
+
+        Instant now = Instant.now();
+        List<StockMovement> stockMovements = new ArrayList<>();
+        List<LineResult> appliedResults = new ArrayList<>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            StockMovementCreateRequest line = lines.get(i);
+            LineResult result = LineResult.builder()
+                .index(i)
+                .productId(line.getProductId())
+                .movementKind(line.getMovementKind())
+                .quantity(line.getQuantity())
+                .build();
+            results.add(result);
+
+            String error = null;
+            Integer slot = slots.get(line.getProductId());
+            long quantity = Quantity.toUnits(line.getQuantity());
+            long delta = line.getMovementKind() == MovementKind.ADJUSTMENT_IN ? quantity : -quantity;
+
+            if (line.getMovementKind() != MovementKind.ADJUSTMENT_IN && line.getMovementKind() != MovementKind.ADJUSTMENT_OUT) {
+                error = "Invalid movement kind. Must be ADJUSTMENT_IN or ADJUSTMENT_OUT.";
+            } else if (!existingIds.contains(line.getProductId()) || slot == null) {
+                error = "Product not found with id: " + line.getProductId();
+            } else if (available[slot] + delta < 0) {
+                error = "Not enough stock in inventory";
+            }
+
+            if (error != null) {
+                result.setStatus(LineStatus.REJECTED);
+                result.setError(error);
+                continue;
+            }
+
+            // Lines are applied in request order against the running availability
+            available[slot] += delta;
+
+            StockMovement stockMovement = mapper.toStockMovement(line, productRepository.getReferenceById(line.getProductId()));
+            stockMovement.setMovementSource(MovementSource.ADJUSTMENT);
+            stockMovement.setMovementDate(now);
+            stockMovement.setCreatedAt(now);
+            stockMovements.add(stockMovement);
+            appliedResults.add(result);
+        }
+
+        int rejectedCount = lines.size() - stockMovements.size();
+
+        if (request.getMode() == BatchMode.ALL_OR_NOTHING && rejectedCount > 0) {
+            results.stream()
+                .filter(result -> result.getStatus() == null)
+                .forEach(result -> result.setStatus(LineStatus.SKIPPED));
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+
+            return StockAdjustmentBatchResponse.builder()
+                .mode(request.getMode())
+                .committed(false)
+                .appliedCount(0)
+                .rejectedCount(rejectedCount)
+                .lines(results)
+                .build();
+        }
+
+        repository.insertAll(stockMovements);
+
+        long[] netUnits = new long[available.length];
+        Map<Long, Long> lastMovementIds = new HashMap<>();
+        for (int i = 0; i < stockMovements.size(); i++) {
+            StockMovement stockMovement = stockMovements.get(i);
+            Long productId = stockMovement.getProduct().getProductId();
+            long quantity = Quantity.toUnits(stockMovement.getQuantity());
+            netUnits[slots.get(productId)] += stockMovement.getMovementKind() == MovementKind.ADJUSTMENT_IN ? quantity : -quantity;
+            lastMovementIds.put(productId, stockMovement.getMovementId());
+
+            LineResult result = appliedResults.get(i);
+            result.setStatus(LineStatus.APPLIED);
+            result.setMovementId(stockMovement.getMovementId());
+
+            outboxService.record(AggregateType.STOCK_MOVEMENT, stockMovement.getMovementId(), "StockMovementCreated",
+                mapper.toStockMovementResponse(stockMovement));
+        }
+
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        for (Long productId : lastMovementIds.keySet()) {
+            deltas.put(productId, Quantity.toBigDecimal(netUnits[slots.get(productId)]));
+        }
+
+        currentStockService.applyOnHandDeltas(deltas, lastMovementIds);
+
+        return StockAdjustmentBatchResponse.builder()
+            .mode(request.getMode())
+            .committed(true)
+            .appliedCount(stockMovements.size())
+            .rejectedCount(rejectedCount)
+            .lines(results)
+            .build();
     }
 
 }
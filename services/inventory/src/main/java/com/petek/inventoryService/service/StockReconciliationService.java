@@ -0,0 +1,326 @@
+package com.petek.inventoryService.service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.reconciliation.StockReconciliationRequest;
+import com.petek.inventoryService.dto.reconciliation.StockReconciliationResponse;
+import com.petek.inventoryService.dto.reconciliation.StockReconciliationResponse.Mismatch;
+import com.petek.inventoryService.dto.reconciliation.StockReconciliationResponse.RunStatus;
+import com.petek.inventoryService.entity.OutboxEvent.AggregateType;
+import com.petek.inventoryService.entity.StockMovement;
+import com.petek.inventoryService.entity.StockMovement.MovementKind;
+import com.petek.inventoryService.entity.StockMovement.MovementSource;
+import com.petek.inventoryService.exception.StateConflictException;
+import com.petek.inventoryService.mapper.StockMovementMapper;
+import com.petek.inventoryService.repository.CurrentStockRepository;
+import com.petek.inventoryService.repository.CurrentStockRepository.StockLevel;
+import com.petek.inventoryService.repository.ProductRepository;
+import com.petek.inventoryService.repository.StockMovementRepository;
+import com.petek.inventoryService.repository.StockReconciliationRepository;
+import com.petek.inventoryService.utils.Quantity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the movement ledger with the current_stock snapshot, range by range in parallel.
+ * Repair trusts the snapshot and posts corrective ADJUSTMENT movements to the ledger.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReconciliationService {
+
+    private static final int MAX_REPORTED_MISMATCHES = 1000;
+    private static final int MAX_KEPT_RUNS = 20;
+
+    private final StockReconciliationRepository repository;
+
+    private final CurrentStockRepository currentStockRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final ProductRepository productRepository;
+    private final StockMovementMapper stockMovementMapper;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Run> runs = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final AtomicReference<Run> activeRun = new AtomicReference<>();
+
+    @PostConstruct
+    void registerGauges() {
+        meterRegistry.gauge("inventory.reconciliation.progress", activeRun, active -> {
+            Run run = active.get();
+            return run == null || run.rangesTotal == 0 ? 0 : (double) run.rangesCompleted.get() / run.rangesTotal;
+        });
+    }
+
+    /**
+     * Start a reconciliation run in the background.
+     */
+    public StockReconciliationResponse startReconciliation(StockReconciliationRequest request) {
+        Run run = new Run(UUID.randomUUID().toString(), request.getRepair());
+
+        if (!activeRun.compareAndSet(null, run)) {
+            throw new StateConflictException("A reconciliation run is already in progress: " + activeRun.get().runId, "runId");
+        }
+
+        synchronized (runs) {
+            runs.put(run.runId, run);
+            if (runs.size() > MAX_KEPT_RUNS) {
+                runs.remove(runs.keySet().iterator().next());
+            }
+        }
+
+        Thread.ofVirtual()
+            .name("stock-reconciliation-" + run.runId)
+            .start(() -> execute(run, request));
+
+        return toResponse(run);
+    }
+
+    /**
+     * Get a reconciliation run (progress or final report).
+     */
+    public StockReconciliationResponse getReconciliation(String runId) {
+        Run run = runs.get(runId);
+        if (run == null) {
+            throw new EntityNotFoundException("Reconciliation run not found with id: " + runId);
+        }
+        return toResponse(run);
+    }
+
+    private void execute(Run run, StockReconciliationRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            long[] bounds = repository.findProductIdBounds();
+            List<long[]> ranges = new ArrayList<>();
+            for (long lo = bounds[0]; lo <= bounds[1]; lo += request.getRangeSize()) {
+                ranges.add(new long[] { lo, Math.min(lo + request.getRangeSize() - 1, bounds[1]) });
+            }
+            run.rangesTotal = ranges.size();
+
+            // Virtual thread per range, bounded by parallelism so the connection pool is not drained
+            Semaphore permits = new Semaphore(request.getParallelism());
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = ranges.stream()
+                    .<Future<?>>map(range -> executor.submit(() -> {
+                        permits.acquire();
+                        try {
+                            reconcileRange(run, range[0], range[1]);
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    }))
+                    .toList();
+
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            run.status = RunStatus.COMPLETED;
+        } catch (Exception e) {
+            log.error("Reconciliation run {} failed", run.runId, e);
+            run.status = RunStatus.FAILED;
+            run.error = e.getMessage();
+        } finally {
+            run.finishedAt = Instant.now();
+            sample.stop(meterRegistry.timer("inventory.reconciliation.duration", "status", run.status.name()));
+            activeRun.set(null);
+            log.info("Reconciliation run {} {}: {} products, {} ledger rows, {} mismatches, {} repaired",
+                run.runId, run.status, run.productsChecked.get(), run.ledgerRows.get(), run.mismatchCount.get(), run.repairedCount.get());
+        }
+    }
+
+    private void reconcileRange(Run run, long lo, long hi) {
+        RangeScan scan = new RangeScan();
+        repository.streamRangeBalances(lo, hi, scan);
+
+        run.productsChecked.addAndGet(scan.products);
+        run.ledgerRows.addAndGet(scan.ledgerRows);
+        meterRegistry.counter("inventory.reconciliation.products").increment(scan.products);
+        meterRegistry.counter("inventory.reconciliation.ledger.rows").increment(scan.ledgerRows);
+
+        if (!scan.mismatches.isEmpty()) {
+            run.mismatchCount.addAndGet(scan.mismatches.size());
+            meterRegistry.counter("inventory.reconciliation.mismatches").increment(scan.mismatches.size());
+
+            if (run.repair) {
+                int repaired = repair(scan.mismatches);
+                run.repairedCount.addAndGet(repaired);
+                meterRegistry.counter("inventory.reconciliation.repairs").increment(repaired);
+            }
+
+            synchronized (run.mismatches) {
+                scan.mismatches.stream()
+                    .limit(Math.max(0, MAX_REPORTED_MISMATCHES - run.mismatches.size()))
+                    .forEach(run.mismatches::add);
+            }
+        }
+
+        run.rangesCompleted.incrementAndGet();
+    }
+
+    /**
+     * Post corrective adjustments so the ledger matches the (locked) snapshot again.
+     */
+    private int repair(List<Mismatch> mismatches) {
+        return transactionTemplate.execute(status -> {
+            List<Long> productIds = mismatches.stream().map(Mismatch::getProductId).toList();
+
+            // Re-read both sides under the snapshot row locks; the drift may have changed since the scan
+            Map<Long, BigDecimal> onHand = currentStockRepository.lockAllById(productIds)
+                .stream()
+                .collect(Collectors.toMap(StockLevel::getProductId, StockLevel::getQuantityOnHand));
+            Map<Long, BigDecimal> ledger = repository.findLedgerBalances(productIds);
+
+            Instant now = Instant.now();
+            List<StockMovement> corrections = new ArrayList<>();
+            List<Mismatch> corrected = new ArrayList<>();
+
+            for (Mismatch mismatch : mismatches) {
+                BigDecimal difference = onHand.getOrDefault(mismatch.getProductId(), BigDecimal.ZERO)
+                    .subtract(ledger.getOrDefault(mismatch.getProductId(), BigDecimal.ZERO));
+                if (difference.signum() == 0) continue;
+
+                corrections.add(StockMovement.builder()
+                    .product(productRepository.getReferenceById(mismatch.getProductId()))
+                    .movementKind(difference.signum() > 0 ? MovementKind.ADJUSTMENT_IN : MovementKind.ADJUSTMENT_OUT)
+                    .movementSource(MovementSource.ADJUSTMENT)
+                    .quantity(difference.abs())
+                    .movementDate(now)
+                    .createdAt(now)
+                    .build());
+                corrected.add(mismatch);
+            }
+
+            stockMovementRepository.insertAll(corrections);
+
+            for (int i = 0; i < corrections.size(); i++) {
+                StockMovement correction = corrections.get(i);
+                corrected.get(i).setRepairMovementId(correction.getMovementId());
+                outboxService.record(AggregateType.STOCK_MOVEMENT, correction.getMovementId(), "StockMovementCreated",
+                    stockMovementMapper.toStockMovementResponse(correction));
+            }
+
+            return corrections.size();
+        });
+    }
+
+    private StockReconciliationResponse toResponse(Run run) {
+        Instant end = run.finishedAt != null ? run.finishedAt : Instant.now();
+        long elapsedMillis = Math.max(1, Duration.between(run.startedAt, end).toMillis());
+
+        List<Mismatch> mismatches;
+        synchronized (run.mismatches) {
+            mismatches = List.copyOf(run.mismatches);
+        }
+
+        return StockReconciliationResponse.builder()
+            .runId(run.runId)
+            .status(run.status)
+            .repair(run.repair)
+            .startedAt(run.startedAt)
+            .finishedAt(run.finishedAt)
+            .rangesTotal(run.rangesTotal)
+            .rangesCompleted(run.rangesCompleted.get())
+            .productsChecked(run.productsChecked.get())
+            .ledgerRows(run.ledgerRows.get())
+            .ledgerRowsPerSecond(run.ledgerRows.get() * 1000.0 / elapsedMillis)
+            .mismatchCount(run.mismatchCount.get())
+            .repairedCount(run.repairedCount.get())
+            .mismatches(mismatches)
+            .error(run.error)
+            .build();
+    }
+
+    /**
+     * Mutable state of one run, shared by its range workers.
+     */
+    private static class Run {
+        private final String runId;
+        private final boolean repair;
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger rangesCompleted = new AtomicInteger();
+        private final AtomicLong productsChecked = new AtomicLong();
+        private final AtomicLong ledgerRows = new AtomicLong();
+        private final AtomicLong mismatchCount = new AtomicLong();
+        private final AtomicLong repairedCount = new AtomicLong();
+        private final List<Mismatch> mismatches = new ArrayList<>();
+        private volatile int rangesTotal;
+        private volatile RunStatus status = RunStatus.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Run(String runId, boolean repair) {
+            this.runId = runId;
+            this.repair = repair;
+        }
+    }
+
+    /**
+     * Per-range row handler; keeps only the mismatching products.
+     */
+    private static class RangeScan implements RowCallbackHandler {
+        private long products;
+        private long ledgerRows;
+        private final List<Mismatch> mismatches = new ArrayList<>();
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            products++;
+            ledgerRows += rs.getLong("row_count");
+
+            long quantityOnHand = rs.getLong("quantity_on_hand");
+            long openingBalance = rs.getLong("opening_balance");
+            long purchaseReceipts = rs.getLong("purchase_receipts");
+            long saleShipments = rs.getLong("sale_shipments");
+            long adjustmentsIn = rs.getLong("adjustments_in");
+            long adjustmentsOut = rs.getLong("adjustments_out");
+            long ledgerQuantity = openingBalance + purchaseReceipts - saleShipments + adjustmentsIn - adjustmentsOut;
+
+            // Fixed-point units; BigDecimals are only built for the (rare) mismatches
+            if (quantityOnHand != ledgerQuantity) {
+                mismatches.add(Mismatch.builder()
+                    .productId(rs.getLong("product_id"))
+                    .quantityOnHand(Quantity.toBigDecimal(quantityOnHand))
+                    .ledgerQuantity(Quantity.toBigDecimal(ledgerQuantity))
+                    .openingBalance(Quantity.toBigDecimal(openingBalance))
+                    .purchaseReceipts(Quantity.toBigDecimal(purchaseReceipts))
+                    .saleShipments(Quantity.toBigDecimal(saleShipments))
+                    .adjustmentsIn(Quantity.toBigDecimal(adjustmentsIn))
+                    .adjustmentsOut(Quantity.toBigDecimal(adjustmentsOut))
+                    .build());
+            }
+        }
+    }
+
+}
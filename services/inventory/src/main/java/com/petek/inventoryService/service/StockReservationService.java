@@ -0,0 +1,479 @@
+package com.petek.inventoryService.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.salesOrder.SalesOrderAllocationResponse;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderAllocationResponse.LineResult;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderAllocationResponse.LineStatus;
+import com.petek.inventoryService.entity.OutboxEvent.AggregateType;
+import com.petek.inventoryService.entity.SalesOrderItem;
+import com.petek.inventoryService.entity.StockMovement;
+import com.petek.inventoryService.entity.StockMovement.MovementKind;
+import com.petek.inventoryService.entity.StockMovement.MovementSource;
+import com.petek.inventoryService.entity.StockReservation;
+import com.petek.inventoryService.exception.StateConflictException;
+import com.petek.inventoryService.mapper.StockMovementMapper;
+import com.petek.inventoryService.repository.ProductRepository;
+import com.petek.inventoryService.repository.SalesOrderItemRepository;
+import com.petek.inventoryService.repository.StockMovementRepository;
+import com.petek.inventoryService.repository.StockReservationRepository;
+import com.petek.inventoryService.repository.StockReservationRepository.ReleasedStock;
+import com.petek.inventoryService.repository.StockReservationRepository.ReservationExpiry;
+import com.petek.inventoryService.utils.Quantity;
+import com.petek.inventoryService.utils.TimingWheel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sales order line reservations behind current_stock.quantity_reserved.
+ *
+ * Reservations of PENDING orders carry an expiry; each instance schedules the ones it
+ * knows about in a timing wheel (rebuilt from the table on startup) and releases the
+ * due ones in batches. A slow indexed sweep picks up what no wheel is holding, e.g.
+ * reservations created by an instance that went away.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private static final int RELEASE_CHUNK_SIZE = 1000;
+    private static final int MAX_SWEEP_CHUNKS = 100;
+    private static final Object RELEASED_LINES = new Object();
+
+    private final StockReservationRepository repository;
+    private final SalesOrderItemRepository salesOrderItemRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final StockMovementMapper stockMovementMapper;
+    private final ProductRepository productRepository;
+    private final CurrentStockService currentStockService;
+    private final OutboxService outboxService;
+    private final AdvisoryLockService advisoryLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Duration ttl;
+    private final TimingWheel wheel;
+
+    public StockReservationService(
+        StockReservationRepository repository,
+        SalesOrderItemRepository salesOrderItemRepository,
+        StockMovementRepository stockMovementRepository,
+        StockMovementMapper stockMovementMapper,
+        ProductRepository productRepository,
+        CurrentStockService currentStockService,
+        OutboxService outboxService,
+        AdvisoryLockService advisoryLockService,
+        TransactionTemplate transactionTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${inventory.reservations.ttl:PT30M}") Duration ttl,
+        @Value("${inventory.reservations.tick:PT1S}") Duration tick,
+        @Value("${inventory.reservations.wheel-size:512}") int wheelSize
+    ) {
+        this.repository = repository;
+        this.salesOrderItemRepository = salesOrderItemRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockMovementMapper = stockMovementMapper;
+        this.productRepository = productRepository;
+        this.currentStockService = currentStockService;
+        this.outboxService = outboxService;
+        this.advisoryLockService = advisoryLockService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.wheel = new TimingWheel(tick.toMillis(), wheelSize, System.currentTimeMillis());
+
+        meterRegistry.gauge("inventory.reservations.scheduled", wheel, w -> {
+            synchronized (w) {
+                return w.size();
+            }
+        });
+    }
+
+    /**
+     * Reserve an order line; PENDING orders get an expiring reservation, others a firm one.
+     * A line granted by the reservation combiner already has its row, which is claimed here.
+     */
+    @Transactional
+    public void reserveLine(SalesOrderItem salesOrderItem, boolean expiring) {
+        BigDecimal quantity = Quantity.toBigDecimal(salesOrderItem.getQuantityUnits());
+        Instant expiresAt = expiring ? Instant.now().plus(ttl) : null;
+        // A grant for a line released earlier in this transaction would wait on our own uncommitted delete
+        Long reservationId = releasedLines().contains(salesOrderItem.getSalesOrderItemId()) ? null
+            : currentStockService.reserveGranted(salesOrderItem.getProductId(), salesOrderItem.getSalesOrderId(),
+                salesOrderItem.getSalesOrderItemId(), quantity).orElse(null);
+
+        if (reservationId != null) {
+            if (repository.claimGrant(reservationId, expiresAt) == 0) {
+                throw new StateConflictException("Reservation of sales order item " + salesOrderItem.getSalesOrderItemId()
+                    + " was released before it was claimed, try again");
+            }
+        } else {
+            currentStockService.updateStockOut(salesOrderItem.getProductId(), null, quantity, true);
+            reservationId = repository.save(StockReservation.builder()
+                .productId(salesOrderItem.getProductId())
+                .salesOrderId(salesOrderItem.getSalesOrderId())
+                .salesOrderItemId(salesOrderItem.getSalesOrderItemId())
+                .quantity(quantity)
+                .expiresAt(expiresAt)
+                .createdAt(Instant.now())
+                .build())
+                .getReservationId();
+        }
+
+        if (expiresAt != null) {
+            Long scheduledId = reservationId;
+            long deadline = expiresAt.toEpochMilli();
+            afterCommit(() -> schedule(scheduledId, deadline));
+        }
+    }
+
+    /**
+     * Release the reservation of an order line, if any.
+     */
+    @Transactional
+    public void releaseLine(Long salesOrderItemId) {
+        repository.findBySalesOrderItemId(salesOrderItemId).ifPresent(reservation -> {
+            advisoryLockService.lockProduct(reservation.getProductId());
+            releasedLines().add(salesOrderItemId);
+            applyReleased(repository.releaseBySalesOrderItemId(salesOrderItemId), "released");
+            afterCommit(() -> unschedule(List.of(reservation.getReservationId())));
+        });
+    }
+
+    /**
+     * Release every reservation of an order (cancelled / deleted).
+     */
+    @Transactional
+    public void releaseOrder(Long salesOrderId) {
+        advisoryLockService.lockSalesOrder(salesOrderId);
+        List<Long> reservationIds = reservationIds(salesOrderId);
+        if (reservationIds.isEmpty()) return;
+
+        applyReleased(repository.releaseBySalesOrderId(salesOrderId), "released");
+        afterCommit(() -> unschedule(reservationIds));
+    }
+
+    /**
+     * Allocate an order: reserve every unreserved line atomically and make all reservations firm.
+     * Snapshot rows are locked in one statement in product id order, so concurrent orders
+     * sharing products queue up instead of deadlocking. On any shortfall nothing is reserved
+     * and the lines report what is missing.
+     */
+    @Transactional
+    public SalesOrderAllocationResponse allocateOrder(Long salesOrderId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        advisoryLockService.lockSalesOrder(salesOrderId);
+        List<SalesOrderItem> salesOrderItems = lockOrderProducts(salesOrderId);
+
+        // Locked, so expiry cannot release any of them before the commit makes them firm;
+        // lines whose reservation already expired are not returned and are reserved again
+        List<StockReservation> reservations = repository.lockBySalesOrderId(salesOrderId);
+        Set<Long> reservedItemIds = reservations.stream()
+            .map(StockReservation::getSalesOrderItemId)
+            .collect(Collectors.toCollection(HashSet::new));
+
+        Set<Long> productIds = salesOrderItems.stream()
+            .filter(salesOrderItem -> !reservedItemIds.contains(salesOrderItem.getSalesOrderItemId()))
+            .map(SalesOrderItem::getProductId)
+            .collect(Collectors.toCollection(TreeSet::new));
+
+        // Running availability in fixed-point units, checked line by line
+        Map<Long, BigDecimal> locked = currentStockService.lockAvailableQuantities(productIds);
+        Map<Long, Long> available = new HashMap<>(locked.size() * 2);
+        locked.forEach((productId, quantity) -> available.put(productId, Quantity.toUnits(quantity)));
+
+        List<LineResult> lines = new ArrayList<>(salesOrderItems.size());
+        List<SalesOrderItem> toReserve = new ArrayList<>();
+        int shortCount = 0;
+
+        for (SalesOrderItem salesOrderItem : salesOrderItems) {
+            LineResult line = LineResult.builder()
+                .salesOrderItemId(salesOrderItem.getSalesOrderItemId())
+                .productId(salesOrderItem.getProductId())
+                .quantity(Quantity.toBigDecimal(salesOrderItem.getQuantityUnits()))
+                .build();
+            lines.add(line);
+
+            if (reservedItemIds.contains(salesOrderItem.getSalesOrderItemId())) {
+                line.setStatus(LineStatus.ALREADY_RESERVED);
+                continue;
+            }
+
+            long quantity = salesOrderItem.getQuantityUnits();
+            long availableUnits = available.getOrDefault(salesOrderItem.getProductId(), 0L);
+            line.setAvailable(Quantity.toBigDecimal(availableUnits));
+
+            if (availableUnits < quantity) {
+                line.setStatus(LineStatus.SHORT);
+                line.setShortfall(Quantity.toBigDecimal(quantity - availableUnits));
+                shortCount++;
+                continue;
+            }
+
+            available.put(salesOrderItem.getProductId(), availableUnits - quantity);
+            line.setStatus(LineStatus.RESERVED);
+            toReserve.add(salesOrderItem);
+        }
+
+        boolean allocated = shortCount == 0;
+        if (allocated) {
+            reserveAll(toReserve);
+            repository.clearExpiry(salesOrderId);
+            List<Long> reservationIds = reservations.stream().map(StockReservation::getReservationId).toList();
+            afterCommit(() -> unschedule(reservationIds));
+        } else {
+            lines.stream()
+                .filter(line -> line.getStatus() == LineStatus.RESERVED)
+                .forEach(line -> line.setStatus(LineStatus.SKIPPED));
+        }
+
+        sample.stop(meterRegistry.timer("inventory.allocations", "outcome", allocated ? "allocated" : "short"));
+
+        return SalesOrderAllocationResponse.builder()
+            .salesOrderId(salesOrderId)
+            .allocated(allocated)
+            .reservedCount(allocated ? toReserve.size() : 0)
+            .shortCount(shortCount)
+            .lines(lines)
+            .build();
+    }
+
+    /**
+     * Allocate an order or fail with the lines that are short.
+     */
+    @Transactional
+    public void requireAllocated(Long salesOrderId) {
+        SalesOrderAllocationResponse allocation = allocateOrder(salesOrderId);
+        if (allocation.isAllocated()) return;
+
+        String shortLines = allocation.getLines().stream()
+            .filter(line -> line.getStatus() == LineStatus.SHORT)
+            .map(line -> line.getSalesOrderItemId() + " (short " + line.getShortfall().toPlainString() + ")")
+            .collect(Collectors.joining(", "));
+        throw new IllegalArgumentException("Not enough stock in inventory for sales order items: " + shortLines);
+    }
+
+    /**
+     * Ship an order: one SALE_SHIPMENT movement per line consumes its reservation.
+     * The order's reservation rows are locked before the stock rows (the order expiry takes
+     * them in), so none can be released mid-shipment; a line without one is a 409.
+     */
+    @Transactional
+    public void consumeOrder(Long salesOrderId) {
+        advisoryLockService.lockSalesOrder(salesOrderId);
+        List<SalesOrderItem> salesOrderItems = lockOrderProducts(salesOrderId);
+        requireAllocated(salesOrderId);
+
+        Instant now = Instant.now();
+        Map<Long, StockReservation> reservations = repository.lockBySalesOrderId(salesOrderId)
+            .stream()
+            .collect(Collectors.toMap(StockReservation::getSalesOrderItemId, Function.identity()));
+
+        // Take the row locks up front in product id order; the per-line updates below then never wait
+        currentStockService.lockStockRows(salesOrderItems.stream()
+            .map(SalesOrderItem::getProductId)
+            .collect(Collectors.toCollection(TreeSet::new)));
+
+        for (SalesOrderItem salesOrderItem : salesOrderItems) {
+            StockReservation reservation = reservations.get(salesOrderItem.getSalesOrderItemId());
+            if (reservation == null) {
+                throw new StateConflictException("Reservation of sales order item " + salesOrderItem.getSalesOrderItemId()
+                    + " was released concurrently, try again");
+            }
+
+            StockMovement stockMovement = stockMovementRepository.save(StockMovement.builder()
+                .product(productRepository.getReferenceById(reservation.getProductId()))
+                .movementKind(MovementKind.SALE_SHIPMENT)
+                .movementSource(MovementSource.SALES_ORDER)
+                .sourceId(salesOrderId)
+                .sourceItemId(salesOrderItem.getSalesOrderItemId())
+                .quantity(reservation.getQuantity())
+                .movementDate(now)
+                .createdAt(now)
+                .build());
+
+            currentStockService.updateStockShipment(reservation.getProductId(), stockMovement.getMovementId(), reservation.getQuantity());
+
+            outboxService.record(AggregateType.STOCK_MOVEMENT, stockMovement.getMovementId(), "StockMovementCreated",
+                stockMovementMapper.toStockMovementResponse(stockMovement));
+        }
+
+        repository.deleteBySalesOrderId(salesOrderId);
+    }
+
+    /**
+     * Rebuild the wheel from the table; reservations that expired while down are released now.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        List<Long> due = new ArrayList<>();
+        List<ReservationExpiry> expiries = repository.findAllExpiries();
+
+        synchronized (wheel) {
+            for (ReservationExpiry expiry : expiries) {
+                if (!wheel.add(expiry.getReservationId(), expiry.getExpiresAt().toEpochMilli())) {
+                    due.add(expiry.getReservationId());
+                }
+            }
+        }
+
+        log.info("Reservation wheel recovered {} pending expiries, {} already due", expiries.size() - due.size(), due.size());
+        releaseExpired(due, "expired");
+    }
+
+    /**
+     * Advance the wheel and release the reservations that came due.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservations.tick:PT1S}")
+    public void tick() {
+        List<Long> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        releaseExpired(due, "expired");
+    }
+
+    /**
+     * Release expired reservations not held by this instance's wheel.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservations.sweep-interval:PT10M}")
+    public void sweep() {
+        for (int i = 0; i < MAX_SWEEP_CHUNKS; i++) {
+            List<Long> expired = repository.findExpiredIds(RELEASE_CHUNK_SIZE);
+            if (expired.isEmpty()) return;
+
+            unschedule(expired);
+            releaseExpired(expired, "swept");
+            if (expired.size() < RELEASE_CHUNK_SIZE) return;
+        }
+    }
+
+    // Advisory locks of every product of the order at once, in stripe order. Locking only the
+    // lines to reserve now and the rest later (shipment) could hold a high stripe while waiting
+    // for a low one another order holds, and both would spin until the lock timeout.
+    private List<SalesOrderItem> lockOrderProducts(Long salesOrderId) {
+        List<SalesOrderItem> salesOrderItems = salesOrderItemRepository.findBySalesOrderId(salesOrderId);
+        advisoryLockService.lockProducts(salesOrderItems.stream()
+            .map(SalesOrderItem::getProductId)
+            .collect(Collectors.toCollection(TreeSet::new)));
+        return salesOrderItems;
+    }
+
+    private void reserveAll(List<SalesOrderItem> salesOrderItems) {
+        if (salesOrderItems.isEmpty()) return;
+
+        Instant now = Instant.now();
+        Map<Long, Long> units = new HashMap<>();
+        List<StockReservation> reservations = new ArrayList<>(salesOrderItems.size());
+
+        for (SalesOrderItem salesOrderItem : salesOrderItems) {
+            units.merge(salesOrderItem.getProductId(), salesOrderItem.getQuantityUnits(), Long::sum);
+            reservations.add(StockReservation.builder()
+                .productId(salesOrderItem.getProductId())
+                .salesOrderId(salesOrderItem.getSalesOrderId())
+                .salesOrderItemId(salesOrderItem.getSalesOrderItemId())
+                .quantity(Quantity.toBigDecimal(salesOrderItem.getQuantityUnits()))
+                .createdAt(now)
+                .build());
+        }
+
+        Map<Long, BigDecimal> deltas = new HashMap<>(units.size() * 2);
+        units.forEach((productId, quantity) -> deltas.put(productId, Quantity.toBigDecimal(quantity)));
+
+        currentStockService.applyReservedDeltas(deltas);
+        repository.saveAll(reservations);
+    }
+
+    // No advisory lock here: the release relies on the reservation and current_stock row locks,
+    // which every path that consumes or re-reserves a reservation also takes (reservations first)
+    private void releaseExpired(List<Long> reservationIds, String reason) {
+        for (int from = 0; from < reservationIds.size(); from += RELEASE_CHUNK_SIZE) {
+            Long[] chunk = reservationIds.subList(from, Math.min(from + RELEASE_CHUNK_SIZE, reservationIds.size()))
+                .toArray(Long[]::new);
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyReleased(repository.releaseExpired(chunk), reason));
+            } catch (RuntimeException e) {
+                // The sweep retries whatever is still expired in the table
+                log.warn("Releasing {} expired reservations failed: {}", chunk.length, e.getMessage());
+            }
+        }
+    }
+
+    private void applyReleased(List<ReleasedStock> released, String reason) {
+        if (released.isEmpty()) return;
+
+        currentStockService.markChanged(released.stream().map(ReleasedStock::getProductId).toList());
+        meterRegistry.counter("inventory.reservations.released", "reason", reason)
+            .increment(released.stream().mapToLong(ReleasedStock::getReleased).sum());
+    }
+
+    private List<Long> reservationIds(Long salesOrderId) {
+        return repository.findBySalesOrderId(salesOrderId)
+            .stream()
+            .map(StockReservation::getReservationId)
+            .toList();
+    }
+
+    private void schedule(Long reservationId, long deadlineMillis) {
+        // Already due by commit time (tiny ttl): left to the sweep
+        synchronized (wheel) {
+            wheel.add(reservationId, deadlineMillis);
+        }
+    }
+
+    private void unschedule(List<Long> reservationIds) {
+        synchronized (wheel) {
+            reservationIds.forEach(wheel::cancel);
+        }
+    }
+
+    // Order lines whose reservation the current transaction released
+    @SuppressWarnings("unchecked")
+    private static Set<Long> releasedLines() {
+        Set<Long> released = (Set<Long>) TransactionSynchronizationManager.getResource(RELEASED_LINES);
+        if (released == null) {
+            released = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(RELEASED_LINES, released);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RELEASED_LINES);
+                }
+            });
+        }
+        return released;
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
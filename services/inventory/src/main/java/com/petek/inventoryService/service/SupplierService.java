@@ -21,6 +21,8 @@ import com.petek.inventoryService.dto.supplier.SupplierUpdateRequest;
 import com.petek.inventoryService.entity.Supplier;
 import com.petek.inventoryService.mapper.SupplierMapper;
 import com.petek.inventoryService.repository.SupplierRepository;
+import com.petek.inventoryService.repository.ResourceVersionRepository;
+import com.petek.inventoryService.service.AutocompleteService.EntityType;
 import com.petek.inventoryService.spec.SupplierSpecifications;
 import com.petek.inventoryService.utils.SortUtils;
 
@@ -34,6 +36,8 @@ public class SupplierService {
     
     private final SupplierRepository repository;
     private final SupplierMapper mapper;
+    private final AutocompleteService autocompleteService;
+    private final ResourceVersionRepository versionRepository;
 
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
         "supplierId", "supplierName", "email", "city", "phone", "updatedAt"
@@ -71,7 +75,25 @@ public class SupplierService {
         Supplier supplier = mapper.toSupplier(request);
         supplier.setCreatedAt(Instant.now());
         supplier.setUpdatedAt(Instant.now());
-        return mapper.toSupplierResponse(repository.save(supplier));
+        Supplier saved = repository.save(supplier);
+        autocompleteService.indexAfterCommit(EntityType.SUPPLIER, saved.getSupplierId(), saved.getSupplierName());
+        return mapper.toSupplierResponse(saved);
+    }
+
+    /**
+     * Version token of a supplier list query.
+     */
+    @Transactional(readOnly = true)
+    public String getSuppliersVersion(SupplierFilterRequest request) {
+        return versionRepository.findListVersion(Supplier.class, SupplierSpecifications.withFilters(request));
+    }
+
+    /**
+     * Version token of a supplier, empty if it does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> getSupplierVersion(Long supplierId) {
+        return versionRepository.findSupplierVersion(supplierId);
     }
 
     /**
@@ -107,6 +129,9 @@ public class SupplierService {
             .filter(city -> !city.trim().isEmpty())
             .ifPresent(existingSupplier::setCity);
 
+        existingSupplier.setUpdatedAt(Instant.now());
+
+        autocompleteService.indexAfterCommit(EntityType.SUPPLIER, supplierId, existingSupplier.getSupplierName());
         return mapper.toSupplierResponse(repository.save(existingSupplier));
     }
 
@@ -117,6 +142,7 @@ public class SupplierService {
         Supplier existingSupplier = repository.findById(supplierId)
             .orElseThrow(() -> new EntityNotFoundException("Supplier not found with id: " + supplierId));
         repository.delete(existingSupplier);
+        autocompleteService.removeAfterCommit(EntityType.SUPPLIER, supplierId);
     }
 
 }
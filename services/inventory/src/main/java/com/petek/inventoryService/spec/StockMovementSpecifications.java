@@ -7,6 +7,7 @@ import org.springframework.data.jpa.domain.Specification;
 
 import com.petek.inventoryService.dto.stock.StockMovementFilterRequest;
 import com.petek.inventoryService.entity.StockMovement;
+import com.petek.inventoryService.utils.CursorUtils.Cursor;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -60,5 +61,31 @@ public class StockMovementSpecifications {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
-    
+
+    /**
+     * Rows older than the cursor in (movementDate DESC, movementId DESC) order.
+     */
+    public static Specification<StockMovement> olderThan(Cursor cursor) {
+        return (Root<StockMovement> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> cb.and(
+            cb.lessThanOrEqualTo(root.get("movementDate"), cursor.getTimestamp()),
+            cb.or(
+                cb.lessThan(root.get("movementDate"), cursor.getTimestamp()),
+                cb.lessThan(root.get("movementId"), cursor.getId())
+            )
+        );
+    }
+
+    /**
+     * Rows newer than the cursor in (movementDate DESC, movementId DESC) order.
+     */
+    public static Specification<StockMovement> newerThan(Cursor cursor) {
+        return (Root<StockMovement> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> cb.and(
+            cb.greaterThanOrEqualTo(root.get("movementDate"), cursor.getTimestamp()),
+            cb.or(
+                cb.greaterThan(root.get("movementDate"), cursor.getTimestamp()),
+                cb.greaterThan(root.get("movementId"), cursor.getId())
+            )
+        );
+    }
+
 }
@@ -0,0 +1,162 @@
+package com.petek.inventoryService.utils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Per-product timeline of campaign windows (start_date..end_date, both inclusive).
+ *
+ * Each product's windows are cut at every start and every day after an end into
+ * elementary segments; a segment lists the campaigns active on all of its days. A
+ * lookup is a binary search over the segment starts, so overlapping campaigns cost
+ * nothing extra at read time. Reads are lock-free (timelines are immutable and swapped
+ * whole); writes are serialized and rebuild only the timelines of the products they touch.
+ */
+public class CampaignIntervalIndex {
+
+    private static final Terms[] NONE = new Terms[0];
+
+    private final Map<Long, Terms> campaigns = new HashMap<>();
+    private final Map<Long, Set<Long>> productsByCampaign = new HashMap<>();
+    private final Map<Long, Set<Long>> campaignsByProduct = new HashMap<>();
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+
+    /**
+     * Pricing parameters and window of one campaign. Percentages are hundredths
+     * (NUMERIC(5,2) as long), days are epoch days.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Terms {
+        private final long campaignId;
+        private final boolean buyXGetY;
+        private final long discountHundredths;
+        private final int buyQty;
+        private final int getQty;
+        private final long startDay;
+        private final long endDay;
+    }
+
+    // segment i covers [starts[i], starts[i + 1]); the last one is always empty
+    private static class Timeline {
+        private final long[] starts;
+        private final Terms[][] active;
+
+        Timeline(long[] starts, Terms[][] active) {
+            this.starts = starts;
+            this.active = active;
+        }
+
+        Terms[] at(long day) {
+            int i = Arrays.binarySearch(starts, day);
+            if (i < 0) i = -i - 2;
+            return i < 0 ? NONE : active[i];
+        }
+    }
+
+    /**
+     * Campaigns of the product whose window contains the date.
+     */
+    public List<Terms> active(long productId, LocalDate date) {
+        Timeline timeline = timelines.get(productId);
+        return timeline == null ? List.of() : Arrays.asList(timeline.at(date.toEpochDay()));
+    }
+
+    /**
+     * Add or replace a campaign together with its full product assignment.
+     */
+    public synchronized void put(Terms terms, Collection<Long> productIds) {
+        attach(terms, productIds).forEach(this::rebuildTimeline);
+    }
+
+    /**
+     * Add or replace many campaigns (keyed by campaign id), rebuilding each timeline once.
+     */
+    public synchronized void putAll(Collection<Terms> terms, Map<Long, List<Long>> productIds) {
+        Set<Long> affected = new HashSet<>();
+        for (Terms t : terms) {
+            affected.addAll(attach(t, productIds.getOrDefault(t.getCampaignId(), List.of())));
+        }
+        affected.forEach(this::rebuildTimeline);
+    }
+
+    /**
+     * Drop a campaign (deleted or no longer assigned to any product).
+     */
+    public synchronized void remove(long campaignId) {
+        detach(campaignId).forEach(this::rebuildTimeline);
+    }
+
+    public int campaignCount() {
+        return campaigns.size();
+    }
+
+    public int productCount() {
+        return timelines.size();
+    }
+
+    // Returns every product whose timeline changes
+    private Set<Long> attach(Terms terms, Collection<Long> productIds) {
+        Set<Long> affected = detach(terms.getCampaignId());
+        campaigns.put(terms.getCampaignId(), terms);
+        Set<Long> assigned = new HashSet<>(productIds);
+        productsByCampaign.put(terms.getCampaignId(), assigned);
+        for (Long productId : assigned) {
+            campaignsByProduct.computeIfAbsent(productId, id -> new HashSet<>()).add(terms.getCampaignId());
+        }
+        affected.addAll(assigned);
+        return affected;
+    }
+
+    private Set<Long> detach(long campaignId) {
+        campaigns.remove(campaignId);
+        Set<Long> previous = productsByCampaign.remove(campaignId);
+        if (previous == null) return new HashSet<>();
+        for (Long productId : previous) {
+            Set<Long> ids = campaignsByProduct.get(productId);
+            ids.remove(campaignId);
+            if (ids.isEmpty()) campaignsByProduct.remove(productId);
+        }
+        return new HashSet<>(previous);
+    }
+
+    private void rebuildTimeline(Long productId) {
+        Set<Long> ids = campaignsByProduct.get(productId);
+        if (ids == null) {
+            timelines.remove(productId);
+            return;
+        }
+
+        List<Terms> terms = new ArrayList<>(ids.size());
+        TreeSet<Long> cuts = new TreeSet<>();
+        for (Long id : ids) {
+            Terms t = campaigns.get(id);
+            terms.add(t);
+            cuts.add(t.getStartDay());
+            cuts.add(t.getEndDay() + 1);
+        }
+
+        long[] starts = cuts.stream().mapToLong(Long::longValue).toArray();
+        Terms[][] active = new Terms[starts.length][];
+        for (int i = 0; i < starts.length; i++) {
+            long day = starts[i];
+            active[i] = terms.stream()
+                .filter(t -> t.getStartDay() <= day && day <= t.getEndDay())
+                .toArray(Terms[]::new);
+        }
+        timelines.put(productId, new Timeline(starts, active));
+    }
+
+}
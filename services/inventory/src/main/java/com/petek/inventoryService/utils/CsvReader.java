@@ -0,0 +1,105 @@
+package com.petek.inventoryService.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 reader: returns one record per call and holds only the current
+ * record in memory. Quoted fields may contain separators, doubled quotes and line breaks;
+ * both LF and CRLF end a record. A quote inside an unquoted field is kept as text.
+ */
+public class CsvReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char separator;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long recordNumber;
+
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * Number of records returned so far (the header included).
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Next record, or null at the end of the input. Blank lines are skipped.
+     */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStarted = false;
+
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (quoted) {
+                    throw new IllegalArgumentException("Unterminated quoted field in record " + (recordNumber + 1));
+                }
+                if (!fieldStarted && fields.isEmpty()) return null;
+                fields.add(field.toString());
+                recordNumber++;
+                return fields;
+            }
+
+            char ch = (char) c;
+            if (quoted) {
+                if (ch != '"') {
+                    field.append(ch);
+                } else if (peek() == '"') {
+                    read();
+                    field.append('"');
+                } else {
+                    quoted = false;
+                }
+            } else if (ch == '"' && field.isEmpty()) {
+                quoted = true;
+                fieldStarted = true;
+            } else if (ch == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStarted = true;
+            } else if (ch == '\n' || ch == '\r') {
+                if (ch == '\r' && peek() == '\n') read();
+                if (!fieldStarted && fields.isEmpty()) continue;
+                fields.add(field.toString());
+                recordNumber++;
+                return fields;
+            } else {
+                field.append(ch);
+                fieldStarted = true;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+}
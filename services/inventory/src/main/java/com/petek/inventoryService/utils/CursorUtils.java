@@ -0,0 +1,70 @@
+package com.petek.inventoryService.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Opaque keyset cursors over (timestamp, id), e.g. (movement_date, movement_id), and
+ * over (rank, id) for ranked search results.
+ */
+public class CursorUtils {
+
+    @Getter
+    @AllArgsConstructor
+    public static class Cursor {
+        private final Instant timestamp;
+        private final Long id;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RankCursor {
+        private final double rank;
+        private final Long id;
+    }
+
+    public static String encode(Instant timestamp, Long id) {
+        String raw = timestamp.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor; a blank token means "start from the beginning" and yields null.
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Cursor(Instant.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    // Double.toString round-trips exactly, so the cursor matches the ranked row again
+    public static String encodeRank(double rank, Long id) {
+        String raw = Double.toString(rank) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a rank cursor; a blank token means "best matches first" and yields null.
+     */
+    public static RankCursor decodeRank(String token) {
+        if (token == null || token.isBlank()) return null;
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new RankCursor(Double.parseDouble(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
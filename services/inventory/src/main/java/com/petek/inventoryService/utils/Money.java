@@ -0,0 +1,107 @@
+package com.petek.inventoryService.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money: NUMERIC(12,2) / NUMERIC(14,2) held as long cents, percentages
+ * (NUMERIC(5,2)) as long hundredths of a percent.
+ *
+ * Line math mirrors the generated columns of sales_order_items exactly:
+ *   discount_amount = round(quantity * unit_price * discount_percentage / 100, 2)
+ *   line_total      = round(quantity * unit_price * (1 - discount_percentage / 100), 2)
+ * Postgres numeric round() is half away from zero; so is {@link #divideRounded}.
+ */
+public class Money {
+
+    public static final int SCALE = 2;
+
+    // quantity (3) + price (2) + percent fraction (4) decimals, down to cents (2)
+    private static final long LINE_DIVISOR = 10_000_000L;
+    private static final long HUNDRED_PERCENT = 10_000L;
+
+    /**
+     * BigDecimal -> cents (or hundredths of a percent); rejects values with more than 2 decimals.
+     */
+    public static long toCents(BigDecimal value) {
+        try {
+            return value.scaleByPowerOfTen(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimals: " + value);
+        }
+    }
+
+    /**
+     * Cents -> BigDecimal with scale 2.
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * round(quantity * unitPrice * discount / 100, 2) in cents.
+     */
+    public static long discountAmount(long quantityUnits, long unitPriceCents, long discountHundredths) {
+        try {
+            return divideRounded(Math.multiplyExact(Math.multiplyExact(quantityUnits, unitPriceCents), discountHundredths), LINE_DIVISOR);
+        } catch (ArithmeticException e) {
+            return slowLine(quantityUnits, unitPriceCents, discountHundredths);
+        }
+    }
+
+    /**
+     * round(quantity * unitPrice * (1 - discount / 100), 2) in cents.
+     */
+    public static long lineTotal(long quantityUnits, long unitPriceCents, long discountHundredths) {
+        long payableHundredths = HUNDRED_PERCENT - discountHundredths;
+        try {
+            return divideRounded(Math.multiplyExact(Math.multiplyExact(quantityUnits, unitPriceCents), payableHundredths), LINE_DIVISOR);
+        } catch (ArithmeticException e) {
+            return slowLine(quantityUnits, unitPriceCents, payableHundredths);
+        }
+    }
+
+    /**
+     * round(quantity * unitPrice, 2) in cents (undiscounted lines, e.g. purchase orders).
+     */
+    public static long amount(long quantityUnits, long unitPriceCents) {
+        return lineTotal(quantityUnits, unitPriceCents, 0);
+    }
+
+    /**
+     * part / whole as a percentage in hundredths (e.g. 1 of 3 -> 3333).
+     */
+    public static long percentOf(long part, long whole) {
+        return divideRounded(Math.multiplyExact(part, HUNDRED_PERCENT), whole);
+    }
+
+    /**
+     * Stacked percentage in hundredths: round((1 - (1 - p/100) * (1 - c/100)) * 100, 2).
+     */
+    public static long stackPercents(long firstHundredths, long secondHundredths) {
+        long payable = Math.multiplyExact(HUNDRED_PERCENT - firstHundredths, HUNDRED_PERCENT - secondHundredths);
+        return divideRounded(HUNDRED_PERCENT * HUNDRED_PERCENT - payable, HUNDRED_PERCENT);
+    }
+
+    /**
+     * Integer division rounding half away from zero (Postgres numeric round semantics).
+     */
+    public static long divideRounded(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    // Products beyond 2^63 (very large lines) fall back to exact decimal math
+    private static long slowLine(long quantityUnits, long unitPriceCents, long factorHundredths) {
+        return BigDecimal.valueOf(quantityUnits)
+            .multiply(BigDecimal.valueOf(unitPriceCents))
+            .multiply(BigDecimal.valueOf(factorHundredths))
+            .divide(BigDecimal.valueOf(LINE_DIVISOR), 0, RoundingMode.HALF_UP)
+            .longValueExact();
+    }
+
+}
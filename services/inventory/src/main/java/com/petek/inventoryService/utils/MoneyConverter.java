@@ -0,0 +1,25 @@
+package com.petek.inventoryService.utils;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * NUMERIC(x,2) money or percentage column <-> long cents / hundredths ({@link Money}).
+ * Applied per field: ids are Longs too.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long cents) {
+        return cents == null ? null : Money.toBigDecimal(cents);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Money.toCents(value);
+    }
+
+}
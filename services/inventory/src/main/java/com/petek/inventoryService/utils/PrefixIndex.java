@@ -0,0 +1,159 @@
+package com.petek.inventoryService.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sorted prefix index over names: every word start of a normalized name is a key, so
+ * "zeyt" finds "Sızma Zeytinyağı". Reads are lock-free range scans of a skip list;
+ * writes are serialized and rare. Bounded by a maximum number of keys, with an
+ * estimated heap footprint for reporting.
+ *
+ * Normalization is Turkish-aware: lower case in the tr locale (I -> ı, İ -> i), then
+ * ı -> i and diacritics stripped, so "ISPARTA", "Isparta" and "ısparta" all match "isp".
+ */
+public class PrefixIndex {
+
+    private static final Locale TURKISH = Locale.forLanguageTag("tr");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final int MAX_KEY_LENGTH = 48;
+    private static final char ID_SEPARATOR = '\u0000';
+
+    // Rough per-entry heap cost: skip list node and index, key String, boxed id / map entry
+    private static final long KEY_OVERHEAD_BYTES = 96;
+    private static final long NAME_OVERHEAD_BYTES = 80;
+
+    private final int maxKeys;
+
+    private final ConcurrentSkipListMap<String, Long> keys = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    // Ids removed while a rebuild streams in older rows
+    private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+        private final Long id;
+        private final String name;
+    }
+
+    public PrefixIndex(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public static String normalize(String text) {
+        String lower = text.trim().toLowerCase(TURKISH).replace('ı', 'i');
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /**
+     * Index or re-index a name; false if it does not fit in the key budget.
+     */
+    public synchronized boolean put(Long id, String name) {
+        removed.remove(id);
+        String previous = names.get(id);
+        if (previous != null) {
+            if (previous.equals(name)) return true;
+            unindex(id, previous);
+        }
+
+        List<String> newKeys = keysOf(id, name);
+        if (keys.size() + newKeys.size() > maxKeys) return false;
+
+        for (String key : newKeys) {
+            keys.put(key, id);
+            estimatedBytes.addAndGet(KEY_OVERHEAD_BYTES + key.length());
+        }
+        names.put(id, name);
+        estimatedBytes.addAndGet(NAME_OVERHEAD_BYTES + 2L * name.length());
+        return true;
+    }
+
+    /**
+     * Index a name read by a rebuild unless a live write already covered the id.
+     */
+    public synchronized boolean putIfAbsent(Long id, String name) {
+        if (names.containsKey(id) || removed.contains(id)) return true;
+        return put(id, name);
+    }
+
+    public synchronized void remove(Long id) {
+        removed.add(id);
+        String previous = names.get(id);
+        if (previous != null) unindex(id, previous);
+    }
+
+    /**
+     * Up to limit distinct names with a word starting with the prefix, in key order.
+     */
+    public List<Match> find(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) return List.of();
+        if (normalized.length() > MAX_KEY_LENGTH) normalized = normalized.substring(0, MAX_KEY_LENGTH);
+
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Map.Entry<String, Long> entry : keys.tailMap(normalized).entrySet()) {
+            if (!entry.getKey().startsWith(normalized) || ids.size() >= limit) break;
+            ids.add(entry.getValue());
+        }
+
+        List<Match> matches = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            String name = names.get(id);
+            if (name != null) matches.add(new Match(id, name));
+        }
+        return matches;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public int keyCount() {
+        return keys.size();
+    }
+
+    public long estimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    private void unindex(Long id, String name) {
+        for (String key : keysOf(id, name)) {
+            if (keys.remove(key) != null) {
+                estimatedBytes.addAndGet(-(KEY_OVERHEAD_BYTES + key.length()));
+            }
+        }
+        names.remove(id);
+        estimatedBytes.addAndGet(-(NAME_OVERHEAD_BYTES + 2L * name.length()));
+    }
+
+    // One key per word start: "<normalized text from the word on, truncated>\0<id>"
+    private List<String> keysOf(Long id, String name) {
+        String normalized = normalize(name);
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            boolean wordStart = Character.isLetterOrDigit(normalized.charAt(i))
+                && (i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1)));
+            if (!wordStart) continue;
+
+            String text = normalized.substring(i, Math.min(normalized.length(), i + MAX_KEY_LENGTH));
+            result.add(text + ID_SEPARATOR + id);
+        }
+        return new ArrayList<>(result);
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.petek.inventoryService.utils;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point stock quantities: NUMERIC(12,3) held as a long count of thousandths ("units").
+ * Hot loops keep raw longs; BigDecimal is only created at the JDBC / JSON boundary.
+ */
+public class Quantity {
+
+    public static final int SCALE = 3;
+
+    /**
+     * BigDecimal -> units; rejects values with more than 3 decimals.
+     */
+    public static long toUnits(BigDecimal value) {
+        try {
+            return value.scaleByPowerOfTen(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Quantity must have at most " + SCALE + " decimals: " + value);
+        }
+    }
+
+    /**
+     * Units -> BigDecimal with scale 3.
+     */
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+}
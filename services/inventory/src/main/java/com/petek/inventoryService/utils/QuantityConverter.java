@@ -0,0 +1,24 @@
+package com.petek.inventoryService.utils;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * NUMERIC(12,3) column <-> long units ({@link Quantity}). Applied per field: ids are Longs too.
+ */
+@Converter
+public class QuantityConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long units) {
+        return units == null ? null : Quantity.toBigDecimal(units);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Quantity.toUnits(value);
+    }
+
+}
@@ -2,6 +2,7 @@ package com.petek.inventoryService.utils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.data.domain.Sort;
@@ -28,4 +29,12 @@ public class SortUtils {
         
         return Sort.by(orders);
     }
+
+    // Sort parameters that name a differently called entity property (e.g. fixed-point columns)
+    public static Sort createSort(List<String> sortParams, Map<String, String> SORT_PROPERTIES) {
+        Sort sort = createSort(sortParams, SORT_PROPERTIES.keySet());
+        return Sort.by(sort.stream()
+            .map(order -> order.withProperty(SORT_PROPERTIES.get(order.getProperty())))
+            .toList());
+    }
 }
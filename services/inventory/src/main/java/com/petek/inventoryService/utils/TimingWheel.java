@@ -0,0 +1,143 @@
+package com.petek.inventoryService.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel of ids with millisecond deadlines.
+ *
+ * Level i has {@code wheelSize} buckets of {@code tickMillis * wheelSize^i}; entries are
+ * cascaded one level down when their bucket comes due. add / cancel are O(1) and a tick
+ * only touches the due bucket, independent of how many ids are scheduled. Deadlines
+ * beyond the top level are parked in the farthest top bucket and re-placed on cascade.
+ * Not thread-safe on its own; callers synchronize.
+ */
+public class TimingWheel {
+
+    private static final int LEVELS = 3;
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<List<Set<Long>>> levels = new ArrayList<>(LEVELS);
+    private final Map<Long, Slot> slots = new HashMap<>();
+
+    private long currentTick;
+
+    private static final class Slot {
+        private final long deadlineTick;
+        private final int level;
+        private final int bucket;
+
+        private Slot(long deadlineTick, int level, int bucket) {
+            this.deadlineTick = deadlineTick;
+            this.level = level;
+            this.bucket = bucket;
+        }
+    }
+
+    public TimingWheel(long tickMillis, int wheelSize, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTick = nowMillis / tickMillis;
+
+        for (int level = 0; level < LEVELS; level++) {
+            List<Set<Long>> buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new HashSet<>());
+            }
+            levels.add(buckets);
+        }
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Schedule (or reschedule) an id; returns false if the deadline has already passed.
+     */
+    public boolean add(long id, long deadlineMillis) {
+        cancel(id);
+        long deadlineTick = Math.ceilDiv(deadlineMillis, tickMillis);
+        if (deadlineTick <= currentTick) return false;
+        place(id, deadlineTick);
+        return true;
+    }
+
+    public void cancel(long id) {
+        Slot slot = slots.remove(id);
+        if (slot != null) {
+            levels.get(slot.level).get(slot.bucket).remove(id);
+        }
+    }
+
+    /**
+     * Advance to now and return every id whose deadline has been reached.
+     */
+    public List<Long> advance(long nowMillis) {
+        List<Long> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Cascade from the top so entries can fall through several levels in one tick
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                long span = span(level);
+                if (currentTick % span == 0) {
+                    Set<Long> bucket = levels.get(level).get((int) ((currentTick / span) % wheelSize));
+                    List<Long> moving = new ArrayList<>(bucket);
+                    bucket.clear();
+                    for (Long id : moving) {
+                        Slot slot = slots.remove(id);
+                        if (slot.deadlineTick <= currentTick) {
+                            expired.add(id);
+                        } else {
+                            place(id, slot.deadlineTick);
+                        }
+                    }
+                }
+            }
+
+            Set<Long> due = levels.get(0).get((int) (currentTick % wheelSize));
+            for (Long id : due) {
+                slots.remove(id);
+                expired.add(id);
+            }
+            due.clear();
+        }
+
+        return expired;
+    }
+
+    private void place(long id, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= span(level + 1)) {
+            level++;
+        }
+
+        // Beyond the top level: park in the farthest top bucket, re-placed when it cascades
+        long bucketTick = level == LEVELS - 1 && delta >= span(LEVELS)
+            ? currentTick + span(LEVELS) - span(LEVELS - 1)
+            : deadlineTick;
+        int bucket = (int) ((bucketTick / span(level)) % wheelSize);
+
+        levels.get(level).get(bucket).add(id);
+        slots.put(id, new Slot(deadlineTick, level, bucket));
+    }
+
+    // Ticks covered by one bucket of the given level
+    private long span(int level) {
+        long span = 1;
+        for (int i = 0; i < level; i++) {
+            span *= wheelSize;
+        }
+        return span;
+    }
+
+}
@@ -0,0 +1,11 @@
+-- ======================================================================
+-- V10__stock_movements_keyset.sql  (PostgreSQL 17.6)
+-- Purpose: Keyset (cursor) paging over the movement ledger.
+-- Notes:
+--   • Order is (movement_date DESC, movement_id DESC), newest first.
+--   • Per-product pages reuse idx_sm_product_date (product_id, movement_date DESC).
+--   • Unfiltered ledger pages need a date-leading index; movement_id breaks ties.
+-- ======================================================================
+
+CREATE INDEX IF NOT EXISTS idx_sm_date_id
+  ON stock_movements (movement_date DESC, movement_id DESC);
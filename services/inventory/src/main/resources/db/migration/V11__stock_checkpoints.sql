@@ -0,0 +1,33 @@
+-- ======================================================================
+-- V11__stock_checkpoints.sql  (PostgreSQL 17.6)
+-- Purpose: Periodic per-product ledger checkpoints for "as-of" stock lookups.
+-- Notes:
+--   • quantity_on_hand = ledger balance of all movements with movement_date <= checkpoint_at.
+--   • quantity_reserved is a snapshot of current_stock when the checkpoint was taken
+--     (reservations are not ledgered, so they cannot be replayed). NULL for checkpoints
+--     backfilled for past days: today's reservations say nothing about those days.
+--   • As-of(T) = latest checkpoint <= T + movements in (checkpoint_at, T];
+--     the replay window is bounded by the checkpoint interval (daily).
+--   • Written by the scheduled checkpoint job; ON CONFLICT keeps reruns idempotent.
+-- ======================================================================
+
+CREATE TABLE IF NOT EXISTS stock_checkpoints (
+  product_id         BIGINT      NOT NULL,
+  checkpoint_at      timestamptz NOT NULL,
+
+  quantity_on_hand   NUMERIC(12,3) NOT NULL,
+  quantity_reserved  NUMERIC(12,3),
+
+  created_at         timestamptz NOT NULL DEFAULT now(),
+
+  CONSTRAINT pk_stock_checkpoints PRIMARY KEY (product_id, checkpoint_at),
+  CONSTRAINT fk_sc_product
+    FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE RESTRICT
+);
+
+-- Latest checkpoint run → catch-up logic of the job
+CREATE INDEX IF NOT EXISTS idx_sc_checkpoint_at
+  ON stock_checkpoints (checkpoint_at DESC);
+
+COMMENT ON TABLE stock_checkpoints IS
+  'Per-product ledger balance at checkpoint_at (movement_date <= checkpoint_at). Used for bounded as-of stock reconstruction.';
@@ -0,0 +1,63 @@
+-- ======================================================================
+-- V12__current_stock_stream_resume.sql  (PostgreSQL 17.6)
+-- Purpose: Commit-safe resume cursor for the current stock SSE feed (Last-Event-ID).
+-- Notes:
+--   • Every statement that writes current_stock or stock_buckets (V16) logs
+--     the products it touched (statement-level triggers), so no writer can
+--     skip it: single mutations, batches, bucket refills and reservation
+--     expiry alike.
+--   • Logging does not wait for a subscriber: a client resumes with the id it
+--     last saw, so the changes made while it was disconnected must be there.
+--     The cost is one INSERT of the distinct product ids per statement.
+--   • Sequence / pooled ids are handed out before commit, so they are not in
+--     commit order and cannot be a "changes after" cursor (last_movement_id
+--     included). The cursor is (tx, change_id), tx being the writing
+--     transaction's id, and readers only see rows with tx below the xmin of
+--     their snapshot: every such transaction has finished, so a row committed
+--     later always sorts after any cursor already handed out.
+--   • A long-running transaction holds the xmin back and delays the feed
+--     (never loses events).
+--   • Rows are pruned after a retention window; stock_change_retention keeps
+--     the highest pruned cursor so an older resume falls back to a full replay.
+-- ======================================================================
+
+CREATE TABLE IF NOT EXISTS stock_changes (
+  tx          BIGINT NOT NULL DEFAULT CAST(CAST(pg_current_xact_id() AS TEXT) AS BIGINT),
+  change_id   BIGINT GENERATED ALWAYS AS IDENTITY,
+  product_id  BIGINT NOT NULL,
+  changed_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+
+  CONSTRAINT pk_stock_changes PRIMARY KEY (tx, change_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_changes_changed_at ON stock_changes (changed_at);
+
+CREATE TABLE IF NOT EXISTS stock_change_retention (
+  singleton         BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (singleton),
+  pruned_tx         BIGINT NOT NULL DEFAULT 0,
+  pruned_change_id  BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO stock_change_retention (singleton) VALUES (TRUE) ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION log_stock_changes() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+  INSERT INTO stock_changes (product_id)
+  SELECT DISTINCT product_id FROM changed_rows ORDER BY product_id;
+  RETURN NULL;
+END;
+$$;
+
+-- Transition tables allow one event per trigger
+DROP TRIGGER IF EXISTS trg_current_stock_changes_ins ON current_stock;
+CREATE TRIGGER trg_current_stock_changes_ins
+  AFTER INSERT ON current_stock
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION log_stock_changes();
+
+DROP TRIGGER IF EXISTS trg_current_stock_changes_upd ON current_stock;
+CREATE TRIGGER trg_current_stock_changes_upd
+  AFTER UPDATE ON current_stock
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION log_stock_changes();
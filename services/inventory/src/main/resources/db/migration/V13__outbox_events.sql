@@ -0,0 +1,55 @@
+-- ======================================================================
+-- V13__outbox_events.sql  (PostgreSQL 17.6)
+-- Purpose: Transactional outbox for inventory domain events.
+-- Notes:
+--   • Rows are written in the same transaction as the business change.
+--   • Dispatchers claim pending rows with FOR UPDATE SKIP LOCKED (multi-instance).
+--   • Delivery is at-least-once; consumers dedupe on event_id.
+--   • Dispatched rows are deleted after a retention window.
+--   • Rows that used up their attempts move to outbox_dead_letters, so the
+--     pending index only holds claimable work; dead letters are kept for
+--     inspection and deleted after their own, longer retention.
+-- ======================================================================
+
+CREATE SEQUENCE IF NOT EXISTS outbox_events_event_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+  event_id         BIGINT PRIMARY KEY DEFAULT nextval('outbox_events_event_id_seq'),
+  aggregate_type   TEXT NOT NULL,
+  aggregate_id     BIGINT NOT NULL,
+  event_type       TEXT NOT NULL,
+  payload          JSONB NOT NULL,
+  created_at       TIMESTAMPTZ NOT NULL DEFAULT now(),
+  attempts         INT NOT NULL DEFAULT 0 CHECK (attempts >= 0),
+  next_attempt_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+  last_error       TEXT,
+  dispatched_at    TIMESTAMPTZ
+);
+
+ALTER SEQUENCE outbox_events_event_id_seq OWNED BY outbox_events.event_id;
+
+-- Pending work, in claim order
+CREATE INDEX IF NOT EXISTS idx_outbox_pending
+  ON outbox_events (event_id)
+  WHERE dispatched_at IS NULL;
+
+-- Retention cleanup
+CREATE INDEX IF NOT EXISTS idx_outbox_dispatched_at
+  ON outbox_events (dispatched_at)
+  WHERE dispatched_at IS NOT NULL;
+
+CREATE TABLE IF NOT EXISTS outbox_dead_letters (
+  event_id        BIGINT PRIMARY KEY,
+  aggregate_type  TEXT NOT NULL,
+  aggregate_id    BIGINT NOT NULL,
+  event_type      TEXT NOT NULL,
+  payload         JSONB NOT NULL,
+  created_at      TIMESTAMPTZ NOT NULL,
+  attempts        INT NOT NULL,
+  last_error      TEXT,
+  dead_at         TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Retention cleanup
+CREATE INDEX IF NOT EXISTS idx_outbox_dead_letters_dead_at
+  ON outbox_dead_letters (dead_at);
@@ -0,0 +1,176 @@
+-- ======================================================================
+-- V14__stock_movements_partitioned.sql  (PostgreSQL 17.6)
+-- Purpose: Range-partition the movement ledger by month on movement_date so
+--          indexes stay per-month and date-bounded queries prune partitions.
+-- Notes:
+--   • Partitions are named stock_movements_yYYYYmMM and cover UTC months.
+--   • create_stock_movement_partitions() is called by the scheduled
+--     partition job to stay some months ahead; there is no DEFAULT
+--     partition, so old months can be DETACHed CONCURRENTLY (no write lock).
+--   • PK becomes (movement_id, movement_date): a partitioned unique key must
+--     contain the partition key. movement_id stays unique by its sequence.
+--   • current_stock.last_movement_id can no longer be a FK (no unique
+--     index on movement_id alone); it stays a plain pointer.
+--   • One-posting-per-order-line idempotency moves to a small unpartitioned
+--     key table filled by a BEFORE INSERT trigger; it keeps the constraint
+--     name uq_sm_one_per_source_line so error mapping is unchanged.
+--   • Existing rows are copied once; this migration rewrites the ledger.
+--   • Before months are detached, every product gets a checkpoint at the
+--     cutoff (V11) and stock_ledger_archive.archived_before moves to it:
+--     reconciliation and as-of lookups open with that checkpoint and only
+--     read movements after it. Lookups before it are refused.
+-- ======================================================================
+
+-- ----------------------------
+-- 1) Move the old table out of the way (keep its sequence)
+-- ----------------------------
+ALTER SEQUENCE stock_movements_movement_id_seq OWNED BY NONE;
+ALTER TABLE current_stock DROP CONSTRAINT IF EXISTS current_stock_last_movement_id_fkey;
+
+ALTER TABLE stock_movements RENAME TO stock_movements_unpartitioned;
+ALTER TABLE stock_movements_unpartitioned RENAME CONSTRAINT stock_movements_pkey TO stock_movements_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_sm_product_date;
+DROP INDEX IF EXISTS idx_sm_source_pair;
+DROP INDEX IF EXISTS idx_sm_source_item;
+DROP INDEX IF EXISTS idx_sm_date_id;
+DROP INDEX IF EXISTS uq_sm_one_per_source_line;
+
+-- ----------------------------
+-- 2) Partitioned ledger (same columns and checks as V7)
+-- ----------------------------
+CREATE TABLE stock_movements (
+  movement_id     BIGINT NOT NULL DEFAULT nextval('stock_movements_movement_id_seq'),
+  product_id      BIGINT NOT NULL,
+
+  movement_kind   movement_kind   NOT NULL,
+  movement_source movement_source NOT NULL,
+
+  source_id       BIGINT,
+  source_item_id  BIGINT,
+
+  quantity        NUMERIC(12,3) NOT NULL CHECK (quantity > 0),
+
+  movement_date   timestamptz NOT NULL DEFAULT now(),
+  created_at      timestamptz NOT NULL DEFAULT now(),
+
+  CONSTRAINT stock_movements_pkey PRIMARY KEY (movement_id, movement_date),
+
+  CONSTRAINT fk_sm_product
+    FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE RESTRICT,
+
+  CONSTRAINT chk_source_required CHECK (
+    (movement_source IN ('PURCHASE_ORDER','SALES_ORDER')
+       AND source_id IS NOT NULL AND source_item_id IS NOT NULL)
+    OR
+    (movement_source = 'ADJUSTMENT'
+       AND source_id IS NULL AND source_item_id IS NULL)
+  ),
+
+  CONSTRAINT chk_kind_by_source CHECK (
+    (movement_source <> 'PURCHASE_ORDER' OR movement_kind = 'PURCHASE_RECEIPT') AND
+    (movement_source <> 'SALES_ORDER'    OR movement_kind = 'SALE_SHIPMENT') AND
+    (movement_source <> 'ADJUSTMENT'     OR movement_kind IN ('ADJUSTMENT_IN','ADJUSTMENT_OUT'))
+  )
+) PARTITION BY RANGE (movement_date);
+
+ALTER SEQUENCE stock_movements_movement_id_seq OWNED BY stock_movements.movement_id;
+
+-- ----------------------------
+-- 3) Monthly partition management
+-- ----------------------------
+CREATE OR REPLACE FUNCTION create_stock_movement_partitions(first_day DATE, last_day DATE)
+RETURNS INT AS $$
+DECLARE
+  month_start DATE := date_trunc('month', first_day)::DATE;
+  created     INT  := 0;
+  part_name   TEXT;
+BEGIN
+  WHILE month_start <= last_day LOOP
+    part_name := 'stock_movements_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM');
+
+    IF to_regclass(part_name) IS NULL THEN
+      EXECUTE format(
+        'CREATE TABLE %I PARTITION OF stock_movements FOR VALUES FROM (%L) TO (%L)',
+        part_name,
+        month_start::timestamp AT TIME ZONE 'UTC',
+        (month_start + INTERVAL '1 month')::timestamp AT TIME ZONE 'UTC'
+      );
+      created := created + 1;
+    END IF;
+
+    month_start := (month_start + INTERVAL '1 month')::DATE;
+  END LOOP;
+
+  RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_stock_movement_partitions(
+  COALESCE((SELECT MIN(movement_date) FROM stock_movements_unpartitioned), now())::DATE,
+  (now() + INTERVAL '3 months')::DATE
+);
+
+-- Detached partitions are parked here for archiving (pg_dump / drop)
+CREATE SCHEMA IF NOT EXISTS archive;
+
+-- Movements up to archived_before are summed in the checkpoints at archived_before
+CREATE TABLE IF NOT EXISTS stock_ledger_archive (
+  singleton        BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (singleton),
+  archived_before  TIMESTAMPTZ NOT NULL DEFAULT '-infinity'
+);
+
+INSERT INTO stock_ledger_archive (singleton) VALUES (TRUE) ON CONFLICT DO NOTHING;
+
+-- ----------------------------
+-- 4) Indexes (created per partition)
+-- ----------------------------
+CREATE INDEX idx_sm_product_date
+  ON stock_movements (product_id, movement_date DESC);
+
+CREATE INDEX idx_sm_source_pair
+  ON stock_movements (movement_source, source_id);
+
+CREATE INDEX idx_sm_source_item
+  ON stock_movements (movement_source, source_item_id);
+
+CREATE INDEX idx_sm_date_id
+  ON stock_movements (movement_date DESC, movement_id DESC);
+
+-- ----------------------------
+-- 5) Global idempotency for order-line postings
+-- ----------------------------
+CREATE TABLE stock_movement_source_lines (
+  movement_source movement_source NOT NULL,
+  source_item_id  BIGINT          NOT NULL,
+  movement_kind   movement_kind   NOT NULL,
+  movement_id     BIGINT          NOT NULL,
+  CONSTRAINT uq_sm_one_per_source_line PRIMARY KEY (movement_source, source_item_id, movement_kind)
+);
+
+CREATE OR REPLACE FUNCTION stock_movements_claim_source_line()
+RETURNS trigger AS $$
+BEGIN
+  INSERT INTO stock_movement_source_lines (movement_source, source_item_id, movement_kind, movement_id)
+  VALUES (NEW.movement_source, NEW.source_item_id, NEW.movement_kind, NEW.movement_id);
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_sm_claim_source_line
+  BEFORE INSERT ON stock_movements
+  FOR EACH ROW
+  WHEN (NEW.source_item_id IS NOT NULL)
+  EXECUTE FUNCTION stock_movements_claim_source_line();
+
+-- ----------------------------
+-- 6) Copy the ledger and drop the old table
+-- ----------------------------
+INSERT INTO stock_movements (movement_id, product_id, movement_kind, movement_source,
+                             source_id, source_item_id, quantity, movement_date, created_at)
+SELECT movement_id, product_id, movement_kind, movement_source,
+       source_id, source_item_id, quantity, movement_date, created_at
+FROM stock_movements_unpartitioned;
+
+DROP TABLE stock_movements_unpartitioned;
+
+ANALYZE stock_movements;
@@ -0,0 +1,40 @@
+-- ======================================================================
+-- V15__stock_reservations.sql  (PostgreSQL 17.6)
+-- Purpose: Track every sales order line reservation behind
+--          current_stock.quantity_reserved so it can be released.
+-- Notes:
+--   • One row per reserved order line; the row is deleted when the
+--     reservation is released (cancel / expiry / line change) or consumed
+--     (shipment), so the table only holds live reservations.
+--   • expires_at is set while the order is PENDING; NULL = firm (ALLOCATED).
+--   • The reservation combiner commits a row as a short-lived grant before
+--     the line's own transaction claims it (sets the real expires_at); a
+--     grant nobody claims expires and is released like any other row.
+--   • Expiry is driven by an in-memory timing wheel per instance, recovered
+--     from this table on startup; idx_sr_expires_at backs the safety sweep.
+--   • No FK to sales order lines: lines are hard-deleted (ON DELETE CASCADE
+--     from orders) and the service releases reservations before deleting.
+-- ======================================================================
+
+CREATE SEQUENCE IF NOT EXISTS stock_reservations_reservation_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS stock_reservations (
+  reservation_id      BIGINT PRIMARY KEY DEFAULT nextval('stock_reservations_reservation_id_seq'),
+  product_id          BIGINT NOT NULL REFERENCES products(product_id) ON DELETE RESTRICT,
+  sales_order_id      BIGINT NOT NULL,
+  sales_order_item_id BIGINT NOT NULL,
+  quantity            NUMERIC(12,3) NOT NULL CHECK (quantity > 0),
+  expires_at          timestamptz,
+  created_at          timestamptz NOT NULL DEFAULT now(),
+
+  CONSTRAINT uq_sr_one_per_line UNIQUE (sales_order_item_id)
+);
+
+ALTER SEQUENCE stock_reservations_reservation_id_seq OWNED BY stock_reservations.reservation_id;
+
+CREATE INDEX IF NOT EXISTS idx_sr_sales_order
+  ON stock_reservations (sales_order_id);
+
+CREATE INDEX IF NOT EXISTS idx_sr_expires_at
+  ON stock_reservations (expires_at)
+  WHERE expires_at IS NOT NULL;
@@ -0,0 +1,41 @@
+-- ======================================================================
+-- V16__stock_buckets.sql  (PostgreSQL 17.6)
+-- Purpose: Opt-in "hot SKU" mode; a product's reservable stock is split
+--          across N bucket rows so reservations stop queueing on the
+--          single current_stock row lock.
+-- Notes:
+--   • Bucket quantities are escrowed out of current_stock: they are counted
+--     in quantity_reserved, so on-hand / reserved invariants still hold and
+--     a bucket reservation never touches current_stock.
+--   • Effective availability = quantity_available + SUM(stock_buckets.quantity);
+--     effective reserved = quantity_reserved - SUM(stock_buckets.quantity).
+--   • Lock order is buckets (by bucket_no) before the current_stock row.
+--   • A product is hot while it has bucket rows (bucket_no 0..N-1).
+-- ======================================================================
+
+CREATE TABLE IF NOT EXISTS stock_buckets (
+  product_id  BIGINT NOT NULL REFERENCES products(product_id) ON DELETE CASCADE,
+  bucket_no   SMALLINT NOT NULL CHECK (bucket_no >= 0),
+  quantity    NUMERIC(12,3) NOT NULL DEFAULT 0 CHECK (quantity >= 0),
+
+  CONSTRAINT pk_stock_buckets PRIMARY KEY (product_id, bucket_no)
+);
+
+-- Bucket writes change effective availability: log them like current_stock (V12)
+DROP TRIGGER IF EXISTS trg_stock_buckets_changes_ins ON stock_buckets;
+CREATE TRIGGER trg_stock_buckets_changes_ins
+  AFTER INSERT ON stock_buckets
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION log_stock_changes();
+
+DROP TRIGGER IF EXISTS trg_stock_buckets_changes_upd ON stock_buckets;
+CREATE TRIGGER trg_stock_buckets_changes_upd
+  AFTER UPDATE ON stock_buckets
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION log_stock_changes();
+
+DROP TRIGGER IF EXISTS trg_stock_buckets_changes_del ON stock_buckets;
+CREATE TRIGGER trg_stock_buckets_changes_del
+  AFTER DELETE ON stock_buckets
+  REFERENCING OLD TABLE AS changed_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION log_stock_changes();
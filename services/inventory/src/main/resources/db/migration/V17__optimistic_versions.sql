@@ -0,0 +1,47 @@
+-- ======================================================================
+-- V17__optimistic_versions.sql  (PostgreSQL 17.6)
+-- Purpose: Optimistic locking for rows that are read, changed in Java and
+--          written back (order headers, product suppliers, stock snapshots).
+-- Notes:
+--   • JPA maps the column with @Version and bumps it itself; a stale write
+--     updates nothing and the transaction fails (retried by the services).
+--   • Set-based statements (stock mutations, reservation releases, combined
+--     reservations) do not touch the column. The trigger bumps it for them,
+--     so a JPA writer holding an older snapshot still notices the change.
+--     It only fires when the statement left the version unchanged.
+-- ======================================================================
+
+ALTER TABLE current_stock     ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE sales_orders      ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE purchase_orders   ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE product_suppliers ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION bump_row_version() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+  IF NEW.version = OLD.version THEN
+    NEW.version := OLD.version + 1;
+  END IF;
+  RETURN NEW;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_current_stock_version ON current_stock;
+CREATE TRIGGER trg_current_stock_version
+  BEFORE UPDATE ON current_stock
+  FOR EACH ROW EXECUTE FUNCTION bump_row_version();
+
+DROP TRIGGER IF EXISTS trg_sales_orders_version ON sales_orders;
+CREATE TRIGGER trg_sales_orders_version
+  BEFORE UPDATE ON sales_orders
+  FOR EACH ROW EXECUTE FUNCTION bump_row_version();
+
+DROP TRIGGER IF EXISTS trg_purchase_orders_version ON purchase_orders;
+CREATE TRIGGER trg_purchase_orders_version
+  BEFORE UPDATE ON purchase_orders
+  FOR EACH ROW EXECUTE FUNCTION bump_row_version();
+
+DROP TRIGGER IF EXISTS trg_product_suppliers_version ON product_suppliers;
+CREATE TRIGGER trg_product_suppliers_version
+  BEFORE UPDATE ON product_suppliers
+  FOR EACH ROW EXECUTE FUNCTION bump_row_version();
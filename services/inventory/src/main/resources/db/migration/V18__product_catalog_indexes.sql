@@ -0,0 +1,28 @@
+-- ======================================================================
+-- V18__product_catalog_indexes.sql  (PostgreSQL 17.6)
+-- Purpose: Support the single-statement product catalog query
+--          (products + current_stock + buckets + active suppliers).
+-- Notes:
+--   • inventory_status compares current_stock availability with product
+--     thresholds, so it spans two tables and cannot be indexed itself. The
+--     catalog narrows on products first (category / uom / price / name),
+--     joins current_stock by primary key and computes the status per row.
+--   • Partial on deleted_at IS NULL like the JPA soft-delete restriction;
+--     INCLUDE keeps the thresholds in the index for the status computation.
+--   • Availability sorts/filters have no index support: the key is
+--     COALESCE(cs.quantity_available, 0) + COALESCE(b.escrowed, 0) (and
+--     status_rank compares it with product thresholds), computed per row
+--     across three tables. They run as a top-N sort over the rows left
+--     after the product-side filters; narrow by category first on big catalogs.
+-- ======================================================================
+
+CREATE INDEX IF NOT EXISTS idx_products_catalog_category
+  ON products (category, product_id)
+  INCLUDE (safety_stock, reorder_point)
+  WHERE deleted_at IS NULL;
+
+-- Active suppliers of a page of products, with the preferred one flagged
+CREATE INDEX IF NOT EXISTS idx_prod_sup_catalog
+  ON product_suppliers (product_id, product_supplier_id)
+  INCLUDE (supplier_id, is_preferred)
+  WHERE active = TRUE;
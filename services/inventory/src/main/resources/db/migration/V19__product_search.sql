@@ -0,0 +1,29 @@
+-- ======================================================================
+-- V19__product_search.sql  (PostgreSQL 17.6)
+-- Purpose: Indexed product search (GET /products/search).
+-- Notes:
+--   • search_vector is a stored generated column over name (A), category (B)
+--     and description (C); the 'simple' configuration does no stemming, so
+--     Turkish and English names tokenize the same way.
+--   • The trigram index on lower(product_name) serves fuzzy matches (% operator,
+--     similarity ranking) and also the grid's lower(product_name) LIKE '%q%'.
+--   • Both indexes are partial on deleted_at IS NULL like every product read.
+-- ======================================================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE products
+  ADD COLUMN IF NOT EXISTS search_vector tsvector
+  GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(product_name, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(category, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+  ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_products_search_vector
+  ON products USING GIN (search_vector)
+  WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm
+  ON products USING GIN (lower(product_name) gin_trgm_ops)
+  WHERE deleted_at IS NULL;
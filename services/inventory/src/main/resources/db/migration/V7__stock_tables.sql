@@ -1,7 +1,10 @@
 -- ======================================================================
 -- V7__stock_tables.sql  (PostgreSQL 17.6)
 -- Purpose: 1) stock_movements = immutable audit, 2) current_stock = fast snapshot
--- Notes: No DB triggers; service posts movement + updates snapshot in one TX.
+-- Notes: No business logic in DB triggers; service posts movement + updates snapshot in one TX.
+--        Triggers only do bookkeeping every writer must get, raw SQL included, and never
+--        change stock values: stock change log (V12, SSE resume), source-line claims
+--        (V14, idempotency across partitions), row versions (V17, optimistic locking).
 -- ======================================================================
 
 -- Service notes:
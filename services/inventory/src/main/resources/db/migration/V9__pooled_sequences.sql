@@ -0,0 +1,61 @@
+-- ======================================================================
+-- V9__pooled_sequences.sql  (PostgreSQL 17.6)
+-- Purpose: Move high-volume tables from IDENTITY to sequences with a large
+--          increment so Hibernate can pre-allocate ids (pooled optimizer)
+--          and JDBC-batch inserts.
+-- Notes:
+--   • INCREMENT BY must match allocationSize on the entity (50).
+--   • Column DEFAULT stays nextval(...), so raw SQL inserts keep working;
+--     each such insert simply consumes one block.
+--   • setval leaves room for one full block above the current max id.
+-- ======================================================================
+
+-- ----------------------------
+-- products
+-- ----------------------------
+ALTER TABLE products ALTER COLUMN product_id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE products_product_id_seq INCREMENT BY 50 OWNED BY products.product_id;
+SELECT setval('products_product_id_seq', COALESCE((SELECT MAX(product_id) FROM products), 0) + 50, false);
+ALTER TABLE products ALTER COLUMN product_id SET DEFAULT nextval('products_product_id_seq');
+
+-- ----------------------------
+-- product_suppliers
+-- ----------------------------
+ALTER TABLE product_suppliers ALTER COLUMN product_supplier_id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE product_suppliers_product_supplier_id_seq INCREMENT BY 50 OWNED BY product_suppliers.product_supplier_id;
+SELECT setval('product_suppliers_product_supplier_id_seq', COALESCE((SELECT MAX(product_supplier_id) FROM product_suppliers), 0) + 50, false);
+ALTER TABLE product_suppliers ALTER COLUMN product_supplier_id SET DEFAULT nextval('product_suppliers_product_supplier_id_seq');
+
+-- ----------------------------
+-- purchase_orders / purchase_order_items
+-- ----------------------------
+ALTER TABLE purchase_orders ALTER COLUMN purchase_order_id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE purchase_orders_purchase_order_id_seq INCREMENT BY 50 OWNED BY purchase_orders.purchase_order_id;
+SELECT setval('purchase_orders_purchase_order_id_seq', COALESCE((SELECT MAX(purchase_order_id) FROM purchase_orders), 0) + 50, false);
+ALTER TABLE purchase_orders ALTER COLUMN purchase_order_id SET DEFAULT nextval('purchase_orders_purchase_order_id_seq');
+
+ALTER TABLE purchase_order_items ALTER COLUMN purchase_order_item_id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE purchase_order_items_purchase_order_item_id_seq INCREMENT BY 50 OWNED BY purchase_order_items.purchase_order_item_id;
+SELECT setval('purchase_order_items_purchase_order_item_id_seq', COALESCE((SELECT MAX(purchase_order_item_id) FROM purchase_order_items), 0) + 50, false);
+ALTER TABLE purchase_order_items ALTER COLUMN purchase_order_item_id SET DEFAULT nextval('purchase_order_items_purchase_order_item_id_seq');
+
+-- ----------------------------
+-- sales_orders / sales_order_items
+-- ----------------------------
+ALTER TABLE sales_orders ALTER COLUMN sales_order_id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE sales_orders_sales_order_id_seq INCREMENT BY 50 OWNED BY sales_orders.sales_order_id;
+SELECT setval('sales_orders_sales_order_id_seq', COALESCE((SELECT MAX(sales_order_id) FROM sales_orders), 0) + 50, false);
+ALTER TABLE sales_orders ALTER COLUMN sales_order_id SET DEFAULT nextval('sales_orders_sales_order_id_seq');
+
+ALTER TABLE sales_order_items ALTER COLUMN sales_order_item_id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE sales_order_items_sales_order_item_id_seq INCREMENT BY 50 OWNED BY sales_order_items.sales_order_item_id;
+SELECT setval('sales_order_items_sales_order_item_id_seq', COALESCE((SELECT MAX(sales_order_item_id) FROM sales_order_items), 0) + 50, false);
+ALTER TABLE sales_order_items ALTER COLUMN sales_order_item_id SET DEFAULT nextval('sales_order_items_sales_order_item_id_seq');
+
+-- ----------------------------
+-- stock_movements
+-- ----------------------------
+ALTER TABLE stock_movements ALTER COLUMN movement_id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE stock_movements_movement_id_seq INCREMENT BY 50 OWNED BY stock_movements.movement_id;
+SELECT setval('stock_movements_movement_id_seq', COALESCE((SELECT MAX(movement_id) FROM stock_movements), 0) + 50, false);
+ALTER TABLE stock_movements ALTER COLUMN movement_id SET DEFAULT nextval('stock_movements_movement_id_seq');
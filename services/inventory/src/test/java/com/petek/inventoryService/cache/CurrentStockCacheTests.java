@@ -0,0 +1,109 @@
+package com.petek.inventoryService.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.service.CurrentStockService;
+import com.petek.inventoryService.service.ProductService;
+
+/**
+ * Cached stock converges on the last committed row, whatever order the after-commit hooks run in.
+ */
+@SpringBootTest
+class CurrentStockCacheTests {
+
+    @Autowired
+    private CurrentStockService currentStockService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void createStockedProduct() {
+        productId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Cached stock product " + UUID.randomUUID().toString().substring(0, 8))
+            .category("stock-cache")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.ONE)
+            .build())
+            .getProductId();
+        jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+            "VALUES (?, 100, 0, now())", productId);
+    }
+
+    @Test
+    void olderCommitFinishingLastDoesNotWinTheCache() throws Exception {
+        CountDownLatch committed = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        // The first transaction commits, then stalls before the cache's after-commit hook
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    committed.countDown();
+                    await(finish);
+                }
+            });
+            currentStockService.reserve(productId, null, BigDecimal.ONE);
+        }));
+        assertThat(committed.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // A later commit of the same product finishes first and a reader caches its result
+        transactionTemplate.executeWithoutResult(status -> currentStockService.reserve(productId, null, BigDecimal.TWO));
+        assertThat(currentStockService.getCurrentStockById(productId).getQuantityReserved()).isEqualByComparingTo("3");
+
+        finish.countDown();
+        first.get(10, TimeUnit.SECONDS);
+
+        assertThat(currentStockService.getCurrentStockById(productId).getQuantityReserved()).isEqualByComparingTo("3");
+    }
+
+    @Test
+    void rolledBackWritesAreNeverCached() {
+        assertThat(currentStockService.getCurrentStockById(productId).getQuantityReserved()).isEqualByComparingTo("0");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            currentStockService.reserve(productId, null, BigDecimal.TEN);
+            // Inside the transaction the own write is read through
+            assertThat(currentStockService.getCurrentStockById(productId).getQuantityReserved()).isEqualByComparingTo("10");
+            status.setRollbackOnly();
+        });
+
+        assertThat(currentStockService.getCurrentStockById(productId).getQuantityReserved()).isEqualByComparingTo("0");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.petek.inventoryService.combiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.customer.CustomerCreateRequest;
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderCreateRequest;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderItemCreateRequest;
+import com.petek.inventoryService.entity.Customer.CustomerSegment;
+import com.petek.inventoryService.entity.SalesOrderItem;
+import com.petek.inventoryService.repository.SalesOrderItemRepository;
+import com.petek.inventoryService.service.CustomerService;
+import com.petek.inventoryService.service.ProductService;
+import com.petek.inventoryService.service.SalesOrderItemService;
+import com.petek.inventoryService.service.SalesOrderService;
+import com.petek.inventoryService.service.StockReservationService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Combined reservations are durable grant rows: claimed by the line, given back on rollback,
+ * and swept like any other expired reservation when nobody claims them.
+ */
+@SpringBootTest(properties = { "inventory.reservation-combiner.enabled=true", "inventory.advisory-locks.enabled=true" })
+class ReservationCombinerTests {
+
+    private static final int LINES = 40;
+
+    @Autowired
+    private ReservationCombiner combiner;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private SalesOrderService salesOrderService;
+
+    @Autowired
+    private SalesOrderItemService salesOrderItemService;
+
+    @Autowired
+    private SalesOrderItemRepository salesOrderItemRepository;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+    private Long customerId;
+
+    @BeforeEach
+    void createProductAndCustomer() {
+        String key = UUID.randomUUID().toString().substring(0, 8);
+        productId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Combined product " + key)
+            .category("combiner")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.TEN)
+            .build())
+            .getProductId();
+        jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+            "VALUES (?, 100, 0, now())", productId);
+        customerId = customerService.createCustomer(CustomerCreateRequest.builder()
+            .customerName("Combined " + key)
+            .customerSegment(CustomerSegment.INDIVIDUAL)
+            .email(key + "@example.com")
+            .phone("05321234567")
+            .city("Ankara")
+            .build())
+            .getCustomerId();
+    }
+
+    @Test
+    void concurrentLinesClaimTheirGrants() throws Exception {
+        DistributionSummary batchSize = meterRegistry.summary("inventory.reservation-combiner.batch.size");
+        double combinedBefore = batchSize.totalAmount();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<?>> lines = new ArrayList<>();
+        try {
+            for (int i = 0; i < LINES; i++) {
+                Long salesOrderId = createOrder();
+                lines.add(executor.submit(() -> {
+                    start.await();
+                    createLine(salesOrderId, 2);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> line : lines) {
+                line.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Every line went through a batch (none fell back to a direct reservation)
+        assertThat(batchSize.totalAmount() - combinedBefore).isEqualTo(LINES);
+        // 40 x 2 reserved, each line with its own reservation carrying the order ttl, not the grant's
+        assertThat(reserved()).isEqualByComparingTo("80");
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM stock_reservations WHERE product_id = ? AND expires_at > now() + INTERVAL '10 minutes'",
+            Integer.class, productId)).isEqualTo(LINES);
+    }
+
+    @Test
+    void rolledBackLinesGiveTheirGrantBack() throws Exception {
+        Long salesOrderId = createOrder();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            createLine(salesOrderId, 7);
+            status.setRollbackOnly();
+        });
+
+        // The release goes out with the next batch
+        for (int i = 0; i < 50 && reserved().signum() != 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(reserved()).isEqualByComparingTo("0");
+        assertThat(reservationCount()).isZero();
+    }
+
+    @Test
+    void changedLinesReserveAgain() {
+        Long salesOrderId = createOrder();
+        Long salesOrderItemId = createLine(salesOrderId, 2);
+
+        // As a quantity change does: the old reservation is deleted in the same transaction,
+        // so the new one cannot be a grant (it would wait on that delete)
+        transactionTemplate.executeWithoutResult(status -> {
+            SalesOrderItem salesOrderItem = salesOrderItemRepository.findById(salesOrderItemId).orElseThrow();
+            salesOrderItem.setQuantityUnits(3_000);
+            stockReservationService.releaseLine(salesOrderItemId);
+            stockReservationService.reserveLine(salesOrderItem, true);
+        });
+
+        assertThat(reserved()).isEqualByComparingTo("3");
+        assertThat(reservationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void unclaimedGrantsExpireLikeReservations() {
+        Long salesOrderId = createOrder();
+
+        // The caller died after the grant committed and before its line did
+        Long reservationId = combiner.reserve(productId, salesOrderId, Long.MAX_VALUE - salesOrderId, BigDecimal.valueOf(5));
+        assertThat(reservationId).isNotNull();
+        assertThat(reserved()).isEqualByComparingTo("5");
+        assertThat(jdbcTemplate.queryForObject("SELECT expires_at FROM stock_reservations WHERE reservation_id = ?",
+            Instant.class, reservationId)).isBefore(Instant.now().plus(2, ChronoUnit.MINUTES));
+
+        jdbcTemplate.update("UPDATE stock_reservations SET expires_at = now() - INTERVAL '1 second' WHERE reservation_id = ?",
+            reservationId);
+        stockReservationService.sweep();
+
+        assertThat(reserved()).isEqualByComparingTo("0");
+        assertThat(reservationCount()).isZero();
+    }
+
+    private Long createOrder() {
+        return salesOrderService.createSalesOrder(SalesOrderCreateRequest.builder()
+            .customerId(customerId)
+            .deliveryDate(LocalDate.now().plusDays(7))
+            .build())
+            .getSalesOrderId();
+    }
+
+    private Long createLine(Long salesOrderId, int quantity) {
+        return salesOrderItemService.createSalesOrderItem(salesOrderId, SalesOrderItemCreateRequest.builder()
+            .productId(productId)
+            .quantity(BigDecimal.valueOf(quantity))
+            .build())
+            .getSalesOrderItemId();
+    }
+
+    private BigDecimal reserved() {
+        return jdbcTemplate.queryForObject("SELECT quantity_reserved FROM current_stock WHERE product_id = ?",
+            BigDecimal.class, productId);
+    }
+
+    private int reservationCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_reservations WHERE product_id = ?",
+            Integer.class, productId);
+    }
+
+}
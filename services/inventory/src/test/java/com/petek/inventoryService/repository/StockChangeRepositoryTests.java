@@ -0,0 +1,110 @@
+package com.petek.inventoryService.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.repository.StockChangeRepository.Change;
+import com.petek.inventoryService.repository.StockChangeRepository.Cursor;
+import com.petek.inventoryService.service.ProductService;
+
+/**
+ * The change log cursor never passes a change that commits later.
+ */
+@SpringBootTest
+class StockChangeRepositoryTests {
+
+    private static final String TOUCH_SQL = "UPDATE current_stock SET last_updated = now() WHERE product_id = ?";
+
+    @Autowired
+    private StockChangeRepository repository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void changesOfAnOpenOlderTransactionHoldBackNewerOnes() throws Exception {
+        Long older = createStockedProduct();
+        Long newer = createStockedProduct();
+        Cursor after = repository.findHead();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement touch = connection.prepareStatement(TOUCH_SQL)) {
+                touch.setLong(1, older);
+                touch.executeUpdate();
+            }
+
+            // Committed, but after a transaction that is still open
+            jdbcTemplate.update(TOUCH_SQL, newer);
+            assertThat(productIds(repository.findAfter(after, null, List.of(older, newer), 100))).isEmpty();
+
+            connection.commit();
+        }
+
+        assertThat(productIds(repository.findAfter(after, null, List.of(older, newer), 100)))
+            .containsExactly(older, newer);
+    }
+
+    @Test
+    void findAfterPagesUpToACursor() {
+        Long first = createStockedProduct();
+        Cursor after = repository.findHead();
+        jdbcTemplate.update(TOUCH_SQL, first);
+        Cursor upTo = repository.findHead();
+        jdbcTemplate.update(TOUCH_SQL, first);
+
+        List<Change> page = repository.findAfter(after, upTo, List.of(first), 100);
+        assertThat(page).extracting(Change::getCursor).containsExactly(upTo);
+        assertThat(repository.findAfter(upTo, null, List.of(first), 100)).hasSize(1);
+    }
+
+    @Test
+    void cursorRoundTripsThroughEventId() {
+        Cursor cursor = new Cursor(1234, 56);
+
+        assertThat(Cursor.parse(cursor.toString())).contains(cursor);
+        assertThat(Cursor.parse("42")).isEmpty();
+        assertThat(Cursor.parse("abc-1")).isEmpty();
+        assertThat(Cursor.parse(null)).isEmpty();
+        assertThat(new Cursor(2, 1)).isGreaterThan(new Cursor(1, 99));
+    }
+
+    private List<Long> productIds(List<Change> changes) {
+        return changes.stream().map(Change::getProductId).toList();
+    }
+
+    private Long createStockedProduct() {
+        Long productId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Stock change product " + UUID.randomUUID().toString().substring(0, 8))
+            .category("stock-changes")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.ONE)
+            .build())
+            .getProductId();
+        jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+            "VALUES (?, 100, 0, now())", productId);
+        return productId;
+    }
+
+}
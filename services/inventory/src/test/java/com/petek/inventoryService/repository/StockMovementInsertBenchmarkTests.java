@@ -0,0 +1,117 @@
+package com.petek.inventoryService.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.entity.Product;
+import com.petek.inventoryService.entity.StockMovement;
+import com.petek.inventoryService.entity.StockMovement.MovementKind;
+import com.petek.inventoryService.entity.StockMovement.MovementSource;
+import com.petek.inventoryService.service.ProductService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rows/sec inserting 100k stock movements, one INSERT round trip per row vs JDBC batches (V9).
+ *
+ * "Before" is the same persist loop with batching off: one statement per row, which is
+ * what IDENTITY forced (Hibernate had to execute each INSERT to read its key). Run with
+ * mvn test -Pbenchmark.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class StockMovementInsertBenchmarkTests {
+
+    private static final int ROWS = 100_000;
+    private static final int WARMUP_ROWS = 5_000;
+    private static final int FLUSH_EVERY = 1_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void createProduct() {
+        productId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Insert benchmark " + UUID.randomUUID().toString().substring(0, 8))
+            .category("benchmark")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.ONE)
+            .build())
+            .getProductId();
+    }
+
+    @AfterEach
+    void deleteMovements() {
+        jdbcTemplate.update("DELETE FROM stock_movements WHERE product_id = ?", productId);
+    }
+
+    @Test
+    void batchedInsertsOutrunOneRoundTripPerRow() {
+        insert(WARMUP_ROWS, 1);
+        insert(WARMUP_ROWS, 50);
+
+        double perRow = insert(ROWS, 1);
+        double batched = insert(ROWS, 50);
+
+        log.info("Inserting {} stock movements: {} rows/s one per round trip, {} rows/s in batches of 50 ({}x)",
+            ROWS, Math.round(perRow), Math.round(batched), String.format("%.1f", batched / perRow));
+        assertThat(batched).isGreaterThan(perRow);
+    }
+
+    // Rows per second, commit included
+    private double insert(int rows, int batchSize) {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            Product product = entityManager.getReference(Product.class, productId);
+            Instant now = Instant.now();
+
+            for (int i = 1; i <= rows; i++) {
+                entityManager.persist(StockMovement.builder()
+                    .product(product)
+                    .movementKind(MovementKind.ADJUSTMENT_IN)
+                    .movementSource(MovementSource.ADJUSTMENT)
+                    .quantity(BigDecimal.ONE)
+                    .movementDate(now)
+                    .createdAt(now)
+                    .build());
+                if (i % FLUSH_EVERY == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+        return rows / ((System.nanoTime() - started) / 1e9);
+    }
+
+}
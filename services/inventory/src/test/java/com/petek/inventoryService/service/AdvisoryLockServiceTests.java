@@ -0,0 +1,253 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.petek.inventoryService.InventoryServiceApplication;
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.stock.StockMutationResult;
+import com.petek.inventoryService.dto.stock.StockMutationResult.Outcome;
+import com.petek.inventoryService.exception.GlobalExceptionHandler;
+import com.petek.inventoryService.exception.StateConflictException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Two instances contending for the same advisory lock: the second waits, then gives up with a 409.
+ * The stock mutations race through a second application context on the same database.
+ */
+@SpringBootTest(properties = "inventory.advisory-locks.enabled=true")
+class AdvisoryLockServiceTests {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(300);
+    private static final Duration OTHER_INSTANCE_TIMEOUT = Duration.ofSeconds(1);
+    private static final int THREADS_PER_INSTANCE = 8;
+    private static final int ATTEMPTS_PER_THREAD = 15;
+
+    // The other replica: same code, same database, its own pools and services
+    private static ConfigurableApplicationContext otherInstance;
+
+    // Far from the ids the other tests create
+    private static final long PRODUCT_ID = 9_000_000_001L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CurrentStockService currentStockService;
+
+    @Autowired
+    private ProductService productService;
+
+    // One per replica, both enabled
+    private AdvisoryLockService holder;
+    private AdvisoryLockService contender;
+
+    @BeforeAll
+    static void startOtherInstance() {
+        otherInstance = new SpringApplicationBuilder(InventoryServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            // Arguments, not default properties: those lose to application.yml
+            .run("--inventory.advisory-locks.enabled=true", "--inventory.advisory-locks.timeout=" + OTHER_INSTANCE_TIMEOUT);
+    }
+
+    @AfterAll
+    static void stopOtherInstance() {
+        otherInstance.close();
+    }
+
+    @BeforeEach
+    void createInstances() {
+        holder = new AdvisoryLockService(jdbcTemplate, new SimpleMeterRegistry(), true, 1024, TIMEOUT);
+        contender = new AdvisoryLockService(jdbcTemplate, new SimpleMeterRegistry(), true, 1024, TIMEOUT);
+    }
+
+    @Test
+    void secondHolderTimesOutWithConflict() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> holding = hold(() -> holder.lockProduct(PRODUCT_ID), locked, commit);
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            long started = System.nanoTime();
+            StateConflictException conflict = catchThrowableOfType(StateConflictException.class,
+                () -> transactionTemplate.executeWithoutResult(status -> contender.lockProduct(PRODUCT_ID)));
+
+            assertThat(conflict).hasMessageContaining("product lock");
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(TIMEOUT);
+            assertThat(new GlobalExceptionHandler()
+                .handleStateConflict(conflict, new ServletWebRequest(new MockHttpServletRequest()))
+                .getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        } finally {
+            commit.countDown();
+            holding.get(10, TimeUnit.SECONDS);
+        }
+
+        // Released with the holder's transaction
+        transactionTemplate.executeWithoutResult(status -> contender.lockProduct(PRODUCT_ID));
+    }
+
+    @Test
+    void scopesDoNotContend() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> holding = hold(() -> holder.lockProduct(PRODUCT_ID), locked, commit);
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            // Same id, same stripe, other namespace
+            transactionTemplate.executeWithoutResult(status -> contender.lockSalesOrder(PRODUCT_ID));
+        } finally {
+            commit.countDown();
+            holding.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void otherInstanceWaitsForAStockMutation() throws Exception {
+        Long productId = createProduct(100);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> holding = hold(() -> currentStockService.reserve(productId, null, BigDecimal.valueOf(5)), locked, commit);
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            // Blocked by the product lock, not the row: without the lock it would just wait for the commit
+            long started = System.nanoTime();
+            assertThatThrownBy(() -> adjustOutOnOtherInstance(productId, 10))
+                .isInstanceOf(StateConflictException.class)
+                .hasMessageContaining("product lock");
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(OTHER_INSTANCE_TIMEOUT);
+        } finally {
+            commit.countDown();
+            holding.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(adjustOutOnOtherInstance(productId, 10).getOutcome()).isEqualTo(Outcome.APPLIED);
+        assertThat(stock(productId, "quantity_on_hand")).isEqualByComparingTo("90");
+        assertThat(stock(productId, "quantity_reserved")).isEqualByComparingTo("5");
+    }
+
+    @Test
+    void reservationsThroughBothInstancesNeverOversell() throws Exception {
+        Long productId = createProduct(100);
+        CurrentStockService otherStockService = otherInstance.getBean(CurrentStockService.class);
+        TransactionTemplate otherTransactions = otherInstance.getBean(TransactionTemplate.class);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2 * THREADS_PER_INSTANCE);
+        List<Future<Integer>> here = new ArrayList<>();
+        List<Future<Integer>> there = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS_PER_INSTANCE; t++) {
+                here.add(executor.submit(() -> reserveRepeatedly(start, transactionTemplate, currentStockService, productId)));
+                there.add(executor.submit(() -> reserveRepeatedly(start, otherTransactions, otherStockService, productId)));
+            }
+            start.countDown();
+
+            int appliedHere = sum(here);
+            int appliedThere = sum(there);
+
+            assertThat(appliedHere).isPositive();
+            assertThat(appliedThere).isPositive();
+            assertThat(appliedHere + appliedThere).isLessThanOrEqualTo(100);
+            assertThat(stock(productId, "quantity_reserved")).isEqualByComparingTo(BigDecimal.valueOf(appliedHere + appliedThere));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Units reserved one at a time; a lock timeout (409) counts as not applied
+    private static int reserveRepeatedly(CountDownLatch start, TransactionTemplate transactions, CurrentStockService stockService,
+        Long productId) throws InterruptedException {
+        start.await();
+        int applied = 0;
+        for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+            try {
+                StockMutationResult result = transactions.execute(status -> stockService.reserve(productId, null, BigDecimal.ONE));
+                if (result.getOutcome() == Outcome.APPLIED) applied++;
+            } catch (StateConflictException e) {
+                // Tried again with the next attempt
+            }
+        }
+        return applied;
+    }
+
+    private static int sum(List<Future<Integer>> futures) throws Exception {
+        int sum = 0;
+        for (Future<Integer> future : futures) {
+            sum += future.get(60, TimeUnit.SECONDS);
+        }
+        return sum;
+    }
+
+    private StockMutationResult adjustOutOnOtherInstance(Long productId, int quantity) {
+        return otherInstance.getBean(TransactionTemplate.class).execute(status ->
+            otherInstance.getBean(CurrentStockService.class).adjustOut(productId, null, BigDecimal.valueOf(quantity)));
+    }
+
+    private Long createProduct(int onHand) {
+        Long productId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Advisory lock product " + UUID.randomUUID().toString().substring(0, 8))
+            .category("advisory-lock")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.ONE)
+            .build())
+            .getProductId();
+        jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+            "VALUES (?, ?, 0, now())", productId, onHand);
+        return productId;
+    }
+
+    private BigDecimal stock(Long productId, String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM current_stock WHERE product_id = ?", BigDecimal.class, productId);
+    }
+
+    // Takes the lock in a transaction of its own and keeps it until told to commit
+    private CompletableFuture<Void> hold(Runnable lock, CountDownLatch locked, CountDownLatch commit) {
+        return CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            lock.run();
+            locked.countDown();
+            try {
+                commit.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
+}
@@ -0,0 +1,209 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.customer.CustomerCreateRequest;
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderAllocationResponse;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderAllocationResponse.LineResult;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderAllocationResponse.LineStatus;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderCreateRequest;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderItemCreateRequest;
+import com.petek.inventoryService.entity.Customer.CustomerSegment;
+import com.petek.inventoryService.repository.StockReservationRepository;
+
+/**
+ * Allocation and reservation expiry racing on the same order never leave an allocated
+ * line without its reservation.
+ */
+@SpringBootTest
+class AllocationExpiryRaceTests {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private SalesOrderService salesOrderService;
+
+    @Autowired
+    private SalesOrderItemService salesOrderItemService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private Long salesOrderId;
+
+    @BeforeEach
+    void createPendingOrder() {
+        String key = UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < 2; i++) {
+            Long productId = productService.createProduct(ProductCreateRequest.builder()
+                .productName("Allocation race product " + key + " " + i)
+                .category("allocation-race")
+                .unitOfMeasure("adet")
+                .safetyStock(BigDecimal.ONE)
+                .reorderPoint(BigDecimal.TEN)
+                .currentPrice(BigDecimal.TEN)
+                .build())
+                .getProductId();
+            jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+                "VALUES (?, 100, 0, now())", productId);
+            productIds.add(productId);
+        }
+
+        Long customerId = customerService.createCustomer(CustomerCreateRequest.builder()
+            .customerName("Allocation race " + key)
+            .customerSegment(CustomerSegment.INDIVIDUAL)
+            .email(key + "@example.com")
+            .phone("05321234567")
+            .city("Ankara")
+            .build())
+            .getCustomerId();
+        salesOrderId = salesOrderService.createSalesOrder(SalesOrderCreateRequest.builder()
+            .customerId(customerId)
+            .deliveryDate(LocalDate.now().plusDays(7))
+            .build())
+            .getSalesOrderId();
+
+        // Two lines of 5, each with an expiring reservation
+        for (Long productId : productIds) {
+            salesOrderItemService.createSalesOrderItem(salesOrderId, SalesOrderItemCreateRequest.builder()
+                .productId(productId)
+                .quantity(BigDecimal.valueOf(5))
+                .build());
+        }
+    }
+
+    @Test
+    void expiryWaitsForAnAllocationInProgress() throws Exception {
+        expireReservations();
+
+        CompletableFuture<Void> sweep = new CompletableFuture<>();
+        SalesOrderAllocationResponse allocation = transactionTemplate.execute(status -> {
+            SalesOrderAllocationResponse response = stockReservationService.allocateOrder(salesOrderId);
+
+            // Expiry runs while the allocation is still uncommitted
+            Thread.ofVirtual().start(() -> {
+                stockReservationService.sweep();
+                sweep.complete(null);
+            });
+            sleep(500);
+            assertThat(sweep).isNotDone();
+            return response;
+        });
+        sweep.get(10, TimeUnit.SECONDS);
+
+        assertThat(allocation.isAllocated()).isTrue();
+        assertThat(allocation.getLines()).extracting(LineResult::getStatus)
+            .containsOnly(LineStatus.ALREADY_RESERVED);
+        assertFirmlyReserved();
+    }
+
+    @Test
+    void linesWhoseReservationExpiredAreReservedAgain() {
+        expireReservations();
+        stockReservationService.sweep();
+        assertThat(reserved()).isEqualByComparingTo("0");
+
+        SalesOrderAllocationResponse allocation = stockReservationService.allocateOrder(salesOrderId);
+
+        assertThat(allocation.isAllocated()).isTrue();
+        assertThat(allocation.getReservedCount()).isEqualTo(2);
+        assertThat(allocation.getLines()).extracting(LineResult::getStatus)
+            .containsOnly(LineStatus.RESERVED);
+        assertFirmlyReserved();
+    }
+
+    @Test
+    void allocationWaitsForAnExpiryInProgress() throws Exception {
+        expireReservations();
+        Long[] reservationIds = jdbcTemplate.queryForList(
+            "SELECT reservation_id FROM stock_reservations WHERE sales_order_id = ?", Long.class, salesOrderId)
+            .toArray(Long[]::new);
+
+        // Expiry has deleted the rows but not committed yet
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> expiry = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            stockReservationRepository.releaseExpired(reservationIds);
+            released.countDown();
+            await(commit);
+        }));
+        assertThat(released.await(10, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<SalesOrderAllocationResponse> allocation =
+            CompletableFuture.supplyAsync(() -> stockReservationService.allocateOrder(salesOrderId));
+        sleep(500);
+        assertThat(allocation).isNotDone();
+
+        commit.countDown();
+        expiry.get(10, TimeUnit.SECONDS);
+
+        assertThat(allocation.get(10, TimeUnit.SECONDS).getLines()).extracting(LineResult::getStatus)
+            .containsOnly(LineStatus.RESERVED);
+        assertFirmlyReserved();
+    }
+
+    private void assertFirmlyReserved() {
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM stock_reservations WHERE sales_order_id = ? AND expires_at IS NULL",
+            Integer.class, salesOrderId)).isEqualTo(2);
+        assertThat(reserved()).isEqualByComparingTo("10");
+    }
+
+    private void expireReservations() {
+        jdbcTemplate.update("UPDATE stock_reservations SET expires_at = now() - INTERVAL '1 second' WHERE sales_order_id = ?",
+            salesOrderId);
+    }
+
+    private BigDecimal reserved() {
+        return jdbcTemplate.queryForObject("SELECT SUM(quantity_reserved) FROM current_stock WHERE product_id IN (?, ?)",
+            BigDecimal.class, productIds.get(0), productIds.get(1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
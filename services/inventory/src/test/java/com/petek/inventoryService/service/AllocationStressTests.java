@@ -0,0 +1,197 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.petek.inventoryService.dto.customer.CustomerCreateRequest;
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderCreateRequest;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderItemCreateRequest;
+import com.petek.inventoryService.entity.Customer.CustomerSegment;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hundreds of threads allocating and releasing multi-line orders over a few shared products,
+ * while the expiry sweep releases the stale reservations of the same orders, end balanced and
+ * deadlock free.
+ */
+@Slf4j
+@SpringBootTest
+class AllocationStressTests {
+
+    private static final int PRODUCTS = 8;
+    private static final int ORDERS = 400;
+    private static final int LINES_PER_ORDER = 3;
+    private static final int THREADS = 200;
+    private static final int SETUP_THREADS = 8;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private SalesOrderService salesOrderService;
+
+    @Autowired
+    private SalesOrderItemService salesOrderItemService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Long> salesOrderIds = new ArrayList<>();
+
+    @BeforeEach
+    void createOverlappingOrders() throws Exception {
+        String key = UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < PRODUCTS; i++) {
+            Long productId = productService.createProduct(ProductCreateRequest.builder()
+                .productName("Allocation stress product " + key + " " + i)
+                .category("allocation-stress")
+                .unitOfMeasure("adet")
+                .safetyStock(BigDecimal.ONE)
+                .reorderPoint(BigDecimal.TEN)
+                .currentPrice(BigDecimal.TEN)
+                .build())
+                .getProductId();
+            jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+                "VALUES (?, 1000000, 0, now())", productId);
+            productIds.add(productId);
+        }
+
+        Long customerId = customerService.createCustomer(CustomerCreateRequest.builder()
+            .customerName("Allocation stress " + key)
+            .customerSegment(CustomerSegment.INDIVIDUAL)
+            .email(key + "@example.com")
+            .phone("05321234567")
+            .city("Ankara")
+            .build())
+            .getCustomerId();
+
+        // Every order picks 3 of the 8 products, so any two orders likely share one
+        ExecutorService executor = Executors.newFixedThreadPool(SETUP_THREADS);
+        try {
+            List<Future<Long>> orders = new ArrayList<>();
+            for (int o = 0; o < ORDERS; o++) {
+                Random random = new Random(o);
+                orders.add(executor.submit(() -> createOrder(customerId, random)));
+            }
+            for (Future<Long> order : orders) {
+                salesOrderIds.add(order.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Half of the pending reservations are already stale: the sweep and the allocations race for them
+        jdbcTemplate.update("UPDATE stock_reservations SET expires_at = now() - INTERVAL '1 second' " +
+            "WHERE product_id IN (" + String.join(",", productIds.stream().map(String::valueOf).toList()) + ") " +
+            "AND sales_order_id % 2 = 0");
+    }
+
+    @Test
+    void concurrentAllocationsStayBalanced() throws Exception {
+        Queue<Long> pending = new ConcurrentLinkedQueue<>(salesOrderIds);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        List<Future<Integer>> workers = new ArrayList<>();
+        long elapsedNanos;
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    int allocated = 0;
+                    for (Long salesOrderId = pending.poll(); salesOrderId != null; salesOrderId = pending.poll()) {
+                        // Allocate, give everything back as a cancel would, allocate again
+                        if (stockReservationService.allocateOrder(salesOrderId).isAllocated()) allocated++;
+                        stockReservationService.releaseOrder(salesOrderId);
+                        if (stockReservationService.allocateOrder(salesOrderId).isAllocated()) allocated++;
+                    }
+                    return allocated;
+                }));
+            }
+            Future<?> sweeps = executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    stockReservationService.sweep();
+                }
+                return null;
+            });
+
+            long started = System.nanoTime();
+            start.countDown();
+            int allocated = 0;
+            for (Future<Integer> worker : workers) {
+                allocated += worker.get();
+            }
+            elapsedNanos = System.nanoTime() - started;
+            running.set(false);
+            sweeps.get();
+
+            assertThat(allocated).isEqualTo(2 * ORDERS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("{} orders of {} lines over {} products on {} threads: {} allocations/s",
+            ORDERS, LINES_PER_ORDER, PRODUCTS, THREADS, String.format("%.0f", 2 * ORDERS * 1e9 / elapsedNanos));
+
+        String products = String.join(",", productIds.stream().map(String::valueOf).toList());
+        // Every line holds exactly one firm reservation, and the snapshot agrees with them
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM stock_reservations WHERE product_id IN (" + products + ") AND expires_at IS NULL",
+            Integer.class)).isEqualTo(ORDERS * LINES_PER_ORDER);
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT cs.product_id FROM current_stock cs " +
+            "LEFT JOIN (SELECT product_id, SUM(quantity) AS quantity FROM stock_reservations GROUP BY product_id) r " +
+            "ON r.product_id = cs.product_id " +
+            "WHERE cs.product_id IN (" + products + ") AND cs.quantity_reserved <> COALESCE(r.quantity, 0)",
+            Long.class)).isEmpty();
+    }
+
+    private Long createOrder(Long customerId, Random random) {
+        Long salesOrderId = salesOrderService.createSalesOrder(SalesOrderCreateRequest.builder()
+            .customerId(customerId)
+            .deliveryDate(LocalDate.now().plusDays(7))
+            .build())
+            .getSalesOrderId();
+        List<Long> picked = new ArrayList<>(productIds);
+        Collections.shuffle(picked, random);
+        for (Long productId : picked.subList(0, LINES_PER_ORDER)) {
+            salesOrderItemService.createSalesOrderItem(salesOrderId, SalesOrderItemCreateRequest.builder()
+                .productId(productId)
+                .quantity(BigDecimal.valueOf(1 + random.nextInt(5)))
+                .build());
+        }
+        return salesOrderId;
+    }
+
+}
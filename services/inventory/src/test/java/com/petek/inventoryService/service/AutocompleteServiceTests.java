@@ -0,0 +1,113 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.autocomplete.AutocompleteItemResponse;
+import com.petek.inventoryService.dto.autocomplete.AutocompleteRequest;
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.service.AutocompleteService.EntityType;
+
+/**
+ * Names written while rebuilds overlap survive the swaps, and bulk rebuilds run after the commit
+ * without holding up the committing thread.
+ */
+@SpringBootTest
+class AutocompleteServiceTests {
+
+    private static final int NAMES = 100;
+    private static final int REBUILDERS = 4;
+
+    @Autowired
+    private AutocompleteService autocompleteService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void namesWrittenDuringOverlappingRebuildsAreKept() throws Exception {
+        String prefix = "Rebuilt " + UUID.randomUUID().toString().substring(0, 8);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(REBUILDERS);
+        List<Future<?>> rebuilders = new ArrayList<>();
+        try {
+            for (int t = 0; t < REBUILDERS; t++) {
+                rebuilders.add(executor.submit(() -> {
+                    while (running.get()) {
+                        autocompleteService.rebuild();
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < NAMES; i++) {
+                createProduct(prefix + " " + i);
+            }
+        } finally {
+            running.set(false);
+            for (Future<?> rebuilder : rebuilders) {
+                rebuilder.get();
+            }
+            executor.shutdownNow();
+        }
+
+        assertThat(find(prefix)).hasSize(NAMES);
+    }
+
+    @Test
+    void bulkRebuildsRunAfterTheCommit() throws Exception {
+        String name = "Renamed " + UUID.randomUUID().toString().substring(0, 8);
+        Long productId = createProduct("Bulk " + UUID.randomUUID().toString().substring(0, 8));
+
+        // As an import does: rows written past the live index, one rebuild asked for
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE products SET product_name = ? WHERE product_id = ?", name, productId);
+            autocompleteService.rebuildAfterCommit(EntityType.PRODUCT);
+        });
+
+        for (int i = 0; i < 50 && find(name).isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(find(name)).extracting(AutocompleteItemResponse::getId).containsExactly(productId);
+    }
+
+    private Long createProduct(String name) {
+        return productService.createProduct(ProductCreateRequest.builder()
+            .productName(name)
+            .category("autocomplete")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.TEN)
+            .build())
+            .getProductId();
+    }
+
+    private List<AutocompleteItemResponse> find(String prefix) {
+        return autocompleteService.autocomplete(AutocompleteRequest.builder()
+            .type(EntityType.PRODUCT)
+            .prefix(prefix)
+            .limit(NAMES + 10)
+            .build());
+    }
+
+}
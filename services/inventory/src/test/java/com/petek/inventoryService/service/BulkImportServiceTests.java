@@ -0,0 +1,117 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.petek.inventoryService.dto.bulkImport.ImportReportResponse;
+import com.petek.inventoryService.dto.bulkImport.ImportReportResponse.ImportType;
+import com.petek.inventoryService.dto.bulkImport.ImportReportResponse.RowError;
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.supplier.SupplierCreateRequest;
+
+/**
+ * Imported supplier links follow the preferred supplier rules of the single-row endpoints.
+ */
+@SpringBootTest
+class BulkImportServiceTests {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+    private Long firstSupplierId;
+    private Long secondSupplierId;
+
+    @BeforeEach
+    void createProductWithTwoSuppliers() {
+        String key = UUID.randomUUID().toString().substring(0, 8);
+        productId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Import product " + key)
+            .category("import")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.TEN)
+            .build())
+            .getProductId();
+        firstSupplierId = createSupplier("first-" + key);
+        secondSupplierId = createSupplier("second-" + key);
+
+        ImportReportResponse report = importLinks(
+            productId + "," + firstSupplierId + ",true",
+            productId + "," + secondSupplierId + ",");
+        assertThat(report.getInserted()).isEqualTo(2);
+        assertThat(preferredSupplierId()).isEqualTo(firstSupplierId);
+    }
+
+    @Test
+    void explicitFalseOnThePreferredLinkIsRejected() {
+        ImportReportResponse report = importLinks(productId + "," + firstSupplierId + ",false");
+
+        assertThat(report.getUpdated()).isZero();
+        assertThat(report.getErrors()).extracting(RowError::getMessage)
+            .containsExactly("Cannot set preferred supplier as not preferred");
+        assertThat(preferredSupplierId()).isEqualTo(firstSupplierId);
+    }
+
+    @Test
+    void omittedFlagKeepsThePreferredLink() {
+        ImportReportResponse report = importLinks(productId + "," + firstSupplierId + ",");
+
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getRejected()).isZero();
+        assertThat(preferredSupplierId()).isEqualTo(firstSupplierId);
+    }
+
+    @Test
+    void explicitFalseIsAcceptedWhenAnotherRowTakesOver() {
+        ImportReportResponse report = importLinks(
+            productId + "," + firstSupplierId + ",false",
+            productId + "," + secondSupplierId + ",true");
+
+        assertThat(report.getUpdated()).isEqualTo(2);
+        assertThat(report.getRejected()).isZero();
+        assertThat(preferredSupplierId()).isEqualTo(secondSupplierId);
+    }
+
+    private ImportReportResponse importLinks(String... rows) {
+        String csv = "productId,supplierId,isPreferred\n" + String.join("\n", rows) + "\n";
+        return bulkImportService.importRows(ImportType.PRODUCT_SUPPLIERS, BulkImportService.TEXT_CSV,
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Long preferredSupplierId() {
+        return jdbcTemplate.queryForObject(
+            "SELECT supplier_id FROM product_suppliers WHERE product_id = ? AND is_preferred", Long.class, productId);
+    }
+
+    private Long createSupplier(String name) {
+        return supplierService.createSupplier(SupplierCreateRequest.builder()
+            .supplierName("Import supplier " + name)
+            .email(name + "@example.com")
+            .phone("05321234567")
+            .city("İzmir")
+            .build())
+            .getSupplierId();
+    }
+
+}
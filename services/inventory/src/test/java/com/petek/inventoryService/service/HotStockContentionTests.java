@@ -0,0 +1,167 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.stock.StockMutationResult;
+import com.petek.inventoryService.dto.stock.StockMutationResult.Outcome;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Concurrent reservations of a bucketed product never hand out more than is on hand.
+ */
+@Slf4j
+@SpringBootTest
+class HotStockContentionTests {
+
+    private static final int ON_HAND = 100;
+    private static final int BUCKETS = 8;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+    private static final int BENCHMARK_ON_HAND = 10_000_000;
+    private static final int BENCHMARK_ATTEMPTS_PER_THREAD = 500;
+
+    @Autowired
+    private CurrentStockService currentStockService;
+
+    @Autowired
+    private HotStockService hotStockService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void createHotProduct() {
+        productId = createHotProduct(ON_HAND, BUCKETS);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        // Mostly bucket-sized, sometimes larger than any bucket (rebalance path)
+        long applied = reserveConcurrently(productId, ATTEMPTS_PER_THREAD,
+            random -> random.nextInt(10) == 0 ? 20 : 1 + random.nextInt(3));
+
+        BigDecimal reserved = jdbcTemplate.queryForObject(
+            "SELECT quantity_reserved FROM current_stock WHERE product_id = ?", BigDecimal.class, productId);
+        BigDecimal escrowed = hotStockService.getBuckets(productId).getQuantityInBuckets();
+
+        assertThat(applied).isLessThanOrEqualTo(ON_HAND);
+        assertThat(reserved).isLessThanOrEqualTo(BigDecimal.valueOf(ON_HAND));
+        // Every reserved unit is either still escrowed in a bucket or handed out exactly once
+        assertThat(reserved.subtract(escrowed)).isEqualByComparingTo(BigDecimal.valueOf(applied));
+        // Demand far exceeds stock: a remainder of 3 or more would have gone to a later small request
+        assertThat(applied).isGreaterThan(ON_HAND - 3);
+    }
+
+    /**
+     * Reservations/sec of the same loop on one bucket vs 16; stock never runs out. Run with
+     * mvn test -Pbenchmark.
+     */
+    @Test
+    @Tag("benchmark")
+    void bucketsSpreadReservationThroughput() throws Exception {
+        for (int buckets : new int[] { 1, 16 }) {
+            Long hotProductId = createHotProduct(BENCHMARK_ON_HAND, buckets);
+            // Warm up connections and plans before timing
+            reserveConcurrently(hotProductId, ATTEMPTS_PER_THREAD, random -> 1);
+
+            long started = System.nanoTime();
+            long applied = reserveConcurrently(hotProductId, BENCHMARK_ATTEMPTS_PER_THREAD, random -> 1);
+            long elapsedNanos = System.nanoTime() - started;
+
+            assertThat(applied).isEqualTo((long) THREADS * BENCHMARK_ATTEMPTS_PER_THREAD);
+            log.info("{} bucket(s), {} threads: {} reservations/s", buckets, THREADS,
+                String.format("%.0f", applied * 1e9 / elapsedNanos));
+        }
+    }
+
+    // Units applied by THREADS reserving attemptsPerThread times each while refills run
+    private long reserveConcurrently(Long productId, int attemptsPerThread, ToIntFunction<Random> quantities) throws Exception {
+        AtomicLong applied = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        List<Future<?>> workers = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(t);
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        int quantity = quantities.applyAsInt(random);
+                        StockMutationResult result = transactionTemplate.execute(status ->
+                            currentStockService.reserve(productId, null, BigDecimal.valueOf(quantity)));
+                        if (result.getOutcome() == Outcome.APPLIED) applied.addAndGet(quantity);
+                    }
+                    return null;
+                }));
+            }
+            // Refills move free stock into the buckets while reservations run
+            Future<?> refills = executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    hotStockService.refill();
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            running.set(false);
+            refills.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        return applied.get();
+    }
+
+    private Long createHotProduct(int onHand, int buckets) {
+        Long hotProductId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Hot stock product " + UUID.randomUUID().toString().substring(0, 8))
+            .category("hot-stock")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.ONE)
+            .build())
+            .getProductId();
+        jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+            "VALUES (?, ?, 0, now())", hotProductId, onHand);
+        hotStockService.configure(hotProductId, buckets);
+        return hotProductId;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Events that used up their attempts leave the pending set for the dead letters, which expire in turn.
+ */
+@SpringBootTest(properties = "inventory.outbox.max-attempts=3")
+class OutboxDispatcherTests {
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exhaustedEventsMoveToDeadLetters() {
+        long aggregateId = ThreadLocalRandom.current().nextLong(1_000_000_000L, Long.MAX_VALUE);
+        long exhausted = event(aggregateId, 3);
+        long retrying = event(aggregateId, 2);
+
+        outboxDispatcher.cleanupDispatched();
+
+        assertThat(pending(aggregateId)).containsExactly(retrying);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT attempts FROM outbox_dead_letters WHERE event_id = ?", Integer.class, exhausted)).isEqualTo(3);
+    }
+
+    @Test
+    void expiredDeadLettersAreDeleted() {
+        long aggregateId = ThreadLocalRandom.current().nextLong(1_000_000_000L, Long.MAX_VALUE);
+        long old = deadLetter(aggregateId, "now() - interval '31 days'");
+        long recent = deadLetter(aggregateId, "now() - interval '1 day'");
+
+        outboxDispatcher.cleanupDispatched();
+
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT event_id FROM outbox_dead_letters WHERE aggregate_id = ?", Long.class, aggregateId))
+            .containsExactly(recent)
+            .doesNotContain(old);
+    }
+
+    private List<Long> pending(long aggregateId) {
+        return jdbcTemplate.queryForList(
+            "SELECT event_id FROM outbox_events WHERE aggregate_id = ? AND dispatched_at IS NULL", Long.class, aggregateId);
+    }
+
+    // Due tomorrow, so the running dispatcher never claims it
+    private long event(long aggregateId, int attempts) {
+        return jdbcTemplate.queryForObject(
+            "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload, attempts, next_attempt_at) " +
+            "VALUES ('STOCK_MOVEMENT', ?, 'TestEvent', CAST('{}' AS JSONB), ?, now() + interval '1 day') RETURNING event_id",
+            Long.class, aggregateId, attempts);
+    }
+
+    private long deadLetter(long aggregateId, String deadAt) {
+        long eventId = jdbcTemplate.queryForObject("SELECT nextval('outbox_events_event_id_seq')", Long.class);
+        jdbcTemplate.update(
+            "INSERT INTO outbox_dead_letters (event_id, aggregate_type, aggregate_id, event_type, payload, created_at, attempts, dead_at) " +
+            "VALUES (?, 'STOCK_MOVEMENT', ?, 'TestEvent', CAST('{}' AS JSONB), now(), 3, " + deadAt + ")",
+            eventId, aggregateId);
+        return eventId;
+    }
+
+}
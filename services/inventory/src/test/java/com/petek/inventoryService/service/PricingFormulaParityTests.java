@@ -0,0 +1,98 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.petek.inventoryService.utils.CampaignIntervalIndex.Terms;
+import com.petek.inventoryService.utils.Money;
+import com.petek.inventoryService.utils.Quantity;
+
+/**
+ * Campaign and stacking percentages agree with the V6 expressions as Postgres evaluates them.
+ */
+@SpringBootTest
+class PricingFormulaParityTests {
+
+    private static final int SAMPLES = 20_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(20261017L);
+
+    @Test
+    void sampledBuyXGetYPercentagesMatchPostgres() {
+        List<long[]> lines = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            // Whole pieces around a few groups, or any quantity the NUMERIC(12,3) column holds
+            long quantityUnits = random.nextBoolean()
+                ? 1_000L * (1 + random.nextInt(1_000))
+                : 1 + random.nextLong(999_999_999_999L);
+            lines.add(new long[] { quantityUnits, 1 + random.nextInt(20), 1 + random.nextInt(10) });
+        }
+
+        // free = floor(qty / group) * get_qty; productPct = round((free::numeric / qty) * 100, 2)
+        List<Long> stored = jdbcTemplate.query(
+            "SELECT round((CAST(floor(qty / (buy_qty + get_qty)) * get_qty AS NUMERIC) / qty) * 100, 2) " +
+            "FROM unnest(CAST(? AS NUMERIC(12,3)[]), CAST(? AS INTEGER[]), CAST(? AS INTEGER[])) " +
+            "WITH ORDINALITY AS line (qty, buy_qty, get_qty, n) ORDER BY n",
+            (rs, rowNum) -> Money.toCents(rs.getBigDecimal(1)),
+            array(lines, 0, PricingFormulaParityTests::quantity), array(lines, 1, String::valueOf), array(lines, 2, String::valueOf));
+
+        for (int i = 0; i < lines.size(); i++) {
+            long[] line = lines.get(i);
+            assertThat(PricingService.productPercent(new Terms(1, true, 0, (int) line[1], (int) line[2], 0, 0), line[0]))
+                .as("buy %d get %d of %d units", line[1], line[2], line[0])
+                .isEqualTo(stored.get(i));
+        }
+    }
+
+    @Test
+    void sampledStackedPercentagesMatchPostgres() {
+        List<long[]> pairs = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            pairs.add(new long[] { random.nextLong(10_001), random.nextLong(10_001) });
+        }
+
+        // discount_percentage = round((1 - (1 - productPct/100) * (1 - customerPct/100)) * 100, 2)
+        List<Long> stored = jdbcTemplate.query(
+            "SELECT round((1 - (1 - product_pct / 100) * (1 - customer_pct / 100)) * 100, 2) " +
+            "FROM unnest(CAST(? AS NUMERIC(5,2)[]), CAST(? AS NUMERIC(5,2)[])) " +
+            "WITH ORDINALITY AS pct (product_pct, customer_pct, n) ORDER BY n",
+            (rs, rowNum) -> Money.toCents(rs.getBigDecimal(1)),
+            array(pairs, 0, PricingFormulaParityTests::percent), array(pairs, 1, PricingFormulaParityTests::percent));
+
+        for (int i = 0; i < pairs.size(); i++) {
+            long[] pair = pairs.get(i);
+            assertThat(Money.stackPercents(pair[0], pair[1]))
+                .as("%d stacked with %d", pair[0], pair[1])
+                .isEqualTo(stored.get(i));
+        }
+    }
+
+    private static String quantity(long units) {
+        return Quantity.toBigDecimal(units).toPlainString();
+    }
+
+    private static String percent(long hundredths) {
+        return Money.toBigDecimal(hundredths).toPlainString();
+    }
+
+    // Postgres array literal of one sample column
+    private String array(List<long[]> rows, int column, LongFunction<String> format) {
+        return rows.stream()
+            .map(row -> format.apply(row[column]))
+            .collect(Collectors.joining(",", "{", "}"));
+    }
+
+}
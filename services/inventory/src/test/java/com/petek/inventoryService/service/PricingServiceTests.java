@@ -0,0 +1,111 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.petek.inventoryService.repository.CampaignTermsRepository;
+import com.petek.inventoryService.repository.CampaignTermsRepository.CampaignAssignment;
+import com.petek.inventoryService.service.PricingService.LinePrice;
+import com.petek.inventoryService.utils.CampaignIntervalIndex.Terms;
+import com.petek.inventoryService.utils.Money;
+import com.petek.inventoryService.utils.Quantity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Line prices follow the V6 policy.
+ */
+class PricingServiceTests {
+
+    private static final long PRODUCT_ID = 1;
+    private static final LocalDate ORDER_DATE = LocalDate.of(2026, 10, 17);
+
+    private PricingService pricingService;
+
+    @BeforeEach
+    void loadBuyTwoGetOne() {
+        CampaignTermsRepository repository = mock(CampaignTermsRepository.class);
+        long day = ORDER_DATE.toEpochDay();
+        when(repository.findAll()).thenReturn(List.of(
+            new CampaignAssignment(new Terms(10, true, 0, 2, 1, day, day), List.of(PRODUCT_ID))));
+
+        pricingService = new PricingService(repository, new SimpleMeterRegistry());
+        pricingService.rebuild();
+    }
+
+    @Test
+    void buyXGetYPercentageDependsOnWholeGroupsInTheQuantity() {
+        // round(floor(qty / 3) * 1 / qty * 100, 2)
+        assertThat(price("2").getProductPercentage()).isEqualByComparingTo("0.00");
+        assertThat(price("3").getProductPercentage()).isEqualByComparingTo("33.33");
+        assertThat(price("4").getProductPercentage()).isEqualByComparingTo("25.00");
+        assertThat(price("7").getProductPercentage()).isEqualByComparingTo("28.57");
+        assertThat(price("9").getProductPercentage()).isEqualByComparingTo("33.33");
+        assertThat(price("3.5").getProductPercentage()).isEqualByComparingTo("28.57");
+    }
+
+    @Test
+    void buyXGetYStacksWithTheCustomerOffer() {
+        LinePrice price = pricingService.priceLine(PRODUCT_ID, "adet", new BigDecimal("3"), ORDER_DATE, new BigDecimal("10"));
+
+        assertThat(price.getCampaignId()).isEqualTo(10L);
+        // round((1 - (1 - 0.3333) * (1 - 0.10)) * 100, 2)
+        assertThat(price.getDiscountPercentage()).isEqualByComparingTo("40.00");
+    }
+
+    @Test
+    void buyXGetYSkipsUncountableUnits() {
+        LinePrice price = pricingService.priceLine(PRODUCT_ID, "kg", new BigDecimal("3"), ORDER_DATE, null);
+
+        assertThat(price.getCampaignId()).isNull();
+        assertThat(price.getDiscountPercentage()).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void buyXGetYPercentageMatchesDecimalFormula() {
+        Random random = new Random(20261017L);
+
+        for (int i = 0; i < 100_000; i++) {
+            int buyQty = 1 + random.nextInt(20);
+            int getQty = 1 + random.nextInt(10);
+            // Whole and fractional quantities, from below one group to many groups
+            long quantityUnits = random.nextBoolean()
+                ? 1_000L * (1 + random.nextInt(1_000))
+                : 1 + random.nextLong(1_000_000_000L);
+            Terms terms = new Terms(1, true, 0, buyQty, getQty, 0, 0);
+
+            assertThat(PricingService.productPercent(terms, quantityUnits))
+                .as("buy %d get %d of %d units", buyQty, getQty, quantityUnits)
+                .isEqualTo(expectedPercent(buyQty, getQty, Quantity.toBigDecimal(quantityUnits)));
+        }
+    }
+
+    @Test
+    void discountPercentageIsTakenAsIs() {
+        assertThat(PricingService.productPercent(new Terms(1, false, 1250, 0, 0, 0, 0), 3_000)).isEqualTo(1250);
+        assertThat(PricingService.productPercent(new Terms(1, true, 0, 2, 1, 0, 0), 0)).isZero();
+    }
+
+    // round(floor(qty / (buy + get)) * get / qty * 100, 2) in hundredths
+    private long expectedPercent(int buyQty, int getQty, BigDecimal quantity) {
+        return Money.toCents(quantity.divide(BigDecimal.valueOf(buyQty + getQty), 0, RoundingMode.FLOOR)
+            .multiply(BigDecimal.valueOf(getQty))
+            .multiply(BigDecimal.valueOf(100))
+            .divide(quantity, Money.SCALE, RoundingMode.HALF_UP));
+    }
+
+    private LinePrice price(String quantity) {
+        return pricingService.priceLine(PRODUCT_ID, "adet", new BigDecimal(quantity), ORDER_DATE, null);
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.petek.inventoryService.dto.PageResponse;
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.product.ProductFilterRequest;
+import com.petek.inventoryService.dto.product.ProductItemResponse;
+import com.petek.inventoryService.dto.productSupplier.ProductSupplierCreateRequest;
+import com.petek.inventoryService.dto.supplier.SupplierCreateRequest;
+
+/**
+ * The product grid costs the same number of statements whatever the page size.
+ */
+@SpringBootTest
+class ProductListStatementCountTests {
+
+    private static final int PRODUCTS = 30;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private ProductSupplierService productSupplierService;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private String category;
+
+    @TestConfiguration
+    static class CountingConfig {
+
+        @Bean
+        StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+
+        @Bean
+        static BeanPostProcessor countingDataSource(ObjectProvider<StatementCounter> counter) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)
+                        ? new CountingDataSource(dataSource, counter.getObject())
+                        : bean;
+                }
+            };
+        }
+    }
+
+    // Counts the statements of the thread that last reset it, not those of background pollers
+    static class StatementCounter {
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile Thread owner;
+
+        int reset() {
+            owner = Thread.currentThread();
+            return count.getAndSet(0);
+        }
+
+        void increment() {
+            if (Thread.currentThread() == owner) count.incrementAndGet();
+        }
+    }
+
+    // Counts every statement prepared or created on its connections
+    static class CountingDataSource extends DelegatingDataSource {
+        private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "createStatement", "prepareCall");
+
+        private final StatementCounter counter;
+
+        CountingDataSource(DataSource target, StatementCounter counter) {
+            super(target);
+            this.counter = counter;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return count(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return count(super.getConnection(username, password));
+        }
+
+        private Connection count(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName())) counter.increment();
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        }
+    }
+
+    @BeforeEach
+    void createCatalog() {
+        category = "stmt-" + UUID.randomUUID().toString().substring(0, 8);
+
+        List<Long> supplierIds = List.of(createSupplier(), createSupplier());
+        for (int i = 0; i < PRODUCTS; i++) {
+            Long productId = productService.createProduct(ProductCreateRequest.builder()
+                .productName("Statement count product " + i)
+                .category(category)
+                .unitOfMeasure("adet")
+                .safetyStock(BigDecimal.TEN)
+                .reorderPoint(BigDecimal.valueOf(20))
+                .currentPrice(BigDecimal.ONE)
+                .build())
+                .getProductId();
+            for (Long supplierId : supplierIds) {
+                productSupplierService.createProductSupplier(ProductSupplierCreateRequest.builder()
+                    .productId(productId)
+                    .supplierId(supplierId)
+                    .build());
+            }
+        }
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() {
+        statementCounter.reset();
+        PageResponse<ProductItemResponse> small = productService.getAllProducts(filter(5));
+        int smallStatements = statementCounter.reset();
+
+        PageResponse<ProductItemResponse> large = productService.getAllProducts(filter(PRODUCTS));
+        int largeStatements = statementCounter.reset();
+
+        assertThat(small.getContent()).hasSize(5);
+        assertThat(large.getContent()).hasSize(PRODUCTS);
+        assertThat(large.getContent()).allSatisfy(item -> {
+            assertThat(item.getActiveSuppliers()).hasSize(2);
+            assertThat(item.getPreferredSupplier()).isNotNull();
+        });
+        assertThat(smallStatements).isBetween(1, 2);
+        assertThat(largeStatements).isEqualTo(smallStatements);
+    }
+
+    private ProductFilterRequest filter(int size) {
+        return ProductFilterRequest.builder()
+            .category(List.of(category))
+            .size(size)
+            .build();
+    }
+
+    private Long createSupplier() {
+        String key = UUID.randomUUID().toString().substring(0, 8);
+        return supplierService.createSupplier(SupplierCreateRequest.builder()
+            .supplierName("Statement count supplier " + key)
+            .email(key + "@example.com")
+            .phone("05321234567")
+            .city("Ankara")
+            .build())
+            .getSupplierId();
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.stock.StockAsOfResponse;
+import com.petek.inventoryService.repository.StockCheckpointRepository;
+
+/**
+ * As-of lookups replay the ledger from the nearest checkpoint; reserved stock is only known
+ * for checkpoints taken on their own day.
+ */
+@SpringBootTest
+class StockCheckpointServiceTests {
+
+    @Autowired
+    private StockCheckpointService stockCheckpointService;
+
+    @Autowired
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+    private Instant today;
+
+    @BeforeEach
+    void createProductWithHistory() {
+        productId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Checkpoint product " + UUID.randomUUID().toString().substring(0, 8))
+            .category("checkpoint")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.ONE)
+            .build())
+            .getProductId();
+        today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        jdbcTemplate.queryForObject("SELECT create_stock_movement_partitions(CAST(? AS DATE), CAST(? AS DATE))",
+            Integer.class, Timestamp.from(today.minus(3, ChronoUnit.DAYS)), Timestamp.from(today));
+
+        // 40 received three days ago, 15 adjusted out two days ago; 6 reserved now
+        movement("ADJUSTMENT_IN", 40, today.minus(3, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS));
+        movement("ADJUSTMENT_OUT", 15, today.minus(2, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS));
+        jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+            "VALUES (?, 25, 6, now())", productId);
+    }
+
+    @Test
+    void backfilledCheckpointsLeaveReservedUnknown() {
+        Instant yesterday = today.minus(1, ChronoUnit.DAYS);
+        transactionTemplate.executeWithoutResult(status -> {
+            stockCheckpointRepository.createCheckpoints(yesterday, false);
+            stockCheckpointRepository.createCheckpoints(today, true);
+        });
+
+        StockAsOfResponse past = stockCheckpointService.getStockAsOf(productId, yesterday.plus(1, ChronoUnit.HOURS));
+        assertThat(past.getCheckpointAt()).isEqualTo(yesterday);
+        assertThat(past.getQuantityOnHand()).isEqualByComparingTo("25");
+        assertThat(past.getQuantityReserved()).isNull();
+        assertThat(past.getQuantityAvailable()).isNull();
+
+        StockAsOfResponse current = stockCheckpointService.getStockAsOf(productId, Instant.now());
+        assertThat(current.getCheckpointAt()).isEqualTo(today);
+        assertThat(current.getQuantityOnHand()).isEqualByComparingTo("25");
+        assertThat(current.getQuantityReserved()).isEqualByComparingTo("6");
+        assertThat(current.getQuantityAvailable()).isEqualByComparingTo("19");
+    }
+
+    @Test
+    void lookupsBetweenCheckpointsReplayTheLedger() {
+        StockAsOfResponse response = stockCheckpointService.getStockAsOf(productId, today.minus(2, ChronoUnit.DAYS));
+
+        assertThat(response.getQuantityOnHand()).isEqualByComparingTo("40");
+        assertThat(response.getMovementsReplayed()).isEqualTo(1);
+    }
+
+    private void movement(String kind, int quantity, Instant at) {
+        jdbcTemplate.update("INSERT INTO stock_movements (product_id, movement_kind, movement_source, quantity, movement_date, created_at) " +
+            "VALUES (?, CAST(? AS movement_kind), 'ADJUSTMENT', ?, ?, now())",
+            productId, kind, quantity, Timestamp.from(at));
+    }
+
+}
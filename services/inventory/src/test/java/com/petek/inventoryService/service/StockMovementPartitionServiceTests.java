@@ -0,0 +1,150 @@
+package com.petek.inventoryService.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.stock.StockAsOfResponse;
+import com.petek.inventoryService.repository.StockCheckpointRepository;
+import com.petek.inventoryService.repository.StockMovementPartitionRepository;
+import com.petek.inventoryService.repository.StockReconciliationRepository;
+
+/**
+ * Archiving old months keeps their balance in checkpoints at the cutoff, or does not archive.
+ */
+@SpringBootTest
+class StockMovementPartitionServiceTests {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'stock_movements_y'yyyy'm'MM");
+
+    @Autowired
+    private StockMovementPartitionRepository partitionRepository;
+
+    @Autowired
+    private StockCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private StockReconciliationRepository reconciliationRepository;
+
+    @Autowired
+    private StockCheckpointService stockCheckpointService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+
+    @AfterEach
+    void dropArchivedPartitions() {
+        // The archive schema holds one table per month name; let the next run detach the same month
+        jdbcTemplate.queryForList("SELECT tablename FROM pg_tables WHERE schemaname = 'archive'", String.class)
+            .forEach(name -> jdbcTemplate.execute("DROP TABLE archive." + name));
+        jdbcTemplate.update("DELETE FROM stock_checkpoints WHERE product_id = ? AND quantity_on_hand = 40", productId);
+    }
+
+    @Test
+    void archivedMonthsOpenTheLedgerWithACheckpoint() {
+        LocalDate cutoff = cutoff(30);
+        Instant openingAt = cutoff.atStartOfDay(ZoneOffset.UTC).toInstant();
+        createProduct(45);
+        movement("ADJUSTMENT_IN", 50, openingAt.minus(10, ChronoUnit.DAYS));
+        movement("ADJUSTMENT_OUT", 5, openingAt.plus(3, ChronoUnit.DAYS));
+
+        service(30).archiveExpiredPartitions();
+
+        String archived = PARTITION_NAME.format(cutoff.minusMonths(1));
+        assertThat(partitionRepository.findPartitionsBefore(cutoff)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, "archive." + archived)).isTrue();
+        assertThat(checkpointRepository.findArchivedBefore()).isAfterOrEqualTo(openingAt);
+
+        StockAsOfResponse asOf = stockCheckpointService.getStockAsOf(productId, openingAt.plus(5, ChronoUnit.DAYS));
+        assertThat(asOf.getCheckpointAt()).isEqualTo(openingAt);
+        assertThat(asOf.getQuantityOnHand()).isEqualByComparingTo("45");
+        assertThat(asOf.getMovementsReplayed()).isEqualTo(1);
+        assertThatThrownBy(() -> stockCheckpointService.getStockAsOf(productId, openingAt.minus(1, ChronoUnit.DAYS)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("archived");
+
+        // Reconciliation still balances: 50 opening - 5 adjusted out = 45 on hand
+        long[] ledger = new long[3];
+        reconciliationRepository.streamRangeBalances(productId, productId, rs -> {
+            ledger[0] = rs.getLong("quantity_on_hand");
+            ledger[1] = rs.getLong("opening_balance");
+            ledger[2] = rs.getLong("adjustments_out");
+        });
+        assertThat(ledger).containsExactly(45_000, 50_000, 5_000);
+        assertThat(reconciliationRepository.findLedgerBalances(List.of(productId)).get(productId)).isEqualByComparingTo("45");
+    }
+
+    @Test
+    void driftingCheckpointsStopTheArchive() {
+        // A month later than the other test, so its archive never hides this product's movements
+        LocalDate cutoff = cutoff(29);
+        Instant openingAt = cutoff.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant archivedBefore = checkpointRepository.findArchivedBefore();
+        createProduct(50);
+        movement("ADJUSTMENT_IN", 50, openingAt.minus(10, ChronoUnit.DAYS));
+        // A checkpoint written before a backdated movement landed
+        jdbcTemplate.update("INSERT INTO stock_checkpoints (product_id, checkpoint_at, quantity_on_hand) VALUES (?, ?, 40)",
+            productId, Timestamp.from(openingAt));
+
+        service(29).archiveExpiredPartitions();
+
+        assertThat(partitionRepository.findPartitionsBefore(cutoff)).contains(PARTITION_NAME.format(cutoff.minusMonths(1)));
+        assertThat(checkpointRepository.findArchivedBefore()).isEqualTo(archivedBefore);
+    }
+
+    private StockMovementPartitionService service(int retainMonths) {
+        return new StockMovementPartitionService(partitionRepository, checkpointRepository, transactionTemplate, 3, retainMonths);
+    }
+
+    private LocalDate cutoff(int retainMonths) {
+        LocalDate cutoff = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).minusMonths(retainMonths);
+        partitionRepository.createPartitions(cutoff.minusMonths(1), cutoff);
+        return cutoff;
+    }
+
+    private void createProduct(int onHand) {
+        productId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Archived product " + UUID.randomUUID().toString().substring(0, 8))
+            .category("archive")
+            .unitOfMeasure("adet")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(BigDecimal.ONE)
+            .build())
+            .getProductId();
+        jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+            "VALUES (?, ?, 0, now())", productId, onHand);
+    }
+
+    private void movement(String kind, int quantity, Instant at) {
+        jdbcTemplate.update("INSERT INTO stock_movements (product_id, movement_kind, movement_source, quantity, movement_date, created_at) " +
+            "VALUES (?, CAST(? AS movement_kind), 'ADJUSTMENT', ?, ?, now())",
+            productId, kind, quantity, Timestamp.from(at));
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.petek.inventoryService.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.petek.inventoryService.utils.CampaignIntervalIndex.Terms;
+
+/**
+ * The active campaigns of a product on a day are exactly those whose window contains it.
+ */
+class CampaignIntervalIndexTests {
+
+    private static final long FIRST_DAY = LocalDate.of(2026, 1, 1).toEpochDay();
+    private static final int DAYS = 120;
+    private static final int CAMPAIGNS = 40;
+    private static final int PRODUCTS = 15;
+
+    @Test
+    void windowsIncludeBothEnds() {
+        CampaignIntervalIndex index = new CampaignIntervalIndex();
+        index.put(terms(1, 10, 12), List.of(7L));
+        index.put(terms(2, 12, 12), List.of(7L));
+
+        assertThat(activeIds(index, 7, 9)).isEmpty();
+        assertThat(activeIds(index, 7, 10)).containsExactly(1L);
+        assertThat(activeIds(index, 7, 12)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(activeIds(index, 7, 13)).isEmpty();
+        assertThat(activeIds(index, 8, 10)).isEmpty();
+    }
+
+    @Test
+    void removedAndReassignedCampaignsLeaveTheirProducts() {
+        CampaignIntervalIndex index = new CampaignIntervalIndex();
+        index.put(terms(1, 0, 30), List.of(1L, 2L));
+        index.put(terms(1, 0, 30), List.of(2L));
+
+        assertThat(activeIds(index, 1, 5)).isEmpty();
+        assertThat(activeIds(index, 2, 5)).containsExactly(1L);
+
+        index.remove(1);
+        assertThat(activeIds(index, 2, 5)).isEmpty();
+        assertThat(index.campaignCount()).isZero();
+        assertThat(index.productCount()).isZero();
+    }
+
+    @Test
+    void randomUpdatesMatchAWindowScan() {
+        Random random = new Random(20261017L);
+        CampaignIntervalIndex index = new CampaignIntervalIndex();
+        Map<Long, Terms> campaigns = new HashMap<>();
+        Map<Long, List<Long>> products = new HashMap<>();
+
+        for (int step = 0; step < 2_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 6) {
+                Terms terms = randomTerms(random, 1 + random.nextInt(CAMPAIGNS));
+                List<Long> assigned = randomProducts(random);
+                index.put(terms, assigned);
+                campaigns.put(terms.getCampaignId(), terms);
+                products.put(terms.getCampaignId(), assigned);
+            } else if (op < 8) {
+                List<Terms> batch = new ArrayList<>();
+                Map<Long, List<Long>> assignments = new HashMap<>();
+                for (int i = random.nextInt(5); i >= 0; i--) {
+                    Terms terms = randomTerms(random, 1 + random.nextInt(CAMPAIGNS));
+                    batch.add(terms);
+                    assignments.put(terms.getCampaignId(), randomProducts(random));
+                }
+                index.putAll(batch, assignments);
+                // Later terms of a repeated id win, with the one assignment of that id
+                for (Terms terms : batch) {
+                    campaigns.put(terms.getCampaignId(), terms);
+                    products.put(terms.getCampaignId(), assignments.get(terms.getCampaignId()));
+                }
+            } else {
+                long campaignId = 1 + random.nextInt(CAMPAIGNS);
+                index.remove(campaignId);
+                campaigns.remove(campaignId);
+                products.remove(campaignId);
+            }
+
+            for (int q = 0; q < 20; q++) {
+                long productId = 1 + random.nextInt(PRODUCTS);
+                // A few days either side of the range, where nothing is active
+                long day = random.nextInt(DAYS + 10) - 5;
+                assertThat(activeIds(index, productId, day))
+                    .as("product %d on day %d after step %d", productId, day, step)
+                    .containsExactlyInAnyOrderElementsOf(scan(campaigns, products, productId, FIRST_DAY + day));
+            }
+        }
+    }
+
+    // Every campaign assigned to the product whose window contains the day
+    private List<Long> scan(Map<Long, Terms> campaigns, Map<Long, List<Long>> products, long productId, long day) {
+        return campaigns.values().stream()
+            .filter(t -> products.get(t.getCampaignId()).contains(productId))
+            .filter(t -> t.getStartDay() <= day && day <= t.getEndDay())
+            .map(Terms::getCampaignId)
+            .toList();
+    }
+
+    private List<Long> activeIds(CampaignIntervalIndex index, long productId, long day) {
+        return index.active(productId, LocalDate.ofEpochDay(FIRST_DAY + day)).stream()
+            .map(Terms::getCampaignId)
+            .toList();
+    }
+
+    private Terms randomTerms(Random random, long campaignId) {
+        long start = random.nextInt(DAYS);
+        // Mostly short windows, some one-day and some long ones
+        long length = random.nextInt(4) == 0 ? random.nextInt(DAYS) : random.nextInt(10);
+        return terms(campaignId, start, Math.min(start + length, DAYS - 1));
+    }
+
+    private List<Long> randomProducts(Random random) {
+        List<Long> assigned = new ArrayList<>();
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            if (random.nextInt(4) == 0) assigned.add(productId);
+        }
+        return assigned;
+    }
+
+    private Terms terms(long campaignId, long startDay, long endDay) {
+        return new Terms(campaignId, false, 1000, 0, 0, FIRST_DAY + startDay, FIRST_DAY + endDay);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.petek.inventoryService.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Records split like RFC 4180 says, quoted fields included, whatever the line endings.
+ */
+class CsvReaderTests {
+
+    @Test
+    void quotedFieldsKeepSeparators() throws IOException {
+        assertThat(read("a,\"b,c\",d\n")).containsExactly(List.of("a", "b,c", "d"));
+        assertThat(read("\"x;y\";z\n", ';')).containsExactly(List.of("x;y", "z"));
+    }
+
+    @Test
+    void doubledQuotesAreOneQuote() throws IOException {
+        assertThat(read("\"say \"\"hi\"\"\",\"\"\"\",\"\"\n"))
+            .containsExactly(List.of("say \"hi\"", "\"", ""));
+        // Only a leading quote opens a quoted field
+        assertThat(read("5\" pipe,x\n")).containsExactly(List.of("5\" pipe", "x"));
+    }
+
+    @Test
+    void quotedFieldsKeepLineBreaks() throws IOException {
+        assertThat(read("id,note\r\n1,\"first\r\nsecond\"\r\n2,\"lf\nonly\"\r\n"))
+            .containsExactly(
+                List.of("id", "note"),
+                List.of("1", "first\r\nsecond"),
+                List.of("2", "lf\nonly"));
+    }
+
+    @Test
+    void lfAndCrlfEndRecordsAndBlankLinesAreSkipped() throws IOException {
+        assertThat(read("a,b\r\n\r\nc,d\n\ne,\n"))
+            .containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e", ""));
+    }
+
+    @Test
+    void lastRecordNeedsNoLineBreak() throws IOException {
+        assertThat(read("a,b\nc,\"d\"")).containsExactly(List.of("a", "b"), List.of("c", "d"));
+        assertThat(read("a,")).containsExactly(List.of("a", ""));
+        assertThat(read("")).isEmpty();
+    }
+
+    @Test
+    void unterminatedQuotedFieldIsRejected() {
+        assertThatThrownBy(() -> read("a,b\nc,\"d\ne\n"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("record 2");
+    }
+
+    @Test
+    void recordsSpanBufferRefills() throws IOException {
+        String longField = "x".repeat(20_000);
+        List<List<String>> records = read("1,\"" + longField + "\"\"\"\r\n2," + longField + "\r\n");
+
+        assertThat(records).containsExactly(List.of("1", longField + "\""), List.of("2", longField));
+    }
+
+    @Test
+    void recordNumberCountsReturnedRecords() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("h\n\n\"a\nb\"\nc\n"), ',');
+        while (reader.next() != null) {
+            // Drain
+        }
+        assertThat(reader.getRecordNumber()).isEqualTo(3);
+    }
+
+    private List<List<String>> read(String text) throws IOException {
+        return read(text, ',');
+    }
+
+    private List<List<String>> read(String text, char separator) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(text), separator);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.petek.inventoryService.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JMH: order line amounts and a reserve check in BigDecimal (the code before Money /
+ * Quantity) vs scaled longs, throughput and bytes allocated per operation. Run with
+ * mvn test -Pbenchmark.
+ */
+// Public: the JMH generated code lives in a subpackage
+@Slf4j
+@Tag("benchmark")
+public class MoneyBenchmarkTests {
+
+    private static final int LINES = 1024;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Test
+    void fixedPointOutrunsBigDecimal() throws Exception {
+        Iterable<RunResult> results = new Runner(new OptionsBuilder()
+            .include(Lines.class.getCanonicalName())
+            .addProfiler(GCProfiler.class)
+            .build())
+            .run();
+
+        double bigDecimal = 0;
+        double fixedPoint = 0;
+        for (RunResult result : results) {
+            String name = result.getParams().getBenchmark();
+            double score = result.getPrimaryResult().getScore();
+            double allocated = result.getSecondaryResults().get("gc.alloc.rate.norm").getScore();
+            log.info("{}: {} ops/ms, {} bytes/op", name.substring(name.lastIndexOf('.') + 1), Math.round(score), Math.round(allocated));
+            if (name.endsWith("bigDecimal")) bigDecimal = score;
+            if (name.endsWith("fixedPoint")) fixedPoint = score;
+        }
+        log.info("Fixed point is {}x BigDecimal", String.format("%.1f", fixedPoint / bigDecimal));
+        assertThat(fixedPoint).isGreaterThan(bigDecimal);
+    }
+
+    /**
+     * One order line per call: discount_amount, line_total and a reserve against on-hand.
+     */
+    @State(Scope.Thread)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Lines {
+
+        private final BigDecimal[] quantities = new BigDecimal[LINES];
+        private final BigDecimal[] prices = new BigDecimal[LINES];
+        private final BigDecimal[] discounts = new BigDecimal[LINES];
+        private final long[] quantityUnits = new long[LINES];
+        private final long[] priceCents = new long[LINES];
+        private final long[] discountHundredths = new long[LINES];
+
+        private BigDecimal onHand;
+        private BigDecimal reserved;
+        private long onHandUnits;
+        private long reservedUnits;
+        private int next;
+
+        @Setup
+        public void sample() {
+            Random random = new Random(20261017L);
+            for (int i = 0; i < LINES; i++) {
+                quantityUnits[i] = 1 + random.nextInt(100_000);
+                priceCents[i] = random.nextInt(1_000_000);
+                discountHundredths[i] = random.nextInt(5_001);
+                quantities[i] = Quantity.toBigDecimal(quantityUnits[i]);
+                prices[i] = Money.toBigDecimal(priceCents[i]);
+                discounts[i] = Money.toBigDecimal(discountHundredths[i]);
+            }
+            onHand = new BigDecimal("1000000000.000");
+            reserved = BigDecimal.ZERO;
+            onHandUnits = Quantity.toUnits(onHand);
+        }
+
+        @Benchmark
+        public void bigDecimal(Blackhole blackhole) {
+            int i = next++ & (LINES - 1);
+            BigDecimal gross = quantities[i].multiply(prices[i]);
+            blackhole.consume(gross.multiply(discounts[i]).divide(HUNDRED).setScale(2, RoundingMode.HALF_UP));
+            blackhole.consume(gross.multiply(BigDecimal.ONE.subtract(discounts[i].movePointLeft(2))).setScale(2, RoundingMode.HALF_UP));
+
+            if (onHand.subtract(reserved).compareTo(quantities[i]) < 0) {
+                reserved = BigDecimal.ZERO;
+            }
+            reserved = reserved.add(quantities[i]);
+        }
+
+        @Benchmark
+        public void fixedPoint(Blackhole blackhole) {
+            int i = next++ & (LINES - 1);
+            blackhole.consume(Money.discountAmount(quantityUnits[i], priceCents[i], discountHundredths[i]));
+            blackhole.consume(Money.lineTotal(quantityUnits[i], priceCents[i], discountHundredths[i]));
+
+            if (onHandUnits - reservedUnits < quantityUnits[i]) {
+                reservedUnits = 0;
+            }
+            reservedUnits += quantityUnits[i];
+        }
+    }
+
+}
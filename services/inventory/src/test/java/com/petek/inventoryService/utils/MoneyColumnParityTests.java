@@ -0,0 +1,196 @@
+package com.petek.inventoryService.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petek.inventoryService.dto.customer.CustomerCreateRequest;
+import com.petek.inventoryService.dto.product.ProductCreateRequest;
+import com.petek.inventoryService.dto.purchaseOrder.PurchaseOrderCreateRequest;
+import com.petek.inventoryService.dto.purchaseOrderItem.PurchaseOrderItemCreateRequest;
+import com.petek.inventoryService.dto.purchaseOrderItem.PurchaseOrderItemResponse;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderCreateRequest;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderItemCreateRequest;
+import com.petek.inventoryService.dto.salesOrder.SalesOrderItemResponse;
+import com.petek.inventoryService.dto.supplier.SupplierCreateRequest;
+import com.petek.inventoryService.entity.Customer.CustomerSegment;
+import com.petek.inventoryService.service.CustomerService;
+import com.petek.inventoryService.service.ProductService;
+import com.petek.inventoryService.service.PurchaseOrderItemService;
+import com.petek.inventoryService.service.PurchaseOrderService;
+import com.petek.inventoryService.service.SalesOrderItemService;
+import com.petek.inventoryService.service.SalesOrderService;
+import com.petek.inventoryService.service.SupplierService;
+
+/**
+ * Money line math agrees with the generated line_total / discount_amount columns Postgres stores.
+ */
+@SpringBootTest
+class MoneyColumnParityTests {
+
+    private static final int SAMPLES = 20_000;
+    private static final long MAX_LINE_CENTS = 99_999_999_999_999L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SalesOrderService salesOrderService;
+
+    @Autowired
+    private SalesOrderItemService salesOrderItemService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private PurchaseOrderService purchaseOrderService;
+
+    @Autowired
+    private PurchaseOrderItemService purchaseOrderItemService;
+
+    private final Random random = new Random(20261017L);
+
+    @Test
+    void sampledSalesLinesMatchTheGeneratedColumns() {
+        List<long[]> lines = sample(true);
+
+        List<long[]> stored = transactionTemplate.execute(status -> {
+            // Same generated expressions as the real table, without its keys and checks
+            jdbcTemplate.execute("CREATE TEMP TABLE soi_parity " +
+                "(LIKE sales_order_items INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING IDENTITY) ON COMMIT DROP");
+            jdbcTemplate.batchUpdate("INSERT INTO soi_parity (sales_order_id, product_id, quantity, unit_price, discount_percentage) " +
+                "VALUES (0, 0, ?, ?, ?)", toArgs(lines));
+            return jdbcTemplate.query("SELECT discount_amount, line_total FROM soi_parity ORDER BY sales_order_item_id",
+                (rs, rowNum) -> new long[] { Money.toCents(rs.getBigDecimal(1)), Money.toCents(rs.getBigDecimal(2)) });
+        });
+
+        for (int i = 0; i < lines.size(); i++) {
+            long[] line = lines.get(i);
+            assertThat(new long[] { Money.discountAmount(line[0], line[1], line[2]), Money.lineTotal(line[0], line[1], line[2]) })
+                .as("line %d x %d at %d", line[0], line[1], line[2])
+                .containsExactly(stored.get(i));
+        }
+    }
+
+    @Test
+    void sampledPurchaseLinesMatchTheGeneratedColumns() {
+        List<long[]> lines = sample(false);
+
+        List<Long> stored = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("CREATE TEMP TABLE poi_parity " +
+                "(LIKE purchase_order_items INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING IDENTITY) ON COMMIT DROP");
+            jdbcTemplate.batchUpdate("INSERT INTO poi_parity (purchase_order_id, product_id, quantity_ordered, unit_price) " +
+                "VALUES (0, 0, ?, ?)", toArgs(lines).stream().map(args -> new Object[] { args[0], args[1] }).toList());
+            return jdbcTemplate.query("SELECT line_total FROM poi_parity ORDER BY purchase_order_item_id",
+                (rs, rowNum) -> Money.toCents(rs.getBigDecimal(1)));
+        });
+
+        for (int i = 0; i < lines.size(); i++) {
+            long[] line = lines.get(i);
+            assertThat(Money.amount(line[0], line[1])).as("line %d x %d", line[0], line[1]).isEqualTo(stored.get(i));
+        }
+    }
+
+    @Test
+    void savedLinesCarryTheStoredAmounts() {
+        String key = UUID.randomUUID().toString().substring(0, 8);
+        Long productId = productService.createProduct(ProductCreateRequest.builder()
+            .productName("Money parity product " + key)
+            .category("money-parity")
+            .unitOfMeasure("kg")
+            .safetyStock(BigDecimal.ONE)
+            .reorderPoint(BigDecimal.TEN)
+            .currentPrice(new BigDecimal("19.99"))
+            .build())
+            .getProductId();
+        jdbcTemplate.update("INSERT INTO current_stock (product_id, quantity_on_hand, quantity_reserved, last_updated) " +
+            "VALUES (?, 100, 0, now())", productId);
+
+        Long customerId = customerService.createCustomer(CustomerCreateRequest.builder()
+            .customerName("Money parity " + key)
+            .customerSegment(CustomerSegment.INDIVIDUAL)
+            .email(key + "@example.com")
+            .phone("05321234567")
+            .city("Ankara")
+            .build())
+            .getCustomerId();
+        Long salesOrderId = salesOrderService.createSalesOrder(SalesOrderCreateRequest.builder()
+            .customerId(customerId)
+            .deliveryDate(LocalDate.now().plusDays(7))
+            .build())
+            .getSalesOrderId();
+        SalesOrderItemResponse salesLine = salesOrderItemService.createSalesOrderItem(salesOrderId, SalesOrderItemCreateRequest.builder()
+            .productId(productId)
+            .quantity(new BigDecimal("3.335"))
+            .build());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT line_total FROM sales_order_items WHERE sales_order_item_id = ?",
+            BigDecimal.class, salesLine.getSalesOrderItemId())).isEqualTo(salesLine.getLineTotal()).isEqualTo("66.67");
+
+        Long supplierId = supplierService.createSupplier(SupplierCreateRequest.builder()
+            .supplierName("Money parity supplier " + key)
+            .email("supplier-" + key + "@example.com")
+            .phone("05321234567")
+            .city("Ankara")
+            .build())
+            .getSupplierId();
+        Long purchaseOrderId = purchaseOrderService.createPurchaseOrder(PurchaseOrderCreateRequest.builder()
+            .supplierId(supplierId)
+            .orderDate(LocalDate.now())
+            .build())
+            .getPurchaseOrderId();
+        PurchaseOrderItemResponse purchaseLine = purchaseOrderItemService.createPurchaseOrderItem(purchaseOrderId, PurchaseOrderItemCreateRequest.builder()
+            .productId(productId)
+            .quantityOrdered(new BigDecimal("0.125"))
+            .unitPrice(new BigDecimal("0.20"))
+            .build());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT line_total FROM purchase_order_items WHERE purchase_order_item_id = ?",
+            BigDecimal.class, purchaseLine.getPurchaseOrderItemId())).isEqualTo(purchaseLine.getLineTotal()).isEqualTo("0.03");
+        assertThat(purchaseLine.getLineTotalReceived()).isEqualTo("0.00");
+    }
+
+    // quantity units, price cents, discount hundredths within the column precisions; the
+    // line itself has to fit NUMERIC(14,2)
+    private List<long[]> sample(boolean discounted) {
+        List<long[]> lines = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            // Half of the lines small, where half-cent ties are common
+            boolean small = random.nextBoolean();
+            long price = random.nextLong(small ? 1_000L : 9_999_999_999L);
+            long maxQuantity = Math.min(999_999_999_999L, MAX_LINE_CENTS / Math.max(price, 1) * 1000);
+            long quantity = 1 + random.nextLong(small ? 10_000L : maxQuantity);
+            long discount = discounted ? random.nextLong(10_001) : 0;
+            lines.add(new long[] { quantity, price, discount });
+        }
+        return lines;
+    }
+
+    private List<Object[]> toArgs(List<long[]> lines) {
+        return lines.stream()
+            .map(line -> new Object[] { Quantity.toBigDecimal(line[0]), Money.toBigDecimal(line[1]), Money.toBigDecimal(line[2]) })
+            .toList();
+    }
+
+}
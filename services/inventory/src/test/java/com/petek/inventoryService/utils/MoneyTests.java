@@ -0,0 +1,158 @@
+package com.petek.inventoryService.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Integer money math agrees with NUMERIC round(x, 2), i.e. BigDecimal HALF_UP.
+ */
+class MoneyTests {
+
+    private static final int SAMPLES = 100_000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final Random random = new Random(20261017L);
+
+    @Test
+    void discountAmountMatchesDecimalRounding() {
+        for (int i = 0; i < SAMPLES; i++) {
+            long quantity = randomSigned(10_000_000L);
+            long price = randomSigned(100_000_000L);
+            long discount = random.nextLong(10_001);
+
+            assertThat(Money.discountAmount(quantity, price, discount))
+                .as("discount of %d x %d at %d", quantity, price, discount)
+                .isEqualTo(expectedLine(quantity, price, percent(discount)));
+        }
+    }
+
+    @Test
+    void lineTotalMatchesDecimalRounding() {
+        for (int i = 0; i < SAMPLES; i++) {
+            long quantity = randomSigned(10_000_000L);
+            long price = randomSigned(100_000_000L);
+            // Above 100% the line turns negative
+            long discount = random.nextLong(20_001);
+
+            assertThat(Money.lineTotal(quantity, price, discount))
+                .as("line of %d x %d at %d", quantity, price, discount)
+                .isEqualTo(expectedLine(quantity, price, BigDecimal.ONE.subtract(percent(discount))));
+        }
+    }
+
+    @Test
+    void overflowingLinesFallBackToExactMath() {
+        long quantity = 500_000_000_000L;
+        long price = 9_999_999_999L;
+
+        for (long discount : new long[] { 1, 3333, 5000, 9999 }) {
+            assertThat(Money.discountAmount(quantity, price, discount))
+                .isEqualTo(expectedLine(quantity, price, percent(discount)));
+            assertThat(Money.lineTotal(quantity, price, discount))
+                .isEqualTo(expectedLine(quantity, price, BigDecimal.ONE.subtract(percent(discount))));
+            assertThat(Money.lineTotal(-quantity, price, discount))
+                .isEqualTo(expectedLine(-quantity, price, BigDecimal.ONE.subtract(percent(discount))));
+        }
+    }
+
+    @Test
+    void overflowingLinesBeyondLongAreRejected() {
+        assertThatThrownBy(() -> Money.discountAmount(Long.MAX_VALUE, Long.MAX_VALUE, 10_000))
+            .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void divideRoundedRoundsHalfAwayFromZero() {
+        for (int i = 0; i < SAMPLES; i++) {
+            long dividend = randomSigned(1_000_000_000_000L);
+            long divisor = randomSigned(1_000_000L);
+            if (divisor == 0) continue;
+
+            long expected = BigDecimal.valueOf(dividend)
+                .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+            assertThat(Money.divideRounded(dividend, divisor))
+                .as("%d / %d", dividend, divisor)
+                .isEqualTo(expected);
+        }
+
+        assertThat(Money.divideRounded(5, 2)).isEqualTo(3);
+        assertThat(Money.divideRounded(-5, 2)).isEqualTo(-3);
+        assertThat(Money.divideRounded(5, -2)).isEqualTo(-3);
+        assertThat(Money.divideRounded(-5, -2)).isEqualTo(3);
+    }
+
+    @Test
+    void percentOfMatchesDecimalRounding() {
+        for (int i = 0; i < SAMPLES; i++) {
+            long whole = 1 + random.nextLong(1_000_000_000L);
+            long part = randomSigned(whole);
+
+            long expected = BigDecimal.valueOf(part)
+                .multiply(HUNDRED)
+                .divide(BigDecimal.valueOf(whole), 2, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+            assertThat(Money.percentOf(part, whole))
+                .as("%d of %d", part, whole)
+                .isEqualTo(expected);
+        }
+
+        assertThat(Money.percentOf(1, 3)).isEqualTo(3333);
+        assertThat(Money.percentOf(2, 3)).isEqualTo(6667);
+        assertThat(Money.percentOf(-2, 3)).isEqualTo(-6667);
+    }
+
+    @Test
+    void stackPercentsMatchesDecimalRounding() {
+        for (int i = 0; i < SAMPLES; i++) {
+            long first = random.nextLong(10_001);
+            long second = random.nextLong(10_001);
+
+            // round((1 - (1 - p / 100) * (1 - c / 100)) * 100, 2)
+            BigDecimal payable = BigDecimal.ONE.subtract(percent(first)).multiply(BigDecimal.ONE.subtract(percent(second)));
+            long expected = Money.toCents(BigDecimal.ONE.subtract(payable)
+                .multiply(HUNDRED)
+                .setScale(Money.SCALE, RoundingMode.HALF_UP));
+            assertThat(Money.stackPercents(first, second))
+                .as("%d stacked with %d", first, second)
+                .isEqualTo(expected);
+        }
+
+        assertThat(Money.stackPercents(3333, 1000)).isEqualTo(4000);
+        assertThat(Money.stackPercents(10_000, 2500)).isEqualTo(10_000);
+        assertThat(Money.stackPercents(0, 0)).isZero();
+    }
+
+    @Test
+    void toCentsRejectsMoreThanTwoDecimals() {
+        assertThat(Money.toCents(new BigDecimal("-12.5"))).isEqualTo(-1250);
+        assertThat(Money.toBigDecimal(-1250)).isEqualByComparingTo("-12.50");
+        assertThatThrownBy(() -> Money.toCents(new BigDecimal("1.005")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // round(quantity * price * factor, 2) in cents, as the generated columns compute it
+    private long expectedLine(long quantity, long price, BigDecimal factor) {
+        return Money.toCents(Quantity.toBigDecimal(quantity)
+            .multiply(Money.toBigDecimal(price))
+            .multiply(factor)
+            .setScale(Money.SCALE, RoundingMode.HALF_UP));
+    }
+
+    private BigDecimal percent(long hundredths) {
+        return Money.toBigDecimal(hundredths).divide(HUNDRED);
+    }
+
+    private long randomSigned(long bound) {
+        long value = random.nextLong(bound + 1);
+        return random.nextBoolean() ? value : -value;
+    }
+
+}
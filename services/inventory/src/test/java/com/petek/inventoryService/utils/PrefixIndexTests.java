@@ -0,0 +1,162 @@
+package com.petek.inventoryService.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.petek.inventoryService.utils.PrefixIndex.Match;
+
+/**
+ * Any word start of a name is found by its prefix, Turkish letters folded, within the key budget.
+ */
+class PrefixIndexTests {
+
+    @Test
+    void everyWordStartIsAKey() {
+        PrefixIndex index = new PrefixIndex(100);
+        index.put(1L, "Sızma Zeytinyağı");
+        index.put(2L, "Zeytin");
+
+        assertThat(ids(index.find("zeyt", 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(index.find("sizma z", 10))).containsExactly(1L);
+        assertThat(ids(index.find("zeytinyag", 10))).containsExactly(1L);
+        assertThat(index.find("eyt", 10)).isEmpty();
+        assertThat(index.find("  ", 10)).isEmpty();
+        assertThat(index.find("zeyt", 10)).extracting(Match::getName)
+            .contains("Sızma Zeytinyağı");
+    }
+
+    @Test
+    void turkishLettersFoldToTheirBaseLetters() {
+        assertThat(PrefixIndex.normalize("İSTANBUL")).isEqualTo("istanbul");
+        assertThat(PrefixIndex.normalize("ISPARTA")).isEqualTo("isparta");
+        assertThat(PrefixIndex.normalize("ısparta")).isEqualTo("isparta");
+        assertThat(PrefixIndex.normalize(" Şeker Dağı ")).isEqualTo("seker dagi");
+        assertThat(PrefixIndex.normalize("ÇÖĞÜŞ")).isEqualTo("cogus");
+
+        PrefixIndex index = new PrefixIndex(100);
+        index.put(1L, "Isparta Gülü");
+        index.put(2L, "İzmir Şeftalisi");
+        index.put(3L, "Dağ Çileği");
+
+        assertThat(ids(index.find("isp", 10))).containsExactly(1L);
+        assertThat(ids(index.find("ISP", 10))).containsExactly(1L);
+        assertThat(ids(index.find("ıSP", 10))).containsExactly(1L);
+        assertThat(ids(index.find("gul", 10))).containsExactly(1L);
+        assertThat(ids(index.find("İZM", 10))).containsExactly(2L);
+        assertThat(ids(index.find("seft", 10))).containsExactly(2L);
+        assertThat(ids(index.find("dag", 10))).containsExactly(3L);
+        assertThat(ids(index.find("çile", 10))).containsExactly(3L);
+    }
+
+    @Test
+    void removedAndRenamedNamesLeaveNoKeys() {
+        PrefixIndex index = new PrefixIndex(100);
+        index.put(1L, "Kuru Kayısı");
+        index.put(2L, "Kuru İncir");
+
+        index.put(1L, "Taze Kayısı");
+        assertThat(ids(index.find("kuru", 10))).containsExactly(2L);
+        assertThat(ids(index.find("taze", 10))).containsExactly(1L);
+
+        index.remove(2L);
+        assertThat(index.find("kuru", 10)).isEmpty();
+        assertThat(index.find("incir", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.keyCount()).isEqualTo(2);
+
+        // A rebuild reading the removed row from an older snapshot does not bring it back
+        assertThat(index.putIfAbsent(2L, "Kuru İncir")).isTrue();
+        assertThat(index.find("incir", 10)).isEmpty();
+
+        index.remove(1L);
+        assertThat(index.keyCount()).isZero();
+        assertThat(index.estimatedBytes()).isZero();
+    }
+
+    @Test
+    void namesBeyondTheKeyBudgetAreRejected() {
+        PrefixIndex index = new PrefixIndex(3);
+
+        assertThat(index.put(1L, "Beyaz Peynir")).isTrue();
+        assertThat(index.put(2L, "Kaşar Peyniri")).isFalse();
+        assertThat(index.put(3L, "Lor")).isTrue();
+        assertThat(index.put(4L, "Tulum")).isFalse();
+
+        assertThat(index.keyCount()).isEqualTo(3);
+        assertThat(ids(index.find("pey", 10))).containsExactly(1L);
+        assertThat(index.find("kas", 10)).isEmpty();
+
+        // Freed keys can be used again
+        index.remove(3L);
+        assertThat(index.put(4L, "Tulum")).isTrue();
+    }
+
+    @Test
+    void findStopsAtTheLimitInKeyOrder() {
+        PrefixIndex index = new PrefixIndex(100);
+        index.put(1L, "Elma Suyu");
+        index.put(2L, "Elma");
+        index.put(3L, "Elmas Kesme");
+
+        // Keys compare by text: "elma\0", "elma suyu\0", "elmas kesme\0"
+        assertThat(ids(index.find("elma", 2))).containsExactly(2L, 1L);
+        assertThat(ids(index.find("elma", 10))).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void randomNamesMatchAWordScan() {
+        Random random = new Random(20261017L);
+        String[] words = { "Çay", "çam", "Şeker", "şekerli", "İnce", "ılık", "Irmak", "dağ", "Dal", "gül", "Güz", "su" };
+        PrefixIndex index = new PrefixIndex(1_000_000);
+        Map<Long, String> live = new HashMap<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            long id = random.nextInt(300);
+            if (random.nextInt(5) == 0) {
+                index.remove(id);
+                live.remove(id);
+            } else {
+                StringBuilder name = new StringBuilder();
+                for (int w = 1 + random.nextInt(3); w > 0; w--) {
+                    name.append(words[random.nextInt(words.length)]).append(w > 1 ? " " : "");
+                }
+                index.put(id, name.toString());
+                live.put(id, name.toString());
+            }
+
+            if (i % 50 == 0) {
+                String word = words[random.nextInt(words.length)];
+                String prefix = word.substring(0, 1 + random.nextInt(word.length()));
+                assertThat(ids(index.find(prefix, Integer.MAX_VALUE)))
+                    .as("prefix %s", prefix)
+                    .containsExactlyInAnyOrderElementsOf(scan(live, prefix));
+            }
+        }
+    }
+
+    // Ids with a word of the normalized name starting with the normalized prefix
+    private List<Long> scan(Map<Long, String> names, String prefix) {
+        String normalized = PrefixIndex.normalize(prefix);
+        return names.entrySet().stream()
+            .filter(entry -> {
+                String name = PrefixIndex.normalize(entry.getValue());
+                for (String word : name.split(" ")) {
+                    if (word.startsWith(normalized)) return true;
+                }
+                return false;
+            })
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    private List<Long> ids(List<Match> matches) {
+        return matches.stream().map(Match::getId).toList();
+    }
+
+}
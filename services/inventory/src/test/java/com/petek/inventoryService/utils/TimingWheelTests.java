@@ -0,0 +1,120 @@
+package com.petek.inventoryService.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Every id comes due on the first advance that reaches its deadline, whatever level it was placed on.
+ */
+class TimingWheelTests {
+
+    // 8 buckets: levels span 1, 8 and 64 ticks, the top level reaches 512 ticks ahead
+    private static final int WHEEL_SIZE = 8;
+    private static final long START = 1_000_000;
+
+    @Test
+    void deadlinesCascadeThroughAllThreeLevels() {
+        TimingWheel wheel = new TimingWheel(1, WHEEL_SIZE, START);
+        long deadline = START + 64 + 8 + 3;
+        assertThat(wheel.add(1, deadline)).isTrue();
+
+        for (long now = START + 1; now < deadline; now++) {
+            assertThat(wheel.advance(now)).as("tick %d", now - START).isEmpty();
+        }
+        assertThat(wheel.advance(deadline)).containsExactly(1L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesAlreadyDueAreRejected() {
+        TimingWheel wheel = new TimingWheel(1, WHEEL_SIZE, START);
+
+        assertThat(wheel.add(1, START)).isFalse();
+        assertThat(wheel.add(2, START - 1_000)).isFalse();
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advance(START + 1)).isEmpty();
+    }
+
+    @Test
+    void deadlinesBeyondTheTopLevelFireOnTime() {
+        TimingWheel wheel = new TimingWheel(1, WHEEL_SIZE, START);
+        long deadline = START + 100 * 512 + 17;
+        wheel.add(1, deadline);
+
+        assertThat(wheel.advance(deadline - 1)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(deadline)).containsExactly(1L);
+    }
+
+    @Test
+    void deadlinesRoundUpToTheNextTick() {
+        TimingWheel wheel = new TimingWheel(1_000, WHEEL_SIZE, 10_000);
+        wheel.add(1, 11_500);
+
+        assertThat(wheel.advance(11_999)).isEmpty();
+        assertThat(wheel.advance(12_000)).containsExactly(1L);
+    }
+
+    @Test
+    void cancelledAndRescheduledIdsFireOnce() {
+        TimingWheel wheel = new TimingWheel(1, WHEEL_SIZE, START);
+        wheel.add(1, START + 10);
+        wheel.add(2, START + 10);
+        wheel.cancel(2);
+        wheel.add(1, START + 300);
+
+        assertThat(wheel.advance(START + 299)).isEmpty();
+        assertThat(wheel.advance(START + 300)).containsExactly(1L);
+    }
+
+    @Test
+    void randomScheduleMatchesDeadlines() {
+        Random random = new Random(20261017L);
+
+        for (int round = 0; round < 20; round++) {
+            TimingWheel wheel = new TimingWheel(1, WHEEL_SIZE, START);
+            Map<Long, Long> pending = new HashMap<>();
+            long now = START;
+
+            for (long id = 0; id < 2_000; id++) {
+                // Already due, every level and far beyond the top one
+                long deadline = now - 5 + random.nextLong(2_000);
+                if (wheel.add(id, deadline)) {
+                    pending.put(id, deadline);
+                } else {
+                    assertThat(deadline).isLessThanOrEqualTo(now);
+                }
+
+                if (random.nextInt(10) == 0) {
+                    now += 1 + random.nextInt(40);
+                    assertThat(wheel.advance(now)).containsExactlyInAnyOrderElementsOf(due(pending, now));
+                }
+            }
+
+            while (!pending.isEmpty()) {
+                now += 1 + random.nextInt(40);
+                assertThat(wheel.advance(now)).containsExactlyInAnyOrderElementsOf(due(pending, now));
+            }
+            assertThat(wheel.size()).isZero();
+        }
+    }
+
+    // Removes and returns the ids due at now
+    private List<Long> due(Map<Long, Long> pending, long now) {
+        List<Long> due = new ArrayList<>();
+        pending.entrySet().removeIf(entry -> {
+            if (entry.getValue() > now) return false;
+            due.add(entry.getKey());
+            return true;
+        });
+        return due;
+    }
+
+}